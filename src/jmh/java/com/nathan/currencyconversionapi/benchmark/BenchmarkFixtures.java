@@ -0,0 +1,104 @@
+package com.nathan.currencyconversionapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nathan.currencyconversionapi.audit.AuditJournal;
+import com.nathan.currencyconversionapi.cache.RateSnapshotCache;
+import com.nathan.currencyconversionapi.cache.TestRateSnapshotCaches;
+import com.nathan.currencyconversionapi.history.RateHistoryStore;
+import com.nathan.currencyconversionapi.metrics.ConversionMetrics;
+import com.nathan.currencyconversionapi.model.ExchangeRateApiResponse;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import com.nathan.currencyconversionapi.service.CurrencyConversionServiceImpl;
+import com.nathan.currencyconversionapi.support.StubRateProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.RoundingMode;
+import java.time.Duration;
+
+/**
+ * Shared fixtures for the benchmarks: recorded ExchangeRate API responses with about 160 currencies,
+ * and a conversion service wired like the application but backed by a stubbed client.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * @param base The base currency of a recorded response (USD, EUR, GBP or JPY)
+     * @return The raw JSON of the recorded response
+     */
+    static byte[] responseJson(String base) {
+        try (InputStream in = BenchmarkFixtures.class.getResourceAsStream("/fixtures/exchangerate-latest-" + base + ".json")) {
+            if (in == null) {
+                throw new IllegalStateException("Missing fixture for " + base);
+            }
+            return in.readAllBytes();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * @param base The base currency of a recorded response
+     * @return The recorded response
+     */
+    static ExchangeRateApiResponse response(String base) {
+        try {
+            return new ObjectMapper().readValue(responseJson(base), ExchangeRateApiResponse.class);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * @return A registry that denies every meter, so instrumented code records into no-op meters
+     */
+    static MeterRegistry noopRegistry() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        registry.config().meterFilter(MeterFilter.deny());
+        return registry;
+    }
+
+    /**
+     * Creates a conversion service whose client answers from the recorded responses without any network call.
+     * The cache keeps snapshots for a day, so the measured path is the cache hit a real instance serves.
+     * The history store and the audit journal are left disabled.
+     *
+     * @param triangulation Whether conversions are derived from the USD snapshot
+     * @return The conversion service
+     */
+    static CurrencyConversionServiceImpl conversionService(boolean triangulation) {
+        return conversionService(triangulation, noopRegistry());
+    }
+
+    /**
+     * Creates a conversion service like {@link #conversionService(boolean)} that records its metrics to a registry.
+     *
+     * @param triangulation Whether conversions are derived from the USD snapshot
+     * @param meterRegistry The registry the metrics are recorded to
+     * @return The conversion service
+     */
+    static CurrencyConversionServiceImpl conversionService(boolean triangulation, MeterRegistry meterRegistry) {
+        ConversionMetrics metrics = new ConversionMetrics(meterRegistry);
+        RateSnapshotCache cache = TestRateSnapshotCaches.builder(new StubRateProvider(base -> RateTable.from(response(base))))
+                .maxEntries(256)
+                .defaultTtl(Duration.ofDays(1))
+                .maxStaleness(Duration.ofDays(1))
+                .build();
+
+        CurrencyConversionServiceImpl service = new CurrencyConversionServiceImpl(cache, new RateHistoryStore(cache), metrics,
+                new AuditJournal());
+        ReflectionTestUtils.setField(service, "triangulationEnabled", triangulation);
+        ReflectionTestUtils.setField(service, "pivotCurrency", "USD");
+        ReflectionTestUtils.setField(service, "batchChunkSize", 256);
+        ReflectionTestUtils.setField(service, "roundingMode", RoundingMode.HALF_EVEN);
+        return service;
+    }
+}
@@ -0,0 +1,54 @@
+package com.nathan.currencyconversionapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.nathan.currencyconversionapi.model.ConversionResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding a {@link ConversionResult} with an ObjectMapper configured like Spring Boot's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ConversionResultSerializationBenchmark {
+
+    private ObjectWriter writer;
+    private ConversionResult result;
+
+    @Setup
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json().build().writerFor(ConversionResult.class);
+        result = ConversionResult.builder()
+                .sourceCurrency("USD")
+                .targetCurrency("EUR")
+                .sourceAmount(100.0)
+                .targetAmount(91.68)
+                .exchangeRate(0.9168)
+                .timestamp(LocalDateTime.now())
+                .rateTimestamp(Instant.ofEpochSecond(1792108801L))
+                .build();
+    }
+
+    @Benchmark
+    public byte[] writeResult() throws JsonProcessingException {
+        return writer.writeValueAsBytes(result);
+    }
+}
@@ -0,0 +1,53 @@
+package com.nathan.currencyconversionapi.benchmark;
+
+import com.nathan.currencyconversionapi.model.ConversionRequest;
+import com.nathan.currencyconversionapi.model.ConversionResult;
+import com.nathan.currencyconversionapi.service.CurrencyConversionServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CurrencyConversionServiceImpl#convertCurrency(ConversionRequest)} on a warm cache,
+ * i.e. validation, snapshot resolution, rate lookup and result building, without any network call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ConversionServiceBenchmark {
+
+    /**
+     * Whether rates are derived from the USD snapshot instead of the source currency's snapshot
+     */
+    @Param({"false", "true"})
+    public boolean triangulation;
+
+    private CurrencyConversionServiceImpl service;
+    private ConversionRequest request;
+
+    @Setup
+    public void setUp() {
+        service = BenchmarkFixtures.conversionService(triangulation);
+        request = new ConversionRequest("EUR", "JPY", 100.0);
+        // Warm the cache so every invocation is a hit
+        service.convertCurrency(request).block();
+    }
+
+    @Benchmark
+    public ConversionResult convertCurrency() {
+        return service.convertCurrency(request).block();
+    }
+}
@@ -0,0 +1,70 @@
+package com.nathan.currencyconversionapi.benchmark;
+
+import com.nathan.currencyconversionapi.model.ConversionRequest;
+import com.nathan.currencyconversionapi.model.ConversionResult;
+import com.nathan.currencyconversionapi.model.FanOutConversionResult;
+import com.nathan.currencyconversionapi.service.CurrencyConversionServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares converting one amount to many currencies with
+ * {@link CurrencyConversionServiceImpl#convertToAll(String, Double, List)} against one
+ * {@link CurrencyConversionServiceImpl#convertCurrency(ConversionRequest)} per target, on a warm cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FanOutConversionBenchmark {
+
+    /**
+     * Number of target currencies, or 0 for every currency of the snapshot
+     */
+    @Param({"20", "0"})
+    public int targets;
+
+    private CurrencyConversionServiceImpl service;
+    private List<String> symbols;
+    private List<ConversionRequest> requests;
+
+    @Setup
+    public void setUp() {
+        service = BenchmarkFixtures.conversionService(false);
+        List<String> all = new ArrayList<>(service.convertToAll("USD", 100.0, List.of()).block().getAmounts().keySet());
+        symbols = targets > 0 ? all.subList(0, Math.min(targets, all.size())) : List.of();
+        requests = new ArrayList<>();
+        for (String symbol : targets > 0 ? symbols : all) {
+            requests.add(new ConversionRequest("USD", symbol, 100.0));
+        }
+    }
+
+    @Benchmark
+    public FanOutConversionResult toAll() {
+        return service.convertToAll("USD", 100.0, symbols).block();
+    }
+
+    @Benchmark
+    public void oneByOne(Blackhole blackhole) {
+        for (ConversionRequest request : requests) {
+            ConversionResult result = service.convertCurrency(request).block();
+            blackhole.consume(result);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.nathan.currencyconversionapi.benchmark;
+
+import com.nathan.currencyconversionapi.model.ConversionRequest;
+import com.nathan.currencyconversionapi.model.ConversionResult;
+import com.nathan.currencyconversionapi.service.CurrencyConversionServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the conversion metrics on a warm cache by comparing a service recording into
+ * no-op meters with one recording into the Prometheus registry used in production.
+ * Runs with several threads, as contention on the histograms is what would make the overhead grow.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(4)
+public class MetricsOverheadBenchmark {
+
+    /**
+     * Registry the service records to: "noop" denies every meter, "prometheus" records them
+     */
+    @Param({"noop", "prometheus"})
+    public String registry;
+
+    private CurrencyConversionServiceImpl service;
+    private ConversionRequest request;
+
+    @Setup
+    public void setUp() {
+        MeterRegistry meterRegistry = "prometheus".equals(registry)
+                ? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)
+                : BenchmarkFixtures.noopRegistry();
+        service = BenchmarkFixtures.conversionService(false, meterRegistry);
+        request = new ConversionRequest("EUR", "JPY", 100.0);
+        service.convertCurrency(request).block();
+    }
+
+    @Benchmark
+    public ConversionResult convertCurrency() {
+        return service.convertCurrency(request).block();
+    }
+}
@@ -0,0 +1,83 @@
+package com.nathan.currencyconversionapi.benchmark;
+
+import com.nathan.currencyconversionapi.money.FixedPointMoney;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures converting an amount at a cross rate and rounding it to the target's minor unit, comparing
+ * the former boxed {@code Double} arithmetic, {@link BigDecimal} and the scaled longs of {@link FixedPointMoney}.
+ * The amount is rebuilt per invocation from a request-like double, as it is on the conversion path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MoneyArithmeticBenchmark {
+
+    /**
+     * Amount to convert; the second one is large enough to need the 128-bit division
+     */
+    @Param({"1234.56", "98765432109.87"})
+    private double amount;
+
+    private RateTable rateTable;
+    private int sourceId;
+    private int targetId;
+    private int sourceMinorUnits;
+    private int targetMinorUnits;
+    private BigDecimal sourceRate;
+    private BigDecimal targetRate;
+
+    @Setup
+    public void setUp() {
+        rateTable = RateTable.from(BenchmarkFixtures.response("USD"));
+        sourceId = CurrencyIndex.idOf("EUR");
+        targetId = CurrencyIndex.idOf("JPY");
+        sourceMinorUnits = CurrencyIndex.minorUnits(sourceId);
+        targetMinorUnits = CurrencyIndex.minorUnits(targetId);
+        sourceRate = BigDecimal.valueOf(rateTable.rate(sourceId));
+        targetRate = BigDecimal.valueOf(rateTable.rate(targetId));
+    }
+
+    @Benchmark
+    public Double boxedDouble() {
+        Double requested = amount;
+        Double exchangeRate = rateTable.crossRate(sourceId, targetId);
+        return requested * exchangeRate;
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        return BigDecimal.valueOf(amount)
+                .setScale(sourceMinorUnits, RoundingMode.HALF_EVEN)
+                .multiply(targetRate)
+                .divide(sourceRate, MathContext.DECIMAL128)
+                .setScale(targetMinorUnits, RoundingMode.HALF_EVEN);
+    }
+
+    @Benchmark
+    public long fixedPoint() {
+        long minorUnits = FixedPointMoney.toMinorUnits(amount, sourceMinorUnits, RoundingMode.HALF_EVEN);
+        return FixedPointMoney.convert(minorUnits, sourceMinorUnits, rateTable.scaledRate(sourceId),
+                targetMinorUnits, rateTable.scaledRate(targetId), RoundingMode.HALF_EVEN);
+    }
+}
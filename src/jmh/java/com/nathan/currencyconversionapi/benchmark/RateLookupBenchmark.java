@@ -0,0 +1,60 @@
+package com.nathan.currencyconversionapi.benchmark;
+
+import com.nathan.currencyconversionapi.model.ExchangeRateApiResponse;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures resolving a cross rate from request currency codes, comparing the String-keyed map
+ * of the API response with the {@link RateTable} used on the conversion path.
+ * The codes are built per invocation, as they are when parsed from a request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RateLookupBenchmark {
+
+    private Map<String, Double> rateMap;
+    private RateTable rateTable;
+    private char[] source;
+    private char[] target;
+
+    @Setup
+    public void setUp() {
+        ExchangeRateApiResponse response = BenchmarkFixtures.response("USD");
+        rateMap = response.getRates();
+        rateTable = RateTable.from(response);
+        source = "eur".toCharArray();
+        target = "jpy".toCharArray();
+    }
+
+    @Benchmark
+    public double mapLookup() {
+        String sourceCode = new String(source).toUpperCase();
+        String targetCode = new String(target).toUpperCase();
+        return rateMap.get(targetCode) / rateMap.get(sourceCode);
+    }
+
+    @Benchmark
+    public double tableLookup() {
+        String sourceCode = new String(source).toUpperCase();
+        String targetCode = new String(target).toUpperCase();
+        return rateTable.crossRate(CurrencyIndex.idOf(sourceCode), CurrencyIndex.idOf(targetCode));
+    }
+}
@@ -0,0 +1,83 @@
+package com.nathan.currencyconversionapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.nathan.currencyconversionapi.client.RateTableDecoder;
+import com.nathan.currencyconversionapi.model.ExchangeRateApiResponse;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding a realistic ExchangeRate API response of about 160 currencies,
+ * alone and followed by the conversion into the {@link RateTable} the cache stores,
+ * against the streaming {@link RateTableDecoder} fed the body in network-sized chunks as the client does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ResponseDeserializationBenchmark {
+
+    /**
+     * Size of the body chunks handed to the streaming decoder, like the reads of an HTTP connection
+     */
+    private static final int CHUNK_SIZE = 1024;
+
+    private static final ResolvableType RATE_TABLE_TYPE = ResolvableType.forClass(RateTable.class);
+
+    private ObjectReader reader;
+    private RateTableDecoder decoder;
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        reader = new ObjectMapper().readerFor(ExchangeRateApiResponse.class);
+        decoder = new RateTableDecoder();
+        json = BenchmarkFixtures.responseJson("USD");
+    }
+
+    @Benchmark
+    public ExchangeRateApiResponse readResponse() throws IOException {
+        return reader.readValue(json);
+    }
+
+    @Benchmark
+    public RateTable readRateTable() throws IOException {
+        return RateTable.from(reader.readValue(json));
+    }
+
+    @Benchmark
+    public RateTable streamRateTable() {
+        return decoder.decodeToMono(chunks(), RATE_TABLE_TYPE, MediaType.APPLICATION_JSON, null).block();
+    }
+
+    private Flux<DataBuffer> chunks() {
+        DataBuffer[] chunks = new DataBuffer[(json.length + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        for (int i = 0; i < chunks.length; i++) {
+            int offset = i * CHUNK_SIZE;
+            chunks[i] = DefaultDataBufferFactory.sharedInstance.wrap(
+                    ByteBuffer.wrap(json, offset, Math.min(CHUNK_SIZE, json.length - offset)));
+        }
+        return Flux.fromArray(chunks);
+    }
+}
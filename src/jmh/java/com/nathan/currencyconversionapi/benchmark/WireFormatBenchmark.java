@@ -0,0 +1,106 @@
+package com.nathan.currencyconversionapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.nathan.currencyconversionapi.codec.BinaryFormats;
+import com.nathan.currencyconversionapi.model.ConversionResult;
+import com.nathan.currencyconversionapi.model.RateUpdate;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the wire formats of the API: JSON with an ObjectMapper configured like Spring Boot's, against
+ * CBOR and Smile with the mappers of {@link BinaryFormats}. Encodes and decodes a {@link ConversionResult}
+ * and a 160-currency rate table; the payload sizes of each format are printed when the benchmark is set up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class WireFormatBenchmark {
+
+    /**
+     * Wire format under test
+     */
+    @Param({"JSON", "CBOR", "SMILE"})
+    public String format;
+
+    private ObjectWriter resultWriter;
+    private ObjectReader resultReader;
+    private ObjectWriter tableWriter;
+    private ObjectReader tableReader;
+    private ConversionResult result;
+    private RateUpdate table;
+    private byte[] encodedResult;
+    private byte[] encodedTable;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = switch (format) {
+            case "CBOR" -> BinaryFormats.CBOR_MAPPER;
+            case "SMILE" -> BinaryFormats.SMILE_MAPPER;
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        resultWriter = mapper.writerFor(ConversionResult.class);
+        resultReader = mapper.readerFor(ConversionResult.class);
+        tableWriter = mapper.writerFor(RateUpdate.class);
+        tableReader = mapper.readerFor(RateUpdate.class);
+
+        result = ConversionResult.builder()
+                .sourceCurrency("USD")
+                .targetCurrency("EUR")
+                .sourceAmount(100.0)
+                .targetAmount(91.68)
+                .exchangeRate(0.9168)
+                .timestamp(LocalDateTime.now())
+                .rateTimestamp(Instant.ofEpochSecond(1792108801L))
+                .build();
+        RateTable snapshot = RateTable.from(BenchmarkFixtures.response("USD"));
+        table = new RateUpdate(snapshot.getBaseCurrency(), snapshot.getLastUpdateEpochSecond(),
+                snapshot.getNextUpdateEpochSecond(), snapshot.toMap());
+
+        encodedResult = resultWriter.writeValueAsBytes(result);
+        encodedTable = tableWriter.writeValueAsBytes(table);
+        System.out.printf("%n%s payloads: conversion result %d bytes, rate table %d bytes%n",
+                format, encodedResult.length, encodedTable.length);
+    }
+
+    @Benchmark
+    public byte[] encodeResult() throws IOException {
+        return resultWriter.writeValueAsBytes(result);
+    }
+
+    @Benchmark
+    public ConversionResult decodeResult() throws IOException {
+        return resultReader.readValue(encodedResult);
+    }
+
+    @Benchmark
+    public byte[] encodeRateTable() throws IOException {
+        return tableWriter.writeValueAsBytes(table);
+    }
+
+    @Benchmark
+    public RateUpdate decodeRateTable() throws IOException {
+        return tableReader.readValue(encodedTable);
+    }
+}
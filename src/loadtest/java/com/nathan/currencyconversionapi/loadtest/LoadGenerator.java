@@ -0,0 +1,199 @@
+package com.nathan.currencyconversionapi.loadtest;
+
+import io.netty.handler.codec.http.HttpMethod;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufMono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: requests are sent at a constant arrival rate whatever the response times,
+ * as independent clients would, instead of waiting for a response before sending the next request.
+ *
+ * <p>Each request has an intended start time on the schedule. Latency is recorded both from the actual
+ * send time and from the intended start time; the latter includes the time a request would have waited
+ * behind a stalled sender, which corrects for coordinated omission.
+ *
+ * <p>Requests can be spread over several clients, each sending its own API key, so per-client rate limits
+ * see as many clients as configured.
+ */
+public class LoadGenerator implements AutoCloseable {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    /**
+     * Header carrying the API key of the simulated client
+     */
+    private static final String CLIENT_KEY_HEADER = "X-API-Key";
+
+    private final HttpClient httpClient;
+    private final ConnectionProvider connectionProvider;
+    private final String clientKeyPrefix;
+    private final int clients;
+
+    /**
+     * @param baseUrl Base URL of the service under test
+     * @param maxConnections Maximum number of connections open to the service
+     */
+    public LoadGenerator(String baseUrl, int maxConnections) {
+        this(baseUrl, maxConnections, null, 1);
+    }
+
+    /**
+     * @param baseUrl Base URL of the service under test
+     * @param maxConnections Maximum number of connections open to the service
+     * @param clientKeyPrefix Prefix of the API keys sent, null to send none
+     * @param clients Number of clients the requests are spread over, in turn
+     */
+    public LoadGenerator(String baseUrl, int maxConnections, String clientKeyPrefix, int clients) {
+        this.clientKeyPrefix = clientKeyPrefix;
+        this.clients = Math.max(1, clients);
+        this.connectionProvider = ConnectionProvider.builder("loadtest")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMinutes(1))
+                .build();
+        this.httpClient = HttpClient.create(connectionProvider)
+                .baseUrl(baseUrl)
+                .responseTimeout(Duration.ofSeconds(30));
+    }
+
+    /**
+     * Sends requests at a constant rate, cycling through the given requests, and waits for the outstanding ones.
+     *
+     * @param requests The requests to send, in turn
+     * @param ratePerSecond The arrival rate
+     * @param duration How long requests are sent
+     * @return The measured throughput, latencies and statuses
+     */
+    public Result run(List<Request> requests, double ratePerSecond, Duration duration) {
+        Histogram corrected = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        Histogram uncorrected = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        LongAdder failures = new LongAdder();
+        AtomicLong outstanding = new AtomicLong();
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long count = (long) (ratePerSecond * duration.toNanos() / TimeUnit.SECONDS.toNanos(1));
+        long start = System.nanoTime();
+
+        for (long i = 0; i < count; i++) {
+            long intended = start + i * intervalNanos;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Request request = requests.get((int) (i % requests.size()));
+            String clientKey = clientKeyPrefix == null ? null : clientKeyPrefix + "-" + (i % clients);
+            long sent = System.nanoTime();
+            outstanding.incrementAndGet();
+            send(request, clientKey).subscribe(
+                    status -> {
+                        long end = System.nanoTime();
+                        corrected.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (end - intended) / 1000));
+                        uncorrected.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (end - sent) / 1000));
+                        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+                        outstanding.decrementAndGet();
+                    },
+                    error -> {
+                        failures.increment();
+                        outstanding.decrementAndGet();
+                    });
+        }
+
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        Map<Integer, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, adder) -> statusCounts.put(status, adder.sum()));
+        return new Result(ratePerSecond, count, corrected.getTotalCount() / elapsedSeconds,
+                Latencies.of(corrected), Latencies.of(uncorrected), statusCounts, failures.sum(), outstanding.get());
+    }
+
+    /**
+     * @return The response status of the request, after the body was fully read
+     */
+    private Mono<Integer> send(Request request, String clientKey) {
+        return httpClient
+                .headers(headers -> {
+                    if (request.contentType() != null) {
+                        headers.set("Content-Type", request.contentType());
+                    }
+                    if (clientKey != null) {
+                        headers.set(CLIENT_KEY_HEADER, clientKey);
+                    }
+                    headers.set("Accept", request.accept());
+                })
+                .request(request.method())
+                .uri(request.uri())
+                .send(request.body() == null ? Mono.empty() : ByteBufMono.fromString(Mono.just(request.body())))
+                .responseSingle((response, body) -> body.asByteArray()
+                        .thenReturn(response.status().code()));
+    }
+
+    @Override
+    public void close() {
+        connectionProvider.disposeLater().block(Duration.ofSeconds(10));
+    }
+
+    /**
+     * One request of the load.
+     *
+     * @param name Name of the scenario the request belongs to
+     * @param method HTTP method
+     * @param uri Path and query
+     * @param contentType Content type of the body, null without body
+     * @param accept Accepted media type
+     * @param body Request body, null without body
+     */
+    public record Request(String name, HttpMethod method, String uri, String contentType, String accept, String body) {
+    }
+
+    /**
+     * Latency percentiles, in microseconds.
+     */
+    public record Latencies(long p50, long p90, long p99, long p999, long max, double mean) {
+
+        static Latencies of(Histogram histogram) {
+            return new Latencies(
+                    histogram.getValueAtPercentile(50),
+                    histogram.getValueAtPercentile(90),
+                    histogram.getValueAtPercentile(99),
+                    histogram.getValueAtPercentile(99.9),
+                    histogram.getMaxValue(),
+                    histogram.getMean());
+        }
+    }
+
+    /**
+     * Outcome of a run.
+     *
+     * @param targetRate Requested arrival rate, per second
+     * @param sent Number of requests sent
+     * @param throughput Completed requests per second
+     * @param corrected Latencies from the intended start times, corrected for coordinated omission
+     * @param uncorrected Latencies from the actual send times
+     * @param statuses Number of responses by HTTP status
+     * @param failures Number of requests without a response (connection errors, timeouts)
+     * @param unfinished Number of requests still outstanding when the run ended
+     */
+    public record Result(double targetRate, long sent, double throughput, Latencies corrected, Latencies uncorrected,
+                         Map<Integer, Long> statuses, long failures, long unfinished) {
+    }
+}
@@ -0,0 +1,239 @@
+package com.nathan.currencyconversionapi.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.nathan.currencyconversionapi.CurrencyConversionApiApplication;
+import com.nathan.currencyconversionapi.support.StubExchangeRateServer;
+import io.netty.handler.codec.http.HttpMethod;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Runs a load test against the conversion endpoints and prints throughput and latency percentiles.
+ *
+ * <p>Without a {@code target}, the application is started in-process against a {@link StubExchangeRateServer},
+ * so no call reaches the real ExchangeRate API. Arguments are {@code key=value} pairs:
+ * <ul>
+ *     <li>{@code target}: base URL of a running instance, otherwise an embedded one is started</li>
+ *     <li>{@code scenario}: {@code post}, {@code get}, {@code batch} or {@code mix} (default)</li>
+ *     <li>{@code rate}: requests per second (default 1000)</li>
+ *     <li>{@code duration} and {@code warmup}: ISO-8601 durations (default PT30S and PT10S)</li>
+ *     <li>{@code batch-size}: conversions per batch request (default 100)</li>
+ *     <li>{@code connections}: maximum connections to the service (default 256)</li>
+ *     <li>{@code clients}: number of well-behaved clients the load is spread over, each with its own API key
+ *         (default 100), so each stays below the per-client rate limit</li>
+ *     <li>{@code abuse-rate}: requests per second sent at the same time by one abusive client (default 0, none);
+ *         compare the well-behaved latencies with and without it to check admission control isolates them</li>
+ *     <li>{@code provider-latency}, {@code provider-jitter}, {@code provider-error-rate},
+ *         {@code provider-publish-every}: behaviour of the embedded provider stand-in</li>
+ *     <li>{@code report}: file the JSON report is written to (default target/loadtest-result.json)</li>
+ * </ul>
+ */
+public final class LoadTestRunner {
+
+    private static final String[][] PAIRS = {
+            {"USD", "EUR"}, {"EUR", "USD"}, {"GBP", "JPY"}, {"JPY", "GBP"}, {"USD", "CHF"},
+            {"EUR", "CAD"}, {"AUD", "USD"}, {"CNY", "EUR"}, {"CHF", "SEK"}, {"CAD", "MXN"}
+    };
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parse(args);
+        String scenario = options.getOrDefault("scenario", "mix");
+        double rate = Double.parseDouble(options.getOrDefault("rate", "1000"));
+        Duration duration = Duration.parse(options.getOrDefault("duration", "PT30S"));
+        Duration warmup = Duration.parse(options.getOrDefault("warmup", "PT10S"));
+        int batchSize = Integer.parseInt(options.getOrDefault("batch-size", "100"));
+        int connections = Integer.parseInt(options.getOrDefault("connections", "256"));
+        int clients = Integer.parseInt(options.getOrDefault("clients", "100"));
+        double abuseRate = Double.parseDouble(options.getOrDefault("abuse-rate", "0"));
+        Path report = Path.of(options.getOrDefault("report", "target/loadtest-result.json"));
+
+        StubExchangeRateServer provider = null;
+        ConfigurableApplicationContext application = null;
+        String target = options.get("target");
+        try {
+            if (target == null) {
+                provider = StubExchangeRateServer.start()
+                        .latency(Duration.parse(options.getOrDefault("provider-latency", "PT0.05S")))
+                        .latencyJitter(Duration.parse(options.getOrDefault("provider-jitter", "PT0.02S")))
+                        .errorRate(Double.parseDouble(options.getOrDefault("provider-error-rate", "0")))
+                        .publishEvery(Duration.parse(options.getOrDefault("provider-publish-every", "PT1M")));
+                application = startApplication(provider.baseUrl());
+                target = "http://127.0.0.1:" + application.getEnvironment().getProperty("local.server.port");
+            }
+
+            List<LoadGenerator.Request> requests = requests(scenario, batchSize);
+            System.out.printf(Locale.ROOT, "Load test: %s at %.0f req/s for %s (warmup %s) against %s%n",
+                    scenario, rate, duration, warmup, target);
+
+            AbusiveClient abuser = abuseRate > 0
+                    ? new AbusiveClient(target, connections, requests, abuseRate, warmup.plus(duration))
+                    : null;
+            try (LoadGenerator generator = new LoadGenerator(target, connections, "client", clients)) {
+                if (abuser != null) {
+                    System.out.printf(Locale.ROOT, "Abusive client sending %.0f req/s%n", abuseRate);
+                    abuser.start();
+                }
+                if (!warmup.isZero()) {
+                    generator.run(requests, rate, warmup);
+                }
+                LoadGenerator.Result result = generator.run(requests, rate, duration);
+                print(result);
+                LoadGenerator.Result abuse = null;
+                if (abuser != null) {
+                    abuse = abuser.join();
+                    System.out.println("Abusive client:");
+                    print(abuse);
+                }
+                write(report, scenario, result, abuse);
+            }
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+            if (provider != null) {
+                provider.close();
+            }
+        }
+    }
+
+    /**
+     * Starts the application on a random port, calling the provider stand-in and without writing to disk.
+     */
+    private static ConfigurableApplicationContext startApplication(String providerUrl) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("exchangerate.api.base-url", providerUrl);
+        properties.put("exchangerate.api.key", "loadtest");
+        properties.put("exchangerate.snapshot-store.enabled", false);
+        properties.put("exchangerate.history.enabled", false);
+        properties.put("exchangerate.audit.enabled", false);
+        properties.put("exchangerate.quota.enabled", false);
+        properties.put("exchangerate.admission.rate-limit.enabled", true);
+        properties.put("logging.level.com.nathan.currencyconversionapi", "WARN");
+        properties.put("logging.level.org.springframework.web.reactive.function.client.ExchangeFunctions", "WARN");
+        return new SpringApplicationBuilder(CurrencyConversionApiApplication.class)
+                .properties(properties)
+                .run();
+    }
+
+    private static List<LoadGenerator.Request> requests(String scenario, int batchSize) {
+        List<LoadGenerator.Request> requests = new ArrayList<>();
+        for (String[] pair : PAIRS) {
+            if (scenario.equals("post") || scenario.equals("mix")) {
+                requests.add(new LoadGenerator.Request("post", HttpMethod.POST, "/api/currency/convert",
+                        "application/json", "application/json", conversionJson(pair, 100.0)));
+            }
+            if (scenario.equals("get") || scenario.equals("mix")) {
+                requests.add(new LoadGenerator.Request("get", HttpMethod.GET,
+                        "/api/currency/convert/" + pair[0] + "/to/" + pair[1] + "?amount=100.0",
+                        null, "application/json", null));
+            }
+        }
+        if (scenario.equals("batch") || scenario.equals("mix")) {
+            StringBuilder body = new StringBuilder();
+            for (int i = 0; i < batchSize; i++) {
+                body.append(conversionJson(PAIRS[i % PAIRS.length], 1.0 + i)).append('\n');
+            }
+            requests.add(new LoadGenerator.Request("batch", HttpMethod.POST, "/api/currency/convert/batch",
+                    "application/x-ndjson", "application/x-ndjson", body.toString()));
+        }
+        if (requests.isEmpty()) {
+            throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        }
+        return requests;
+    }
+
+    private static String conversionJson(String[] pair, double amount) {
+        return String.format(Locale.ROOT, "{\"sourceCurrency\":\"%s\",\"targetCurrency\":\"%s\",\"amount\":%s}",
+                pair[0], pair[1], amount);
+    }
+
+    private static void print(LoadGenerator.Result result) {
+        System.out.printf(Locale.ROOT, "Sent %d requests, throughput %.1f req/s (target %.0f)%n",
+                result.sent(), result.throughput(), result.targetRate());
+        System.out.printf(Locale.ROOT, "%-12s %10s %10s %10s %10s %10s%n", "latency (us)", "p50", "p90", "p99", "p999", "max");
+        printLatencies("corrected", result.corrected());
+        printLatencies("uncorrected", result.uncorrected());
+        System.out.println("Statuses: " + result.statuses() + ", failures: " + result.failures()
+                + ", unfinished: " + result.unfinished());
+    }
+
+    private static void printLatencies(String label, LoadGenerator.Latencies latencies) {
+        System.out.printf(Locale.ROOT, "%-12s %10d %10d %10d %10d %10d%n", label,
+                latencies.p50(), latencies.p90(), latencies.p99(), latencies.p999(), latencies.max());
+    }
+
+    private static void write(Path report, String scenario, LoadGenerator.Result result, LoadGenerator.Result abuse)
+            throws IOException {
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("scenario", scenario);
+        document.put("result", result);
+        if (abuse != null) {
+            document.put("abuse", abuse);
+        }
+        if (report.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(report.toAbsolutePath().getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(), document);
+        System.out.println("Report written to " + report);
+    }
+
+    /**
+     * A single client flooding the service from its own thread, with one API key.
+     */
+    private static final class AbusiveClient {
+
+        private final LoadGenerator generator;
+        private final Thread thread;
+        private volatile LoadGenerator.Result result;
+
+        private AbusiveClient(String target, int connections, List<LoadGenerator.Request> requests,
+                              double rate, Duration duration) {
+            this.generator = new LoadGenerator(target, connections, "abuser", 1);
+            this.thread = new Thread(() -> result = generator.run(requests, rate, duration), "loadtest-abuser");
+            this.thread.setDaemon(true);
+        }
+
+        private void start() {
+            thread.start();
+        }
+
+        private LoadGenerator.Result join() {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                generator.close();
+            }
+            return result;
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
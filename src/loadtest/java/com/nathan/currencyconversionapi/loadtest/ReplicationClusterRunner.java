@@ -0,0 +1,180 @@
+package com.nathan.currencyconversionapi.loadtest;
+
+import com.nathan.currencyconversionapi.CurrencyConversionApiApplication;
+import com.nathan.currencyconversionapi.replication.LeaderElection;
+import com.nathan.currencyconversionapi.support.StubExchangeRateServer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Starts several instances on localhost replicating the snapshots of an elected leader, all calling one
+ * {@link StubExchangeRateServer}, and checks that only the leader calls the provider, before and after failover.
+ *
+ * <p>Conversions for a few base currencies are sent to every instance and the calls the provider received are
+ * counted: one per base currency, whichever instance the conversions reached. The leader is then stopped, and once
+ * a follower took over, a base currency nobody requested yet is converted on every remaining instance.
+ * The only argument is the number of instances (default 3).
+ */
+public final class ReplicationClusterRunner {
+
+    private static final List<String> BASES = List.of("USD", "EUR", "GBP", "JPY", "CHF");
+    private static final String NEW_BASE = "CAD";
+    private static final Duration ELECTION_DEADLINE = Duration.ofSeconds(30);
+
+    private static final HttpClient HTTP = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    private ReplicationClusterRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int instanceCount = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        List<Integer> ports = freePorts(instanceCount);
+        String peers = ports.stream().map(ReplicationClusterRunner::url).collect(Collectors.joining(","));
+
+        List<ConfigurableApplicationContext> instances = new ArrayList<>();
+        try (StubExchangeRateServer provider = StubExchangeRateServer.start()) {
+            try {
+                for (int port : ports) {
+                    instances.add(startInstance(provider.baseUrl(), port, peers));
+                }
+                ConfigurableApplicationContext leader = awaitLeader(instances);
+                System.out.println("Leader: " + leaderUrl(leader) + " of " + peers);
+
+                int before = provider.requestCount();
+                int failures = convertOnEvery(instances, BASES);
+                report("Before failover", provider.requestCount() - before, BASES.size(), failures);
+
+                String stopped = leaderUrl(leader);
+                leader.close();
+                instances.remove(leader);
+                long stoppedAt = System.nanoTime();
+                ConfigurableApplicationContext successor = awaitLeader(instances);
+                System.out.printf("Leader %s stopped, %s took over in %d ms%n", stopped, leaderUrl(successor),
+                        Duration.ofNanos(System.nanoTime() - stoppedAt).toMillis());
+
+                before = provider.requestCount();
+                failures = convertOnEvery(instances, BASES) + convertOnEvery(instances, List.of(NEW_BASE));
+                report("After failover", provider.requestCount() - before, 1, failures);
+            } finally {
+                instances.forEach(ConfigurableApplicationContext::close);
+            }
+        }
+    }
+
+    /**
+     * Starts an instance on a port, replicating among the peers and calling the provider stand-in, without writing
+     * to disk.
+     */
+    private static ConfigurableApplicationContext startInstance(String providerUrl, int port, String peers) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", port);
+        properties.put("exchangerate.api.base-url", providerUrl);
+        properties.put("exchangerate.api.key", "replication");
+        properties.put("exchangerate.snapshot-store.enabled", false);
+        properties.put("exchangerate.history.enabled", false);
+        properties.put("exchangerate.audit.enabled", false);
+        properties.put("exchangerate.quota.enabled", false);
+        properties.put("exchangerate.replication.enabled", true);
+        properties.put("exchangerate.replication.self-url", url(port));
+        properties.put("exchangerate.replication.peers", peers);
+        properties.put("exchangerate.replication.token", "replication-load-test");
+        properties.put("logging.level.com.nathan.currencyconversionapi", "WARN");
+        properties.put("logging.level.com.nathan.currencyconversionapi.replication", "INFO");
+        properties.put("logging.level.org.springframework.web.reactive.function.client.ExchangeFunctions", "WARN");
+        return new SpringApplicationBuilder(CurrencyConversionApiApplication.class)
+                .properties(properties)
+                .run();
+    }
+
+    /**
+     * Waits until a single instance leads and every other one follows it.
+     */
+    private static ConfigurableApplicationContext awaitLeader(List<ConfigurableApplicationContext> instances)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + ELECTION_DEADLINE.toNanos();
+        while (System.nanoTime() < deadline) {
+            List<ConfigurableApplicationContext> leaders = instances.stream()
+                    .filter(instance -> election(instance).isLeader())
+                    .toList();
+            if (leaders.size() == 1) {
+                String leader = leaderUrl(leaders.get(0));
+                if (instances.stream().allMatch(instance -> leader.equals(election(instance).getLeader()))) {
+                    return leaders.get(0);
+                }
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException("No leader elected within " + ELECTION_DEADLINE);
+    }
+
+    /**
+     * Converts from each base currency on every instance.
+     *
+     * @return The number of conversions that failed
+     */
+    private static int convertOnEvery(List<ConfigurableApplicationContext> instances, List<String> bases)
+            throws IOException, InterruptedException {
+        int failures = 0;
+        for (ConfigurableApplicationContext instance : instances) {
+            String port = instance.getEnvironment().getProperty("local.server.port");
+            for (String base : bases) {
+                String target = base.equals("USD") ? "EUR" : "USD";
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port
+                                + "/api/currency/convert/" + base + "/to/" + target + "?amount=100"))
+                        .timeout(Duration.ofSeconds(10))
+                        .build();
+                HttpResponse<String> response = HTTP.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    System.out.printf("%s -> %s on port %s failed with %d: %s%n", base, target, port,
+                            response.statusCode(), response.body());
+                    failures++;
+                }
+            }
+        }
+        return failures;
+    }
+
+    private static void report(String phase, int upstreamCalls, int expected, int failures) {
+        System.out.printf("%s: %d provider calls (expected %d), %d failed conversions -> %s%n", phase, upstreamCalls,
+                expected, failures, upstreamCalls == expected && failures == 0 ? "OK" : "FAILED");
+    }
+
+    private static LeaderElection election(ConfigurableApplicationContext instance) {
+        return instance.getBean(LeaderElection.class);
+    }
+
+    private static String leaderUrl(ConfigurableApplicationContext instance) {
+        return election(instance).getSelfUrl();
+    }
+
+    private static String url(int port) {
+        return "http://127.0.0.1:" + port;
+    }
+
+    private static List<Integer> freePorts(int count) throws IOException {
+        List<ServerSocket> sockets = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                sockets.add(new ServerSocket(0));
+            }
+            return sockets.stream().map(ServerSocket::getLocalPort).toList();
+        } finally {
+            for (ServerSocket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+}
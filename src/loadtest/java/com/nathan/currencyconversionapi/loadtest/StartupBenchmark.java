@@ -0,0 +1,231 @@
+package com.nathan.currencyconversionapi.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.nathan.currencyconversionapi.support.StubExchangeRateServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the startup time and first request latency of the runtime modes of the application.
+ *
+ * <p>Each run starts the application as a separate process, in an empty working directory, against a
+ * {@link StubExchangeRateServer}. It measures the time from launching the process to the first successful health
+ * check, then the latency of the first conversion, which fetches rates from the stand-in, and of a second one.
+ * Modes whose artifacts are missing are skipped:
+ * <ul>
+ *     <li>{@code jvm}: the executable jar ({@code mvn package})</li>
+ *     <li>{@code aot}: the same jar with Spring AOT enabled ({@code mvn -Pfast-startup package})</li>
+ *     <li>{@code cds}: the extracted jar with the CDS archive of the training run</li>
+ *     <li>{@code aot-cds}: both, the startup-optimized mode</li>
+ *     <li>{@code native}: the GraalVM native image ({@code mvn -Pnative native:compile})</li>
+ * </ul>
+ * Arguments are {@code key=value} pairs: {@code modes} (comma-separated, default all), {@code runs} per mode
+ * (default 5), {@code jar}, {@code extracted-jar}, {@code archive} and {@code native} to locate the artifacts, and
+ * {@code report} (default target/startup-result.json).
+ */
+public final class StartupBenchmark {
+
+    private static final String ARTIFACT = "currency-conversion-api-0.0.1-SNAPSHOT";
+    private static final Duration STARTUP_DEADLINE = Duration.ofMinutes(2);
+
+    private static final HttpClient HTTP = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        List<String> modes = Arrays.asList(options.getOrDefault("modes", "jvm,aot,cds,aot-cds,native").split(","));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        Path jar = Path.of(options.getOrDefault("jar", "target/" + ARTIFACT + ".jar")).toAbsolutePath();
+        Path extractedJar = Path.of(options.getOrDefault("extracted-jar", "target/cds/" + ARTIFACT + ".jar"))
+                .toAbsolutePath();
+        Path archive = Path.of(options.getOrDefault("archive", "target/cds/application.jsa")).toAbsolutePath();
+        Path nativeImage = Path.of(options.getOrDefault("native", "target/currency-conversion-api")).toAbsolutePath();
+        Path report = Path.of(options.getOrDefault("report", "target/startup-result.json"));
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        try (StubExchangeRateServer provider = StubExchangeRateServer.start()) {
+            // Initialize the HTTP client before any measurement
+            HTTP.send(HttpRequest.newBuilder(URI.create(provider.baseUrl())).build(), HttpResponse.BodyHandlers.discarding());
+
+            for (String mode : modes) {
+                List<String> command = switch (mode) {
+                    case "jvm" -> Files.isRegularFile(jar) ? List.of(java, "-jar", jar.toString()) : null;
+                    case "aot" -> Files.isRegularFile(jar)
+                            ? List.of(java, "-Dspring.aot.enabled=true", "-jar", jar.toString())
+                            : null;
+                    case "cds" -> Files.isRegularFile(extractedJar) && Files.isRegularFile(archive)
+                            ? List.of(java, "-XX:SharedArchiveFile=" + archive, "-jar", extractedJar.toString())
+                            : null;
+                    case "aot-cds" -> Files.isRegularFile(extractedJar) && Files.isRegularFile(archive)
+                            ? List.of(java, "-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true",
+                            "-jar", extractedJar.toString())
+                            : null;
+                    case "native" -> Files.isExecutable(nativeImage) ? List.of(nativeImage.toString()) : null;
+                    default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+                };
+                if (command == null) {
+                    System.out.println("Skipping " + mode + ": artifact not built");
+                    continue;
+                }
+
+                List<Sample> samples = new ArrayList<>();
+                for (int i = 0; i < runs; i++) {
+                    samples.add(run(mode, command, provider.baseUrl()));
+                }
+                Summary summary = Summary.of(samples);
+                print(mode, summary);
+                results.put(mode, summary);
+            }
+        }
+        write(report, results);
+    }
+
+    /**
+     * Starts the application once and measures its startup and first requests.
+     */
+    private static Sample run(String mode, List<String> command, String providerUrl)
+            throws IOException, InterruptedException {
+        int port = freePort();
+        Path directory = Files.createTempDirectory("startup-" + mode);
+        List<String> arguments = new ArrayList<>(command);
+        arguments.add("--server.port=" + port);
+        arguments.add("--exchangerate.api.base-url=" + providerUrl);
+        arguments.add("--exchangerate.api.key=startup");
+        arguments.add("--logging.level.com.nathan.currencyconversionapi=WARN");
+        arguments.add("--logging.level.org.springframework.web.reactive.function.client.ExchangeFunctions=WARN");
+
+        String baseUrl = "http://127.0.0.1:" + port;
+        long launchedAt = System.nanoTime();
+        Process process = new ProcessBuilder(arguments)
+                .directory(directory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(directory.resolve("output.log").toFile())
+                .start();
+        try {
+            long readyNanos = awaitReady(process, baseUrl + "/actuator/health", launchedAt, directory);
+            long firstRequestNanos = timeRequest(baseUrl + "/api/currency/convert/USD/to/EUR?amount=100");
+            long secondRequestNanos = timeRequest(baseUrl + "/api/currency/convert/USD/to/GBP?amount=100");
+            return new Sample(readyNanos / 1e6, firstRequestNanos / 1e6, secondRequestNanos / 1e6);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * Polls the health endpoint until it answers 200.
+     *
+     * @return The time from launching the process to the first successful health check
+     */
+    private static long awaitReady(Process process, String healthUrl, long launchedAt, Path directory)
+            throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(healthUrl)).timeout(Duration.ofSeconds(1)).build();
+        long deadline = launchedAt + STARTUP_DEADLINE.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue() + ", see "
+                        + directory.resolve("output.log"));
+            }
+            try {
+                if (HTTP.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return System.nanoTime() - launchedAt;
+                }
+            } catch (IOException ex) {
+                // Not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("Application not ready within " + STARTUP_DEADLINE + ", see "
+                + directory.resolve("output.log"));
+    }
+
+    private static long timeRequest(String url) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).build();
+        long start = System.nanoTime();
+        HttpResponse<String> response = HTTP.send(request, HttpResponse.BodyHandlers.ofString());
+        long elapsed = System.nanoTime() - start;
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(url + " failed with " + response.statusCode() + ": " + response.body());
+        }
+        return elapsed;
+    }
+
+    private static void print(String mode, Summary summary) {
+        System.out.printf(Locale.ROOT, "%-8s ready %7.0f ms (min %7.0f)   first request %7.1f ms (min %7.1f)"
+                        + "   second request %6.1f ms%n", mode, summary.readyMedianMillis(), summary.readyMinMillis(),
+                summary.firstRequestMedianMillis(), summary.firstRequestMinMillis(), summary.secondRequestMedianMillis());
+    }
+
+    private static void write(Path report, Map<String, Object> results) throws IOException {
+        if (report.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(report.toAbsolutePath().getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(), results);
+        System.out.println("Report written to " + report);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    /**
+     * Measurements of one run, in milliseconds.
+     */
+    private record Sample(double readyMillis, double firstRequestMillis, double secondRequestMillis) {
+    }
+
+    /**
+     * Median and minimum of the runs of a mode, in milliseconds.
+     */
+    public record Summary(int runs, double readyMedianMillis, double readyMinMillis, double firstRequestMedianMillis,
+                          double firstRequestMinMillis, double secondRequestMedianMillis) {
+
+        private static Summary of(List<Sample> samples) {
+            double[] ready = samples.stream().mapToDouble(Sample::readyMillis).sorted().toArray();
+            double[] first = samples.stream().mapToDouble(Sample::firstRequestMillis).sorted().toArray();
+            double[] second = samples.stream().mapToDouble(Sample::secondRequestMillis).sorted().toArray();
+            return new Summary(samples.size(), median(ready), ready[0], median(first), first[0], median(second));
+        }
+
+        private static double median(double[] sorted) {
+            int middle = sorted.length / 2;
+            return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.nathan.currencyconversionapi.admission;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Global limit on the number of requests in flight, adapted to the latency the service delivers (TCP Vegas style).
+ *
+ * <p>The lowest recent latency estimates the service without queueing. From each completed request's latency,
+ * the number of requests queueing is estimated as {@code limit * (1 - noLoadLatency / latency)}: below alpha the
+ * limit grows, above beta it shrinks, so the service keeps just enough requests in flight to stay busy without
+ * building queues. A request that fails shrinks the limit multiplicatively. Every {@code probe-interval} samples the
+ * no-load latency is re-measured, so it follows the service when it gets slower for good.
+ *
+ * <p>Admitting a request is one compare-and-set on the in-flight count. Samples update the limit under a lock that is
+ * only tried, never waited for: a sample arriving while another one is applied is skipped.
+ */
+@Component
+@ConditionalOnProperty(name = "exchangerate.admission.concurrency.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * How a request admitted by the limiter ended
+     */
+    public enum Outcome {
+        /**
+         * A response was produced; its latency is a sample
+         */
+        SUCCESS,
+        /**
+         * The request failed; the limit is reduced
+         */
+        DROPPED,
+        /**
+         * The request was cancelled, for instance by the client; its latency says nothing about the service
+         */
+        IGNORED
+    }
+
+    /**
+     * Limit before any sample was taken
+     */
+    @Value("${exchangerate.admission.concurrency.initial-limit:100}")
+    private int initialLimit;
+
+    /**
+     * Lowest limit, so the service never stops admitting requests
+     */
+    @Value("${exchangerate.admission.concurrency.min-limit:8}")
+    private int minLimit;
+
+    /**
+     * Highest limit
+     */
+    @Value("${exchangerate.admission.concurrency.max-limit:2000}")
+    private int maxLimit;
+
+    /**
+     * Estimated queued requests below which the limit grows
+     */
+    @Value("${exchangerate.admission.concurrency.alpha:3}")
+    private int alpha;
+
+    /**
+     * Estimated queued requests above which the limit shrinks
+     */
+    @Value("${exchangerate.admission.concurrency.beta:6}")
+    private int beta;
+
+    /**
+     * Factor applied to the limit when a request fails
+     */
+    @Value("${exchangerate.admission.concurrency.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    /**
+     * Number of samples after which the no-load latency is measured again
+     */
+    @Value("${exchangerate.admission.concurrency.probe-interval:1000}")
+    private int probeInterval;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private volatile int limit;
+
+    // Guarded by updateLock
+    private double estimatedLimit;
+    private long noLoadLatencyNanos;
+    private int samplesSinceProbe;
+
+    /**
+     * Starts from the initial limit.
+     */
+    @PostConstruct
+    public void init() {
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Admits a request if fewer requests than the limit are in flight.
+     * An admitted request must be released with {@link #release(long, Outcome)} once it completes.
+     *
+     * @return Whether the request is admitted
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases an admitted request and adapts the limit to its outcome.
+     *
+     * @param latencyNanos The time from admission to completion
+     * @param outcome How the request ended
+     */
+    public void release(long latencyNanos, Outcome outcome) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (outcome == Outcome.IGNORED || latencyNanos <= 0 || !updateLock.tryLock()) {
+            return;
+        }
+        try {
+            update(latencyNanos, outcome == Outcome.DROPPED, inFlightBefore);
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    /**
+     * @return The current limit on requests in flight
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return The number of requests in flight
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return The number of requests rejected because the limit was reached
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private void update(long latencyNanos, boolean dropped, int inFlightBefore) {
+        if (dropped) {
+            estimatedLimit = estimatedLimit * backoffRatio;
+        } else {
+            if (noLoadLatencyNanos == 0 || latencyNanos < noLoadLatencyNanos || ++samplesSinceProbe >= probeInterval) {
+                noLoadLatencyNanos = latencyNanos;
+                samplesSinceProbe = 0;
+            }
+            double queued = estimatedLimit * (1 - (double) noLoadLatencyNanos / latencyNanos);
+            if (queued > beta) {
+                estimatedLimit -= 1;
+            } else if (queued < alpha && inFlightBefore * 2 >= estimatedLimit) {
+                // Only grow a limit the traffic actually reaches
+                estimatedLimit += 1;
+            }
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+        int newLimit = (int) estimatedLimit;
+        if (newLimit != limit) {
+            log.trace("Concurrency limit changed from {} to {}", limit, newLimit);
+            limit = newLimit;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.nathan.currencyconversionapi.admission;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the API, applied before a request body is read or a handler runs.
+ *
+ * <p>Each client, identified by its API key header or else its IP address, is limited by the
+ * {@link ClientRateLimiter}; a client over its rate gets 429 with the time it must wait in Retry-After.
+ * The requests of well-behaved clients then go through the {@link AdaptiveConcurrencyLimiter}, which sheds
+ * the excess with 503 once the service cannot take more without queueing. Rejections are answered immediately
+ * with a small JSON error, so excess load costs almost nothing to turn away.
+ *
+ * <p>API keys are not authenticated here: a client can change keys to get more buckets, which the concurrency
+ * limit still bounds. Put an authenticating gateway in front of the service when keys must be trusted.
+ * The IP address is the request's remote address; behind a proxy it is only the client's once Spring's
+ * {@code ForwardedHeaderTransformer} resolved it from the forwarded headers
+ * ({@code server.forward-headers-strategy=framework}), which is why the per-client limit is off by default.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "exchangerate.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionWebFilter implements WebFilter {
+
+    /**
+     * Longest client key kept from the API key header
+     */
+    private static final int MAX_KEY_LENGTH = 64;
+
+    /**
+     * Only requests under this path are subject to admission control
+     */
+    @Value("${exchangerate.admission.path-prefix:/api/}")
+    private String pathPrefix;
+
+    /**
+     * Header carrying the client's API key
+     */
+    @Value("${exchangerate.admission.client-key-header:X-API-Key}")
+    private String clientKeyHeader;
+
+    /**
+     * Path prefixes of long-lived requests, such as rate streams, left out of the concurrency limit
+     */
+    @Value("${exchangerate.admission.concurrency.exclude-paths:/api/currency/rates/stream}")
+    private List<String> concurrencyExcludedPaths;
+
+    /**
+     * Per-client rate limiter, null when disabled
+     */
+    private final ClientRateLimiter clientRateLimiter;
+
+    /**
+     * Global concurrency limiter, null when disabled
+     */
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * @param clientRateLimiter The per-client rate limiter, if enabled
+     * @param concurrencyLimiter The global concurrency limiter, if enabled
+     */
+    public AdmissionWebFilter(ObjectProvider<ClientRateLimiter> clientRateLimiter,
+                              ObjectProvider<AdaptiveConcurrencyLimiter> concurrencyLimiter) {
+        this.clientRateLimiter = clientRateLimiter.getIfAvailable();
+        this.concurrencyLimiter = concurrencyLimiter.getIfAvailable();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().value();
+        if (!path.startsWith(pathPrefix)) {
+            return chain.filter(exchange);
+        }
+
+        if (clientRateLimiter != null) {
+            long waitNanos = clientRateLimiter.tryAcquire(clientKey(request));
+            if (waitNanos > 0) {
+                return reject(exchange, HttpStatus.TOO_MANY_REQUESTS, waitNanos, "Rate limit exceeded");
+            }
+        }
+
+        if (concurrencyLimiter == null || isExcluded(path)) {
+            return chain.filter(exchange);
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            return reject(exchange, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1),
+                    "Service is overloaded, retry later");
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> concurrencyLimiter.release(System.nanoTime() - start, outcome(signal)));
+    }
+
+    /**
+     * @return The key identifying the client of a request: its API key if it sent one, otherwise its IP address
+     */
+    private String clientKey(ServerHttpRequest request) {
+        String apiKey = request.getHeaders().getFirst(clientKeyHeader);
+        if (apiKey != null && !apiKey.isEmpty()) {
+            return "key:" + (apiKey.length() > MAX_KEY_LENGTH ? apiKey.substring(0, MAX_KEY_LENGTH) : apiKey);
+        }
+        InetSocketAddress address = request.getRemoteAddress();
+        if (address == null) {
+            return "ip:unknown";
+        }
+        // An address taken from the forwarded headers is left unresolved
+        return "ip:" + (address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString());
+    }
+
+    private boolean isExcluded(String path) {
+        for (String excluded : concurrencyExcludedPaths) {
+            if (!excluded.isEmpty() && path.startsWith(excluded)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static AdaptiveConcurrencyLimiter.Outcome outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_COMPLETE -> AdaptiveConcurrencyLimiter.Outcome.SUCCESS;
+            case ON_ERROR -> AdaptiveConcurrencyLimiter.Outcome.DROPPED;
+            default -> AdaptiveConcurrencyLimiter.Outcome.IGNORED;
+        };
+    }
+
+    /**
+     * Answers a request with an error status and the standard error body, without reading the request.
+     */
+    private static Mono<Void> reject(ServerWebExchange exchange, HttpStatus status, long retryAfterNanos, String message) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        // Retry-After is in whole seconds, rounded up so a client waiting that long is admitted
+        long retryAfterSeconds = Math.max(1, (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        byte[] body = ("{\"status\":" + status.value() + ",\"message\":\"" + message
+                + "\",\"timestamp\":" + System.currentTimeMillis() + "}").getBytes(StandardCharsets.UTF_8);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+}
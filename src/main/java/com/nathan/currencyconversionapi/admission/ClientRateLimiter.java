@@ -0,0 +1,142 @@
+package com.nathan.currencyconversionapi.admission;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client rate limiter: each client gets a token bucket refilled at a steady rate, up to a burst.
+ *
+ * <p>A bucket is a single {@link AtomicLong} holding its theoretical arrival time, the time at which it would be
+ * full again (the generic cell rate algorithm, equivalent to a token bucket). Taking a token is one compare-and-set,
+ * so admitting a request never locks; buckets live in a {@link ConcurrentHashMap}, whose bins stripe contention
+ * between clients. A full bucket carries no state, so idle buckets are evicted by a periodic sweep off the request
+ * path. Between sweeps, once there are too many clients, new clients share one overflow bucket rather than growing
+ * the map without bound; a client rotating keys therefore costs a map lookup, never a scan of every bucket.
+ */
+@Component
+@ConditionalOnProperty(name = "exchangerate.admission.rate-limit.enabled", havingValue = "true")
+@Slf4j
+public class ClientRateLimiter {
+
+    /**
+     * Client sharing its bucket with every client that could not get one
+     */
+    static final String OVERFLOW_CLIENT = "*";
+
+    /**
+     * Sustained requests per second allowed to each client
+     */
+    @Value("${exchangerate.admission.rate-limit.requests-per-second:50}")
+    private double requestsPerSecond;
+
+    /**
+     * Requests a client may send at once after being idle
+     */
+    @Value("${exchangerate.admission.rate-limit.burst:100}")
+    private int burst;
+
+    /**
+     * Number of client buckets kept before idle ones are evicted
+     */
+    @Value("${exchangerate.admission.rate-limit.max-clients:100000}")
+    private int maxClients;
+
+    /**
+     * Theoretical arrival time of each client's bucket
+     */
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongSupplier nanoClock;
+
+    /**
+     * Creates a limiter measuring time with {@link System#nanoTime()}.
+     */
+    public ClientRateLimiter() {
+        this(System::nanoTime);
+    }
+
+    ClientRateLimiter(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Takes a token from a client's bucket.
+     *
+     * @param client The key identifying the client
+     * @return 0 if the request is admitted, otherwise how long in nanoseconds until the client may send again
+     */
+    public long tryAcquire(String client) {
+        long now = nanoClock.getAsLong();
+        AtomicLong bucket = buckets.get(client);
+        if (bucket == null) {
+            bucket = newBucket(client, now);
+        }
+
+        long interval = (long) (1_000_000_000L / requestsPerSecond);
+        long capacity = interval * burst;
+        while (true) {
+            long arrival = bucket.get();
+            long next = (arrival - now > 0 ? arrival : now) + interval;
+            long excess = next - now - capacity;
+            if (excess > 0) {
+                rejected.increment();
+                return excess;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                admitted.increment();
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return The number of requests admitted
+     */
+    public long getAdmittedCount() {
+        return admitted.sum();
+    }
+
+    /**
+     * @return The number of requests rejected because their client exceeded its rate
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return The number of clients with a bucket
+     */
+    public int getClientCount() {
+        return buckets.size();
+    }
+
+    /**
+     * Removes the buckets that are full again, which are the same as new ones.
+     */
+    @Scheduled(fixedDelayString = "${exchangerate.admission.rate-limit.eviction-interval:PT1S}")
+    public void evictIdle() {
+        long now = nanoClock.getAsLong();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        if (before > buckets.size()) {
+            log.debug("Evicted {} idle rate limit buckets", before - buckets.size());
+        }
+    }
+
+    private AtomicLong newBucket(String client, long now) {
+        if (buckets.size() >= maxClients) {
+            return buckets.computeIfAbsent(OVERFLOW_CLIENT, key -> new AtomicLong(now));
+        }
+        return buckets.computeIfAbsent(client, key -> new AtomicLong(now));
+    }
+}
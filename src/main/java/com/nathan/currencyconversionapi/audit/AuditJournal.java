@@ -0,0 +1,409 @@
+package com.nathan.currencyconversionapi.audit;
+
+import com.nathan.currencyconversionapi.model.ConversionResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of every conversion served, for compliance.
+ *
+ * <p>Recording a conversion only stores references into a preallocated {@link AuditRingBuffer}, so the request
+ * path neither blocks on I/O nor allocates. A single writer thread drains the ring in batches, encodes each batch
+ * into one buffer in the compact {@link JournalFormat} and appends it to the current file with one write, rolling
+ * to a new file once the current one reaches its maximum size. Durability follows the fsync policy: after every
+ * batch (group commit: one fsync covers every event of the batch), at most once per interval, or left to the OS.
+ *
+ * <p>When the ring is full, events are dropped, or with the BLOCK policy the recording thread waits a bounded time
+ * for room before dropping. Recorded, dropped and written events are counted and published as metrics.
+ */
+@Component
+@Slf4j
+public class AuditJournal {
+
+    /**
+     * What recording threads do when the ring is full
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop the event immediately
+         */
+        DROP,
+        /**
+         * Wait up to the block timeout for room, then drop the event
+         */
+        BLOCK
+    }
+
+    /**
+     * When written events are forced to disk
+     */
+    public enum FsyncPolicy {
+        /**
+         * After every batch written
+         */
+        BATCH,
+        /**
+         * At most once per fsync interval, and when the writer is idle
+         */
+        INTERVAL,
+        /**
+         * Never explicitly; the OS writes pages back on its own schedule
+         */
+        NONE
+    }
+
+    /**
+     * Whether conversions are journaled
+     */
+    @Value("${exchangerate.audit.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Directory holding the journal files
+     */
+    @Value("${exchangerate.audit.directory:data/audit}")
+    private Path directory;
+
+    /**
+     * Number of events the ring holds before the overflow policy applies
+     */
+    @Value("${exchangerate.audit.buffer-capacity:8192}")
+    private int bufferCapacity;
+
+    /**
+     * What recording threads do when the ring is full
+     */
+    @Value("${exchangerate.audit.overflow-policy:DROP}")
+    private OverflowPolicy overflowPolicy;
+
+    /**
+     * Longest time a recording thread waits for room with the BLOCK policy
+     */
+    @Value("${exchangerate.audit.block-timeout:PT0.01S}")
+    private Duration blockTimeout;
+
+    /**
+     * Maximum number of events written at once
+     */
+    @Value("${exchangerate.audit.batch-size:1024}")
+    private int batchSize;
+
+    /**
+     * How long the writer sleeps when the ring is empty
+     */
+    @Value("${exchangerate.audit.drain-interval:PT0.01S}")
+    private Duration drainInterval;
+
+    /**
+     * When written events are forced to disk
+     */
+    @Value("${exchangerate.audit.fsync-policy:BATCH}")
+    private FsyncPolicy fsyncPolicy;
+
+    /**
+     * Minimum delay between two forces with the INTERVAL policy
+     */
+    @Value("${exchangerate.audit.fsync-interval:PT1S}")
+    private Duration fsyncInterval;
+
+    /**
+     * Size from which the current file is closed and a new one started
+     */
+    @Value("${exchangerate.audit.max-file-size:67108864}")
+    private long maxFileSize;
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+
+    /**
+     * Counters written by the writer thread only
+     */
+    private volatile long written;
+    private volatile long failed;
+    private volatile long syncs;
+
+    private AuditRingBuffer ring;
+    private Thread writer;
+    private volatile boolean running;
+
+    // Writer thread state
+    private ByteBuffer batch;
+    private final CRC32 crc = new CRC32();
+    private FileChannel file;
+    private long fileSize;
+    private long nextSequence;
+    private boolean unsynced;
+    private long lastSyncNanos;
+
+    /**
+     * Creates the ring and starts the writer thread.
+     *
+     * @throws IllegalStateException if the journal directory cannot be read
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(directory);
+            nextSequence = AuditJournalReader.lastSequence(directory) + 1;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to open audit journal in " + directory, ex);
+        }
+        ring = new AuditRingBuffer(bufferCapacity);
+        batch = ByteBuffer.allocate(Math.max(batchSize, 1) * JournalFormat.MAX_RECORD_BYTES);
+        lastSyncNanos = System.nanoTime();
+        running = true;
+        writer = new Thread(this::drainLoop, "audit-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Audit journal writing to {} from sequence {}", directory, nextSequence);
+    }
+
+    /**
+     * Writes the events still in the ring, forces them to disk and closes the journal.
+     */
+    @PreDestroy
+    public void stop() {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(Duration.ofSeconds(10).toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Journals the conversion emitted by a Mono, with the metadata of the request found in its Reactor context.
+     *
+     * @param conversion The conversion to journal
+     * @param asOf The point in time requested for a historical conversion, or null
+     * @return The conversion, journaling its result when it succeeds
+     */
+    public Mono<ConversionResult> audit(Mono<ConversionResult> conversion, Instant asOf) {
+        if (!enabled) {
+            return conversion;
+        }
+        return conversion.transformDeferredContextual((result, context) -> {
+            AuditMetadata metadata = AuditMetadata.from(context);
+            return result.doOnNext(converted -> record(converted, asOf, -1, metadata));
+        });
+    }
+
+    /**
+     * Journals a conversion without waiting for it to be written.
+     *
+     * @param result The conversion result
+     * @param asOf The point in time requested for a historical conversion, or null
+     * @param batchIndex The index of the conversion in a batch request, -1 for a single conversion
+     * @param metadata The metadata of the request the conversion was served for
+     */
+    public void record(ConversionResult result, Instant asOf, long batchIndex, AuditMetadata metadata) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (ring.offer(result, asOf, batchIndex, metadata, now)) {
+            recorded.increment();
+            return;
+        }
+
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            blocked.increment();
+            LockSupport.unpark(writer);
+            long deadline = System.nanoTime() + blockTimeout.toNanos();
+            while (deadline - System.nanoTime() > 0) {
+                LockSupport.parkNanos(50_000);
+                if (ring.offer(result, asOf, batchIndex, metadata, now)) {
+                    recorded.increment();
+                    return;
+                }
+            }
+        }
+        dropped.increment();
+    }
+
+    /**
+     * @return Whether conversions are journaled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The number of events accepted into the ring
+     */
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+
+    /**
+     * @return The number of events dropped because the ring was full
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return The number of events whose recording thread had to wait for room
+     */
+    public long getBlockedCount() {
+        return blocked.sum();
+    }
+
+    /**
+     * @return The number of events written to the journal
+     */
+    public long getWrittenCount() {
+        return written;
+    }
+
+    /**
+     * @return The number of events lost because their batch could not be written
+     */
+    public long getFailedCount() {
+        return failed;
+    }
+
+    /**
+     * @return The number of times the journal was forced to disk
+     */
+    public long getSyncCount() {
+        return syncs;
+    }
+
+    /**
+     * @return The number of events waiting in the ring
+     */
+    public int getBacklog() {
+        return ring != null ? ring.size() : 0;
+    }
+
+    private void drainLoop() {
+        try {
+            while (running || ring.size() > 0) {
+                batch.clear();
+                long firstSequence = nextSequence;
+                int drained = ring.drain(this::encode, batchSize);
+                if (nextSequence > firstSequence) {
+                    writeBatch(firstSequence);
+                } else if (drained == 0) {
+                    if (unsynced && fsyncPolicy != FsyncPolicy.NONE) {
+                        sync();
+                    }
+                    LockSupport.parkNanos(drainInterval.toNanos());
+                }
+            }
+        } finally {
+            closeFile();
+        }
+    }
+
+    /**
+     * Appends an event to the batch being encoded, skipping it if it cannot be encoded.
+     */
+    private void encode(AuditRingBuffer.Slot event) {
+        int position = batch.position();
+        try {
+            JournalFormat.putRecord(batch, nextSequence, event, crc);
+            nextSequence++;
+        } catch (RuntimeException ex) {
+            batch.position(position);
+            failed++;
+            log.error("Could not encode audit event for {}: {}", event.result, ex.getMessage());
+        }
+    }
+
+    /**
+     * Appends the encoded batch with a single write and forces it to disk as the fsync policy requires.
+     */
+    private void writeBatch(long firstSequence) {
+        long events = nextSequence - firstSequence;
+        batch.flip();
+        try {
+            if (file == null || fileSize + batch.remaining() > maxFileSize) {
+                rollFile(firstSequence);
+            }
+            while (batch.hasRemaining()) {
+                fileSize += file.write(batch);
+            }
+            written += events;
+            unsynced = true;
+            if (fsyncPolicy == FsyncPolicy.BATCH
+                    || fsyncPolicy == FsyncPolicy.INTERVAL && System.nanoTime() - lastSyncNanos >= fsyncInterval.toNanos()) {
+                sync();
+            }
+        } catch (IOException ex) {
+            failed += events;
+            nextSequence = firstSequence;
+            log.error("Could not write {} events to the audit journal: {}", events, ex.getMessage());
+            // Start a new file with the next batch rather than appending after a partial write
+            closeFile();
+        }
+    }
+
+    private void rollFile(long firstSequence) throws IOException {
+        closeFile();
+        Path path = JournalFormat.fileFor(directory, firstSequence);
+        file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(JournalFormat.HEADER_BYTES);
+        JournalFormat.putHeader(header, System.currentTimeMillis());
+        header.flip();
+        while (header.hasRemaining()) {
+            file.write(header);
+        }
+        fileSize = JournalFormat.HEADER_BYTES;
+        log.debug("Started audit journal file {}", path);
+    }
+
+    private void sync() {
+        try {
+            file.force(false);
+            syncs++;
+        } catch (IOException ex) {
+            log.error("Could not force the audit journal to disk: {}", ex.getMessage());
+        }
+        unsynced = false;
+        lastSyncNanos = System.nanoTime();
+    }
+
+    private void closeFile() {
+        if (file == null) {
+            return;
+        }
+        if (unsynced && fsyncPolicy != FsyncPolicy.NONE) {
+            sync();
+        }
+        try {
+            file.close();
+        } catch (IOException ex) {
+            log.debug("Could not close audit journal file: {}", ex.getMessage());
+        }
+        file = null;
+        unsynced = false;
+    }
+}
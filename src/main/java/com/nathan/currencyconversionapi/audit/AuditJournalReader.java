@@ -0,0 +1,118 @@
+package com.nathan.currencyconversionapi.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the audit journal back, to replay or scan the conversions that were served.
+ * Files are memory-mapped and read in journal order; a damaged record ends the readable part of its file.
+ *
+ * <p>Run standalone to print the journal as newline-delimited JSON:
+ * {@code AuditJournalReader [directory] [from sequence]}, defaulting to data/audit and the first record.
+ */
+@Slf4j
+public final class AuditJournalReader {
+
+    private AuditJournalReader() {
+    }
+
+    /**
+     * Prints the records of a journal directory to standard output, one JSON document per line.
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : "data/audit");
+        long fromSequence = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        ObjectWriter json = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .writerFor(AuditRecord.class);
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        scan(directory, fromSequence, record -> {
+            try {
+                out.write(json.writeValueAsString(record));
+                out.write('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        out.flush();
+    }
+
+    /**
+     * Hands the records of a journal directory to a consumer in journal order.
+     *
+     * @param directory The journal directory
+     * @param fromSequence Records with a lower sequence are skipped, along with the files holding only such records
+     * @param consumer Receives each record
+     * @return The number of records handed to the consumer
+     * @throws IOException if a file cannot be read
+     */
+    public static long scan(Path directory, long fromSequence, Consumer<AuditRecord> consumer) throws IOException {
+        List<Path> files = JournalFormat.files(directory);
+        long count = 0;
+        for (int i = 0; i < files.size(); i++) {
+            if (i + 1 < files.size() && JournalFormat.firstSequenceOf(files.get(i + 1)) <= fromSequence) {
+                continue;
+            }
+            count += scanFile(files.get(i), fromSequence, consumer);
+        }
+        return count;
+    }
+
+    /**
+     * @param directory The journal directory
+     * @return The sequence of the last intact record, or 0 if the journal holds none
+     * @throws IOException if the last file cannot be read
+     */
+    public static long lastSequence(Path directory) throws IOException {
+        List<Path> files = JournalFormat.files(directory);
+        for (int i = files.size() - 1; i >= 0; i--) {
+            long[] last = {JournalFormat.firstSequenceOf(files.get(i)) - 1};
+            scanFile(files.get(i), 0, record -> last[0] = record.getSequence());
+            if (last[0] > 0) {
+                return last[0];
+            }
+        }
+        return 0;
+    }
+
+    private static long scanFile(Path file, long fromSequence, Consumer<AuditRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            JournalFormat.checkHeader(map, file);
+
+            CRC32 crc = new CRC32();
+            long count = 0;
+            AuditRecord record;
+            while ((record = JournalFormat.readRecord(map, crc)) != null) {
+                if (record.getSequence() >= fromSequence) {
+                    consumer.accept(record);
+                    count++;
+                }
+            }
+            if (map.hasRemaining()) {
+                log.warn("Ignoring {} unreadable bytes at the end of audit journal file {}", map.remaining(), file);
+            }
+            return count;
+        }
+    }
+}
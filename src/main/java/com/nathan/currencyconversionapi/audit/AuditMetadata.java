@@ -0,0 +1,42 @@
+package com.nathan.currencyconversionapi.audit;
+
+import lombok.Value;
+import reactor.util.context.ContextView;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Metadata of the HTTP request a conversion was served for, carried in the Reactor context
+ * by the {@link AuditWebFilter} so the service can journal it next to the result.
+ */
+@Value
+public class AuditMetadata {
+
+    /**
+     * Reactor context key holding the metadata of the current request
+     */
+    public static final String CONTEXT_KEY = AuditMetadata.class.getName();
+
+    /**
+     * Metadata used when a conversion is not served for an HTTP request
+     */
+    public static final AuditMetadata NONE = new AuditMetadata(null, null);
+
+    /**
+     * Id of the HTTP request, as logged by WebFlux
+     */
+    String requestId;
+
+    /**
+     * Address of the client; resolved to text only when the event is written
+     */
+    InetSocketAddress clientAddress;
+
+    /**
+     * @param context The Reactor context of a conversion
+     * @return The metadata of the request being served, or {@link #NONE}
+     */
+    public static AuditMetadata from(ContextView context) {
+        return context.getOrDefault(CONTEXT_KEY, NONE);
+    }
+}
@@ -0,0 +1,81 @@
+package com.nathan.currencyconversionapi.audit;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * One conversion read back from the audit journal.
+ */
+@Value
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AuditRecord {
+
+    /**
+     * Position of the record in the journal, increasing by one with every record
+     */
+    long sequence;
+
+    /**
+     * Time at which the conversion was served
+     */
+    Instant recordedAt;
+
+    /**
+     * Id of the HTTP request the conversion was served for, if any
+     */
+    String requestId;
+
+    /**
+     * Address of the client, if known
+     */
+    String clientAddress;
+
+    /**
+     * Index of the conversion within a batch request, absent for single conversions
+     */
+    Long batchIndex;
+
+    /**
+     * The source currency code
+     */
+    String sourceCurrency;
+
+    /**
+     * The target currency code
+     */
+    String targetCurrency;
+
+    /**
+     * The amount in source currency
+     */
+    double sourceAmount;
+
+    /**
+     * The converted amount in target currency
+     */
+    double targetAmount;
+
+    /**
+     * The exchange rate used for the conversion
+     */
+    double exchangeRate;
+
+    /**
+     * Time at which the provider published the exchange rate used
+     */
+    Instant rateTimestamp;
+
+    /**
+     * Point in time requested for a historical conversion, absent for conversions at the latest rates
+     */
+    Instant asOf;
+
+    /**
+     * Whether the rate came from a snapshot already superseded by the provider
+     */
+    boolean stale;
+}
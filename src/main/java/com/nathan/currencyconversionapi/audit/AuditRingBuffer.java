@@ -0,0 +1,140 @@
+package com.nathan.currencyconversionapi.audit;
+
+import com.nathan.currencyconversionapi.model.ConversionResult;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free ring of audit events, written by any number of request threads and drained by one writer.
+ *
+ * <p>Slots are allocated once, so recording an event only stores references and never allocates.
+ * A producer claims the next sequence with a compare-and-set while the ring has room, fills the slot
+ * and publishes it by writing the sequence to the slot's volatile marker. The consumer drains slots
+ * in sequence order up to the first one not yet published, clears them and then advances its head,
+ * which hands the slots back to the producers.
+ */
+final class AuditRingBuffer {
+
+    private final Slot[] slots;
+    private final int mask;
+
+    /**
+     * Next sequence to claim
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Next sequence to drain; written by the consumer only
+     */
+    private volatile long head;
+
+    /**
+     * @param capacity The number of slots, rounded up to a power of two
+     */
+    AuditRingBuffer(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new Slot[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot(i - size);
+        }
+    }
+
+    /**
+     * Adds an event unless the ring is full.
+     *
+     * @return Whether the event was added
+     */
+    boolean offer(ConversionResult result, Instant asOf, long batchIndex, AuditMetadata metadata, long recordedAtMillis) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head >= slots.length) {
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) sequence & mask];
+        slot.result = result;
+        slot.asOf = asOf;
+        slot.batchIndex = batchIndex;
+        slot.metadata = metadata;
+        slot.recordedAtMillis = recordedAtMillis;
+        slot.published = sequence;
+        return true;
+    }
+
+    /**
+     * Hands published events to a consumer in sequence order. Must only be called from one thread.
+     *
+     * @param consumer Receives each event; must not keep the slot
+     * @param max The maximum number of events to drain
+     * @return The number of events drained
+     */
+    int drain(EventConsumer consumer, int max) {
+        long sequence = head;
+        int drained = 0;
+        while (drained < max) {
+            Slot slot = slots[(int) sequence & mask];
+            if (slot.published != sequence) {
+                break;
+            }
+            try {
+                consumer.accept(slot);
+            } finally {
+                slot.result = null;
+                slot.asOf = null;
+                slot.metadata = null;
+                sequence++;
+                drained++;
+            }
+        }
+        if (drained > 0) {
+            head = sequence;
+        }
+        return drained;
+    }
+
+    /**
+     * @return The number of events claimed but not drained yet
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Receives drained events.
+     */
+    @FunctionalInterface
+    interface EventConsumer {
+
+        void accept(Slot event);
+    }
+
+    /**
+     * One preallocated event. Fields are written by the producer that claimed the slot before it is published,
+     * and read by the consumer after it is.
+     */
+    static final class Slot {
+
+        ConversionResult result;
+        Instant asOf;
+        long batchIndex;
+        AuditMetadata metadata;
+        long recordedAtMillis;
+
+        /**
+         * Sequence of the event held by the slot once published
+         */
+        volatile long published;
+
+        private Slot(long published) {
+            this.published = published;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.nathan.currencyconversionapi.audit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Puts the {@link AuditMetadata} of each request into the Reactor context of its handling,
+ * so conversions can be journaled with the request they were served for.
+ */
+@Component
+@ConditionalOnProperty(name = "exchangerate.audit.enabled", havingValue = "true", matchIfMissing = true)
+public class AuditWebFilter implements WebFilter {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        AuditMetadata metadata = new AuditMetadata(exchange.getRequest().getId(), exchange.getRequest().getRemoteAddress());
+        return chain.filter(exchange)
+                .contextWrite(context -> context.put(AuditMetadata.CONTEXT_KEY, metadata));
+    }
+}
@@ -0,0 +1,214 @@
+package com.nathan.currencyconversionapi.audit;
+
+import com.nathan.currencyconversionapi.model.ConversionResult;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Binary layout of the audit journal files (big-endian).
+ * <pre>
+ * header:  int magic 'RAUD', short format version, short reserved, long created at (epoch millis)
+ * record:  int body length, body, int CRC32 of the body
+ * body:    long sequence, long recorded at (epoch millis), int packed source code, int packed target code,
+ *          double source amount, double target amount, double exchange rate,
+ *          long rate timestamp (Unix format), long as-of (Unix format), both Long.MIN_VALUE when absent,
+ *          long batch index (-1 for single conversions), byte flags (1 = stale),
+ *          byte request id length, request id (UTF-8), byte client address length, client address (UTF-8)
+ * </pre>
+ * Files are named after the sequence of their first record, zero-padded so they sort in journal order.
+ * A record cut short by a crash fails its length or CRC check and ends the readable part of its file.
+ */
+final class JournalFormat {
+
+    static final int MAGIC = 0x52415544;
+    static final short FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    /**
+     * Longest request id or client address kept, in UTF-8 bytes
+     */
+    static final int MAX_TEXT_BYTES = 255;
+
+    private static final int FIXED_BODY_BYTES = 73;
+
+    /**
+     * Upper bound of an encoded record, framing included
+     */
+    static final int MAX_RECORD_BYTES = 4 + FIXED_BODY_BYTES + 2 * (1 + MAX_TEXT_BYTES) + 4;
+
+    private static final String FILE_PREFIX = "audit-";
+    private static final String FILE_SUFFIX = ".journal";
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final int STALE_FLAG = 1;
+
+    private JournalFormat() {
+    }
+
+    /**
+     * @return The path of the journal file starting with a sequence
+     */
+    static Path fileFor(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", FILE_PREFIX, firstSequence, FILE_SUFFIX));
+    }
+
+    /**
+     * @return The sequence of the first record of a journal file, from its name
+     */
+    static long firstSequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+    }
+
+    /**
+     * @return The journal files of a directory in journal order, empty if the directory does not exist
+     */
+    static List<Path> files(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        return files;
+    }
+
+    /**
+     * Writes a file header.
+     */
+    static void putHeader(ByteBuffer target, long createdAtMillis) {
+        target.putInt(MAGIC)
+                .putShort(FORMAT_VERSION)
+                .putShort((short) 0)
+                .putLong(createdAtMillis);
+    }
+
+    /**
+     * Checks a file header.
+     *
+     * @throws IOException if the header is not the one of an audit journal file
+     */
+    static void checkHeader(ByteBuffer source, Path file) throws IOException {
+        if (source.remaining() < HEADER_BYTES || source.getInt() != MAGIC || source.getShort() != FORMAT_VERSION) {
+            throw new IOException("Not an audit journal file: " + file);
+        }
+        source.getShort();
+        source.getLong();
+    }
+
+    /**
+     * Encodes a framed record into a heap buffer with at least {@link #MAX_RECORD_BYTES} remaining.
+     */
+    static void putRecord(ByteBuffer target, long sequence, AuditRingBuffer.Slot event, CRC32 crc) {
+        ConversionResult result = event.result;
+        int lengthPosition = target.position();
+        target.putInt(0);
+        int bodyStart = target.position();
+        target.putLong(sequence)
+                .putLong(event.recordedAtMillis)
+                .putInt(CurrencyIndex.pack(result.getSourceCurrency()))
+                .putInt(CurrencyIndex.pack(result.getTargetCurrency()))
+                .putDouble(orNaN(result.getSourceAmount()))
+                .putDouble(orNaN(result.getTargetAmount()))
+                .putDouble(orNaN(result.getExchangeRate()))
+                .putLong(result.getRateTimestamp() != null ? result.getRateTimestamp().getEpochSecond() : NO_TIME)
+                .putLong(event.asOf != null ? event.asOf.getEpochSecond() : NO_TIME)
+                .putLong(event.batchIndex)
+                .put((byte) (result.isStale() ? STALE_FLAG : 0));
+        AuditMetadata metadata = event.metadata != null ? event.metadata : AuditMetadata.NONE;
+        putText(target, metadata.getRequestId());
+        putText(target, addressOf(metadata.getClientAddress()));
+        int bodyLength = target.position() - bodyStart;
+        target.putInt(lengthPosition, bodyLength);
+
+        crc.reset();
+        crc.update(target.array(), target.arrayOffset() + bodyStart, bodyLength);
+        target.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Decodes the next framed record.
+     *
+     * @return The record, or null if the remaining bytes do not hold a complete and intact record
+     */
+    static AuditRecord readRecord(ByteBuffer source, CRC32 crc) {
+        if (source.remaining() < 4) {
+            return null;
+        }
+        int bodyLength = source.getInt(source.position());
+        if (bodyLength < FIXED_BODY_BYTES + 2 || bodyLength > MAX_RECORD_BYTES || source.remaining() < 8 + bodyLength) {
+            return null;
+        }
+        ByteBuffer body = source.slice(source.position() + 4, bodyLength);
+        crc.reset();
+        crc.update(body.duplicate());
+        if ((int) crc.getValue() != source.getInt(source.position() + 4 + bodyLength)) {
+            return null;
+        }
+        source.position(source.position() + 8 + bodyLength);
+
+        AuditRecord.AuditRecordBuilder record = AuditRecord.builder()
+                .sequence(body.getLong())
+                .recordedAt(Instant.ofEpochMilli(body.getLong()))
+                .sourceCurrency(codeOf(body.getInt()))
+                .targetCurrency(codeOf(body.getInt()))
+                .sourceAmount(body.getDouble())
+                .targetAmount(body.getDouble())
+                .exchangeRate(body.getDouble())
+                .rateTimestamp(instantOf(body.getLong()))
+                .asOf(instantOf(body.getLong()));
+        long batchIndex = body.getLong();
+        return record.batchIndex(batchIndex >= 0 ? batchIndex : null)
+                .stale((body.get() & STALE_FLAG) != 0)
+                .requestId(getText(body))
+                .clientAddress(getText(body))
+                .build();
+    }
+
+    private static void putText(ByteBuffer target, String text) {
+        byte[] bytes = text != null ? text.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int length = Math.min(bytes.length, MAX_TEXT_BYTES);
+        target.put((byte) length).put(bytes, 0, length);
+    }
+
+    private static String getText(ByteBuffer source) {
+        int length = source.get() & 0xFF;
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String addressOf(InetSocketAddress address) {
+        if (address == null) {
+            return null;
+        }
+        return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+    }
+
+    private static String codeOf(int packedCode) {
+        return packedCode < 0 ? null : CurrencyIndex.unpack(packedCode);
+    }
+
+    private static Instant instantOf(long epochSecond) {
+        return epochSecond == NO_TIME ? null : Instant.ofEpochSecond(epochSecond);
+    }
+
+    private static double orNaN(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+}
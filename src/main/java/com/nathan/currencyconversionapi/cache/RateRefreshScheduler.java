@@ -0,0 +1,95 @@
+package com.nathan.currencyconversionapi.cache;
+
+import com.nathan.currencyconversionapi.quota.RefreshPlanner;
+import com.nathan.currencyconversionapi.replication.LeaderElection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background task refreshing rate snapshots as soon as the provider publishes new rates.
+ * Keeps the configured base currencies and the recently used ones warm, so requests are
+ * served from memory instead of waiting for the ExchangeRate API. The {@link RefreshPlanner} narrows the due
+ * snapshots down to what the upstream quota allows. Nothing is refreshed while this instance replicates the
+ * snapshots of a leader.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "exchangerate.refresh.enabled", havingValue = "true", matchIfMissing = true)
+public class RateRefreshScheduler {
+
+    /**
+     * Cache of exchange rate snapshots to keep warm
+     */
+    private final RateSnapshotCache rateSnapshotCache;
+
+    /**
+     * Planner selecting the due snapshots the upstream quota allows to refresh
+     */
+    private final RefreshPlanner refreshPlanner;
+
+    /**
+     * Election telling whether this instance replicates the snapshots of a leader instead of refreshing its own
+     */
+    private final LeaderElection leaderElection;
+
+    /**
+     * Base currencies that are always kept warm, even before their first request
+     */
+    @Value("${exchangerate.refresh.bases:}")
+    private List<String> configuredBases;
+
+    /**
+     * How recently a cached base currency must have been used to keep being refreshed
+     */
+    @Value("${exchangerate.refresh.recent-window:PT24H}")
+    private Duration recentWindow;
+
+    /**
+     * Maximum number of snapshots refreshed at the same time
+     */
+    @Value("${exchangerate.refresh.max-concurrency:4}")
+    private int maxConcurrency;
+
+    /**
+     * Whether a refresh cycle is still running
+     */
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Refreshes the snapshots that are due, as planned within the upstream quota. A cycle is skipped while the previous one is still running
+     * or while this instance follows a leader.
+     */
+    @Scheduled(fixedDelayString = "${exchangerate.refresh.check-interval:PT30S}")
+    public void refreshDueSnapshots() {
+        if (leaderElection.followedLeader() != null || !running.compareAndSet(false, true)) {
+            return;
+        }
+
+        List<String> due = refreshPlanner.plan(rateSnapshotCache.basesDueForRefresh(configuredBases, recentWindow));
+        if (due.isEmpty()) {
+            running.set(false);
+            return;
+        }
+
+        log.debug("Refreshing rate snapshots for {}", due);
+        Flux.fromIterable(due)
+                .flatMap(base -> rateSnapshotCache.refresh(base)
+                        .onErrorResume(error -> {
+                            log.warn("Could not refresh rate snapshot for {}: {}", base, error.getMessage());
+                            return Mono.empty();
+                        }), maxConcurrency)
+                .doFinally(signal -> running.set(false))
+                .subscribe();
+    }
+}
@@ -0,0 +1,507 @@
+package com.nathan.currencyconversionapi.cache;
+
+import com.nathan.currencyconversionapi.exception.ExchangeRateServiceUnavailableException;
+import com.nathan.currencyconversionapi.provider.RateProvider;
+import com.nathan.currencyconversionapi.quota.UpstreamQuotaBudget;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory cache of exchange rate snapshots, keyed by base currency.
+ * The ExchangeRate API publishes new rates once a day, so a snapshot is served from memory
+ * until the provider's announced next update (time_next_update_unix) instead of calling the API again.
+ * Snapshots are immutable {@link RateTable}s, replaced as a whole when new rates arrive.
+ * Once expired, a snapshot keeps being served for a bounded time while it is revalidated in the background
+ * (stale-while-revalidate), so a slow or unavailable provider does not hold up requests.
+ * When spending of the upstream quota is ahead of pace, stale snapshots are no longer revalidated on lookup and
+ * background refreshes are left to the {@link RateRefreshScheduler}; once the quota is nearly used up, cached
+ * snapshots are served whatever their age.
+ * When instances replicate snapshots from a leader, followers receive them through {@link #replicate(RateTable)}
+ * and their misses are fetched from the leader by the rate provider.
+ * Beyond the maximum number of entries, the least recently looked up base currency is evicted; snapshots that were
+ * restored or replicated but never looked up are evicted first.
+ */
+@Component
+@Slf4j
+public class RateSnapshotCache {
+
+    /**
+     * Maximum number of base currencies kept in memory
+     */
+    private final int maxEntries;
+
+    /**
+     * Time to live used when a response does not announce a usable next update time
+     */
+    private final Duration defaultTtl;
+
+    /**
+     * How long an expired snapshot may still be served while a fresh one is fetched
+     */
+    private final Duration maxStaleness;
+
+    /**
+     * Minimum delay between two background revalidations of the same stale snapshot
+     */
+    private final Duration revalidateBackoff;
+
+    /**
+     * Whether the last cached snapshot, however old, is served when the ExchangeRate API is unavailable
+     */
+    private final boolean fallbackWhenUnavailable;
+
+    /**
+     * Upper bound of the random delay added to each snapshot's refresh time, so refreshes are spread out
+     */
+    private final Duration refreshJitter;
+
+    /**
+     * Provider of the rates, selecting among the configured rate sources
+     */
+    private final RateProvider rateProvider;
+
+    /**
+     * Budget of calls to the ExchangeRate API, deciding whether stale snapshots may be revalidated
+     */
+    private final UpstreamQuotaBudget quotaBudget;
+
+    /**
+     * Source of the current time
+     */
+    private final Clock clock;
+
+    /**
+     * Cached snapshots by base currency code
+     */
+    private final Map<String, CachedSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Cached base currencies from the least to the most recently looked up, guarded by itself
+     */
+    private final LinkedHashMap<String, Boolean> recency = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Upstream calls in flight by base currency, shared by concurrent cache misses
+     */
+    private final SingleFlight<String, RateTable> upstreamCalls = new SingleFlight<>();
+
+    /**
+     * Publishes every snapshot whose version differs from the one it replaces, emitting under its own lock
+     */
+    private final Sinks.Many<RateTable> updates = Sinks.unsafe().many().multicast().directBestEffort();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache reading the time from the system clock.
+     *
+     * @param rateProvider Provider of the rates
+     * @param quotaBudget Budget of calls to the ExchangeRate API
+     * @param maxEntries Maximum number of base currencies kept in memory
+     * @param defaultTtl Time to live used when a response does not announce a usable next update time
+     * @param maxStaleness How long an expired snapshot may still be served while a fresh one is fetched
+     * @param revalidateBackoff Minimum delay between two background revalidations of the same stale snapshot
+     * @param fallbackWhenUnavailable Whether the last cached snapshot is served when the ExchangeRate API is unavailable
+     * @param refreshJitter Upper bound of the random delay added to each snapshot's refresh time
+     */
+    @Autowired
+    public RateSnapshotCache(RateProvider rateProvider, UpstreamQuotaBudget quotaBudget,
+                             @Value("${exchangerate.cache.max-entries:256}") int maxEntries,
+                             @Value("${exchangerate.cache.default-ttl:PT1H}") Duration defaultTtl,
+                             @Value("${exchangerate.cache.max-staleness:PT12H}") Duration maxStaleness,
+                             @Value("${exchangerate.cache.revalidate-backoff:PT30S}") Duration revalidateBackoff,
+                             @Value("${exchangerate.cache.fallback-when-unavailable:true}") boolean fallbackWhenUnavailable,
+                             @Value("${exchangerate.refresh.jitter:PT2M}") Duration refreshJitter) {
+        this(rateProvider, quotaBudget, maxEntries, defaultTtl, maxStaleness, revalidateBackoff, fallbackWhenUnavailable,
+                refreshJitter, Clock.systemUTC());
+    }
+
+    RateSnapshotCache(RateProvider rateProvider, UpstreamQuotaBudget quotaBudget, int maxEntries, Duration defaultTtl,
+                      Duration maxStaleness, Duration revalidateBackoff, boolean fallbackWhenUnavailable,
+                      Duration refreshJitter, Clock clock) {
+        this.rateProvider = rateProvider;
+        this.quotaBudget = quotaBudget;
+        this.maxEntries = maxEntries;
+        this.defaultTtl = defaultTtl;
+        this.maxStaleness = maxStaleness;
+        this.revalidateBackoff = revalidateBackoff;
+        this.fallbackWhenUnavailable = fallbackWhenUnavailable;
+        this.refreshJitter = refreshJitter;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the latest rate snapshot for a base currency, calling the ExchangeRate API
+     * only when no usable snapshot is cached. An expired snapshot within the maximum staleness
+     * is returned immediately and revalidated in the background. Concurrent misses for the same
+     * base currency share a single upstream call. When the ExchangeRate API is unavailable, an older
+     * snapshot is served rather than failing, unless that fallback is disabled. While the upstream quota only
+     * allows snapshot serving, a cached snapshot is returned whatever its age.
+     *
+     * @param baseCurrency The upper-case base currency code
+     * @return A Mono containing the latest rate snapshot
+     */
+    public Mono<RateTable> getSnapshot(String baseCurrency) {
+        return Mono.defer(() -> {
+            CachedSnapshot cached = snapshots.get(baseCurrency);
+            long now = currentEpochSecond();
+            if (cached != null && cached.isFresh(now)) {
+                touch(baseCurrency, cached);
+                hits.increment();
+                return Mono.just(cached.snapshot);
+            }
+
+            if (cached != null && (now < cached.expiresAtEpochSecond + maxStaleness.toSeconds()
+                    || quotaBudget.isSnapshotOnly())) {
+                touch(baseCurrency, cached);
+                staleHits.increment();
+                if (quotaBudget.getMode() == UpstreamQuotaBudget.Mode.NORMAL) {
+                    revalidate(baseCurrency, cached, now);
+                }
+                return Mono.just(cached.snapshot);
+            }
+
+            misses.increment();
+            log.debug("Rate snapshot cache miss for base currency: {}", baseCurrency);
+            if (cached != null) {
+                touch(baseCurrency, cached);
+            }
+            Mono<RateTable> fetched = upstreamCalls.execute(baseCurrency, this::fetch);
+            if (cached == null || !fallbackWhenUnavailable) {
+                return fetched;
+            }
+            return fetched.onErrorResume(ExchangeRateServiceUnavailableException.class, error -> {
+                log.warn("Serving rate snapshot for {} from {} while the exchange rate service is unavailable: {}",
+                        baseCurrency, cached.snapshot.getLastUpdateEpochSecond(), error.getMessage());
+                return Mono.just(cached.snapshot);
+            });
+        });
+    }
+
+    /**
+     * Returns the cached snapshot for a base currency without counting a lookup, marking it as used
+     * or calling the ExchangeRate API.
+     *
+     * @param baseCurrency The upper-case base currency code
+     * @return The cached snapshot, fresh or stale, or null if none is cached
+     */
+    public RateTable peek(String baseCurrency) {
+        CachedSnapshot cached = snapshots.get(baseCurrency);
+        return cached != null ? cached.snapshot : null;
+    }
+
+    /**
+     * Fetches a new snapshot for a base currency regardless of the cached one.
+     * Shares the upstream call with any fetch already in flight for the same base currency.
+     *
+     * @param baseCurrency The upper-case base currency code
+     * @return A Mono containing the fetched rate snapshot
+     */
+    public Mono<RateTable> refresh(String baseCurrency) {
+        return upstreamCalls.execute(baseCurrency, this::fetch);
+    }
+
+    /**
+     * Adds a snapshot obtained outside of the ExchangeRate API, such as one restored from disk,
+     * unless a snapshot at least as recent is already cached. The snapshot expires at its own
+     * announced next update, so an old one is served as stale and revalidated.
+     *
+     * @param snapshot The snapshot to add
+     */
+    public void preload(RateTable snapshot) {
+        long expiresAt = snapshot.getNextUpdateEpochSecond() > 0
+                ? snapshot.getNextUpdateEpochSecond()
+                : currentEpochSecond();
+        store(snapshot.getBaseCurrency(), snapshot, expiresAt, false);
+    }
+
+    /**
+     * Adds a snapshot replicated from the instance polling the ExchangeRate API, unless a snapshot at least
+     * as recent is already cached. The snapshot expires as if it had just been fetched.
+     *
+     * @param snapshot The replicated snapshot
+     * @return Whether the snapshot replaced the cached one
+     */
+    public boolean replicate(RateTable snapshot) {
+        return store(snapshot.getBaseCurrency(), snapshot, expiryOf(snapshot), false);
+    }
+
+    /**
+     * @param baseCurrency The upper-case base currency code
+     * @return The number of lookups served from the cached snapshots of a base currency, or 0 if none is cached
+     */
+    public long lookupCount(String baseCurrency) {
+        CachedSnapshot cached = snapshots.get(baseCurrency);
+        return cached != null ? cached.lookups.sum() : 0;
+    }
+
+    /**
+     * @return The snapshots currently cached, one per base currency
+     */
+    public List<RateTable> snapshots() {
+        List<RateTable> current = new ArrayList<>(snapshots.size());
+        for (CachedSnapshot cached : snapshots.values()) {
+            current.add(cached.snapshot);
+        }
+        return current;
+    }
+
+    /**
+     * Lists the base currencies whose snapshot should be refreshed now: the configured ones that are
+     * missing or due, and the cached ones that are due and were used within the recent window.
+     *
+     * @param configuredBases Base currencies that are always kept warm
+     * @param recentWindow How recently a cached snapshot must have been used to be kept warm
+     * @return The base currencies to refresh
+     */
+    public List<String> basesDueForRefresh(Collection<String> configuredBases, Duration recentWindow) {
+        long now = currentEpochSecond();
+        long recentSince = clock.millis() - recentWindow.toMillis();
+        List<String> due = new ArrayList<>();
+        for (String base : configuredBases) {
+            String baseCurrency = base.trim().toUpperCase();
+            CachedSnapshot cached = snapshots.get(baseCurrency);
+            if ((cached == null || cached.isRefreshDue(now)) && !due.contains(baseCurrency)) {
+                due.add(baseCurrency);
+            }
+        }
+        for (Map.Entry<String, CachedSnapshot> entry : snapshots.entrySet()) {
+            CachedSnapshot cached = entry.getValue();
+            if (cached.isRefreshDue(now) && cached.lastAccess >= recentSince && !due.contains(entry.getKey())) {
+                due.add(entry.getKey());
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Starts a background fetch for a stale snapshot, at most once per backoff period.
+     */
+    private void revalidate(String baseCurrency, CachedSnapshot cached, long now) {
+        if (now < cached.revalidateNotBefore) {
+            return;
+        }
+        cached.revalidateNotBefore = now + revalidateBackoff.toSeconds();
+        log.debug("Serving stale rate snapshot for {} while revalidating", baseCurrency);
+        upstreamCalls.execute(baseCurrency, this::fetch)
+                .subscribe(snapshot -> { },
+                        error -> log.warn("Could not revalidate rate snapshot for {}: {}", baseCurrency, error.getMessage()));
+    }
+
+    /**
+     * Calls the ExchangeRate API and stores the resulting snapshot. Runs once per coalesced miss.
+     */
+    private Mono<RateTable> fetch(String baseCurrency) {
+        return rateProvider.getLatestRates(baseCurrency)
+                .doOnNext(snapshot -> store(baseCurrency, snapshot, expiryOf(snapshot), true));
+    }
+
+    /**
+     * Hot stream of newly stored snapshots, for any base currency.
+     * Subscribers that cannot keep up miss updates rather than slowing down the cache.
+     *
+     * @return A Flux emitting each new snapshot as it is stored
+     */
+    public Flux<RateTable> updates() {
+        return updates.asFlux();
+    }
+
+    /**
+     * @return The number of lookups served from memory
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of lookups served from an expired snapshot while it was revalidated
+     */
+    public long getStaleHitCount() {
+        return staleHits.sum();
+    }
+
+    /**
+     * @return The number of lookups that required a call to the ExchangeRate API
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of snapshots removed to respect the maximum number of entries
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return The number of upstream calls currently in flight
+     */
+    public int getInFlightCount() {
+        return upstreamCalls.inFlightCount();
+    }
+
+    /**
+     * @return The number of base currencies currently cached
+     */
+    public int size() {
+        return snapshots.size();
+    }
+
+    /**
+     * @return The expiry of a freshly fetched snapshot: its announced next update, or the default TTL
+     */
+    private long expiryOf(RateTable snapshot) {
+        long now = currentEpochSecond();
+        return snapshot.getNextUpdateEpochSecond() > now
+                ? snapshot.getNextUpdateEpochSecond()
+                : now + defaultTtl.toSeconds();
+    }
+
+    /**
+     * Marks a looked up snapshot as the most recently used and counts the lookup.
+     */
+    private void touch(String baseCurrency, CachedSnapshot cached) {
+        cached.lastAccess = clock.millis();
+        cached.lookups.increment();
+        synchronized (recency) {
+            recency.get(baseCurrency);
+        }
+    }
+
+    /**
+     * Replaces the cached snapshot of a base currency, unless the cached one is more recent, publishes the snapshot
+     * if its version is new, and evicts the least recently used snapshots when over capacity.
+     *
+     * @param fetched Whether the snapshot was just fetched from the provider: it then replaces a cached snapshot of
+     *                the same version, renewing its expiry, and a base currency that was not cached counts as just used
+     *                rather than never used
+     * @return Whether the snapshot was stored
+     */
+    private boolean store(String baseCurrency, RateTable snapshot, long expiresAt, boolean fetched) {
+        long refreshAt = expiresAt + ThreadLocalRandom.current().nextLong(refreshJitter.toSeconds() + 1);
+        CachedSnapshot[] previous = new CachedSnapshot[1];
+        CachedSnapshot stored = snapshots.compute(baseCurrency, (base, current) -> {
+            previous[0] = current;
+            if (current == null) {
+                return new CachedSnapshot(snapshot, expiresAt, refreshAt, fetched ? clock.millis() : 0, new LongAdder());
+            }
+            long cachedVersion = current.snapshot.getVersion();
+            if (cachedVersion > snapshot.getVersion() || (cachedVersion == snapshot.getVersion() && !fetched)) {
+                return current;
+            }
+            return new CachedSnapshot(snapshot, expiresAt, refreshAt, current.lastAccess, current.lookups);
+        });
+        if (stored == previous[0]) {
+            log.debug("Kept the more recent cached rate snapshot for {} over {}", baseCurrency, snapshot);
+            return false;
+        }
+
+        if (previous[0] == null) {
+            synchronized (recency) {
+                if (fetched) {
+                    recency.put(baseCurrency, Boolean.TRUE);
+                } else {
+                    recency.putFirst(baseCurrency, Boolean.TRUE);
+                }
+            }
+        }
+        if (previous[0] == null || previous[0].snapshot.getVersion() != snapshot.getVersion()) {
+            publish(snapshot);
+        }
+
+        while (snapshots.size() > maxEntries && evictLeastRecentlyUsed()) {
+            // Evict until back within capacity
+        }
+        return true;
+    }
+
+    /**
+     * Emits a new snapshot to the subscribers of {@link #updates()}, one emission at a time and without waiting.
+     */
+    private void publish(RateTable snapshot) {
+        Sinks.EmitResult result;
+        synchronized (updates) {
+            result = updates.tryEmitNext(snapshot);
+        }
+        if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+            log.warn("Could not publish {}: {}", snapshot, result);
+        }
+    }
+
+    /**
+     * @return Whether a snapshot was left to evict
+     */
+    private boolean evictLeastRecentlyUsed() {
+        String eldest;
+        synchronized (recency) {
+            Map.Entry<String, Boolean> entry = recency.pollFirstEntry();
+            if (entry == null) {
+                return false;
+            }
+            eldest = entry.getKey();
+        }
+        if (snapshots.remove(eldest) != null) {
+            evictions.increment();
+            log.debug("Evicted rate snapshot for base currency: {}", eldest);
+        }
+        return true;
+    }
+
+    private long currentEpochSecond() {
+        return clock.millis() / 1000;
+    }
+
+    /**
+     * A cached snapshot together with its expiry, refresh and last access times, and the lookups it served.
+     * The last access time (epoch milliseconds, 0 if never looked up) and lookups are carried over when a snapshot
+     * is replaced, so background refreshes do not make a base currency look recently used and its demand is
+     * measured across versions.
+     */
+    private static final class CachedSnapshot {
+
+        private final RateTable snapshot;
+        private final long expiresAtEpochSecond;
+        private final long refreshAtEpochSecond;
+        private volatile long lastAccess;
+        private volatile long revalidateNotBefore;
+        private final LongAdder lookups;
+
+        private CachedSnapshot(RateTable snapshot, long expiresAtEpochSecond, long refreshAtEpochSecond, long lastAccess,
+                               LongAdder lookups) {
+            this.snapshot = snapshot;
+            this.expiresAtEpochSecond = expiresAtEpochSecond;
+            this.refreshAtEpochSecond = refreshAtEpochSecond;
+            this.lastAccess = lastAccess;
+            this.lookups = lookups;
+        }
+
+        private boolean isFresh(long nowEpochSecond) {
+            return nowEpochSecond < expiresAtEpochSecond;
+        }
+
+        private boolean isRefreshDue(long nowEpochSecond) {
+            return nowEpochSecond >= refreshAtEpochSecond;
+        }
+    }
+}
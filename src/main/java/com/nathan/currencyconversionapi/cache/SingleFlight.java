@@ -0,0 +1,58 @@
+package com.nathan.currencyconversionapi.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent loads of the same key into a single in-flight call.
+ * All subscribers that arrive while a call is in flight share its result or its error.
+ * The entry is removed as soon as the call completes, fails, or is cancelled by all of its subscribers.
+ *
+ * @param <K> the key type
+ * @param <V> the loaded value type
+ */
+public class SingleFlight<K, V> {
+
+    /**
+     * Calls currently in flight by key
+     */
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the in-flight call for the key, or starts a new one with the loader.
+     *
+     * @param key The key to load
+     * @param loader Function creating the underlying call for the key
+     * @return A Mono sharing the single underlying call for the key
+     */
+    public Mono<V> execute(K key, Function<K, Mono<V>> loader) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, absent -> newCall(absent, loader)));
+    }
+
+    /**
+     * Creates the shared call for a key. The loader only runs when the call is first subscribed to,
+     * so concurrent callers that find the call already in flight do not assemble one of their own.
+     */
+    private Mono<V> newCall(K key, Function<K, Mono<V>> loader) {
+        AtomicReference<Mono<V>> self = new AtomicReference<>();
+        Mono<V> call = Mono.defer(() -> loader.apply(key))
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .flux()
+                .publish()
+                .refCount()
+                .next();
+        self.set(call);
+        return call;
+    }
+
+    /**
+     * @return The number of calls currently in flight
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
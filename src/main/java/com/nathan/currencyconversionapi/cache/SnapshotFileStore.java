@@ -0,0 +1,294 @@
+package com.nathan.currencyconversionapi.cache;
+
+import com.nathan.currencyconversionapi.io.DurableFiles;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Persists the cached rate snapshots to a compact binary file and restores them on startup,
+ * so a restarted instance answers conversions immediately without calling the ExchangeRate API.
+ *
+ * <p>File layout (big-endian):
+ * <pre>
+ * header:  int magic 'RSNP', short format version, short reserved, int snapshot count,
+ *          long written at (epoch millis), int CRC32 of the preceding header bytes
+ * record:  int body length, body, int CRC32 of the body
+ * body:    int packed base code, long last update, long next update, int rate count,
+ *          rate count x (int packed currency code, double rate)
+ * </pre>
+ * The file is rewritten as a whole to a temporary file, forced to disk and atomically renamed,
+ * so a crash leaves either the previous or the new file. Writes run on the bounded elastic scheduler,
+ * never on the Netty event loop, one at a time: the last write on shutdown waits for one still in progress.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "exchangerate.snapshot-store.enabled", havingValue = "true", matchIfMissing = true)
+public class SnapshotFileStore {
+
+    private static final int MAGIC = 0x52534E50;
+    private static final short FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+
+    /**
+     * Cache of exchange rate snapshots to persist and restore
+     */
+    private final RateSnapshotCache rateSnapshotCache;
+
+    /**
+     * Location of the snapshot file
+     */
+    @Value("${exchangerate.snapshot-store.path:data/rate-snapshots.bin}")
+    private Path path;
+
+    /**
+     * Delay used to coalesce bursts of new snapshots into a single write
+     */
+    @Value("${exchangerate.snapshot-store.write-delay:PT1S}")
+    private Duration writeDelay;
+
+    /**
+     * Subscription to the cache updates
+     */
+    private Disposable writer;
+
+    /**
+     * Restores the persisted snapshots into the cache and starts persisting new ones.
+     */
+    @PostConstruct
+    public void start() {
+        List<RateTable> restored = read(path);
+        restored.forEach(rateSnapshotCache::preload);
+        if (!restored.isEmpty()) {
+            log.info("Restored {} rate snapshots from {}", restored.size(), path);
+        }
+
+        writer = rateSnapshotCache.updates()
+                .sample(writeDelay)
+                .onBackpressureLatest()
+                .concatMap(snapshot -> Mono.fromRunnable(this::writeCurrentSnapshots)
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .onErrorResume(error -> {
+                            log.warn("Could not persist rate snapshots to {}: {}", path, error.getMessage());
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    /**
+     * Stops persisting snapshots and writes the current ones a last time.
+     */
+    @PreDestroy
+    public void stop() {
+        if (writer != null) {
+            writer.dispose();
+        }
+        try {
+            writeCurrentSnapshots();
+        } catch (RuntimeException ex) {
+            log.warn("Could not persist rate snapshots to {}: {}", path, ex.getMessage());
+        }
+    }
+
+    private synchronized void writeCurrentSnapshots() {
+        List<RateTable> snapshots = rateSnapshotCache.snapshots();
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        try {
+            write(path, snapshots);
+            log.debug("Persisted {} rate snapshots to {}", snapshots.size(), path);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to write " + path, ex);
+        }
+    }
+
+    /**
+     * Writes snapshots to a file, replacing it atomically and durably.
+     *
+     * @param path The file to write
+     * @param snapshots The snapshots to persist
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, List<RateTable> snapshots) throws IOException {
+        ByteBuffer buffer = encode(snapshots);
+
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = parent.resolve(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        DurableFiles.replace(temporary, path);
+    }
+
+    /**
+     * Encodes snapshots in the layout of the snapshot file, as also sent by a replication leader to its followers.
+     *
+     * @param snapshots The snapshots to encode
+     * @return A buffer holding the encoded snapshots, positioned at its start
+     */
+    public static ByteBuffer encode(List<RateTable> snapshots) {
+        int size = HEADER_BYTES;
+        for (RateTable snapshot : snapshots) {
+            size += 8 + bodyLength(snapshot);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC)
+                .putShort(FORMAT_VERSION)
+                .putShort((short) 0)
+                .putInt(snapshots.size())
+                .putLong(System.currentTimeMillis());
+        buffer.putInt(crc(buffer, 0, HEADER_BYTES - 4));
+
+        for (RateTable snapshot : snapshots) {
+            int length = bodyLength(snapshot);
+            buffer.putInt(length);
+            int bodyStart = buffer.position();
+            buffer.putInt(CurrencyIndex.pack(snapshot.getBaseCurrency()))
+                    .putLong(snapshot.getLastUpdateEpochSecond())
+                    .putLong(snapshot.getNextUpdateEpochSecond())
+                    .putInt(snapshot.size());
+            for (int i = 0; i < snapshot.size(); i++) {
+                int currencyId = snapshot.currencyIdAt(i);
+                buffer.putInt(CurrencyIndex.pack(CurrencyIndex.code(currencyId)))
+                        .putDouble(snapshot.rate(currencyId));
+            }
+            buffer.putInt(crc(buffer, bodyStart, length));
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Reads the snapshots of a file written by {@link #write(Path, List)}.
+     * A missing or unreadable file yields no snapshots; corrupt records are skipped.
+     *
+     * @param path The file to read
+     * @return The valid snapshots held by the file
+     */
+    public static List<RateTable> read(Path path) {
+        List<RateTable> snapshots = new ArrayList<>();
+        if (!Files.isRegularFile(path)) {
+            return snapshots;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (!hasValidHeader(buffer)) {
+                log.warn("Ignoring rate snapshot file {} with an unknown or corrupt header", path);
+                return snapshots;
+            }
+
+            int count = buffer.getInt(8);
+            buffer.position(HEADER_BYTES);
+            for (int i = 0; i < count; i++) {
+                int length = buffer.getInt();
+                int bodyStart = buffer.position();
+                if (length < 24 || bodyStart + length + 4 > buffer.limit()) {
+                    log.warn("Rate snapshot file {} is truncated", path);
+                    break;
+                }
+                if (buffer.getInt(bodyStart + length) != crc(buffer, bodyStart, length)) {
+                    log.warn("Skipping corrupt rate snapshot record in {}", path);
+                    buffer.position(bodyStart + length + 4);
+                    continue;
+                }
+                snapshots.add(readBody(buffer));
+                buffer.position(bodyStart + length + 4);
+            }
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException ex) {
+            log.warn("Could not read rate snapshot file {}: {}", path, ex.getMessage());
+        }
+        return snapshots;
+    }
+
+    /**
+     * Decodes snapshots encoded by {@link #encode(List)}. Unlike a file, the buffer is rejected as a whole
+     * when any part of it is corrupt.
+     *
+     * @param encoded The encoded snapshots, from its position to its limit
+     * @return The decoded snapshots
+     * @throws IllegalArgumentException if the buffer is truncated, corrupt or of an unknown format
+     */
+    public static List<RateTable> decode(ByteBuffer encoded) {
+        ByteBuffer buffer = encoded.slice();
+        if (!hasValidHeader(buffer)) {
+            throw new IllegalArgumentException("Unknown or corrupt rate snapshot header");
+        }
+
+        int count = buffer.getInt(8);
+        List<RateTable> snapshots = new ArrayList<>(count);
+        int position = HEADER_BYTES;
+        for (int i = 0; i < count; i++) {
+            int bodyStart = position + 4;
+            int length = bodyStart <= buffer.limit() ? buffer.getInt(position) : -1;
+            if (length < 24 || bodyStart + length + 4 > buffer.limit()) {
+                throw new IllegalArgumentException("Rate snapshots are truncated after " + i + " of " + count);
+            }
+            if (buffer.getInt(bodyStart + length) != crc(buffer, bodyStart, length)) {
+                throw new IllegalArgumentException("Rate snapshot record " + i + " is corrupt");
+            }
+            snapshots.add(readBody(buffer.position(bodyStart)));
+            position = bodyStart + length + 4;
+        }
+        return snapshots;
+    }
+
+    private static boolean hasValidHeader(ByteBuffer buffer) {
+        return buffer.limit() >= HEADER_BYTES
+                && buffer.getInt(0) == MAGIC
+                && buffer.getShort(4) == FORMAT_VERSION
+                && buffer.getInt(HEADER_BYTES - 4) == crc(buffer, 0, HEADER_BYTES - 4);
+    }
+
+    private static RateTable readBody(ByteBuffer buffer) {
+        RateTable.Builder builder = RateTable.builder()
+                .baseId(CurrencyIndex.internPacked(buffer.getInt()))
+                .lastUpdateEpochSecond(buffer.getLong())
+                .nextUpdateEpochSecond(buffer.getLong());
+        int rateCount = buffer.getInt();
+        for (int i = 0; i < rateCount; i++) {
+            builder.rate(CurrencyIndex.internPacked(buffer.getInt()), buffer.getDouble());
+        }
+        return builder.build();
+    }
+
+    private static int bodyLength(RateTable snapshot) {
+        return 24 + snapshot.size() * 12;
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,185 @@
+package com.nathan.currencyconversionapi.client;
+
+import com.nathan.currencyconversionapi.exception.ExchangeRateServiceUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Count-based circuit breaker protecting calls to the ExchangeRate API.
+ *
+ * <p>While closed, the outcomes of the last {@code windowSize} calls are kept; once at least
+ * {@code minimumCalls} were made and the failure rate reaches the threshold, the circuit opens and calls
+ * fail immediately. After the open duration, up to {@code halfOpenCalls} trial calls are let through:
+ * if they all succeed the circuit closes, a single failure opens it again.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    /**
+     * State of the circuit
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoClock;
+
+    /**
+     * Outcomes of the most recent calls, true for a failure
+     */
+    private final boolean[] window;
+    private int windowNext;
+    private int windowCount;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenInFlight;
+    private int halfOpenSucceeded;
+
+    /**
+     * @param name Name used in logs and errors
+     * @param failureRateThreshold Failure rate between 0 and 1 at which the circuit opens
+     * @param windowSize Number of most recent calls the failure rate is computed over
+     * @param minimumCalls Number of calls required before the failure rate is evaluated
+     * @param openDuration How long the circuit stays open before trial calls are let through
+     * @param halfOpenCalls Number of successful trial calls required to close the circuit
+     */
+    public CircuitBreaker(String name, double failureRateThreshold, int windowSize, int minimumCalls,
+                          Duration openDuration, int halfOpenCalls) {
+        this(name, failureRateThreshold, windowSize, minimumCalls, openDuration, halfOpenCalls, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, double failureRateThreshold, int windowSize, int minimumCalls,
+                   Duration openDuration, int halfOpenCalls, LongSupplier nanoClock) {
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Runs a call through the circuit breaker. The call is not subscribed when the circuit is open.
+     *
+     * @param call The call to protect
+     * @param isFailure Which errors count as failures of the protected service; other errors count as successes
+     * @return The protected call, failing with {@link ExchangeRateServiceUnavailableException} while the circuit is open
+     */
+    public <T> Mono<T> protect(Mono<T> call, Predicate<Throwable> isFailure) {
+        return Mono.defer(() -> {
+            State permit = tryAcquire();
+            if (permit == State.OPEN) {
+                return Mono.error(new ExchangeRateServiceUnavailableException(
+                        "Circuit breaker " + name + " is open, not calling the exchange rate service"));
+            }
+            boolean trial = permit == State.HALF_OPEN;
+            AtomicBoolean recorded = new AtomicBoolean();
+            return call
+                    .doOnSuccess(value -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            onResult(trial, false);
+                        }
+                    })
+                    .doOnError(error -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            onResult(trial, isFailure.test(error));
+                        }
+                    })
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL && recorded.compareAndSet(false, true)) {
+                            onCancel(trial);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * @return The current state, moving from open to half-open once the open duration elapsed
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openDurationNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+        return state;
+    }
+
+    /**
+     * @return CLOSED for a regular call, HALF_OPEN for a trial call, OPEN when the call is rejected
+     */
+    private synchronized State tryAcquire() {
+        State current = getState();
+        if (current == State.HALF_OPEN) {
+            if (halfOpenInFlight + halfOpenSucceeded >= halfOpenCalls) {
+                return State.OPEN;
+            }
+            halfOpenInFlight++;
+        }
+        return current;
+    }
+
+    private synchronized void onResult(boolean trial, boolean failure) {
+        if (trial) {
+            if (state != State.HALF_OPEN) {
+                return;
+            }
+            halfOpenInFlight--;
+            if (failure) {
+                transitionTo(State.OPEN);
+            } else if (++halfOpenSucceeded >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state != State.CLOSED) {
+            // Result of a call started before the circuit opened
+            return;
+        }
+
+        if (windowCount == window.length && window[windowNext]) {
+            windowFailures--;
+        }
+        window[windowNext] = failure;
+        windowNext = (windowNext + 1) % window.length;
+        windowCount = Math.min(windowCount + 1, window.length);
+        if (failure) {
+            windowFailures++;
+        }
+        if (windowCount >= minimumCalls && windowFailures >= failureRateThreshold * windowCount) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private synchronized void onCancel(boolean trial) {
+        if (trial && state == State.HALF_OPEN) {
+            halfOpenInFlight--;
+        }
+    }
+
+    private void transitionTo(State next) {
+        log.info("Circuit breaker {} changed from {} to {}", name, state, next);
+        state = next;
+        halfOpenInFlight = 0;
+        halfOpenSucceeded = 0;
+        if (next == State.OPEN) {
+            openedAt = nanoClock.getAsLong();
+        } else if (next == State.CLOSED) {
+            windowNext = 0;
+            windowCount = 0;
+            windowFailures = 0;
+        }
+    }
+}
@@ -1,17 +1,52 @@
 package com.nathan.currencyconversionapi.client;
 
-import com.nathan.currencyconversionapi.model.ExchangeRateApiResponse;
+import com.nathan.currencyconversionapi.exception.ExchangeRateServiceUnavailableException;
+import com.nathan.currencyconversionapi.metrics.ConversionMetrics;
+import com.nathan.currencyconversionapi.provider.RateProvider;
+import com.nathan.currencyconversionapi.quota.UpstreamQuotaBudget;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Client class responsible for communicating with the ExchangeRate API.
  * Uses WebClient to make non-blocking HTTP requests.
+ *
+ * <p>Each attempt has its own timeout and goes through a circuit breaker; transient failures are retried
+ * with jittered exponential backoff within an overall deadline. Optionally, an attempt that is slower than
+ * a percentile of recent latencies is hedged with a second one and the first response wins.
+ * Failures caused by the provider being slow or down surface as {@link ExchangeRateServiceUnavailableException}.
+ * Response bodies are decoded by a {@link RateTableDecoder} as they arrive, straight into a {@link RateTable}.
+ * Every request sent is counted against the {@link UpstreamQuotaBudget}; once the quota is used up, calls fail
+ * as unavailable without reaching the API.
  */
 @Component
-public class ExchangeRateApiClient {
+@Slf4j
+public class ExchangeRateApiClient implements RateProvider {
+
+    /**
+     * Name of the provider in configuration, logs and metrics
+     */
+    public static final String NAME = "exchangerate-api";
+
+    /**
+     * Number of recent latencies required before requests are hedged
+     */
+    private static final int MIN_HEDGE_SAMPLES = 20;
 
     /**
      * Base URL for the ExchangeRate API
@@ -25,28 +60,235 @@ public class ExchangeRateApiClient {
     @Value("${exchangerate.api.key}")
     private String apiKey;
 
+    /**
+     * Maximum duration of a single attempt
+     */
+    @Value("${exchangerate.client.call-timeout:PT2S}")
+    private Duration callTimeout;
+
+    /**
+     * Maximum duration of a call, including retries and backoff
+     */
+    @Value("${exchangerate.client.deadline:PT5S}")
+    private Duration deadline;
+
+    /**
+     * Number of retries after a failed attempt
+     */
+    @Value("${exchangerate.client.retry.max-attempts:2}")
+    private int retryMaxAttempts;
+
+    /**
+     * Backoff before the first retry, doubled for each following one
+     */
+    @Value("${exchangerate.client.retry.min-backoff:PT0.2S}")
+    private Duration retryMinBackoff;
+
+    /**
+     * Upper bound of the backoff between retries
+     */
+    @Value("${exchangerate.client.retry.max-backoff:PT2S}")
+    private Duration retryMaxBackoff;
+
+    /**
+     * Whether slow attempts are hedged with a second attempt
+     */
+    @Value("${exchangerate.client.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    /**
+     * Percentile of recent latencies after which an attempt is hedged
+     */
+    @Value("${exchangerate.client.hedge.percentile:0.95}")
+    private double hedgePercentile;
+
+    /**
+     * Lower bound of the hedging delay, so fast providers are not called twice for nothing
+     */
+    @Value("${exchangerate.client.hedge.min-delay:PT0.05S}")
+    private Duration hedgeMinDelay;
+
+    /**
+     * Failure rate between 0 and 1 at which the circuit opens
+     */
+    @Value("${exchangerate.client.circuit-breaker.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    /**
+     * Number of most recent attempts the failure rate is computed over
+     */
+    @Value("${exchangerate.client.circuit-breaker.window-size:20}")
+    private int windowSize;
+
+    /**
+     * Number of attempts required before the failure rate is evaluated
+     */
+    @Value("${exchangerate.client.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    /**
+     * How long the circuit stays open before trial calls are let through
+     */
+    @Value("${exchangerate.client.circuit-breaker.open-duration:PT30S}")
+    private Duration openDuration;
+
+    /**
+     * Number of successful trial calls required to close the circuit
+     */
+    @Value("${exchangerate.client.circuit-breaker.half-open-calls:2}")
+    private int halfOpenCalls;
+
     /**
      * WebClient instance for making HTTP requests
      */
     private final WebClient webClient;
 
     /**
-     * Constructor that initializes the WebClient
+     * Metrics recording the latency of each call
+     */
+    private final ConversionMetrics conversionMetrics;
+
+    /**
+     * Budget of requests allowed by the API key's quota
+     */
+    private final UpstreamQuotaBudget quotaBudget;
+
+    /**
+     * Latencies of recent successful attempts, used to compute the hedging delay
+     */
+    private final LatencyTracker latencyTracker = new LatencyTracker(256);
+
+    /**
+     * Circuit breaker shared by all calls to the ExchangeRate API
+     */
+    private CircuitBreaker circuitBreaker;
+
+    /**
+     * Constructor that initializes the WebClient, registering the streaming rate table decoder
+     */
+    public ExchangeRateApiClient(WebClient.Builder webClientBuilder, ConversionMetrics conversionMetrics,
+                                 UpstreamQuotaBudget quotaBudget) {
+        this.webClient = webClientBuilder.clone()
+                .codecs(codecs -> codecs.customCodecs().register(new RateTableDecoder()))
+                .build();
+        this.conversionMetrics = conversionMetrics;
+        this.quotaBudget = quotaBudget;
+    }
+
+    /**
+     * Creates the circuit breaker from the configuration.
+     */
+    @PostConstruct
+    public void init() {
+        circuitBreaker = new CircuitBreaker(NAME, failureRateThreshold, windowSize, minimumCalls,
+                openDuration, halfOpenCalls);
+    }
+
+    /**
+     * @return The name of the provider
      */
-    public ExchangeRateApiClient(WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder.build();
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * @return Whether calls count against the API key's quota, which they always do
+     */
+    @Override
+    public boolean isMetered() {
+        return true;
     }
 
     /**
      * Fetches the latest exchange rates for a specific base currency.
      *
      * @param baseCurrency The base currency to get rates for
-     * @return A Mono containing the API response with the latest rates
+     * @return A Mono containing the latest rates
+     */
+    @Override
+    public Mono<RateTable> getLatestRates(String baseCurrency) {
+        return hedged(baseCurrency)
+                .retryWhen(Retry.backoff(retryMaxAttempts, retryMinBackoff)
+                        .maxBackoff(retryMaxBackoff)
+                        .jitter(0.5)
+                        .filter(ExchangeRateApiClient::isTransient)
+                        .doBeforeRetry(signal -> log.debug("Retrying rates for {} after: {}",
+                                baseCurrency, signal.failure().getMessage()))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .timeout(deadline)
+                .onErrorMap(ExchangeRateApiClient::isTransient, error -> new ExchangeRateServiceUnavailableException(
+                        "Exchange rate service is unavailable: " + describe(error), error));
+    }
+
+    /**
+     * @return The state of the circuit breaker protecting the ExchangeRate API
+     */
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * Makes one attempt, hedged with a second one when it is slower than the configured latency percentile.
+     * The first attempt to return rates wins, so a primary failing fast does not hide a hedge that succeeds.
+     * The hedge is not sent when the primary already failed on an error that is not transient, and when
+     * both fail, the primary's error is the one reported.
+     */
+    private Mono<RateTable> hedged(String baseCurrency) {
+        return Mono.defer(() -> {
+            if (!hedgeEnabled || latencyTracker.count() < MIN_HEDGE_SAMPLES) {
+                return attempt(baseCurrency);
+            }
+            Duration hedgeDelay = Duration.ofNanos(Math.max(hedgeMinDelay.toNanos(), latencyTracker.percentile(hedgePercentile)));
+            AtomicReference<Throwable> primaryError = new AtomicReference<>();
+            Mono<RateTable> primary = attempt(baseCurrency).doOnError(primaryError::set);
+            Mono<RateTable> hedge = Mono.delay(hedgeDelay)
+                    .then(Mono.defer(() -> {
+                        Throwable error = primaryError.get();
+                        if (error != null && !isTransient(error)) {
+                            return Mono.<RateTable>error(error);
+                        }
+                        log.debug("Hedging rates request for {} after {}", baseCurrency, hedgeDelay);
+                        return attempt(baseCurrency);
+                    }));
+            return Mono.firstWithValue(primary, hedge)
+                    .onErrorMap(NoSuchElementException.class, error -> primaryError.get() != null ? primaryError.get() : error);
+        });
+    }
+
+    /**
+     * Makes a single timed request through the circuit breaker, if the quota allows it.
      */
-    public Mono<ExchangeRateApiResponse> getLatestRates(String baseCurrency) {
-        return webClient.get()
-                .uri(apiBaseUrl + "/v6/" + apiKey + "/latest/" + baseCurrency)
-                .retrieve()
-                .bodyToMono(ExchangeRateApiResponse.class);
+    private Mono<RateTable> attempt(String baseCurrency) {
+        Mono<RateTable> request = Mono.defer(() -> {
+            if (!quotaBudget.tryConsume()) {
+                return Mono.error(new ExchangeRateServiceUnavailableException(
+                        "ExchangeRate API quota is used up until " + Instant.ofEpochSecond(quotaBudget.getPeriodEndEpochSecond())));
+            }
+            long start = System.nanoTime();
+            return webClient.get()
+                    .uri(apiBaseUrl + "/v6/" + apiKey + "/latest/" + baseCurrency)
+                    .retrieve()
+                    .bodyToMono(RateTable.class)
+                    .timeout(callTimeout)
+                    .doOnSuccess(snapshot -> latencyTracker.record(System.nanoTime() - start));
+        });
+        return circuitBreaker.protect(conversionMetrics.timeUpstreamCall(baseCurrency, request),
+                ExchangeRateApiClient::isTransient);
+    }
+
+    /**
+     * @return Whether an error means the provider is slow or failing, rather than the request being invalid
+     */
+    static boolean isTransient(Throwable error) {
+        if (error instanceof WebClientResponseException responseError) {
+            return responseError.getStatusCode().is5xxServerError()
+                    || responseError.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+        return error instanceof TimeoutException || error instanceof WebClientRequestException;
+    }
+
+    private static String describe(Throwable error) {
+        return error instanceof TimeoutException ? "no response in time" : error.getMessage();
     }
 }
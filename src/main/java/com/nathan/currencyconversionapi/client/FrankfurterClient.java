@@ -0,0 +1,121 @@
+package com.nathan.currencyconversionapi.client;
+
+import com.nathan.currencyconversionapi.exception.CurrencyConversionException;
+import com.nathan.currencyconversionapi.exception.ExchangeRateServiceUnavailableException;
+import com.nathan.currencyconversionapi.model.FrankfurterResponse;
+import com.nathan.currencyconversionapi.provider.RateProvider;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Client for the Frankfurter API, a keyless provider of the European Central Bank reference rates.
+ * Used as a second source of rates next to the ExchangeRate API.
+ *
+ * <p>The ECB publishes once per working day and Frankfurter does not announce the next update,
+ * so snapshots from this provider are cached for the cache's default time to live.
+ * Failures caused by the provider being slow or down surface as {@link ExchangeRateServiceUnavailableException}.
+ */
+@Component
+@ConditionalOnProperty(name = "exchangerate.providers.frankfurter.enabled", havingValue = "true")
+public class FrankfurterClient implements RateProvider {
+
+    /**
+     * Name of the provider in configuration, logs and metrics
+     */
+    public static final String NAME = "frankfurter";
+
+    /**
+     * Base URL for the Frankfurter API
+     */
+    @Value("${exchangerate.providers.frankfurter.base-url:https://api.frankfurter.dev}")
+    private String apiBaseUrl;
+
+    /**
+     * Maximum duration of a single attempt
+     */
+    @Value("${exchangerate.providers.frankfurter.call-timeout:PT2S}")
+    private Duration callTimeout;
+
+    /**
+     * Number of retries after a failed attempt
+     */
+    @Value("${exchangerate.providers.frankfurter.retry.max-attempts:1}")
+    private int retryMaxAttempts;
+
+    /**
+     * Backoff before the first retry, doubled for each following one
+     */
+    @Value("${exchangerate.providers.frankfurter.retry.min-backoff:PT0.2S}")
+    private Duration retryMinBackoff;
+
+    /**
+     * WebClient instance for making HTTP requests
+     */
+    private final WebClient webClient;
+
+    /**
+     * Constructor that initializes the WebClient
+     */
+    public FrankfurterClient(WebClient.Builder webClientBuilder) {
+        this.webClient = webClientBuilder.build();
+    }
+
+    /**
+     * @return The name of the provider
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Fetches the latest reference rates for a specific base currency.
+     *
+     * @param baseCurrency The base currency to get rates for
+     * @return A Mono containing the latest rates
+     */
+    @Override
+    public Mono<RateTable> getLatestRates(String baseCurrency) {
+        return Mono.defer(() -> webClient.get()
+                        .uri(apiBaseUrl + "/v1/latest?base={base}", baseCurrency)
+                        .retrieve()
+                        .bodyToMono(FrankfurterResponse.class)
+                        .timeout(callTimeout))
+                .retryWhen(Retry.backoff(retryMaxAttempts, retryMinBackoff)
+                        .jitter(0.5)
+                        .filter(ExchangeRateApiClient::isTransient)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .onErrorMap(ExchangeRateApiClient::isTransient, error -> new ExchangeRateServiceUnavailableException(
+                        "Frankfurter is unavailable: "
+                                + (error instanceof TimeoutException ? "no response in time" : error.getMessage()), error))
+                .map(FrankfurterClient::toRateTable);
+    }
+
+    /**
+     * Converts a Frankfurter response, timestamped at midnight UTC of its publication day.
+     */
+    static RateTable toRateTable(FrankfurterResponse response) {
+        if (response.getBase() == null || response.getDate() == null || response.getRates() == null) {
+            throw new CurrencyConversionException("Failed to retrieve exchange rates");
+        }
+        RateTable.Builder builder = RateTable.builder()
+                .baseCurrency(response.getBase())
+                .lastUpdateEpochSecond(response.getDate().atStartOfDay(ZoneOffset.UTC).toEpochSecond());
+        double amount = response.getAmount() > 0 ? response.getAmount() : 1.0;
+        for (Map.Entry<String, Double> rate : response.getRates().entrySet()) {
+            builder.rate(CurrencyIndex.intern(rate.getKey()), rate.getValue() / amount);
+        }
+        return builder.build();
+    }
+}
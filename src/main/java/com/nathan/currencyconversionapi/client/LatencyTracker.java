@@ -0,0 +1,51 @@
+package com.nathan.currencyconversionapi.client;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the most recent successful calls to estimate a latency percentile.
+ * Upstream calls are rare compared to conversions, so recording and querying simply lock the instance.
+ */
+class LatencyTracker {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    /**
+     * @param capacity The number of most recent latencies kept
+     */
+    LatencyTracker(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    /**
+     * @param nanos The latency of a successful call, in nanoseconds
+     */
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    /**
+     * @return The number of latencies kept
+     */
+    synchronized int count() {
+        return count;
+    }
+
+    /**
+     * @param percentile A percentile between 0 and 1
+     * @return The latency at the percentile in nanoseconds, or -1 if no latency was recorded
+     */
+    synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+}
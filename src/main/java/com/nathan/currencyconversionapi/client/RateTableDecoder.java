@@ -0,0 +1,266 @@
+package com.nathan.currencyconversionapi.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.nathan.currencyconversionapi.exception.CurrencyConversionException;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractDecoder;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Decodes an ExchangeRate API response straight into a {@link RateTable}, token by token, as the body arrives.
+ *
+ * <p>Unlike binding the body to {@code ExchangeRateApiResponse}, the body is never aggregated into one buffer
+ * and no map of boxed rates is built: each currency code is packed from the parser's canonical field name,
+ * each rate is parsed from the parser's character buffer and written into the table builder, and each
+ * {@link DataBuffer} is released as soon as it has been parsed. Fields other than the result, the base code,
+ * the update times and the rates are skipped. A response whose result is not "success" fails with a
+ * {@link CurrencyConversionException}, so error responses are never cached.
+ */
+@Slf4j
+public class RateTableDecoder extends AbstractDecoder<RateTable> {
+
+    private static final String SUCCESS = "success";
+    private static final String RATES_FIELD = "conversion_rates";
+
+    private final JsonFactory jsonFactory;
+
+    public RateTableDecoder() {
+        this(JsonFactory.builder().enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER).build());
+    }
+
+    /**
+     * @param jsonFactory The factory creating the non-blocking parsers; its symbol table is shared by all responses
+     */
+    public RateTableDecoder(JsonFactory jsonFactory) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.jsonFactory = jsonFactory;
+    }
+
+    @Override
+    public boolean canDecode(ResolvableType elementType, @Nullable MimeType mimeType) {
+        return RateTable.class == elementType.toClass() && super.canDecode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<RateTable> decode(Publisher<DataBuffer> input, ResolvableType elementType,
+                                  @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        return decodeToMono(input, elementType, mimeType, hints).flux();
+    }
+
+    @Override
+    public Mono<RateTable> decodeToMono(Publisher<DataBuffer> input, ResolvableType elementType,
+                                        @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        return Flux.from(input)
+                .collect(this::newParser, ResponseParser::feed)
+                .map(ResponseParser::finish)
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    @Override
+    public RateTable decode(DataBuffer buffer, ResolvableType targetType,
+                            @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        ResponseParser parser = newParser();
+        parser.feed(buffer);
+        return parser.finish();
+    }
+
+    private ResponseParser newParser() {
+        try {
+            return new ResponseParser(jsonFactory.createNonBlockingByteBufferParser());
+        } catch (IOException ex) {
+            throw new DecodingException("Could not create JSON parser", ex);
+        }
+    }
+
+    private enum Section {
+        BEFORE_RESPONSE, RESPONSE, RATES, AFTER_RESPONSE
+    }
+
+    /**
+     * Incremental parse of one response. Fed buffer by buffer; every buffer is fully consumed before the next one.
+     */
+    private static final class ResponseParser {
+
+        private final JsonParser parser;
+        private final ByteBufferFeeder feeder;
+        private final RateTable.Builder builder = RateTable.builder();
+
+        private Section section = Section.BEFORE_RESPONSE;
+
+        /**
+         * Name of the response field whose value is being read
+         */
+        private String field;
+
+        /**
+         * Nesting depth of the ignored value being skipped, 0 when not skipping
+         */
+        private int skipDepth;
+
+        /**
+         * Id of the currency whose rate is being read, UNKNOWN for codes that are not currency codes
+         */
+        private int currencyId = CurrencyIndex.UNKNOWN;
+
+        private String result;
+        private String errorType;
+        private boolean hasBase;
+        private boolean hasRates;
+
+        private ResponseParser(JsonParser parser) {
+            this.parser = parser;
+            this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        /**
+         * Parses every complete token of a buffer and releases it.
+         */
+        private void feed(DataBuffer buffer) {
+            try (DataBuffer.ByteBufferIterator chunks = buffer.readableByteBuffers()) {
+                while (chunks.hasNext()) {
+                    feeder.feedInput(chunks.next());
+                    drain();
+                }
+            } catch (IOException ex) {
+                close();
+                throw new DecodingException("JSON decoding error: " + ex.getMessage(), ex);
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+        }
+
+        /**
+         * Parses the remaining tokens once the body is complete and builds the rate table.
+         */
+        private RateTable finish() {
+            try {
+                feeder.endOfInput();
+                drain();
+            } catch (IOException ex) {
+                throw new DecodingException("JSON decoding error: " + ex.getMessage(), ex);
+            } finally {
+                close();
+            }
+
+            if (section != Section.AFTER_RESPONSE) {
+                throw new DecodingException("Incomplete ExchangeRate API response");
+            }
+            // Check if the API request was successful; error responses are never cached
+            if (!SUCCESS.equals(result) || !hasBase || !hasRates) {
+                log.error("API request failed. Result: {}, error type: {}", result, errorType);
+                throw new CurrencyConversionException("Failed to retrieve exchange rates");
+            }
+            return builder.build();
+        }
+
+        private void drain() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                accept(token);
+            }
+        }
+
+        private void accept(JsonToken token) throws IOException {
+            if (skipDepth > 0) {
+                if (token.isStructStart()) {
+                    skipDepth++;
+                } else if (token.isStructEnd()) {
+                    skipDepth--;
+                }
+                return;
+            }
+
+            switch (section) {
+                case BEFORE_RESPONSE -> {
+                    if (token != JsonToken.START_OBJECT) {
+                        throw new DecodingException("ExchangeRate API response is not a JSON object");
+                    }
+                    section = Section.RESPONSE;
+                }
+                case RESPONSE -> acceptResponseToken(token);
+                case RATES -> acceptRateToken(token);
+                case AFTER_RESPONSE -> throw new DecodingException("Unexpected content after the ExchangeRate API response");
+            }
+        }
+
+        private void acceptResponseToken(JsonToken token) throws IOException {
+            if (token == JsonToken.FIELD_NAME) {
+                field = parser.currentName();
+                return;
+            }
+            if (token == JsonToken.END_OBJECT) {
+                section = Section.AFTER_RESPONSE;
+                return;
+            }
+            if (token == JsonToken.START_OBJECT && RATES_FIELD.equals(field)) {
+                section = Section.RATES;
+                hasRates = true;
+                return;
+            }
+            if (token.isStructStart()) {
+                skipDepth = 1;
+                return;
+            }
+
+            switch (field) {
+                case "result" -> result = parser.getValueAsString();
+                case "error-type" -> errorType = parser.getValueAsString();
+                case "base_code" -> {
+                    int packed = CurrencyIndex.pack(parser.getValueAsString());
+                    if (packed < 0) {
+                        throw new DecodingException("Invalid base currency: " + parser.getText());
+                    }
+                    builder.baseId(CurrencyIndex.internPacked(packed));
+                    hasBase = true;
+                }
+                case "time_last_update_unix" -> builder.lastUpdateEpochSecond(parser.getValueAsLong());
+                case "time_next_update_unix" -> builder.nextUpdateEpochSecond(parser.getValueAsLong());
+                default -> {
+                    // Other fields (documentation, terms of use, UTC dates) are not needed
+                }
+            }
+        }
+
+        private void acceptRateToken(JsonToken token) throws IOException {
+            if (token == JsonToken.FIELD_NAME) {
+                // Field names are canonicalized by the factory's symbol table, so reading one does not allocate
+                int packed = CurrencyIndex.pack(parser.currentName());
+                currencyId = packed < 0 ? CurrencyIndex.UNKNOWN : CurrencyIndex.internPacked(packed);
+            } else if (token == JsonToken.END_OBJECT) {
+                section = Section.RESPONSE;
+            } else if (token.isNumeric()) {
+                if (currencyId != CurrencyIndex.UNKNOWN) {
+                    builder.rate(currencyId, parser.getDoubleValue());
+                }
+            } else if (token.isStructStart()) {
+                skipDepth = 1;
+            }
+        }
+
+        private void close() {
+            try {
+                parser.close();
+            } catch (IOException ex) {
+                log.debug("Could not close JSON parser: {}", ex.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.nathan.currencyconversionapi.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Binary wire formats spoken next to JSON: CBOR (RFC 8949) and Jackson's Smile.
+ *
+ * <p>Both encode the same models as JSON, field names included, but numbers are written in binary and
+ * timestamps as epoch milliseconds instead of formatted strings, which is where most of the encoding time of a
+ * conversion result goes. {@code LocalDateTime}s are taken in the server's time zone.
+ */
+public final class BinaryFormats {
+
+    /**
+     * Media type of a Smile document
+     */
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    /**
+     * Media type of a stream of Smile documents, the binary counterpart of NDJSON
+     */
+    public static final String APPLICATION_STREAM_SMILE_VALUE = "application/stream+x-jackson-smile";
+
+    /**
+     * Media type of a Smile document
+     */
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    /**
+     * Media type of a stream of Smile documents
+     */
+    public static final MediaType APPLICATION_STREAM_SMILE = MediaType.parseMediaType(APPLICATION_STREAM_SMILE_VALUE);
+
+    /**
+     * Mapper reading and writing CBOR
+     */
+    public static final ObjectMapper CBOR_MAPPER = binaryMapper(new CBORFactory());
+
+    /**
+     * Mapper reading and writing Smile
+     */
+    public static final ObjectMapper SMILE_MAPPER = binaryMapper(new SmileFactory());
+
+    private BinaryFormats() {
+    }
+
+    /**
+     * Creates a mapper for a binary format that writes and reads timestamps as epoch milliseconds
+     * and, like Spring Boot's JSON mapper, ignores unknown properties.
+     *
+     * @param factory The factory of the binary format
+     * @return The configured mapper
+     */
+    public static ObjectMapper binaryMapper(JsonFactory factory) {
+        SimpleModule epochLocalDateTime = new SimpleModule("EpochLocalDateTime")
+                .addSerializer(LocalDateTime.class, new LocalDateTimeSerializer())
+                .addDeserializer(LocalDateTime.class, new LocalDateTimeDeserializer());
+        return new ObjectMapper(factory)
+                .registerModule(new JavaTimeModule())
+                .registerModule(epochLocalDateTime)
+                .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .disable(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Writes a local date-time as the epoch milliseconds of that time in the server's time zone.
+     */
+    private static final class LocalDateTimeSerializer extends StdSerializer<LocalDateTime> {
+
+        private LocalDateTimeSerializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeNumber(value.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+
+    /**
+     * Reads epoch milliseconds as a local date-time in the server's time zone.
+     */
+    private static final class LocalDateTimeDeserializer extends StdDeserializer<LocalDateTime> {
+
+        private LocalDateTimeDeserializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(parser.getLongValue()), ZoneId.systemDefault());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.nathan.currencyconversionapi.codec;
+
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+/**
+ * Formats a pre-serialized response body can be written in, chosen from the request's Accept header.
+ */
+public enum WireFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.APPLICATION_CBOR),
+    SMILE(BinaryFormats.APPLICATION_SMILE);
+
+    private final MediaType mediaType;
+
+    WireFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * @return The media type of the format
+     */
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Picks the binary format the client prefers among those it accepts explicitly, JSON otherwise.
+     *
+     * @param accept The media types of the request's Accept header
+     * @return The format to answer in
+     */
+    public static WireFormat negotiate(List<MediaType> accept) {
+        WireFormat best = JSON;
+        double bestQuality = 0;
+        for (MediaType accepted : accept) {
+            if (accepted.isWildcardType() || accepted.isWildcardSubtype()) {
+                continue;
+            }
+            for (WireFormat format : values()) {
+                if (format.mediaType.isCompatibleWith(accepted) && accepted.getQualityValue() > bestQuality) {
+                    best = format;
+                    bestQuality = accepted.getQualityValue();
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,63 @@
+package com.nathan.currencyconversionapi.config;
+
+import com.nathan.currencyconversionapi.codec.BinaryFormats;
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.util.MimeType;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Configuration of the binary wire formats, next to the default JSON codecs.
+ * Requests and responses are encoded in CBOR or Smile when the Content-Type or Accept header asks for it,
+ * with the mappers of {@link BinaryFormats} that write timestamps as epoch milliseconds.
+ */
+@Configuration
+public class BinaryCodecsConfig implements WebFluxConfigurer {
+
+    /**
+     * Replaces the default Smile codecs and adds the CBOR ones. The CBOR codecs are given their media type,
+     * without which they would claim the JSON ones.
+     *
+     * @param configurer The codecs of the server
+     */
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(BinaryFormats.SMILE_MAPPER));
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(BinaryFormats.SMILE_MAPPER));
+        configurer.customCodecs().register(new SingleValueCborEncoder());
+        configurer.customCodecs().register(new Jackson2CborDecoder(BinaryFormats.CBOR_MAPPER, MediaType.APPLICATION_CBOR));
+    }
+
+    /**
+     * CBOR encoder for single values. Spring's encoder only implements {@code encodeValue}, and throws when a
+     * response body, even a single value, is written through {@code encode}.
+     */
+    static final class SingleValueCborEncoder extends Jackson2CborEncoder {
+
+        SingleValueCborEncoder() {
+            super(BinaryFormats.CBOR_MAPPER, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                       ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+            if (!(inputStream instanceof Mono<?> value)) {
+                return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+            }
+            return value.map(body -> encodeValue(body, bufferFactory, elementType, mimeType, hints)).flux();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.nathan.currencyconversionapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Defers the creation of the springdoc beans until the OpenAPI description or the Swagger UI is first requested,
+ * so that building the models of the annotated controllers does not delay startup. Springdoc already generates
+ * the description on the first request unless {@code springdoc.pre-loading-enabled} is set; this also leaves the
+ * beans doing that work uncreated until then.
+ *
+ * <p>Beans that springdoc explicitly marks as eager or lazy are left as they are, and the framework still creates
+ * the ones it needs to start, such as WebFlux configurers. Disabled with {@code exchangerate.openapi.lazy=false}.
+ * With Spring AOT, the deferral is applied when the application is processed at build time.
+ */
+@Component
+@Slf4j
+public class LazyOpenApiPostProcessor implements BeanFactoryPostProcessor, EnvironmentAware {
+
+    private static final String SPRINGDOC_PACKAGE = "org.springdoc.";
+
+    /**
+     * Environment holding the exchangerate.openapi.lazy switch, read before any property is injected
+     */
+    private Environment environment;
+
+    /**
+     * @param environment The application environment
+     */
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Marks the springdoc bean definitions without an explicit initialization mode as lazy.
+     *
+     * @param beanFactory The bean factory holding the bean definitions
+     */
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        if (!environment.getProperty("exchangerate.openapi.lazy", Boolean.class, true)) {
+            return;
+        }
+        int deferred = 0;
+        for (String name : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(name);
+            if (definition instanceof AbstractBeanDefinition abstractDefinition
+                    && abstractDefinition.getLazyInit() == null
+                    && isSpringdoc(beanFactory, definition)) {
+                definition.setLazyInit(true);
+                deferred++;
+            }
+        }
+        log.debug("Deferred creation of {} springdoc beans to their first use", deferred);
+    }
+
+    /**
+     * @return Whether a bean is declared by springdoc, as a class or by a factory method of a springdoc configuration
+     */
+    private static boolean isSpringdoc(ConfigurableListableBeanFactory beanFactory, BeanDefinition definition) {
+        String className = definition.getBeanClassName();
+        String factoryBeanName = definition.getFactoryBeanName();
+        if (className == null && factoryBeanName != null && beanFactory.containsBeanDefinition(factoryBeanName)) {
+            className = beanFactory.getBeanDefinition(factoryBeanName).getBeanClassName();
+        }
+        return className != null && className.startsWith(SPRINGDOC_PACKAGE);
+    }
+}
@@ -0,0 +1,38 @@
+package com.nathan.currencyconversionapi.config;
+
+import com.nathan.currencyconversionapi.model.BatchConversionItem;
+import com.nathan.currencyconversionapi.model.ConversionRequest;
+import com.nathan.currencyconversionapi.model.ConversionResult;
+import com.nathan.currencyconversionapi.model.CurrencyCatalog;
+import com.nathan.currencyconversionapi.model.CurrencyInfo;
+import com.nathan.currencyconversionapi.model.ErrorResponse;
+import com.nathan.currencyconversionapi.model.ExchangeRateApiResponse;
+import com.nathan.currencyconversionapi.model.FanOutConversionResult;
+import com.nathan.currencyconversionapi.model.FrankfurterResponse;
+import com.nathan.currencyconversionapi.model.RateUpdate;
+import com.nathan.currencyconversionapi.model.ReplicationStatus;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class registering the reflection the native image needs to bind the models with Jackson.
+ * Spring AOT infers it for the request and response bodies of the controllers, but not for models read from
+ * the rate providers and the other instances, or serialized ahead of time by the catalog service.
+ * Has no effect on the JVM.
+ */
+@Configuration
+@RegisterReflectionForBinding({
+        BatchConversionItem.class,
+        ConversionRequest.class,
+        ConversionResult.class,
+        CurrencyCatalog.class,
+        CurrencyInfo.class,
+        ErrorResponse.class,
+        ExchangeRateApiResponse.class,
+        FanOutConversionResult.class,
+        FrankfurterResponse.class,
+        RateUpdate.class,
+        ReplicationStatus.class
+})
+public class NativeHintsConfig {
+}
@@ -8,23 +8,29 @@ import io.swagger.v3.oas.models.info.License;
 import io.swagger.v3.oas.models.servers.Server;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 import java.util.Arrays;
 
 /**
  * Configuration class for OpenAPI 3.0 (Swagger) documentation.
+ * The description is only built on the first request for it (see {@link LazyOpenApiPostProcessor}).
  */
 @Configuration
 public class OpenApiConfig {
 
     /**
-     * Creates and returns a customized OpenAPI instance.
+     * Creates and returns a customized OpenAPI instance, on the first request for the API description.
      *
      * @return A configured OpenAPI instance
      */
     @Bean
+    @Lazy
     public OpenAPI customOpenAPI() {
-
+        // Create contact information
+        Contact contact = new Contact()
+                .name("Currency Conversion API")
+                .url("https://github.com/duchelle5093/Currency-exchange-management-api");
 
         // Create license information
         License mitLicense = new License()
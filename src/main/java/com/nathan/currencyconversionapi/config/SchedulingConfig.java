@@ -0,0 +1,12 @@
+package com.nathan.currencyconversionapi.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class enabling scheduled background tasks, such as refreshing rate snapshots.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,30 +1,105 @@
 package com.nathan.currencyconversionapi.config;
 
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 /**
  * Configuration class for WebClient.
- * Sets up the WebClient with appropriate memory limits and other configurations.
+ * Sets up the WebClient with appropriate memory limits, a bounded connection pool and timeouts.
  */
 @Configuration
 public class WebClientConfig {
 
+    /**
+     * Maximum number of connections open to the ExchangeRate API
+     */
+    @Value("${exchangerate.client.pool.max-connections:50}")
+    private int maxConnections;
+
+    /**
+     * Maximum number of requests waiting for a connection
+     */
+    @Value("${exchangerate.client.pool.pending-acquire-max-count:200}")
+    private int pendingAcquireMaxCount;
+
+    /**
+     * Maximum time a request waits for a connection
+     */
+    @Value("${exchangerate.client.pool.pending-acquire-timeout:PT1S}")
+    private Duration pendingAcquireTimeout;
+
+    /**
+     * Time after which an idle connection is closed
+     */
+    @Value("${exchangerate.client.pool.max-idle-time:PT30S}")
+    private Duration maxIdleTime;
+
+    /**
+     * Time after which a connection is closed once released, so DNS changes are eventually picked up
+     */
+    @Value("${exchangerate.client.pool.max-life-time:PT5M}")
+    private Duration maxLifeTime;
+
+    /**
+     * Maximum time to establish a connection
+     */
+    @Value("${exchangerate.client.connect-timeout:PT2S}")
+    private Duration connectTimeout;
+
+    /**
+     * Maximum time to wait for a response once the request is sent
+     */
+    @Value("${exchangerate.client.call-timeout:PT2S}")
+    private Duration responseTimeout;
+
+    /**
+     * Creates the connection pool used to call the ExchangeRate API.
+     *
+     * @return A bounded ConnectionProvider that evicts idle connections in the background
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider exchangeRateConnectionProvider() {
+        return ConnectionProvider.builder("exchangerate")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(maxIdleTime)
+                .build();
+    }
+
     /**
      * Creates a WebClient builder bean with increased memory buffer for handling larger responses.
      *
+     * @param exchangeRateConnectionProvider The connection pool for the ExchangeRate API
      * @return WebClient.Builder with custom configuration
      */
     @Bean
-    public WebClient.Builder webClientBuilder() {
+    public WebClient.Builder webClientBuilder(ConnectionProvider exchangeRateConnectionProvider) {
         // Increase the buffer size to handle larger responses
         ExchangeStrategies strategies = ExchangeStrategies.builder()
                 .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 * 1024 * 1024)) // 16MB
                 .build();
 
+        HttpClient httpClient = HttpClient.create(exchangeRateConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .responseTimeout(responseTimeout)
+                .compress(true);
+
         return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .exchangeStrategies(strategies);
     }
 }
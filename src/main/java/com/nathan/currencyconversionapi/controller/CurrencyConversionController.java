@@ -1,9 +1,18 @@
 package com.nathan.currencyconversionapi.controller;
 
+import com.nathan.currencyconversionapi.codec.BinaryFormats;
+import com.nathan.currencyconversionapi.codec.WireFormat;
+import com.nathan.currencyconversionapi.model.BatchConversionItem;
 import com.nathan.currencyconversionapi.model.ConversionRequest;
 import com.nathan.currencyconversionapi.model.ConversionResult;
+import com.nathan.currencyconversionapi.model.CurrencyCatalog;
 import com.nathan.currencyconversionapi.model.ErrorResponse;
+import com.nathan.currencyconversionapi.model.FanOutConversionResult;
+import com.nathan.currencyconversionapi.model.RateUpdate;
+import com.nathan.currencyconversionapi.rates.RateTable;
 import com.nathan.currencyconversionapi.service.CurrencyConversionService;
+import com.nathan.currencyconversionapi.service.RateCatalogService;
+import com.nathan.currencyconversionapi.service.RateStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,11 +24,19 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.List;
+
 /**
  * REST controller for currency conversion operations.
  * Provides endpoints for converting currencies using real-time exchange rates.
@@ -36,6 +53,16 @@ public class CurrencyConversionController {
      */
     private final CurrencyConversionService conversionService;
 
+    /**
+     * Service for pushing exchange rate changes to subscribers
+     */
+    private final RateStreamService rateStreamService;
+
+    /**
+     * Service serving the currency catalog and rate tables from pre-serialized snapshots
+     */
+    private final RateCatalogService rateCatalogService;
+
     /**
      * Endpoint for converting an amount from one currency to another using POST method.
      *
@@ -44,13 +71,15 @@ public class CurrencyConversionController {
      */
     @PostMapping(
             value = "/convert",
-            produces = MediaType.APPLICATION_JSON_VALUE,
-            consumes = MediaType.APPLICATION_JSON_VALUE
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BinaryFormats.APPLICATION_SMILE_VALUE},
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BinaryFormats.APPLICATION_SMILE_VALUE}
     )
     @Operation(
             summary = "Convert currency (POST method)",
             description = "Converts an amount from one currency to another using current exchange rates. " +
-                    "This endpoint accepts a JSON request body with source currency, target currency, and amount."
+                    "This endpoint accepts a JSON request body with source currency, target currency, and amount. " +
+                    "An optional asOf time converts at the exchange rates that were in effect at that time. " +
+                    "Requests and responses may also be encoded in CBOR or Smile, with timestamps as epoch milliseconds."
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -114,19 +143,87 @@ public class CurrencyConversionController {
                 });
     }
 
+    /**
+     * Endpoint for converting many amounts in one call.
+     * Accepts a JSON array or an NDJSON stream of conversion requests and streams back one NDJSON line per request.
+     *
+     * @param requests The conversion requests
+     * @return A Flux of batch items, in request order, each holding a conversion result or an error
+     */
+    @PostMapping(
+            value = "/convert/batch",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, BinaryFormats.APPLICATION_STREAM_SMILE_VALUE},
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                    BinaryFormats.APPLICATION_SMILE_VALUE, BinaryFormats.APPLICATION_STREAM_SMILE_VALUE}
+    )
+    @Operation(
+            summary = "Convert currency in batch",
+            description = "Converts a JSON array or NDJSON stream of conversion requests and streams the results back as NDJSON, " +
+                    "one line per request in the same order. A failed conversion is reported inline in its line " +
+                    "and does not fail the rest of the batch. " +
+                    "A Smile array or stream of Smile documents may be sent instead, and results streamed back as Smile documents."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Batch processed; each line holds either a result or an error",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = BatchConversionItem.class),
+                            examples = @ExampleObject(
+                                    value = "{\"index\":0,\"result\":{\"sourceCurrency\":\"USD\",\"targetCurrency\":\"EUR\",\"sourceAmount\":100.0,\"targetAmount\":91.68,\"exchangeRate\":0.9168,\"timestamp\":\"2025-05-02T10:15:30.123\"}}\n" +
+                                            "{\"index\":1,\"error\":{\"status\":400,\"message\":\"Target currency XYZ not found in available rates\",\"timestamp\":1714640530123}}"
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid request - This occurs when the request body cannot be parsed",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            )
+    })
+    public Flux<BatchConversionItem> convertBatch(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "JSON array or NDJSON stream of conversion requests",
+                    required = true,
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = ConversionRequest.class),
+                            examples = @ExampleObject(
+                                    value = "{\"sourceCurrency\":\"USD\",\"targetCurrency\":\"EUR\",\"amount\":100.0}\n" +
+                                            "{\"sourceCurrency\":\"USD\",\"targetCurrency\":\"XYZ\",\"amount\":50.0}"
+                            )
+                    )
+            )
+            @RequestBody Flux<ConversionRequest> requests) {
+
+        log.info("Received batch conversion request");
+        return conversionService.convertBatch(requests);
+    }
+
     /**
      * Alternative endpoint for converting currency using path variables and query parameter.
      *
      * @param sourceCurrency The source currency code
      * @param targetCurrency The target currency code
      * @param amount The amount to convert
-     * @return ResponseEntity containing the conversion result
+     * @param asOf Optional point in time to convert at the rates in effect then
+     * @param httpRequest The HTTP request, checked for If-None-Match
+     * @return ResponseEntity containing the conversion result, or 304 when the client's copy is still current
      */
-    @GetMapping("/convert/{sourceCurrency}/to/{targetCurrency}")
+    @GetMapping(
+            value = "/convert/{sourceCurrency}/to/{targetCurrency}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BinaryFormats.APPLICATION_SMILE_VALUE}
+    )
     @Operation(
             summary = "Convert currency (GET method)",
             description = "Alternative endpoint for currency conversion using path variables for currencies and query parameter for amount. " +
-                    "This provides a more RESTful and URL-friendly approach for simple conversions."
+                    "This provides a more RESTful and URL-friendly approach for simple conversions. " +
+                    "Responses carry an ETag derived from the rate snapshot and may be cached until the provider's next update; " +
+                    "a request with a matching If-None-Match header is answered with 304 without converting again."
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -140,6 +237,10 @@ public class CurrencyConversionController {
                             )
                     )
             ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Not modified - The rate snapshot matching the If-None-Match header is still current"
+            ),
             @ApiResponse(
                     responseCode = "400",
                     description = "Invalid request - This occurs when the amount is invalid or missing",
@@ -185,41 +286,218 @@ public class CurrencyConversionController {
                     required = true,
                     example = "100.0"
             )
-            @RequestParam Double amount) {
+            @RequestParam Double amount,
+
+            @Parameter(
+                    description = "Optional ISO-8601 point in time; converts at the exchange rates in effect at that time instead of the latest ones",
+                    example = "2025-05-02T10:15:30Z"
+            )
+            @RequestParam(required = false) Instant asOf,
+
+            @Parameter(hidden = true) ServerHttpRequest httpRequest) {
 
-        ConversionRequest request = new ConversionRequest(sourceCurrency, targetCurrency, amount);
+        ConversionRequest request = new ConversionRequest(sourceCurrency, targetCurrency, amount, asOf);
         log.info("Received alternative conversion request: {}", request);
 
+        // Answer a revalidation from the cached snapshot alone, before any conversion work
+        WireFormat format = WireFormat.negotiate(httpRequest.getHeaders().getAccept());
+        RateTable cached = conversionService.cachedSnapshotFor(request);
+        if (cached != null) {
+            long now = System.currentTimeMillis() / 1000;
+            String etag = HttpCaching.etagFor(cached, format, now);
+            if (HttpCaching.isNotModified(httpRequest, etag)) {
+                return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .cacheControl(HttpCaching.cacheControlFor(cached, now))
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .build());
+            }
+        }
+
         return conversionService.convertCurrency(request)
                 .map(result -> {
                     log.info("Conversion successful: {}", result);
-                    return ResponseEntity.ok(result);
+                    // Only tag the response when it was computed from the snapshot still cached
+                    RateTable snapshot = conversionService.cachedSnapshotFor(request);
+                    long convertedAt = System.currentTimeMillis() / 1000;
+                    if (snapshot == null || result.getRateTimestamp() == null
+                            || snapshot.getVersion() != result.getRateTimestamp().getEpochSecond()) {
+                        return ResponseEntity.ok(result);
+                    }
+                    // Write the body in the format the tag names
+                    return ResponseEntity.ok()
+                            .contentType(format.getMediaType())
+                            .eTag(HttpCaching.etagFor(snapshot, format, convertedAt))
+                            .cacheControl(HttpCaching.cacheControlFor(snapshot, convertedAt))
+                            .varyBy(HttpHeaders.ACCEPT)
+                            .body(result);
                 });
     }
 
     /**
-     * Endpoint to get the list of supported currencies.
+     * Endpoint converting an amount to many currencies at once.
+     *
+     * @param sourceCurrency The source currency code
+     * @param amount The amount to convert
+     * @param symbols Optional target currency codes; every other currency is converted when omitted
+     * @return ResponseEntity containing the converted amounts by target currency
+     */
+    @GetMapping(
+            value = "/convert/{sourceCurrency}/to-all",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BinaryFormats.APPLICATION_SMILE_VALUE}
+    )
+    @Operation(
+            summary = "Convert currency to many currencies",
+            description = "Converts an amount from one currency to every requested target currency, or to every supported " +
+                    "currency when symbols are omitted. All amounts are computed from a single rate snapshot, " +
+                    "which makes this endpoint much cheaper than one conversion call per target currency."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Conversion successful",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = FanOutConversionResult.class),
+                            examples = @ExampleObject(
+                                    value = "{\"sourceCurrency\":\"USD\",\"sourceAmount\":100.0,\"amounts\":{\"EUR\":91.68,\"GBP\":79.81,\"JPY\":15312},\"rateTimestamp\":\"2025-05-02T00:00:01Z\"}"
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid request - This occurs when the amount is invalid or a currency is not supported",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error - This occurs when there's an issue with the server or external API",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            )
+    })
+    public Mono<ResponseEntity<FanOutConversionResult>> convertCurrencyToAll(
+            @Parameter(
+                    description = "The 3-letter ISO currency code of the source currency (e.g., USD, EUR, GBP)",
+                    required = true,
+                    example = "USD"
+            )
+            @PathVariable String sourceCurrency,
+
+            @Parameter(
+                    description = "The amount to convert (must be greater than 0)",
+                    required = true,
+                    example = "100.0"
+            )
+            @RequestParam Double amount,
+
+            @Parameter(
+                    description = "Comma-separated target currency codes (e.g., EUR,GBP,JPY); every supported currency when omitted",
+                    example = "EUR,GBP,JPY"
+            )
+            @RequestParam(required = false) List<String> symbols) {
+
+        log.info("Received fan-out conversion request: {} {} to {}", amount, sourceCurrency, symbols == null ? "all" : symbols);
+        return conversionService.convertToAll(sourceCurrency, amount, symbols == null ? List.of() : symbols)
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Endpoint streaming exchange rate changes for a base currency.
+     * Pushes the current rates on subscription and then only the rates that change with each new snapshot.
+     *
+     * @param base The base currency code
+     * @param symbols Optional currency codes to follow; every currency is followed when omitted
+     * @return A Flux of rate updates, sent as Server-Sent Events or NDJSON
+     */
+    @GetMapping(
+            value = "/rates/stream",
+            produces = {MediaType.TEXT_EVENT_STREAM_VALUE, MediaType.APPLICATION_NDJSON_VALUE}
+    )
+    @Operation(
+            summary = "Stream rate changes",
+            description = "Streams exchange rates for a base currency as Server-Sent Events or NDJSON. " +
+                    "The first event carries every requested rate, later events only the rates that changed. " +
+                    "Subscribers share one feed per base currency, so they never cause additional upstream calls."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Stream of rate updates",
+                    content = @Content(
+                            mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = RateUpdate.class),
+                            examples = @ExampleObject(
+                                    value = "data:{\"baseCurrency\":\"USD\",\"lastUpdate\":1714608001,\"nextUpdate\":1714694401,\"rates\":{\"EUR\":0.9168,\"GBP\":0.7981}}"
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid request - This occurs when a currency code is not supported",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            )
+    })
+    public Flux<RateUpdate> streamRates(
+            @Parameter(
+                    description = "The 3-letter ISO currency code the rates are quoted against",
+                    required = true,
+                    example = "USD"
+            )
+            @RequestParam String base,
+
+            @Parameter(
+                    description = "Comma-separated currency codes to follow (e.g., EUR,GBP); all currencies when omitted",
+                    example = "EUR,GBP"
+            )
+            @RequestParam(required = false) List<String> symbols) {
+
+        log.info("Received rate stream subscription for base {} and symbols {}", base, symbols);
+        return rateStreamService.streamRates(base, symbols == null ? List.of() : symbols);
+    }
+
+    /**
+     * Endpoint to get the catalog of supported currencies, built from the current rate snapshot.
      * This is a useful reference endpoint for frontend applications.
      *
-     * @return ResponseEntity containing an array of supported currency codes
+     * @param httpRequest The HTTP request, checked for If-None-Match
+     * @return ResponseEntity containing the pre-serialized catalog, or 304 when the client's copy is still current
      */
-    @GetMapping("/supported-currencies")
+    @GetMapping(
+            value = "/supported-currencies",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BinaryFormats.APPLICATION_SMILE_VALUE}
+    )
     @Operation(
             summary = "Get supported currencies",
-            description = "Returns a list of all supported currency codes that can be used for conversion. " +
-                    "This endpoint is useful for populating dropdowns or autocomplete fields in frontend applications."
+            description = "Returns every currency of the current rate snapshot with its name and minor units, " +
+                    "along with the snapshot version. " +
+                    "This endpoint is useful for populating dropdowns or autocomplete fields in frontend applications. " +
+                    "The catalog only changes with the snapshot; it carries an ETag and may be cached until the provider's next update."
     )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
-                    description = "List of supported currencies retrieved successfully",
+                    description = "Catalog of supported currencies retrieved successfully",
                     content = @Content(
                             mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = CurrencyCatalog.class),
                             examples = @ExampleObject(
-                                    value = "[\"USD\", \"EUR\", \"GBP\", \"JPY\", \"AUD\", \"CAD\", \"CHF\", \"CNY\", \"INR\"]"
+                                    value = "{\"baseCurrency\":\"USD\",\"version\":1714608001,\"currencies\":[{\"code\":\"EUR\",\"name\":\"Euro\",\"minorUnits\":2},{\"code\":\"JPY\",\"name\":\"Japanese Yen\",\"minorUnits\":0}]}"
                             )
                     )
             ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Not modified - The snapshot matching the If-None-Match header is still current"
+            ),
             @ApiResponse(
                     responseCode = "500",
                     description = "Internal server error",
@@ -229,11 +507,87 @@ public class CurrencyConversionController {
                     )
             )
     })
-    public Mono<ResponseEntity<String[]>> getSupportedCurrencies() {
-        // This is a placeholder - in a real implementation, you would get this from your service
-        // Here we're just returning a hardcoded list of common currencies
-        String[] supportedCurrencies = {"USD", "EUR", "GBP", "JPY", "AUD", "CAD", "CHF", "CNY", "INR"};
+    public Mono<ResponseEntity<ByteBuffer>> getSupportedCurrencies(@Parameter(hidden = true) ServerHttpRequest httpRequest) {
+        return rateCatalogService.catalog()
+                .map(catalog -> serializedResponse(catalog, httpRequest));
+    }
 
-        return Mono.just(ResponseEntity.ok(supportedCurrencies));
+    /**
+     * Endpoint to get every exchange rate from a base currency.
+     *
+     * @param base The base currency code
+     * @param httpRequest The HTTP request, checked for If-None-Match
+     * @return ResponseEntity containing the pre-serialized rate table, or 304 when the client's copy is still current
+     */
+    @GetMapping(
+            value = "/rates/{base}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BinaryFormats.APPLICATION_SMILE_VALUE}
+    )
+    @Operation(
+            summary = "Get the rate table of a base currency",
+            description = "Returns every exchange rate from a base currency in the current snapshot. " +
+                    "The table only changes with the snapshot; it carries an ETag and may be cached until the provider's next update."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Rate table retrieved successfully",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = RateUpdate.class),
+                            examples = @ExampleObject(
+                                    value = "{\"baseCurrency\":\"USD\",\"lastUpdate\":1714608001,\"nextUpdate\":1714694401,\"rates\":{\"EUR\":0.9168,\"GBP\":0.7981}}"
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Not modified - The snapshot matching the If-None-Match header is still current"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid request - This occurs when the base currency is not supported",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            )
+    })
+    public Mono<ResponseEntity<ByteBuffer>> getRates(
+            @Parameter(
+                    description = "The 3-letter ISO currency code the rates are quoted against",
+                    required = true,
+                    example = "USD"
+            )
+            @PathVariable String base,
+
+            @Parameter(hidden = true) ServerHttpRequest httpRequest) {
+
+        return rateCatalogService.rateTable(base)
+                .map(table -> serializedResponse(table, httpRequest));
+    }
+
+    /**
+     * Answers with a body serialized for a snapshot in the format the client accepts, tagged with the snapshot's ETag,
+     * or with 304 when the client already holds it.
+     */
+    private static ResponseEntity<ByteBuffer> serializedResponse(RateCatalogService.Serialized serialized,
+                                                                 ServerHttpRequest httpRequest) {
+        long now = System.currentTimeMillis() / 1000;
+        WireFormat format = WireFormat.negotiate(httpRequest.getHeaders().getAccept());
+        String etag = HttpCaching.etagFor(serialized.snapshot(), format, now);
+        if (HttpCaching.isNotModified(httpRequest, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(HttpCaching.cacheControlFor(serialized.snapshot(), now))
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .eTag(etag)
+                .cacheControl(HttpCaching.cacheControlFor(serialized.snapshot(), now))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(serialized.body(format));
     }
-}
\ No newline at end of file
+}
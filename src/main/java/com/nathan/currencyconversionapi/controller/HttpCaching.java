@@ -0,0 +1,71 @@
+package com.nathan.currencyconversionapi.controller;
+
+import com.nathan.currencyconversionapi.codec.WireFormat;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * HTTP caching headers for responses computed from a rate snapshot.
+ *
+ * <p>A response only changes when the snapshot it was computed from changes, so its entity tag is derived from
+ * the snapshot's base currency and version, plus whether the snapshot was already stale. The same snapshot is
+ * answered as JSON, CBOR or Smile depending on the Accept header, so the tag also names the format: a client or
+ * shared cache revalidating the JSON body must not be told it still holds the current CBOR one. The tag is weak
+ * because the body also carries the time of the conversion. Responses may be cached by browsers and shared caches until
+ * the provider's announced next update.
+ */
+final class HttpCaching {
+
+    private HttpCaching() {
+    }
+
+    /**
+     * @param snapshot The snapshot a response is computed from
+     * @param format The format the response body is written in
+     * @param nowEpochSecond The current time (Unix format)
+     * @return The weak entity tag of the response, such as {@code W/"USD-1714608000-cbor"}
+     */
+    static String etagFor(RateTable snapshot, WireFormat format, long nowEpochSecond) {
+        return "W/\"" + snapshot.getBaseCurrency() + '-' + snapshot.getVersion()
+                + '-' + format.name().toLowerCase(Locale.ROOT)
+                + (snapshot.isStaleAt(nowEpochSecond) ? "-stale" : "") + '"';
+    }
+
+    /**
+     * @param snapshot The snapshot a response is computed from
+     * @param nowEpochSecond The current time (Unix format)
+     * @return Public caching until the snapshot's next update, or revalidation on every use once it is stale
+     */
+    static CacheControl cacheControlFor(RateTable snapshot, long nowEpochSecond) {
+        long maxAge = Math.max(0, snapshot.getNextUpdateEpochSecond() - nowEpochSecond);
+        return CacheControl.maxAge(Duration.ofSeconds(maxAge)).cachePublic();
+    }
+
+    /**
+     * Compares the request's If-None-Match header with an entity tag, using the weak comparison of RFC 9110.
+     * A tag held for another format of the same snapshot does not match, since it names its format.
+     *
+     * @param request The request
+     * @param etag The entity tag of the current response
+     * @return Whether the client already holds the current response
+     */
+    static boolean isNotModified(ServerHttpRequest request, String etag) {
+        List<String> ifNoneMatch = request.getHeaders().getIfNoneMatch();
+        String opaqueTag = opaque(etag);
+        for (String candidate : ifNoneMatch) {
+            if ("*".equals(candidate) || opaqueTag.equals(opaque(candidate))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
@@ -0,0 +1,132 @@
+package com.nathan.currencyconversionapi.controller;
+
+import com.nathan.currencyconversionapi.cache.RateSnapshotCache;
+import com.nathan.currencyconversionapi.cache.SnapshotFileStore;
+import com.nathan.currencyconversionapi.exception.CurrencyConversionException;
+import com.nathan.currencyconversionapi.model.ReplicationStatus;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.replication.LeaderElection;
+import com.nathan.currencyconversionapi.replication.ReplicationClient;
+import com.nathan.currencyconversionapi.replication.ReplicationLog;
+import com.nathan.currencyconversionapi.replication.SnapshotDelta;
+import io.swagger.v3.oas.annotations.Hidden;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Internal endpoints instances call on each other to elect a leader and replicate its rate snapshots.
+ * Not part of the public API: they are left out of the OpenAPI description and of admission control, and
+ * answer 403 unless the caller presents the shared replication token, which {@link LeaderElection} requires
+ * at startup. Should it be empty anyway, every call is refused rather than served to anyone.
+ */
+@RestController
+@RequestMapping("/internal/replication")
+@RequiredArgsConstructor
+@Hidden
+@ConditionalOnProperty(name = "exchangerate.replication.enabled", havingValue = "true")
+public class ReplicationController {
+
+    /**
+     * Election whose state is reported to the peers
+     */
+    private final LeaderElection leaderElection;
+
+    /**
+     * Log numbering the snapshot versions of this instance
+     */
+    private final ReplicationLog replicationLog;
+
+    /**
+     * Cache of exchange rate snapshots served to the followers
+     */
+    private final RateSnapshotCache rateSnapshotCache;
+
+    /**
+     * Token the peers must present
+     */
+    @Value("${exchangerate.replication.token:}")
+    private String token;
+
+    /**
+     * Reports the replication state of this instance.
+     *
+     * @param presentedToken The replication token presented by the caller
+     * @return The state of this instance
+     */
+    @GetMapping(value = "/status", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ReplicationStatus> status(
+            @RequestHeader(value = ReplicationClient.TOKEN_HEADER, required = false) String presentedToken) {
+        if (!isAuthorized(presentedToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(new ReplicationStatus(leaderElection.getSelfUrl(), leaderElection.getLeader(),
+                replicationLog.getEpoch(), replicationLog.getSequence()));
+    }
+
+    /**
+     * Serves the snapshots that changed since a follower's last pull, with the epoch and sequence number
+     * to pull from next time in the response headers.
+     *
+     * @param epoch The epoch of the follower's last pull, 0 if none
+     * @param since The sequence number of the follower's last pull
+     * @param presentedToken The replication token presented by the caller
+     * @return The changed snapshots, in the layout of the snapshot file
+     */
+    @GetMapping(value = "/snapshots", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<ByteBuffer> snapshots(
+            @RequestParam(defaultValue = "0") long epoch,
+            @RequestParam(defaultValue = "0") long since,
+            @RequestHeader(value = ReplicationClient.TOKEN_HEADER, required = false) String presentedToken) {
+        if (!isAuthorized(presentedToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        SnapshotDelta delta = replicationLog.since(epoch, since);
+        return ResponseEntity.ok()
+                .header(ReplicationClient.EPOCH_HEADER, Long.toString(delta.epoch()))
+                .header(ReplicationClient.SEQUENCE_HEADER, Long.toString(delta.sequence()))
+                .body(SnapshotFileStore.encode(delta.snapshots()));
+    }
+
+    /**
+     * Serves the snapshot of a base currency to a follower that misses it, fetching it from the rate providers
+     * if this instance has none either. Only the leader answers: an instance that follows another one would forward
+     * the miss again, and two instances that each take the other for the leader would forward it back and forth.
+     *
+     * @param baseCurrency The base currency code
+     * @param presentedToken The replication token presented by the caller
+     * @return A Mono containing the snapshot, in the layout of the snapshot file, or 503 if this instance does not lead
+     */
+    @GetMapping(value = "/snapshots/{baseCurrency}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Mono<ResponseEntity<ByteBuffer>> snapshot(
+            @PathVariable String baseCurrency,
+            @RequestHeader(value = ReplicationClient.TOKEN_HEADER, required = false) String presentedToken) {
+        if (!isAuthorized(presentedToken)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+        }
+        if (!leaderElection.isLeader()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+        int baseId = CurrencyIndex.idOf(baseCurrency);
+        if (baseId == CurrencyIndex.UNKNOWN) {
+            return Mono.error(new CurrencyConversionException("Base currency " + baseCurrency + " is not supported"));
+        }
+        return rateSnapshotCache.getSnapshot(CurrencyIndex.code(baseId))
+                .map(snapshot -> ResponseEntity.ok().body(SnapshotFileStore.encode(List.of(snapshot))));
+    }
+
+    private boolean isAuthorized(String presentedToken) {
+        return !token.isEmpty() && presentedToken != null && MessageDigest.isEqual(
+                token.getBytes(StandardCharsets.UTF_8), presentedToken.getBytes(StandardCharsets.UTF_8));
+    }
+}
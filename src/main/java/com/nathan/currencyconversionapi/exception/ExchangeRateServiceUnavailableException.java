@@ -0,0 +1,28 @@
+package com.nathan.currencyconversionapi.exception;
+
+
+/**
+ * Exception thrown when the ExchangeRate API cannot be reached in time:
+ * it timed out, kept failing after retries, or its circuit breaker is open.
+ */
+public class ExchangeRateServiceUnavailableException extends RuntimeException {
+
+    /**
+     * Constructs a new exception with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public ExchangeRateServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new exception with the specified detail message and cause.
+     *
+     * @param message the detail message
+     * @param cause the cause of the exception
+     */
+    public ExchangeRateServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
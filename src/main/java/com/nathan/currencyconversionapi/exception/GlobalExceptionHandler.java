@@ -1,6 +1,8 @@
 package com.nathan.currencyconversionapi.exception;
 
+import com.nathan.currencyconversionapi.metrics.ConversionMetrics;
 import com.nathan.currencyconversionapi.model.ErrorResponse;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -13,9 +15,15 @@ import org.springframework.web.reactive.function.client.WebClientResponseExcepti
  * Catches exceptions and transforms them into standardized ErrorResponse objects.
  */
 @RestControllerAdvice
+@RequiredArgsConstructor
 @Slf4j
 public class GlobalExceptionHandler {
 
+    /**
+     * Metrics counting the errors answered to clients
+     */
+    private final ConversionMetrics conversionMetrics;
+
     /**
      * Handles CurrencyConversionException.
      *
@@ -25,6 +33,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(CurrencyConversionException.class)
     public ResponseEntity<ErrorResponse> handleCurrencyConversionException(CurrencyConversionException ex) {
         log.error("Currency conversion error: {}", ex.getMessage());
+        conversionMetrics.recordError(ex, HttpStatus.BAD_REQUEST.value());
         ErrorResponse errorResponse = new ErrorResponse(
                 HttpStatus.BAD_REQUEST.value(),
                 ex.getMessage(),
@@ -33,6 +42,25 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handles ExchangeRateServiceUnavailableException, raised when the ExchangeRate API is slow, failing
+     * or behind an open circuit breaker and no usable snapshot is cached.
+     *
+     * @param ex the exception
+     * @return ResponseEntity containing an ErrorResponse with a 503 status
+     */
+    @ExceptionHandler(ExchangeRateServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleExchangeRateServiceUnavailableException(ExchangeRateServiceUnavailableException ex) {
+        log.error("Exchange rate service unavailable: {}", ex.getMessage());
+        conversionMetrics.recordError(ex, HttpStatus.SERVICE_UNAVAILABLE.value());
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                ex.getMessage(),
+                System.currentTimeMillis()
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     /**
      * Handles WebClientResponseException which occurs during API calls.
      *
@@ -42,6 +70,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(WebClientResponseException.class)
     public ResponseEntity<ErrorResponse> handleWebClientResponseException(WebClientResponseException ex) {
         log.error("External API error: {}", ex.getMessage());
+        conversionMetrics.recordError(ex, ex.getStatusCode().value());
         ErrorResponse errorResponse = new ErrorResponse(
                 ex.getStatusCode().value(),
                 "Error communicating with exchange rate service: " + ex.getMessage(),
@@ -59,6 +88,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
         log.error("Unexpected error: {}", ex.getMessage(), ex);
+        conversionMetrics.recordError(ex, HttpStatus.INTERNAL_SERVER_ERROR.value());
         ErrorResponse errorResponse = new ErrorResponse(
                 HttpStatus.INTERNAL_SERVER_ERROR.value(),
                 "An unexpected error occurred: " + ex.getMessage(),
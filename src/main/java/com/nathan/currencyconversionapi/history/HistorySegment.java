@@ -0,0 +1,309 @@
+package com.nathan.currencyconversionapi.history;
+
+import com.nathan.currencyconversionapi.io.DurableFiles;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One append-only file of snapshots for a single base currency.
+ *
+ * <p>The header fixes the currency columns of the segment, so every row has the same width and
+ * row {@code i} starts at {@code headerBytes + i * rowBytes}. Rows are appended in increasing
+ * last update order, which lets {@link #floorRow(long)} binary search the memory-mapped file
+ * without reading it onto the heap.
+ * <pre>
+ * header:  int magic 'RHST', short format version, short reserved, int packed base code,
+ *          int column count, column count x int packed currency code
+ * row:     long last update, long next update, column count x double rate (NaN when missing)
+ * </pre>
+ * A trailing partial row left by a crash is truncated when the segment is opened.
+ *
+ * <p>The layout is row-oriented, not columnar: an as-of lookup needs every rate of one snapshot, which a row holds
+ * in one contiguous range, while a column per currency would touch a page per currency for each lookup.
+ */
+final class HistorySegment implements Closeable {
+
+    private static final int MAGIC = 0x52485354;
+    private static final short FORMAT_VERSION = 1;
+    private static final int FIXED_HEADER_BYTES = 16;
+
+    private final Path path;
+    private final int baseId;
+    private final int[] columnIds;
+
+    /**
+     * Column position by currency id, -1 for currencies without a column
+     */
+    private final int[] columnOf;
+
+    private final int headerBytes;
+    private final int rowBytes;
+    private final FileChannel channel;
+
+    /**
+     * Read-only mapping of the file, remapped after every append before the row count is published
+     */
+    private volatile MappedByteBuffer map;
+    private volatile int rowCount;
+
+    private HistorySegment(Path path, int baseId, int[] columnIds, FileChannel channel, int rowCount) throws IOException {
+        this.path = path;
+        this.baseId = baseId;
+        this.columnIds = columnIds;
+        this.columnOf = new int[CurrencyIndex.CAPACITY];
+        Arrays.fill(columnOf, -1);
+        for (int i = 0; i < columnIds.length; i++) {
+            columnOf[columnIds[i]] = i;
+        }
+        this.headerBytes = FIXED_HEADER_BYTES + columnIds.length * 4;
+        this.rowBytes = 16 + columnIds.length * 8;
+        this.channel = channel;
+        this.map = channel.map(FileChannel.MapMode.READ_ONLY, 0, headerBytes + (long) rowCount * rowBytes);
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Creates an empty segment with the given columns.
+     *
+     * @param path The file to create
+     * @param baseId The id of the base currency
+     * @param columnIds The ids of the currencies stored by the segment
+     * @return The open segment
+     * @throws IOException if the file cannot be created
+     */
+    static HistorySegment create(Path path, int baseId, int[] columnIds) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER_BYTES + columnIds.length * 4);
+            header.putInt(MAGIC)
+                    .putShort(FORMAT_VERSION)
+                    .putShort((short) 0)
+                    .putInt(CurrencyIndex.pack(CurrencyIndex.code(baseId)))
+                    .putInt(columnIds.length);
+            for (int columnId : columnIds) {
+                header.putInt(CurrencyIndex.pack(CurrencyIndex.code(columnId)));
+            }
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            channel.force(true);
+            DurableFiles.forceDirectory(path.toAbsolutePath().getParent());
+            return new HistorySegment(path, baseId, columnIds.clone(), channel, 0);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Opens an existing segment, truncating a trailing partial row.
+     *
+     * @param path The segment file
+     * @return The open segment
+     * @throws IOException if the file cannot be read or is not a segment
+     */
+    static HistorySegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer fixed = ByteBuffer.allocate(FIXED_HEADER_BYTES);
+            channel.read(fixed, 0);
+            fixed.flip();
+            if (fixed.remaining() < FIXED_HEADER_BYTES || fixed.getInt() != MAGIC || fixed.getShort() != FORMAT_VERSION) {
+                throw new IOException("Not a rate history segment: " + path);
+            }
+            fixed.getShort();
+            int baseId = CurrencyIndex.internPacked(fixed.getInt());
+            int columnCount = fixed.getInt();
+
+            ByteBuffer columns = ByteBuffer.allocate(columnCount * 4);
+            channel.read(columns, FIXED_HEADER_BYTES);
+            columns.flip();
+            if (columns.remaining() < columnCount * 4) {
+                throw new IOException("Truncated rate history segment header: " + path);
+            }
+            int[] columnIds = new int[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                columnIds[i] = CurrencyIndex.internPacked(columns.getInt());
+            }
+
+            long headerBytes = FIXED_HEADER_BYTES + columnCount * 4L;
+            long rowBytes = 16 + columnCount * 8L;
+            int rowCount = (int) ((channel.size() - headerBytes) / rowBytes);
+            long validSize = headerBytes + rowCount * rowBytes;
+            if (channel.size() > validSize) {
+                channel.truncate(validSize);
+            }
+            return new HistorySegment(path, baseId, columnIds, channel, rowCount);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Writes the rows of several segments into a new segment whose columns are the union of theirs,
+     * replacing the target file atomically. The sources must be ordered by last update.
+     *
+     * @param target The file to write
+     * @param baseId The id of the base currency
+     * @param sources The segments to merge
+     * @param notBefore Rows whose successor was published at or before this time (Unix format) are dropped
+     * @return The open merged segment
+     * @throws IOException if the file cannot be written
+     */
+    static HistorySegment merge(Path target, int baseId, List<HistorySegment> sources, long notBefore) throws IOException {
+        int[] columnIds = sources.stream()
+                .flatMapToInt(source -> Arrays.stream(source.columnIds))
+                .distinct()
+                .sorted()
+                .toArray();
+
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.deleteIfExists(temporary);
+        try (HistorySegment merged = create(temporary, baseId, columnIds)) {
+            RateTable previous = null;
+            for (HistorySegment source : sources) {
+                for (int row = 0; row < source.rowCount(); row++) {
+                    RateTable snapshot = source.rowAt(row);
+                    if (previous != null && snapshot.getLastUpdateEpochSecond() > notBefore) {
+                        merged.append(previous);
+                    }
+                    previous = snapshot;
+                }
+            }
+            if (previous != null) {
+                merged.append(previous);
+            }
+        }
+        DurableFiles.replace(temporary, target);
+        return open(target);
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return The last update of the first row (Unix format), or Long.MAX_VALUE if the segment is empty
+     */
+    long firstUpdate() {
+        return rowCount == 0 ? Long.MAX_VALUE : map.getLong(headerBytes);
+    }
+
+    /**
+     * @return The last update of the last row (Unix format), or Long.MIN_VALUE if the segment is empty
+     */
+    long lastUpdate() {
+        int rows = rowCount;
+        return rows == 0 ? Long.MIN_VALUE : map.getLong(headerBytes + (rows - 1) * rowBytes);
+    }
+
+    /**
+     * @param snapshot A snapshot for the segment's base currency
+     * @return Whether every currency of the snapshot has a column in the segment
+     */
+    boolean covers(RateTable snapshot) {
+        for (int i = 0; i < snapshot.size(); i++) {
+            int currencyId = snapshot.currencyIdAt(i);
+            if (currencyId != baseId && columnOf[currencyId] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends a snapshot as a new row and forces it to disk.
+     * The snapshot must be covered by the segment and newer than its last row.
+     *
+     * @param snapshot The snapshot to append
+     * @throws IOException if the row cannot be written
+     */
+    synchronized void append(RateTable snapshot) throws IOException {
+        ByteBuffer row = ByteBuffer.allocate(rowBytes);
+        row.putLong(snapshot.getLastUpdateEpochSecond())
+                .putLong(snapshot.getNextUpdateEpochSecond());
+        for (int columnId : columnIds) {
+            row.putDouble(snapshot.rate(columnId));
+        }
+        row.flip();
+
+        long position = headerBytes + (long) rowCount * rowBytes;
+        while (row.hasRemaining()) {
+            position += channel.write(row, position);
+        }
+        channel.force(false);
+        map = channel.map(FileChannel.MapMode.READ_ONLY, 0, position);
+        rowCount++;
+    }
+
+    /**
+     * Finds the last row published at or before a point in time.
+     *
+     * @param epochSecond A point in time (Unix format)
+     * @return The row index, or -1 if every row is newer
+     */
+    int floorRow(long epochSecond) {
+        int rows = rowCount;
+        MappedByteBuffer rowsMap = map;
+        int low = 0;
+        int high = rows - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (rowsMap.getLong(headerBytes + mid * rowBytes) <= epochSecond) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @param row A row index below {@link #rowCount()}
+     * @return The snapshot stored in the row
+     */
+    RateTable rowAt(int row) {
+        MappedByteBuffer rowsMap = map;
+        int offset = headerBytes + row * rowBytes;
+        RateTable.Builder builder = RateTable.builder()
+                .baseId(baseId)
+                .lastUpdateEpochSecond(rowsMap.getLong(offset))
+                .nextUpdateEpochSecond(rowsMap.getLong(offset + 8));
+        offset += 16;
+        for (int i = 0; i < columnIds.length; i++, offset += 8) {
+            double rate = rowsMap.getDouble(offset);
+            if (!Double.isNaN(rate)) {
+                builder.rate(columnIds[i], rate);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Closes the file. Readers holding the segment keep working on the existing mapping.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
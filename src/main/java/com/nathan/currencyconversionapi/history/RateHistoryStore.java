@@ -0,0 +1,343 @@
+package com.nathan.currencyconversionapi.history;
+
+import com.nathan.currencyconversionapi.cache.RateSnapshotCache;
+import com.nathan.currencyconversionapi.exception.CurrencyConversionException;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only store of every rate snapshot, used to convert at the rates in effect at a past point in time.
+ *
+ * <p>Each base currency has a directory of {@link HistorySegment} files named after their first last update.
+ * New snapshots published by the {@link RateSnapshotCache} are appended to the newest segment, or start a new
+ * one when they bring a currency the segment has no column for. Finding the snapshot in effect at a point in
+ * time is a binary search over the segments and then over the memory-mapped rows of one segment,
+ * so lookups stay logarithmic and only touch the pages they read.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateHistoryStore {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    /**
+     * Cache publishing the snapshots to record
+     */
+    private final RateSnapshotCache rateSnapshotCache;
+
+    /**
+     * Whether snapshots are recorded and as-of conversions are available
+     */
+    @Value("${exchangerate.history.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Directory holding one sub-directory of segments per base currency
+     */
+    @Value("${exchangerate.history.directory:data/history}")
+    private Path directory;
+
+    /**
+     * How long snapshots are kept; the snapshot in effect at the start of the period is always kept
+     */
+    @Value("${exchangerate.history.retention:P3650D}")
+    private Duration retention;
+
+    /**
+     * Maximum number of rows of a segment produced by compaction
+     */
+    @Value("${exchangerate.history.compaction.max-segment-rows:8192}")
+    private int maxSegmentRows;
+
+    /**
+     * Segments by base currency id
+     */
+    private final Map<Integer, BaseHistory> histories = new ConcurrentHashMap<>();
+
+    /**
+     * Subscription to the cache updates
+     */
+    private Disposable recorder;
+
+    /**
+     * Opens the existing segments and starts recording new snapshots.
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> bases = Files.newDirectoryStream(directory, Files::isDirectory)) {
+                for (Path baseDirectory : bases) {
+                    openBase(baseDirectory);
+                }
+            }
+        } catch (IOException ex) {
+            log.warn("Could not open rate history in {}: {}", directory, ex.getMessage());
+        }
+
+        recorder = rateSnapshotCache.updates()
+                .startWith(rateSnapshotCache.snapshots())
+                .onBackpressureBuffer(1024)
+                .concatMap(snapshot -> Mono.fromRunnable(() -> record(snapshot))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .onErrorResume(error -> {
+                            log.warn("Could not record {} in rate history: {}", snapshot, error.getMessage());
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    /**
+     * Stops recording snapshots and closes the segments.
+     */
+    @PreDestroy
+    public void stop() {
+        if (recorder != null) {
+            recorder.dispose();
+        }
+        for (BaseHistory history : histories.values()) {
+            synchronized (history) {
+                history.segments.forEach(RateHistoryStore::closeQuietly);
+            }
+        }
+    }
+
+    /**
+     * Finds the snapshot that was in effect for a base currency at a point in time,
+     * i.e. the last one published at or before it.
+     *
+     * @param baseCurrency The base currency code
+     * @param asOf The point in time
+     * @return The snapshot, or empty if none was recorded at or before that time
+     * @throws CurrencyConversionException if the history is disabled
+     */
+    public Optional<RateTable> find(String baseCurrency, Instant asOf) {
+        if (!enabled) {
+            throw new CurrencyConversionException("Historical exchange rates are not available");
+        }
+
+        BaseHistory history = histories.get(CurrencyIndex.idOf(baseCurrency));
+        if (history == null) {
+            return Optional.empty();
+        }
+
+        long epochSecond = asOf.getEpochSecond();
+        List<HistorySegment> segments = history.segments;
+        int low = 0;
+        int high = segments.size() - 1;
+        HistorySegment floor = null;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (segments.get(mid).firstUpdate() <= epochSecond) {
+                floor = segments.get(mid);
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (floor == null) {
+            return Optional.empty();
+        }
+        int row = floor.floorRow(epochSecond);
+        return row < 0 ? Optional.empty() : Optional.of(floor.rowAt(row));
+    }
+
+    /**
+     * Appends a snapshot to the history of its base currency.
+     * Snapshots that are not newer than the last recorded one are ignored.
+     *
+     * @param snapshot The snapshot to record
+     */
+    public void record(RateTable snapshot) {
+        if (!enabled) {
+            return;
+        }
+
+        BaseHistory history = histories.computeIfAbsent(snapshot.getBaseId(), id -> new BaseHistory());
+        synchronized (history) {
+            List<HistorySegment> segments = history.segments;
+            HistorySegment active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (active != null && snapshot.getLastUpdateEpochSecond() <= active.lastUpdate()) {
+                return;
+            }
+
+            try {
+                if (active == null || !active.covers(snapshot)) {
+                    Path baseDirectory = Files.createDirectories(directory.resolve(snapshot.getBaseCurrency()));
+                    int[] columnIds = new int[snapshot.size()];
+                    for (int i = 0; i < columnIds.length; i++) {
+                        columnIds[i] = snapshot.currencyIdAt(i);
+                    }
+                    active = HistorySegment.create(
+                            baseDirectory.resolve(snapshot.getLastUpdateEpochSecond() + SEGMENT_SUFFIX),
+                            snapshot.getBaseId(), columnIds);
+                    List<HistorySegment> updated = new ArrayList<>(segments);
+                    updated.add(active);
+                    history.segments = List.copyOf(updated);
+                }
+                active.append(snapshot);
+                log.debug("Recorded {} in rate history", snapshot);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Failed to record " + snapshot, ex);
+            }
+        }
+    }
+
+    /**
+     * Drops the snapshots older than the retention period and merges runs of small segments,
+     * so the number of files stays bounded as currencies come and go.
+     * The newest segment keeps receiving appends and is never rewritten.
+     */
+    @Scheduled(fixedDelayString = "${exchangerate.history.compaction.interval:PT6H}")
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+
+        long notBefore = Instant.now().minus(retention).getEpochSecond();
+        histories.forEach((baseId, history) -> {
+            synchronized (history) {
+                try {
+                    compact(baseId, history, notBefore);
+                } catch (IOException ex) {
+                    log.warn("Could not compact rate history of {}: {}", CurrencyIndex.code(baseId), ex.getMessage());
+                }
+            }
+        });
+    }
+
+    private void compact(int baseId, BaseHistory history, long notBefore) throws IOException {
+        List<HistorySegment> segments = history.segments;
+        List<HistorySegment> kept = new ArrayList<>();
+        List<HistorySegment> retired = new ArrayList<>();
+
+        // A segment is out of retention once the next one already started before the cutoff
+        for (int i = 0; i < segments.size(); i++) {
+            boolean expired = i + 1 < segments.size() && segments.get(i + 1).firstUpdate() <= notBefore;
+            (expired ? retired : kept).add(segments.get(i));
+        }
+
+        List<HistorySegment> compacted = new ArrayList<>();
+        List<HistorySegment> run = new ArrayList<>();
+        int runRows = 0;
+        for (int i = 0; i < kept.size(); i++) {
+            HistorySegment segment = kept.get(i);
+            boolean active = i == kept.size() - 1;
+            if (!active && runRows + segment.rowCount() <= maxSegmentRows) {
+                run.add(segment);
+                runRows += segment.rowCount();
+                continue;
+            }
+            flush(baseId, run, notBefore, compacted, retired);
+            run.clear();
+            runRows = 0;
+            if (active) {
+                compacted.add(segment);
+            } else {
+                run.add(segment);
+                runRows = segment.rowCount();
+            }
+        }
+        flush(baseId, run, notBefore, compacted, retired);
+
+        if (retired.isEmpty()) {
+            return;
+        }
+        history.segments = List.copyOf(compacted);
+        for (HistorySegment segment : retired) {
+            closeQuietly(segment);
+            if (compacted.stream().noneMatch(live -> live.path().equals(segment.path()))) {
+                Files.deleteIfExists(segment.path());
+            }
+        }
+        log.info("Compacted rate history of {} from {} to {} segments",
+                CurrencyIndex.code(baseId), segments.size(), compacted.size());
+    }
+
+    /**
+     * Adds a run of closed segments to the compacted list, merging it into one segment when it holds several.
+     */
+    private static void flush(int baseId, List<HistorySegment> run, long notBefore,
+                              List<HistorySegment> compacted, List<HistorySegment> retired) throws IOException {
+        if (run.size() == 1) {
+            compacted.add(run.get(0));
+        } else if (run.size() > 1) {
+            compacted.add(HistorySegment.merge(run.get(0).path(), baseId, run, notBefore));
+            retired.addAll(run);
+        }
+    }
+
+    private void openBase(Path baseDirectory) throws IOException {
+        List<HistorySegment> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(baseDirectory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    HistorySegment segment = HistorySegment.open(file);
+                    if (segment.rowCount() == 0) {
+                        segment.close();
+                        Files.delete(file);
+                        continue;
+                    }
+                    segments.add(segment);
+                } catch (IOException ex) {
+                    log.warn("Skipping unreadable rate history segment {}: {}", file, ex.getMessage());
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            return;
+        }
+
+        segments.sort(Comparator.comparingLong(HistorySegment::firstUpdate));
+        int baseId = CurrencyIndex.intern(baseDirectory.getFileName().toString());
+        BaseHistory history = new BaseHistory();
+        history.segments = List.copyOf(segments);
+        histories.put(baseId, history);
+        log.info("Opened rate history of {} with {} segments", CurrencyIndex.code(baseId), segments.size());
+    }
+
+    private static void closeQuietly(HistorySegment segment) {
+        try {
+            segment.close();
+        } catch (IOException ex) {
+            log.debug("Could not close {}: {}", segment.path(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Segments of one base currency, ordered by first last update.
+     * The list is replaced, never mutated, so lookups read it without locking; writers synchronize on the instance.
+     */
+    private static final class BaseHistory {
+
+        private volatile List<HistorySegment> segments = List.of();
+    }
+}
@@ -0,0 +1,52 @@
+package com.nathan.currencyconversionapi.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File operations that survive a crash once they return.
+ *
+ * <p>Forcing a file only makes its contents durable. Its directory entry, created or replaced by a rename, is part
+ * of the parent directory, which must be forced as well; otherwise a crash can bring back the old file, or none.
+ */
+public final class DurableFiles {
+
+    private DurableFiles() {
+    }
+
+    /**
+     * Atomically replaces a file with another one in the same directory, whose contents must already be forced,
+     * then forces the directory so the replacement is durable.
+     *
+     * @param source The file holding the new contents
+     * @param target The file to replace
+     * @throws IOException if the file cannot be moved or the directory forced
+     */
+    public static void replace(Path source, Path target) throws IOException {
+        Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory(target.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Forces the entries of a directory to disk: the files created, renamed or deleted in it.
+     *
+     * @param directory The directory
+     * @throws IOException if the directory cannot be forced
+     */
+    public static void forceDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException ex) {
+            // Windows cannot open a directory, and its file system makes renames durable on its own
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.nathan.currencyconversionapi.metrics;
+
+import com.nathan.currencyconversionapi.admission.AdaptiveConcurrencyLimiter;
+import com.nathan.currencyconversionapi.admission.ClientRateLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the state of admission control: requests rejected by reason, the adaptive concurrency limit
+ * against the requests in flight, and the number of rate-limited clients tracked.
+ * Values are read from the limiters when the registry is scraped.
+ */
+@Component
+public class AdmissionMetrics implements MeterBinder {
+
+    /**
+     * Per-client rate limiter, null when disabled
+     */
+    private final ClientRateLimiter clientRateLimiter;
+
+    /**
+     * Global concurrency limiter, null when disabled
+     */
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * @param clientRateLimiter The per-client rate limiter, if enabled
+     * @param concurrencyLimiter The global concurrency limiter, if enabled
+     */
+    public AdmissionMetrics(ObjectProvider<ClientRateLimiter> clientRateLimiter,
+                            ObjectProvider<AdaptiveConcurrencyLimiter> concurrencyLimiter) {
+        this.clientRateLimiter = clientRateLimiter.getIfAvailable();
+        this.concurrencyLimiter = concurrencyLimiter.getIfAvailable();
+    }
+
+    /**
+     * Registers the meters of the enabled limiters.
+     *
+     * @param registry The registry to publish the meters to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (clientRateLimiter != null) {
+            FunctionCounter.builder("exchangerate.admission.rejected", clientRateLimiter,
+                            ClientRateLimiter::getRejectedCount)
+                    .description("Requests rejected by admission control, by reason")
+                    .tag("reason", "rate_limit")
+                    .register(registry);
+            Gauge.builder("exchangerate.admission.clients", clientRateLimiter, ClientRateLimiter::getClientCount)
+                    .description("Clients with a rate limit bucket")
+                    .register(registry);
+        }
+        if (concurrencyLimiter != null) {
+            FunctionCounter.builder("exchangerate.admission.rejected", concurrencyLimiter,
+                            AdaptiveConcurrencyLimiter::getRejectedCount)
+                    .description("Requests rejected by admission control, by reason")
+                    .tag("reason", "concurrency")
+                    .register(registry);
+            Gauge.builder("exchangerate.admission.concurrency.limit", concurrencyLimiter,
+                            AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Adaptive limit on requests in flight")
+                    .register(registry);
+            Gauge.builder("exchangerate.admission.in.flight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .description("Requests in flight under the concurrency limit")
+                    .register(registry);
+        }
+    }
+}
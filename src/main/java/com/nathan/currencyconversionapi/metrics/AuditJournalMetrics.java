@@ -0,0 +1,61 @@
+package com.nathan.currencyconversionapi.metrics;
+
+import com.nathan.currencyconversionapi.audit.AuditJournal;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the counters of the {@link AuditJournal}: events recorded, dropped, written and lost,
+ * recordings that had to wait for room, forces to disk and the backlog waiting to be written.
+ * Values are read from the journal when the registry is scraped.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuditJournalMetrics implements MeterBinder {
+
+    /**
+     * Journal whose counters are published
+     */
+    private final AuditJournal auditJournal;
+
+    /**
+     * Registers the journal meters, unless the journal is disabled.
+     *
+     * @param registry The registry to publish the meters to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!auditJournal.isEnabled()) {
+            return;
+        }
+        FunctionCounter.builder("audit.journal.events", auditJournal, AuditJournal::getRecordedCount)
+                .description("Conversion events, by outcome")
+                .tag("outcome", "recorded")
+                .register(registry);
+        FunctionCounter.builder("audit.journal.events", auditJournal, AuditJournal::getDroppedCount)
+                .description("Conversion events, by outcome")
+                .tag("outcome", "dropped")
+                .register(registry);
+        FunctionCounter.builder("audit.journal.events", auditJournal, AuditJournal::getWrittenCount)
+                .description("Conversion events, by outcome")
+                .tag("outcome", "written")
+                .register(registry);
+        FunctionCounter.builder("audit.journal.events", auditJournal, AuditJournal::getFailedCount)
+                .description("Conversion events, by outcome")
+                .tag("outcome", "failed")
+                .register(registry);
+        FunctionCounter.builder("audit.journal.blocked", auditJournal, AuditJournal::getBlockedCount)
+                .description("Recordings that waited for room in the full buffer")
+                .register(registry);
+        FunctionCounter.builder("audit.journal.syncs", auditJournal, AuditJournal::getSyncCount)
+                .description("Forces of the journal to disk")
+                .register(registry);
+        Gauge.builder("audit.journal.backlog", auditJournal, AuditJournal::getBacklog)
+                .description("Events waiting to be written")
+                .register(registry);
+    }
+}
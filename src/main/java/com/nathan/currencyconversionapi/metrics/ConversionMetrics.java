@@ -0,0 +1,139 @@
+package com.nathan.currencyconversionapi.metrics;
+
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records conversion and upstream call latencies and error counts.
+ *
+ * <p>Meters are registered once and cached, upstream timers in an array indexed by {@link CurrencyIndex} id,
+ * so recording on the hot path is two {@link System#nanoTime()} reads and a lock-free histogram update,
+ * without building tags or looking meters up in the registry. Latencies are published as percentile
+ * histograms, from which Prometheus derives the percentiles across instances.
+ */
+@Component
+public class ConversionMetrics {
+
+    static final String CONVERSION_TIMER = "currency.conversion";
+    static final String UPSTREAM_TIMER = "exchangerate.upstream.requests";
+    static final String ERROR_COUNTER = "currency.conversion.errors";
+
+    private static final String SUCCESS = "success";
+    private static final String ERROR = "error";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer conversionSuccess;
+    private final Timer conversionError;
+
+    /**
+     * Upstream timers by currency id, the successful call at index 2 * id and the failed one at 2 * id + 1
+     */
+    private final AtomicReferenceArray<Timer> upstreamTimers = new AtomicReferenceArray<>(CurrencyIndex.CAPACITY * 2);
+
+    /**
+     * Creates the metrics and registers the conversion timers.
+     *
+     * @param meterRegistry The registry the meters are published to
+     */
+    public ConversionMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.conversionSuccess = conversionTimer(SUCCESS);
+        this.conversionError = conversionTimer(ERROR);
+    }
+
+    /**
+     * Times a conversion from subscription to its result or error.
+     *
+     * @param conversion The conversion to time
+     * @return The timed conversion
+     */
+    public <T> Mono<T> timeConversion(Mono<T> conversion) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return conversion
+                    .doOnSuccess(result -> conversionSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .doOnError(error -> conversionError.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /**
+     * Times a call to the ExchangeRate API. A call that fails or completes without a value counts as an error.
+     *
+     * @param baseCurrency The base currency requested
+     * @param call The upstream call to time
+     * @return The timed call
+     */
+    public <T> Mono<T> timeUpstreamCall(String baseCurrency, Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                    .doOnSuccess(value -> upstreamTimer(baseCurrency, value != null)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .doOnError(error -> upstreamTimer(baseCurrency, false)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /**
+     * Counts an error answered to a client.
+     *
+     * @param error The error
+     * @param status The HTTP status answered
+     */
+    public void recordError(Throwable error, int status) {
+        Counter.builder(ERROR_COUNTER)
+                .description("Errors answered to clients, by exception type and HTTP status")
+                .tag("exception", error.getClass().getSimpleName())
+                .tag("status", Integer.toString(status))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Timer conversionTimer(String outcome) {
+        return Timer.builder(CONVERSION_TIMER)
+                .description("Time to convert an amount, from request to result")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(500))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the upstream timer of a base currency, registering it on first use.
+     * Malformed codes share one timer so they cannot inflate the number of series.
+     */
+    private Timer upstreamTimer(String baseCurrency, boolean success) {
+        int id = CurrencyIndex.idOf(baseCurrency);
+        if (id == CurrencyIndex.UNKNOWN) {
+            return registerUpstreamTimer("other", success);
+        }
+        int index = 2 * id + (success ? 0 : 1);
+        Timer timer = upstreamTimers.get(index);
+        if (timer == null) {
+            timer = registerUpstreamTimer(CurrencyIndex.code(id), success);
+            upstreamTimers.set(index, timer);
+        }
+        return timer;
+    }
+
+    private Timer registerUpstreamTimer(String base, boolean success) {
+        return Timer.builder(UPSTREAM_TIMER)
+                .description("Latency of ExchangeRate API calls, by base currency")
+                .tag("base", base)
+                .tag("outcome", success ? SUCCESS : ERROR)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+}
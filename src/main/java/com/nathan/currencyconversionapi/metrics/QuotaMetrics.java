@@ -0,0 +1,61 @@
+package com.nathan.currencyconversionapi.metrics;
+
+import com.nathan.currencyconversionapi.quota.UpstreamQuotaBudget;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the usage of the ExchangeRate API quota tracked by the {@link UpstreamQuotaBudget}: calls used and
+ * remaining in the current period, the projected exhaustion time and the current mode.
+ * Values are read from the budget when the registry is scraped.
+ */
+@Component
+@RequiredArgsConstructor
+public class QuotaMetrics implements MeterBinder {
+
+    /**
+     * Budget whose usage is published
+     */
+    private final UpstreamQuotaBudget quotaBudget;
+
+    /**
+     * Registers the quota meters, unless the quota is not tracked.
+     *
+     * @param registry The registry to publish the meters to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!quotaBudget.isEnabled()) {
+            return;
+        }
+        Gauge.builder("exchangerate.quota.used", quotaBudget, UpstreamQuotaBudget::getUsed)
+                .description("Requests sent to the ExchangeRate API during the current quota period")
+                .register(registry);
+        Gauge.builder("exchangerate.quota.remaining", quotaBudget, UpstreamQuotaBudget::getRemaining)
+                .description("Requests left in the current quota period")
+                .register(registry);
+        Gauge.builder("exchangerate.quota.limit", quotaBudget, UpstreamQuotaBudget::getMonthlyLimit)
+                .description("Requests allowed per quota period")
+                .register(registry);
+        Gauge.builder("exchangerate.quota.period.end", quotaBudget, UpstreamQuotaBudget::getPeriodEndEpochSecond)
+                .description("End of the current quota period (Unix format)")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("exchangerate.quota.projected.exhaustion", quotaBudget, budget -> {
+                    long exhaustion = budget.projectedExhaustionEpochSecond();
+                    return exhaustion >= 0 ? exhaustion : Double.NaN;
+                })
+                .description("Time (Unix format) the quota runs out at the current average rate, absent if it lasts the period")
+                .baseUnit("seconds")
+                .register(registry);
+        for (UpstreamQuotaBudget.Mode mode : UpstreamQuotaBudget.Mode.values()) {
+            Gauge.builder("exchangerate.quota.mode", quotaBudget, budget -> budget.getMode() == mode ? 1 : 0)
+                    .description("1 for the current quota mode, 0 for the others")
+                    .tag("mode", mode.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.nathan.currencyconversionapi.metrics;
+
+import com.nathan.currencyconversionapi.cache.RateSnapshotCache;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes the state of the {@link RateSnapshotCache}: lookup counters, hit ratio, size, upstream calls
+ * in flight and the age of each cached snapshot. Every value is read from the cache when the registry is
+ * scraped, so none of these meters costs anything on the conversion path.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateCacheMetrics implements MeterBinder {
+
+    /**
+     * Cache whose state is published
+     */
+    private final RateSnapshotCache rateSnapshotCache;
+
+    /**
+     * Base currencies that already have a snapshot age gauge
+     */
+    private final Set<String> agedBases = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Subscription registering age gauges for newly cached base currencies
+     */
+    private Disposable ageRegistration;
+
+    /**
+     * Registers the cache meters.
+     *
+     * @param registry The registry to publish the meters to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("exchangerate.cache.lookups", rateSnapshotCache, RateSnapshotCache::getHitCount)
+                .description("Snapshot lookups, by result")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("exchangerate.cache.lookups", rateSnapshotCache, RateSnapshotCache::getStaleHitCount)
+                .description("Snapshot lookups, by result")
+                .tag("result", "stale")
+                .register(registry);
+        FunctionCounter.builder("exchangerate.cache.lookups", rateSnapshotCache, RateSnapshotCache::getMissCount)
+                .description("Snapshot lookups, by result")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("exchangerate.cache.evictions", rateSnapshotCache, RateSnapshotCache::getEvictionCount)
+                .description("Snapshots evicted to respect the maximum number of entries")
+                .register(registry);
+        Gauge.builder("exchangerate.cache.hit.ratio", rateSnapshotCache, RateCacheMetrics::hitRatio)
+                .description("Share of lookups served from memory, fresh or stale, since startup")
+                .register(registry);
+        Gauge.builder("exchangerate.cache.size", rateSnapshotCache, RateSnapshotCache::size)
+                .description("Base currencies cached")
+                .register(registry);
+        Gauge.builder("exchangerate.upstream.in.flight", rateSnapshotCache, RateSnapshotCache::getInFlightCount)
+                .description("ExchangeRate API calls in flight")
+                .register(registry);
+
+        rateSnapshotCache.snapshots().forEach(snapshot -> registerAge(registry, snapshot));
+        ageRegistration = rateSnapshotCache.updates()
+                .subscribe(snapshot -> registerAge(registry, snapshot));
+    }
+
+    /**
+     * Stops registering age gauges.
+     */
+    @PreDestroy
+    public void stop() {
+        if (ageRegistration != null) {
+            ageRegistration.dispose();
+        }
+    }
+
+    private void registerAge(MeterRegistry registry, RateTable snapshot) {
+        String base = snapshot.getBaseCurrency();
+        if (agedBases.add(base)) {
+            Gauge.builder("exchangerate.snapshot.age", rateSnapshotCache, cache -> ageSeconds(cache, base))
+                    .description("Seconds since the provider published the cached snapshot, NaN once evicted")
+                    .tag("base", base)
+                    .baseUnit("seconds")
+                    .register(registry);
+        }
+    }
+
+    private static double ageSeconds(RateSnapshotCache cache, String base) {
+        RateTable snapshot = cache.peek(base);
+        return snapshot == null ? Double.NaN : System.currentTimeMillis() / 1000.0 - snapshot.getLastUpdateEpochSecond();
+    }
+
+    private static double hitRatio(RateSnapshotCache cache) {
+        double hits = cache.getHitCount() + cache.getStaleHitCount();
+        double lookups = hits + cache.getMissCount();
+        return lookups == 0 ? Double.NaN : hits / lookups;
+    }
+}
@@ -0,0 +1,48 @@
+package com.nathan.currencyconversionapi.metrics;
+
+import com.nathan.currencyconversionapi.provider.ProviderHealth;
+import com.nathan.currencyconversionapi.provider.RateProviderSelector;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the health the {@link RateProviderSelector} tracks for each rate provider:
+ * average latency, average error rate and whether it is degraded. Values are read when the registry is scraped.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateProviderMetrics implements MeterBinder {
+
+    /**
+     * Selector whose provider health is published
+     */
+    private final RateProviderSelector rateProviderSelector;
+
+    /**
+     * Registers the meters of each provider.
+     *
+     * @param registry The registry to publish the meters to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (ProviderHealth health : rateProviderSelector.getHealth()) {
+            Gauge.builder("exchangerate.provider.latency", health, h -> h.getLatencyNanos() / 1e9)
+                    .description("Moving average of the provider's latency")
+                    .tag("provider", health.getName())
+                    .baseUnit("seconds")
+                    .register(registry);
+            Gauge.builder("exchangerate.provider.error.rate", health, ProviderHealth::getErrorRate)
+                    .description("Moving average of the share of calls failing because the provider was slow or down")
+                    .tag("provider", health.getName())
+                    .register(registry);
+            Gauge.builder("exchangerate.provider.degraded", rateProviderSelector,
+                            selector -> selector.isDegraded(health.getName()) ? 1 : 0)
+                    .description("Whether the provider is degraded and only probed")
+                    .tag("provider", health.getName())
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.nathan.currencyconversionapi.metrics;
+
+import com.nathan.currencyconversionapi.replication.LeaderElection;
+import com.nathan.currencyconversionapi.replication.SnapshotReplicator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the replication state of this instance: whether it leads, how many instances are live and when it
+ * last pulled snapshots from its leader. Values are read when the registry is scraped.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReplicationMetrics implements MeterBinder {
+
+    /**
+     * Election whose state is published
+     */
+    private final LeaderElection leaderElection;
+
+    /**
+     * Replicator whose last pull is published
+     */
+    private final SnapshotReplicator snapshotReplicator;
+
+    /**
+     * Registers the replication meters, unless replication is disabled.
+     *
+     * @param registry The registry to publish the meters to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!leaderElection.isEnabled()) {
+            return;
+        }
+        Gauge.builder("exchangerate.replication.leader", leaderElection, election -> election.isLeader() ? 1 : 0)
+                .description("1 while this instance leads and polls the rate providers, 0 while it follows")
+                .register(registry);
+        Gauge.builder("exchangerate.replication.peers.live", leaderElection, LeaderElection::livePeerCount)
+                .description("Instances answering within the failover timeout, this one included")
+                .register(registry);
+        Gauge.builder("exchangerate.replication.last.pull", snapshotReplicator, replicator -> {
+                    long lastPull = replicator.getLastPullEpochSecond();
+                    return lastPull > 0 ? lastPull : Double.NaN;
+                })
+                .description("Time (Unix format) of the last snapshot pull from the leader, absent if none")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+}
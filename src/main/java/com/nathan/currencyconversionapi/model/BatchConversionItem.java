@@ -0,0 +1,32 @@
+package com.nathan.currencyconversionapi.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Model class representing one line of a batch conversion response.
+ * Holds either the conversion result or the error for the request at the same position in the batch.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchConversionItem {
+
+    /**
+     * Position of the request in the batch, starting at zero
+     */
+    private long index;
+
+    /**
+     * The conversion result, absent when the conversion failed
+     */
+    private ConversionResult result;
+
+    /**
+     * The error for this request, absent when the conversion succeeded
+     */
+    private ErrorResponse error;
+}
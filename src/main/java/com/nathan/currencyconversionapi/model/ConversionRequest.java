@@ -7,6 +7,8 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 
+import java.time.Instant;
+
 /**
  * Model class representing a currency conversion request.
  * Contains all the parameters required to perform a conversion.
@@ -34,4 +36,17 @@ public class ConversionRequest {
     @NotNull(message = "Amount is required")
     @Positive(message = "Amount must be greater than zero")
     private Double amount;
+
+    /**
+     * Optional point in time whose exchange rates are used instead of the latest ones
+     * (ISO-8601, e.g. 2025-05-02T10:15:30Z)
+     */
+    private Instant asOf;
+
+    /**
+     * Creates a request converting at the latest exchange rates.
+     */
+    public ConversionRequest(String sourceCurrency, String targetCurrency, Double amount) {
+        this(sourceCurrency, targetCurrency, amount, null);
+    }
 }
@@ -1,9 +1,11 @@
 package com.nathan.currencyconversionapi.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -54,4 +56,16 @@ public class ConversionResult {
      * Timestamp of when the conversion was performed
      */
     private LocalDateTime timestamp;
+
+    /**
+     * Time at which the provider published the exchange rate used for the conversion
+     */
+    private Instant rateTimestamp;
+
+    /**
+     * Whether the rate comes from a snapshot the provider has already superseded,
+     * served while a newer one is being fetched. Omitted when false.
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean stale;
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.nathan.currencyconversionapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Model class representing the currencies that can be converted, as listed by the current rate snapshot.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CurrencyCatalog {
+
+    /**
+     * Base currency code of the snapshot the catalog was built from
+     */
+    private String baseCurrency;
+
+    /**
+     * Version of the snapshot the catalog was built from, the time its rates were published (Unix format)
+     */
+    private long version;
+
+    /**
+     * Supported currencies, ordered by code
+     */
+    private List<CurrencyInfo> currencies;
+}
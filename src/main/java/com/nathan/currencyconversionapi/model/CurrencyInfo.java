@@ -0,0 +1,29 @@
+package com.nathan.currencyconversionapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Model class representing one supported currency of the {@link CurrencyCatalog}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CurrencyInfo {
+
+    /**
+     * 3-letter ISO currency code
+     */
+    private String code;
+
+    /**
+     * English name of the currency, or its code when unknown to ISO 4217
+     */
+    private String name;
+
+    /**
+     * Number of digits after the decimal point of the currency's minor unit
+     */
+    private int minorUnits;
+}
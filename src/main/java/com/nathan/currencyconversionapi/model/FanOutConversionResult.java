@@ -0,0 +1,45 @@
+package com.nathan.currencyconversionapi.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Model class representing one amount converted to many target currencies at once, from a single rate snapshot.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FanOutConversionResult {
+
+    /**
+     * The source currency code (e.g., USD, EUR)
+     */
+    private String sourceCurrency;
+
+    /**
+     * The amount in source currency, as converted (up to 8 decimal digits)
+     */
+    private Double sourceAmount;
+
+    /**
+     * Converted amounts by target currency code
+     */
+    private Map<String, Double> amounts;
+
+    /**
+     * Time at which the provider published the exchange rates used for the conversions
+     */
+    private Instant rateTimestamp;
+
+    /**
+     * Whether the rates come from a snapshot the provider has already superseded,
+     * served while a newer one is being fetched. Omitted when false.
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean stale;
+}
@@ -0,0 +1,34 @@
+package com.nathan.currencyconversionapi.model;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Model class representing the response from the Frankfurter API,
+ * which publishes the reference rates of the European Central Bank.
+ */
+@Data
+public class FrankfurterResponse {
+
+    /**
+     * Amount of the base currency the rates are given for
+     */
+    private double amount;
+
+    /**
+     * Base currency code
+     */
+    private String base;
+
+    /**
+     * Working day the rates were published for
+     */
+    private LocalDate date;
+
+    /**
+     * Map of currency codes to their exchange rates relative to the base currency
+     */
+    private Map<String, Double> rates;
+}
@@ -0,0 +1,37 @@
+package com.nathan.currencyconversionapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Model class representing a push of changed exchange rates to a rate stream subscriber.
+ * The first update of a stream carries every requested rate; later ones only the rates that changed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateUpdate {
+
+    /**
+     * Base currency code the rates are quoted against
+     */
+    private String baseCurrency;
+
+    /**
+     * Timestamp of when the rates were last updated by the provider (Unix format)
+     */
+    private long lastUpdate;
+
+    /**
+     * Timestamp of when the provider will next update the rates (Unix format)
+     */
+    private long nextUpdate;
+
+    /**
+     * Changed rates by currency code
+     */
+    private Map<String, Double> rates;
+}
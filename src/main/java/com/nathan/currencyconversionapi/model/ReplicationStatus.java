@@ -0,0 +1,35 @@
+package com.nathan.currencyconversionapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Model class representing the replication state an instance reports to its peers.
+ * An instance whose leader is itself claims leadership.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplicationStatus {
+
+    /**
+     * URL the instance is reached at by its peers
+     */
+    private String instance;
+
+    /**
+     * URL of the instance it considers the leader, or null while it has not elected one
+     */
+    private String leader;
+
+    /**
+     * Identifier of the instance's current run, changing on every restart
+     */
+    private long epoch;
+
+    /**
+     * Sequence number of the latest snapshot change the instance can serve
+     */
+    private long sequence;
+}
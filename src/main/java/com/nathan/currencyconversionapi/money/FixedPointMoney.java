@@ -0,0 +1,261 @@
+package com.nathan.currencyconversionapi.money;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point arithmetic for converting amounts of money exactly, without allocating.
+ *
+ * <p>Amounts are whole numbers of a currency's minor unit (cents for USD, yen for JPY, fils for KWD) held in a
+ * {@code long}. Rates are decimals scaled by 10^{@value #RATE_SCALE} into a {@code long}, once per snapshot.
+ * Converting multiplies into a 128-bit intermediate and divides it back with a single rounding, so the result is
+ * the exact decimal product rounded to the target's minor unit, as {@link BigDecimal} would compute it.
+ * Operations that would not fit the fast path fall back to {@link BigDecimal} and give the same result.
+ *
+ * <p>Only positive amounts and rates are supported, which is all a conversion needs.
+ */
+public final class FixedPointMoney {
+
+    /**
+     * Number of decimal digits kept in scaled rates
+     */
+    public static final int RATE_SCALE = 10;
+
+    /**
+     * A rate of 1, scaled
+     */
+    public static final long ONE = 10_000_000_000L;
+
+    /**
+     * Largest number of decimal digits an amount is converted with
+     */
+    public static final int MAX_AMOUNT_SCALE = 8;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    /**
+     * Largest magnitude a double holds with unit precision
+     */
+    private static final double MAX_EXACT_DOUBLE = 0x1p53;
+
+    private static final long LOW_32_BITS = 0xFFFF_FFFFL;
+
+    private FixedPointMoney() {
+    }
+
+    /**
+     * Scales a rate, keeping the decimal digits the provider published.
+     *
+     * @param rate A rate as parsed from the provider
+     * @return The rate scaled by 10^{@value #RATE_SCALE}, or 0 if it is not positive or too large to scale
+     */
+    public static long scaleRate(double rate) {
+        if (!(rate > 0) || rate >= Long.MAX_VALUE / (double) ONE) {
+            return 0;
+        }
+        long whole = wholeNear(rate * ONE);
+        if (whole >= 0) {
+            return whole;
+        }
+        // valueOf goes through the shortest decimal representation, which is the text the provider published
+        return BigDecimal.valueOf(rate)
+                .movePointRight(RATE_SCALE)
+                .setScale(0, RoundingMode.HALF_EVEN)
+                .longValue();
+    }
+
+    /**
+     * Converts an amount to whole minor units, rounding digits beyond the minor unit.
+     *
+     * @param amount A positive amount, as received in a request
+     * @param minorUnits The minor units of its currency
+     * @param roundingMode How digits beyond the minor unit are rounded
+     * @return The amount in minor units
+     * @throws ArithmeticException if the amount does not fit, or needs rounding with {@link RoundingMode#UNNECESSARY}
+     */
+    public static long toMinorUnits(double amount, int minorUnits, RoundingMode roundingMode) {
+        long whole = wholeNear(amount * POWERS_OF_TEN[minorUnits]);
+        if (whole >= 0) {
+            return whole;
+        }
+        return BigDecimal.valueOf(amount).setScale(minorUnits, roundingMode).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Finds the number of decimal digits an amount has to be converted with to lose none of them, so an amount
+     * finer than its currency's minor unit, such as 0.001 USD, is converted as given and only the result is rounded.
+     *
+     * @param amount A positive amount, as received in a request
+     * @param minorUnits The minor units of its currency
+     * @return The digits after the point of the amount's shortest decimal representation,
+     *         at least the minor units and at most {@value #MAX_AMOUNT_SCALE}
+     */
+    public static int amountScale(double amount, int minorUnits) {
+        int scale = minorUnits;
+        while (scale < MAX_AMOUNT_SCALE) {
+            double scaled = amount * POWERS_OF_TEN[scale];
+            // Beyond unit precision, extra digits could not be held anyway
+            if (scaled >= MAX_EXACT_DOUBLE || wholeNear(scaled) >= 0) {
+                break;
+            }
+            scale++;
+        }
+        return scale;
+    }
+
+    /**
+     * @param amount An amount in minor units
+     * @param minorUnits The minor units of its currency
+     * @return The closest double to the amount, which prints as its exact decimal value
+     */
+    public static double toDouble(long amount, int minorUnits) {
+        if (Math.abs(amount) < MAX_EXACT_DOUBLE) {
+            return amount / (double) POWERS_OF_TEN[minorUnits];
+        }
+        return BigDecimal.valueOf(amount, minorUnits).doubleValue();
+    }
+
+    /**
+     * Converts an amount with rates quoted against a common base, as amount * rate(base to target) / rate(base to source),
+     * rounded once to the minor unit of the target currency.
+     *
+     * @param amount A positive amount in minor units of the source currency
+     * @param sourceMinorUnits The minor units of the source currency
+     * @param sourceRate The scaled rate from the base to the source currency, {@link #ONE} when the source is the base
+     * @param targetMinorUnits The minor units of the target currency
+     * @param targetRate The scaled rate from the base to the target currency
+     * @param roundingMode How the converted amount is rounded to the minor unit of the target currency
+     * @return The converted amount in minor units of the target currency
+     * @throws ArithmeticException if the converted amount does not fit, or needs rounding with {@link RoundingMode#UNNECESSARY}
+     */
+    public static long convert(long amount, int sourceMinorUnits, long sourceRate,
+                               int targetMinorUnits, long targetRate, RoundingMode roundingMode) {
+        // amount * targetRate * 10^(target - source) / sourceRate, scaling the numerator or the divisor
+        int exponent = targetMinorUnits - sourceMinorUnits;
+        long multiplier = exponent > 0 ? POWERS_OF_TEN[exponent] : 1;
+        long divisor = sourceRate;
+        if (exponent < 0) {
+            divisor = sourceRate * POWERS_OF_TEN[-exponent];
+            if (Math.multiplyHigh(sourceRate, POWERS_OF_TEN[-exponent]) != 0 || divisor < 0) {
+                return convertExact(amount, sourceMinorUnits, sourceRate, targetMinorUnits, targetRate, roundingMode);
+            }
+        }
+        long factor = targetRate * multiplier;
+        if (Math.multiplyHigh(targetRate, multiplier) != 0 || factor < 0) {
+            return convertExact(amount, sourceMinorUnits, sourceRate, targetMinorUnits, targetRate, roundingMode);
+        }
+
+        long high = Math.multiplyHigh(amount, factor);
+        long low = amount * factor;
+        long quotient;
+        if (high == 0 && low >= 0) {
+            quotient = low / divisor;
+        } else if (high < divisor) {
+            quotient = divide128(high, low, divisor);
+            if (quotient < 0) {
+                // Beyond the range of a long
+                return convertExact(amount, sourceMinorUnits, sourceRate, targetMinorUnits, targetRate, roundingMode);
+            }
+        } else {
+            return convertExact(amount, sourceMinorUnits, sourceRate, targetMinorUnits, targetRate, roundingMode);
+        }
+        // The remainder is below the divisor, so it is whole in the low 64 bits
+        long remainder = low - quotient * divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        if (roundsUp(quotient, remainder, divisor, roundingMode)) {
+            if (quotient == Long.MAX_VALUE) {
+                throw new ArithmeticException("Converted amount does not fit");
+            }
+            return quotient + 1;
+        }
+        return quotient;
+    }
+
+    /**
+     * Same as {@link #convert}, computed with {@link BigDecimal}. Used when the fast path would overflow,
+     * and as the reference the fast path is checked against.
+     */
+    public static long convertExact(long amount, int sourceMinorUnits, long sourceRate,
+                                    int targetMinorUnits, long targetRate, RoundingMode roundingMode) {
+        return new BigDecimal(BigInteger.valueOf(amount).multiply(BigInteger.valueOf(targetRate)), sourceMinorUnits)
+                .divide(BigDecimal.valueOf(sourceRate), targetMinorUnits, roundingMode)
+                .unscaledValue()
+                .longValueExact();
+    }
+
+    /**
+     * Divides the unsigned 128-bit number high:low by a divisor, with high below the divisor so the quotient fits.
+     * Long division in base 2^32 (Knuth's algorithm D, as in Hacker's Delight divlu).
+     */
+    static long divide128(long high, long low, long divisor) {
+        int shift = Long.numberOfLeadingZeros(divisor);
+        long v = divisor << shift;
+        long v1 = v >>> 32;
+        long v0 = v & LOW_32_BITS;
+
+        long u32 = shift == 0 ? high : high << shift | low >>> (64 - shift);
+        long u10 = low << shift;
+        long u1 = u10 >>> 32;
+        long u0 = u10 & LOW_32_BITS;
+
+        long q1 = Long.divideUnsigned(u32, v1);
+        long rhat = Long.remainderUnsigned(u32, v1);
+        while (Long.compareUnsigned(q1, 1L << 32) >= 0
+                || Long.compareUnsigned(q1 * v0, rhat << 32 | u1) > 0) {
+            q1--;
+            rhat += v1;
+            if (Long.compareUnsigned(rhat, 1L << 32) >= 0) {
+                break;
+            }
+        }
+
+        long u21 = (u32 << 32 | u1) - q1 * v;
+        long q0 = Long.divideUnsigned(u21, v1);
+        rhat = Long.remainderUnsigned(u21, v1);
+        while (Long.compareUnsigned(q0, 1L << 32) >= 0
+                || Long.compareUnsigned(q0 * v0, rhat << 32 | u0) > 0) {
+            q0--;
+            rhat += v1;
+            if (Long.compareUnsigned(rhat, 1L << 32) >= 0) {
+                break;
+            }
+        }
+        return q1 << 32 | q0;
+    }
+
+    /**
+     * A decimal with no more digits than it was scaled by lands within a rounding error of a whole number.
+     *
+     * @return That whole number, or -1 if the scaled value is not one or too large to tell
+     */
+    private static long wholeNear(double scaled) {
+        if (!(scaled >= 0 && scaled < MAX_EXACT_DOUBLE)) {
+            return -1;
+        }
+        double whole = Math.rint(scaled);
+        return Math.abs(scaled - whole) <= 2 * Math.ulp(scaled) ? (long) whole : -1;
+    }
+
+    /**
+     * Decides the rounding of a positive quotient with a non-zero remainder.
+     */
+    private static boolean roundsUp(long quotient, long remainder, long divisor, RoundingMode roundingMode) {
+        // Compare the remainder with the other half of the divisor, as doubling it could overflow
+        long otherPart = divisor - remainder;
+        return switch (roundingMode) {
+            case UP, CEILING -> true;
+            case DOWN, FLOOR -> false;
+            case HALF_UP -> remainder >= otherPart;
+            case HALF_DOWN -> remainder > otherPart;
+            case HALF_EVEN -> remainder > otherPart || remainder == otherPart && (quotient & 1) == 1;
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary");
+        };
+    }
+}
@@ -0,0 +1,118 @@
+package com.nathan.currencyconversionapi.provider;
+
+/**
+ * Health of a rate provider, as exponentially weighted moving averages of its latency and error rate.
+ *
+ * <p>Each call moves the averages towards its outcome by the smoothing factor alpha, so recent calls weigh most
+ * and a provider recovers its standing as it succeeds again. A call cancelled because another provider answered
+ * first only raises the latency average: it proves the provider is at least that slow, not that it is faster.
+ * A provider whose error average reaches the threshold is degraded; it then only gets a probe call now and then.
+ */
+public class ProviderHealth {
+
+    private final String name;
+    private final double alpha;
+
+    private long samples;
+    private double latencyNanos;
+    private double errorRate;
+    private long nextProbeNanos;
+
+    /**
+     * @param name The name of the provider
+     * @param alpha Smoothing factor between 0 and 1, the weight of each new call
+     */
+    public ProviderHealth(String name, double alpha) {
+        this.name = name;
+        this.alpha = alpha;
+    }
+
+    /**
+     * @return The name of the provider
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records a call that returned rates.
+     *
+     * @param elapsedNanos The duration of the call
+     */
+    public synchronized void recordSuccess(long elapsedNanos) {
+        updateLatency(elapsedNanos);
+        errorRate = (1 - alpha) * errorRate;
+    }
+
+    /**
+     * Records a call that failed because the provider was slow or down.
+     *
+     * @param elapsedNanos The duration of the call
+     */
+    public synchronized void recordFailure(long elapsedNanos) {
+        if (elapsedNanos > latencyNanos) {
+            updateLatency(elapsedNanos);
+        }
+        errorRate = alpha + (1 - alpha) * errorRate;
+    }
+
+    /**
+     * Records a call cancelled before it answered.
+     *
+     * @param elapsedNanos The time the call ran before it was cancelled
+     */
+    public synchronized void recordCancel(long elapsedNanos) {
+        if (elapsedNanos > latencyNanos) {
+            updateLatency(elapsedNanos);
+        }
+    }
+
+    /**
+     * @return The average latency in nanoseconds, or 0 before the first call
+     */
+    public synchronized double getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * @return The average error rate between 0 and 1
+     */
+    public synchronized double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * @return Whether any call was recorded yet
+     */
+    public synchronized boolean hasSamples() {
+        return samples > 0;
+    }
+
+    /**
+     * @param errorThreshold The error rate from which a provider is degraded
+     * @return Whether the provider is degraded
+     */
+    public synchronized boolean isDegraded(double errorThreshold) {
+        return errorRate >= errorThreshold;
+    }
+
+    /**
+     * Claims the next probe of a degraded provider, so only one call probes it per interval.
+     *
+     * @param nowNanos The current time from {@link System#nanoTime()}
+     * @param intervalNanos The minimum delay between two probes
+     * @return Whether the caller may probe the provider now
+     */
+    public synchronized boolean tryProbe(long nowNanos, long intervalNanos) {
+        if (nextProbeNanos != 0 && nowNanos - nextProbeNanos < 0) {
+            return false;
+        }
+        nextProbeNanos = nowNanos + intervalNanos;
+        return true;
+    }
+
+    private void updateLatency(long elapsedNanos) {
+        latencyNanos = samples == 0 ? elapsedNanos : alpha * elapsedNanos + (1 - alpha) * latencyNanos;
+        samples++;
+    }
+}
@@ -0,0 +1,50 @@
+package com.nathan.currencyconversionapi.provider;
+
+import com.nathan.currencyconversionapi.exception.ExchangeRateServiceUnavailableException;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import reactor.core.publisher.Mono;
+
+/**
+ * A source of exchange rate snapshots.
+ * Implementations signal {@link ExchangeRateServiceUnavailableException} when they are slow or down,
+ * so the {@link RateProviderSelector} can tell an unhealthy provider from a request it cannot serve.
+ */
+public interface RateProvider {
+
+    /**
+     * @return The name of the provider, used in configuration, logs and metrics
+     */
+    String getName();
+
+    /**
+     * Fetches the latest exchange rates for a base currency.
+     *
+     * @param baseCurrency The upper-case base currency code
+     * @return A Mono containing the latest rates
+     */
+    Mono<RateTable> getLatestRates(String baseCurrency);
+
+    /**
+     * @return Whether the provider is only used once every other provider has failed,
+     *         such as one serving rates from local files that would always win a race
+     */
+    default boolean isFallback() {
+        return false;
+    }
+
+    /**
+     * @return The set of currencies and publication schedule the provider's snapshots follow. Only providers with
+     *         the same coverage are raced, so the currencies of a snapshot do not depend on which one answered first
+     */
+    default String getCoverage() {
+        return getName();
+    }
+
+    /**
+     * @return Whether each call counts against a quota, such as an API key's monthly requests.
+     *         Such a provider is never raced, so no call is spent on an answer that is thrown away
+     */
+    default boolean isMetered() {
+        return false;
+    }
+}
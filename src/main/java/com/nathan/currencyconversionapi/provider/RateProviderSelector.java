@@ -0,0 +1,343 @@
+package com.nathan.currencyconversionapi.provider;
+
+import com.nathan.currencyconversionapi.exception.ExchangeRateServiceUnavailableException;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import com.nathan.currencyconversionapi.replication.ReplicatedRateProvider;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Rate provider that spreads calls over every other {@link RateProvider} and returns the first healthy answer.
+ *
+ * <p>Providers are ranked by their {@link ProviderHealth}: healthy ones first, then those of the most preferred
+ * {@linkplain RateProvider#getCoverage() coverage}, fastest average latency first, then in the configured order.
+ * The top {@code race-width} healthy providers sharing the leader's coverage are called at once and the first
+ * to return rates wins, the others being cancelled. Providers with a different coverage are not raced, so the
+ * currencies served do not flip with whichever answered first, and {@linkplain RateProvider#isMetered() metered}
+ * providers are never raced, so no quota is spent on a cancelled call. A degraded provider is left out of races
+ * except for one probe call per probe interval, so it can show it recovered; a degraded provider of a more preferred
+ * coverage than the leader is probed alone, before the others. When the race fails, the remaining providers and
+ * then the fallback providers are tried one at a time, all within the deadline.
+ *
+ * <p>Only failures of the provider itself (see {@link ExchangeRateServiceUnavailableException}) count against its
+ * health. When every provider fails, the error of a provider that rejected the request is returned in preference
+ * to unavailability, so an unsupported currency is still reported as such.
+ *
+ * <p>The cache calls the selector through the {@link ReplicatedRateProvider}, which leaves the providers alone
+ * while this instance replicates the snapshots of another one.
+ */
+@Component
+@Slf4j
+public class RateProviderSelector implements RateProvider {
+
+    /**
+     * Name of the selector in logs
+     */
+    public static final String NAME = "selector";
+
+    /**
+     * Provider names in order of preference, used to break ties between equally fast providers
+     */
+    @Value("${exchangerate.providers.order:exchangerate-api,frankfurter,static}")
+    private List<String> order;
+
+    /**
+     * Maximum duration of a call, across every provider tried
+     */
+    @Value("${exchangerate.providers.deadline:PT6S}")
+    private Duration deadline;
+
+    /**
+     * Number of healthy providers called at once
+     */
+    @Value("${exchangerate.providers.race-width:2}")
+    private int raceWidth;
+
+    /**
+     * Weight of each new call in the latency and error averages
+     */
+    @Value("${exchangerate.providers.ewma-alpha:0.2}")
+    private double ewmaAlpha;
+
+    /**
+     * Average error rate from which a provider is degraded
+     */
+    @Value("${exchangerate.providers.error-threshold:0.5}")
+    private double errorThreshold;
+
+    /**
+     * Minimum delay between two probe calls to a degraded provider
+     */
+    @Value("${exchangerate.providers.probe-interval:PT30S}")
+    private Duration probeInterval;
+
+    /**
+     * Every provider except the selector itself and the replicated provider calling it
+     */
+    private final List<RateProvider> providers;
+
+    /**
+     * Health of each provider, by name
+     */
+    private final Map<String, ProviderHealth> health = new LinkedHashMap<>();
+
+    /**
+     * Providers called first, in the configured order
+     */
+    private final List<RateProvider> primaries = new ArrayList<>();
+
+    /**
+     * Providers only called once the others failed, in the configured order
+     */
+    private final List<RateProvider> fallbacks = new ArrayList<>();
+
+    /**
+     * Preference of each coverage, the preference of its most preferred primary provider
+     */
+    private final Map<String, Integer> coveragePreference = new LinkedHashMap<>();
+
+    /**
+     * @param providers The available rate providers
+     */
+    public RateProviderSelector(List<RateProvider> providers) {
+        this.providers = providers.stream()
+                .filter(provider -> !(provider instanceof RateProviderSelector
+                        || provider instanceof ReplicatedRateProvider))
+                .toList();
+    }
+
+    /**
+     * Sorts the providers into primaries and fallbacks and creates their health trackers.
+     *
+     * @throws IllegalStateException if there is no provider
+     */
+    @PostConstruct
+    public void init() {
+        if (providers.isEmpty()) {
+            throw new IllegalStateException("At least one rate provider is required");
+        }
+        List<RateProvider> ordered = new ArrayList<>(providers);
+        ordered.sort(Comparator.comparingInt(this::preference));
+        for (RateProvider provider : ordered) {
+            health.put(provider.getName(), new ProviderHealth(provider.getName(), ewmaAlpha));
+            (provider.isFallback() ? fallbacks : primaries).add(provider);
+            if (!provider.isFallback()) {
+                coveragePreference.putIfAbsent(provider.getCoverage(), preference(provider));
+            }
+        }
+        log.info("Rate providers: {}, fallbacks: {}", names(primaries), names(fallbacks));
+    }
+
+    /**
+     * @return The name of the selector
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Fetches the latest rates from the healthiest providers.
+     *
+     * @param baseCurrency The base currency to get rates for
+     * @return A Mono containing the first rates returned by a provider
+     */
+    @Override
+    public Mono<RateTable> getLatestRates(String baseCurrency) {
+        return Mono.defer(() -> {
+            List<RateProvider> ranked = rank();
+            List<RateProvider> raced = raced(ranked);
+            List<RateProvider> remaining = new ArrayList<>(ranked);
+            remaining.removeAll(raced);
+            remaining.addAll(fallbacks);
+
+            List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+            return race(raced, baseCurrency, errors)
+                    .switchIfEmpty(Flux.fromIterable(remaining)
+                            .concatMap(provider -> call(provider, baseCurrency, errors))
+                            .next())
+                    .switchIfEmpty(Mono.error(() -> failure(baseCurrency, errors)));
+        })
+                .timeout(deadline)
+                .onErrorMap(TimeoutException.class, error -> new ExchangeRateServiceUnavailableException(
+                        "No rate provider answered for " + baseCurrency + " in time", error));
+    }
+
+    /**
+     * @return The health of each provider, in the configured order
+     */
+    public Collection<ProviderHealth> getHealth() {
+        return Collections.unmodifiableCollection(health.values());
+    }
+
+    /**
+     * @param name The name of a provider
+     * @return Whether the provider is currently degraded
+     */
+    public boolean isDegraded(String name) {
+        ProviderHealth providerHealth = health.get(name);
+        return providerHealth != null && providerHealth.isDegraded(errorThreshold);
+    }
+
+    /**
+     * Orders the primary providers: healthy before degraded, then by preference of their coverage,
+     * then by average latency, then by configured order.
+     * A provider without any call yet ranks as the fastest of its coverage, so it gets measured.
+     */
+    private List<RateProvider> rank() {
+        // Health keeps changing under concurrent calls, so sort on a copy of it
+        List<Rank> ranks = new ArrayList<>(primaries.size());
+        for (RateProvider provider : primaries) {
+            ProviderHealth providerHealth = healthOf(provider);
+            ranks.add(new Rank(provider, providerHealth.isDegraded(errorThreshold), coveragePreference(provider),
+                    providerHealth.getLatencyNanos(), preference(provider)));
+        }
+        ranks.sort(Comparator.comparing(Rank::degraded)
+                .thenComparingInt(Rank::coveragePreference)
+                .thenComparingDouble(Rank::latencyNanos)
+                .thenComparingInt(Rank::preference));
+        return ranks.stream().map(Rank::provider).toList();
+    }
+
+    /**
+     * Picks the providers called at once: the top healthy ones that can race the leader, plus a degraded one
+     * of the same coverage whose probe is due. A degraded provider of a more preferred coverage whose probe is due
+     * is called alone instead. When every primary is degraded and no probe is due, the best ranked one is called anyway.
+     */
+    private List<RateProvider> raced(List<RateProvider> ranked) {
+        List<RateProvider> raced = new ArrayList<>(raceWidth + 1);
+        long now = System.nanoTime();
+        boolean probing = false;
+        for (RateProvider provider : ranked) {
+            ProviderHealth providerHealth = healthOf(provider);
+            RateProvider leader = raced.isEmpty() ? null : raced.get(0);
+            if (!providerHealth.isDegraded(errorThreshold)) {
+                if (raced.size() < raceWidth && (leader == null || canRace(leader, provider))) {
+                    raced.add(provider);
+                }
+            } else if (!probing && (leader == null || canRace(leader, provider))) {
+                if (providerHealth.tryProbe(now, probeInterval.toNanos())) {
+                    log.debug("Probing degraded rate provider {}", provider.getName());
+                    raced.add(provider);
+                    probing = true;
+                }
+            } else if (!probing && coveragePreference(provider) < coveragePreference(leader)
+                    && providerHealth.tryProbe(now, probeInterval.toNanos())) {
+                log.debug("Probing degraded rate provider {} before {}", provider.getName(), names(raced));
+                return List.of(provider);
+            }
+        }
+        if (raced.isEmpty() && !ranked.isEmpty()) {
+            raced.add(ranked.get(0));
+        }
+        return raced;
+    }
+
+    /**
+     * Calls providers at once and returns the first rates, or completes empty if every one failed.
+     */
+    private Mono<RateTable> race(List<RateProvider> raced, String baseCurrency, List<Throwable> errors) {
+        if (raced.isEmpty()) {
+            return Mono.empty();
+        }
+        if (raced.size() == 1) {
+            return call(raced.get(0), baseCurrency, errors);
+        }
+        List<Mono<RateTable>> calls = new ArrayList<>(raced.size());
+        for (RateProvider provider : raced) {
+            calls.add(call(provider, baseCurrency, errors));
+        }
+        return Mono.firstWithValue(calls)
+                .onErrorResume(NoSuchElementException.class, error -> Mono.empty());
+    }
+
+    /**
+     * Calls one provider, recording the outcome in its health. Completes empty when the provider fails,
+     * after adding its error to the errors of the request.
+     */
+    private Mono<RateTable> call(RateProvider provider, String baseCurrency, List<Throwable> errors) {
+        ProviderHealth providerHealth = healthOf(provider);
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return provider.getLatestRates(baseCurrency)
+                    .doOnNext(snapshot -> providerHealth.recordSuccess(System.nanoTime() - start))
+                    .doOnCancel(() -> providerHealth.recordCancel(System.nanoTime() - start))
+                    .onErrorResume(error -> {
+                        if (isUnavailable(error)) {
+                            providerHealth.recordFailure(System.nanoTime() - start);
+                        }
+                        log.debug("Rate provider {} failed for {}: {}", provider.getName(), baseCurrency,
+                                error.getMessage());
+                        errors.add(error);
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    /**
+     * @return The error returned when every provider failed
+     */
+    private Throwable failure(String baseCurrency, List<Throwable> errors) {
+        synchronized (errors) {
+            for (Throwable error : errors) {
+                if (!isUnavailable(error)) {
+                    return error;
+                }
+            }
+            ExchangeRateServiceUnavailableException failure = new ExchangeRateServiceUnavailableException(
+                    "No rate provider is available for " + baseCurrency);
+            errors.forEach(failure::addSuppressed);
+            return failure;
+        }
+    }
+
+    private static boolean isUnavailable(Throwable error) {
+        return error instanceof ExchangeRateServiceUnavailableException || error instanceof TimeoutException;
+    }
+
+    private ProviderHealth healthOf(RateProvider provider) {
+        return health.get(provider.getName());
+    }
+
+    /**
+     * @return Whether two providers may be called at once: same coverage, and neither spends quota on a lost race
+     */
+    private static boolean canRace(RateProvider leader, RateProvider provider) {
+        return !leader.isMetered() && !provider.isMetered() && leader.getCoverage().equals(provider.getCoverage());
+    }
+
+    private int coveragePreference(RateProvider provider) {
+        return coveragePreference.getOrDefault(provider.getCoverage(), order.size());
+    }
+
+    private int preference(RateProvider provider) {
+        int index = order.indexOf(provider.getName());
+        return index < 0 ? order.size() : index;
+    }
+
+    private static List<String> names(List<RateProvider> providers) {
+        return providers.stream().map(RateProvider::getName).toList();
+    }
+
+    /**
+     * Position of a provider in the ranking, as read at one point in time
+     */
+    private record Rank(RateProvider provider, boolean degraded, int coveragePreference, double latencyNanos,
+                        int preference) {
+    }
+}
@@ -0,0 +1,147 @@
+package com.nathan.currencyconversionapi.provider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nathan.currencyconversionapi.exception.ExchangeRateServiceUnavailableException;
+import com.nathan.currencyconversionapi.model.ExchangeRateApiResponse;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provider serving rates from local files, as a last resort when every remote provider fails,
+ * or on its own for offline development.
+ *
+ * <p>Each {@code *.json} file of the directory holds one response in the ExchangeRate API format.
+ * A base currency without its own file is served by rebasing a loaded snapshot that contains it,
+ * since rate(X to c) = rate(B to c) / rate(B to X). Files are read once, at startup.
+ */
+@Component
+@ConditionalOnProperty(name = "exchangerate.providers.static.enabled", havingValue = "true")
+@Slf4j
+public class StaticRateProvider implements RateProvider {
+
+    /**
+     * Name of the provider in configuration, logs and metrics
+     */
+    public static final String NAME = "static";
+
+    /**
+     * Directory holding the rate files
+     */
+    @Value("${exchangerate.providers.static.directory:data/static-rates}")
+    private Path directory;
+
+    /**
+     * Snapshots loaded from the files, by base currency code
+     */
+    private final Map<String, RateTable> loaded = new ConcurrentHashMap<>();
+
+    /**
+     * Snapshots derived from a loaded one, by base currency code
+     */
+    private final Map<String, RateTable> rebased = new ConcurrentHashMap<>();
+
+    /**
+     * Reads the rate files of the directory. Unreadable files are skipped.
+     */
+    @PostConstruct
+    public void load() {
+        if (!Files.isDirectory(directory)) {
+            log.warn("Static rate directory {} does not exist, no static rates are served", directory);
+            return;
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path file : files) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    RateTable snapshot = RateTable.from(objectMapper.readValue(in, ExchangeRateApiResponse.class));
+                    loaded.put(snapshot.getBaseCurrency(), snapshot);
+                } catch (IOException | RuntimeException ex) {
+                    log.warn("Skipping static rate file {}: {}", file, ex.getMessage());
+                }
+            }
+        } catch (IOException ex) {
+            log.warn("Could not list static rate directory {}: {}", directory, ex.getMessage());
+        }
+        log.info("Loaded static rates for {} base currencies from {}", loaded.size(), directory);
+    }
+
+    /**
+     * @return The name of the provider
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * @return Always true: static rates are only served once the remote providers failed
+     */
+    @Override
+    public boolean isFallback() {
+        return true;
+    }
+
+    /**
+     * Returns the loaded snapshot for a base currency, or one rebased from another loaded snapshot.
+     *
+     * @param baseCurrency The base currency to get rates for
+     * @return A Mono containing the rates, failing with {@link ExchangeRateServiceUnavailableException}
+     *         when no file holds the base currency
+     */
+    @Override
+    public Mono<RateTable> getLatestRates(String baseCurrency) {
+        return Mono.fromSupplier(() -> snapshotFor(baseCurrency))
+                .switchIfEmpty(Mono.error(() -> new ExchangeRateServiceUnavailableException(
+                        "No static rates for " + baseCurrency)));
+    }
+
+    private RateTable snapshotFor(String baseCurrency) {
+        RateTable snapshot = loaded.get(baseCurrency);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        RateTable derived = rebased.get(baseCurrency);
+        if (derived != null) {
+            return derived;
+        }
+        int baseId = CurrencyIndex.idOf(baseCurrency);
+        for (RateTable source : loaded.values()) {
+            if (baseId != CurrencyIndex.UNKNOWN && source.contains(baseId)) {
+                derived = rebase(source, baseId);
+                rebased.put(baseCurrency, derived);
+                return derived;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Derives a snapshot with another base currency, published at the same time as its source.
+     * The source's currencies include its own base, at a rate of 1.
+     */
+    static RateTable rebase(RateTable source, int baseId) {
+        RateTable.Builder builder = RateTable.builder()
+                .baseId(baseId)
+                .lastUpdateEpochSecond(source.getLastUpdateEpochSecond())
+                .nextUpdateEpochSecond(source.getNextUpdateEpochSecond());
+        for (int i = 0; i < source.size(); i++) {
+            int currencyId = source.currencyIdAt(i);
+            builder.rate(currencyId, source.crossRate(baseId, currencyId));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,170 @@
+package com.nathan.currencyconversionapi.quota;
+
+import com.nathan.currencyconversionapi.cache.RateSnapshotCache;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which due snapshots are refreshed in the background, given the demand for each base currency and the
+ * {@link UpstreamQuotaBudget}.
+ *
+ * <p>Demand is the rate of lookups of each cached base currency, averaged with an exponential decay. While the
+ * budget is on pace every due snapshot is refreshed, the most requested first. When spending is ahead of pace,
+ * the calls available now go to the most requested base currencies, and each base currency is refreshed at most
+ * as often as its share of the demand allows within the daily allowance: a currency drawing a tenth of the lookups
+ * gets a tenth of the day's calls. When only the reserve is left, nothing is refreshed in the background.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshPlanner {
+
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    /**
+     * Cache whose lookups measure the demand
+     */
+    private final RateSnapshotCache rateSnapshotCache;
+
+    /**
+     * Budget of calls to the ExchangeRate API
+     */
+    private final UpstreamQuotaBudget quotaBudget;
+
+    /**
+     * Time after which past lookups weigh half as much in the demand
+     */
+    @Value("${exchangerate.quota.demand-half-life:PT6H}")
+    private Duration demandHalfLife;
+
+    /**
+     * Demand tracked for each cached base currency
+     */
+    private final Map<String, Demand> demand = new HashMap<>();
+
+    /**
+     * Selects the base currencies to refresh now among the due ones.
+     *
+     * @param due The base currencies whose snapshot is due for a refresh
+     * @return The base currencies to refresh, the most requested first
+     */
+    public synchronized List<String> plan(List<String> due) {
+        sampleDemand(System.nanoTime());
+        List<String> ordered = new ArrayList<>(due);
+        ordered.sort(Comparator.comparingDouble(this::lookupsPerSecond).reversed());
+
+        switch (quotaBudget.getMode()) {
+            case NORMAL:
+                return ordered;
+            case THROTTLED:
+                return throttled(ordered);
+            default:
+                if (!ordered.isEmpty()) {
+                    log.debug("Upstream quota nearly used up, not refreshing {}", ordered);
+                }
+                return List.of();
+        }
+    }
+
+    /**
+     * @param baseCurrency The upper-case base currency code
+     * @return The average number of lookups per second of a base currency
+     */
+    public synchronized double lookupsPerSecond(String baseCurrency) {
+        Demand tracked = demand.get(baseCurrency);
+        return tracked != null ? tracked.rate : 0;
+    }
+
+    /**
+     * Keeps the base currencies whose share of the daily allowance lets them be refreshed again, within the calls
+     * available now.
+     */
+    private List<String> throttled(List<String> ordered) {
+        long allowance = quotaBudget.refreshAllowance();
+        double dailyAllowance = quotaBudget.dailyAllowance();
+        double totalDemand = 0;
+        for (Demand tracked : demand.values()) {
+            totalDemand += tracked.rate;
+        }
+
+        long now = System.currentTimeMillis() / 1000;
+        List<String> planned = new ArrayList<>();
+        for (String baseCurrency : ordered) {
+            if (planned.size() >= allowance) {
+                break;
+            }
+            double share = totalDemand > 0 ? lookupsPerSecond(baseCurrency) / totalDemand : 0;
+            double refreshesPerDay = dailyAllowance * share;
+            if (refreshesPerDay <= 0) {
+                continue;
+            }
+            RateTable cached = rateSnapshotCache.peek(baseCurrency);
+            long age = cached != null ? now - cached.getLastUpdateEpochSecond() : Long.MAX_VALUE;
+            if (age >= SECONDS_PER_DAY / refreshesPerDay) {
+                planned.add(baseCurrency);
+            }
+        }
+        if (planned.size() < ordered.size()) {
+            log.debug("Upstream quota ahead of pace, refreshing {} of {}", planned, ordered);
+        }
+        return planned;
+    }
+
+    /**
+     * Folds the lookups made since the last sample into the demand of each cached base currency
+     * and forgets the base currencies no longer cached.
+     */
+    private void sampleDemand(long nowNanos) {
+        Map<String, Demand> current = new HashMap<>();
+        for (RateTable snapshot : rateSnapshotCache.snapshots()) {
+            String baseCurrency = snapshot.getBaseCurrency();
+            long lookups = rateSnapshotCache.lookupCount(baseCurrency);
+            Demand tracked = demand.get(baseCurrency);
+            if (tracked == null) {
+                tracked = new Demand(lookups, nowNanos);
+            } else {
+                tracked.sample(lookups, nowNanos, demandHalfLife.toNanos());
+            }
+            current.put(baseCurrency, tracked);
+        }
+        demand.clear();
+        demand.putAll(current);
+    }
+
+    /**
+     * Lookup rate of a base currency, decayed exponentially over time.
+     */
+    private static final class Demand {
+
+        private long lookups;
+        private long sampledAtNanos;
+        private double rate;
+
+        private Demand(long lookups, long sampledAtNanos) {
+            this.lookups = lookups;
+            this.sampledAtNanos = sampledAtNanos;
+        }
+
+        private void sample(long currentLookups, long nowNanos, long halfLifeNanos) {
+            long elapsed = nowNanos - sampledAtNanos;
+            if (elapsed <= 0) {
+                return;
+            }
+            double recentRate = Math.max(0, currentLookups - lookups) / (elapsed / 1e9);
+            double weight = Math.pow(0.5, elapsed / (double) halfLifeNanos);
+            rate = weight * rate + (1 - weight) * recentRate;
+            lookups = currentLookups;
+            sampledAtNanos = nowNanos;
+        }
+    }
+}
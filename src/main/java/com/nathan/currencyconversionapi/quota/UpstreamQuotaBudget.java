@@ -0,0 +1,399 @@
+package com.nathan.currencyconversionapi.quota;
+
+import com.nathan.currencyconversionapi.io.DurableFiles;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Properties;
+
+/**
+ * Budget of calls to the ExchangeRate API, whose key comes with a monthly request quota.
+ *
+ * <p>Every HTTP request sent to the ExchangeRate API, retries and hedges included, is counted against the
+ * current quota period, which starts on the configured day of each month (UTC). The counters are persisted to
+ * a small file, so a restart does not forget the calls already made. Spending is paced over the period: the
+ * calls available at any time are the period's budget, minus a reserve, prorated by the time elapsed plus a day.
+ * The {@link Mode} tells the rest of the service how freely it may call upstream:
+ * <ul>
+ *     <li>NORMAL: spending is on pace, snapshots are refreshed as usual;</li>
+ *     <li>THROTTLED: spending is ahead of pace, background refreshes follow the {@link RefreshPlanner};</li>
+ *     <li>SNAPSHOT_ONLY: only the reserve is left, cached snapshots are served whatever their age and upstream
+ *     is only called for base currencies that have none;</li>
+ *     <li>EXHAUSTED: the quota is used up, no call is made until the next period.</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class UpstreamQuotaBudget {
+
+    /**
+     * How freely the ExchangeRate API may be called
+     */
+    public enum Mode {
+        NORMAL,
+        THROTTLED,
+        SNAPSHOT_ONLY,
+        EXHAUSTED
+    }
+
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    /**
+     * Whether upstream calls are counted and limited
+     */
+    private final boolean enabled;
+
+    /**
+     * Number of requests the API key allows per period
+     */
+    private final long monthlyLimit;
+
+    /**
+     * Day of the month (UTC) on which the quota resets
+     */
+    private final int resetDay;
+
+    /**
+     * Share of the quota kept for base currencies that have no snapshot at all
+     */
+    private final double reserveRatio;
+
+    /**
+     * Location of the file persisting the counters
+     */
+    private final Path path;
+
+    /**
+     * Source of the current time
+     */
+    private final Clock clock;
+
+    /**
+     * Start of the current quota period (Unix format)
+     */
+    private long periodStart;
+
+    /**
+     * End of the current quota period, exclusive (Unix format)
+     */
+    private long periodEnd;
+
+    /**
+     * Calls made during the current period
+     */
+    private long used;
+
+    /**
+     * Whether the counters changed since they were last persisted
+     */
+    private boolean dirty;
+
+    /**
+     * Mode computed at the last call or tick, read without locking on the request path
+     */
+    private volatile Mode mode = Mode.NORMAL;
+
+    /**
+     * @param enabled Whether upstream calls are counted and limited
+     * @param monthlyLimit Number of requests the API key allows per period
+     * @param resetDay Day of the month (UTC) on which the quota resets
+     * @param reserveRatio Share of the quota kept for base currencies that have no snapshot at all
+     * @param path Location of the file persisting the counters
+     */
+    @Autowired
+    public UpstreamQuotaBudget(@Value("${exchangerate.quota.enabled:true}") boolean enabled,
+                               @Value("${exchangerate.quota.monthly-limit:1500}") long monthlyLimit,
+                               @Value("${exchangerate.quota.reset-day:1}") int resetDay,
+                               @Value("${exchangerate.quota.reserve-ratio:0.05}") double reserveRatio,
+                               @Value("${exchangerate.quota.path:data/upstream-quota.properties}") Path path) {
+        this(enabled, monthlyLimit, resetDay, reserveRatio, path, Clock.systemUTC());
+    }
+
+    UpstreamQuotaBudget(boolean enabled, long monthlyLimit, int resetDay, double reserveRatio, Path path, Clock clock) {
+        this.enabled = enabled;
+        this.monthlyLimit = monthlyLimit;
+        this.resetDay = resetDay;
+        this.reserveRatio = reserveRatio;
+        this.path = path;
+        this.clock = clock;
+    }
+
+    /**
+     * @return A budget that neither counts nor limits calls, for tools and tests calling a stand-in of the API
+     */
+    public static UpstreamQuotaBudget disabled() {
+        return new UpstreamQuotaBudget(false, 0, 1, 0, null, Clock.systemUTC());
+    }
+
+    /**
+     * Restores the counters of the current period from the file, if any.
+     */
+    @PostConstruct
+    public synchronized void start() {
+        if (!enabled) {
+            return;
+        }
+        startPeriod(clock.instant().getEpochSecond());
+        Properties stored = read(path);
+        try {
+            if (Long.parseLong(stored.getProperty("period-start", "-1")) == periodStart) {
+                used = Long.parseLong(stored.getProperty("used", "0"));
+            }
+        } catch (NumberFormatException ex) {
+            log.warn("Ignoring corrupt upstream quota file {}: {}", path, ex.getMessage());
+        }
+        updateMode(clock.instant().getEpochSecond());
+        log.info("Upstream quota: {} of {} calls used since {}, mode {}",
+                used, monthlyLimit, Instant.ofEpochSecond(periodStart), mode);
+    }
+
+    /**
+     * Persists the counters a last time.
+     */
+    @PreDestroy
+    public void stop() {
+        tick();
+    }
+
+    /**
+     * Rolls over to a new period when due, refreshes the mode as the pace moves on and persists changed counters.
+     */
+    @Scheduled(fixedDelayString = "${exchangerate.quota.persist-interval:PT10S}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        Properties changed = null;
+        synchronized (this) {
+            long now = clock.instant().getEpochSecond();
+            rollOver(now);
+            updateMode(now);
+            if (dirty) {
+                changed = new Properties();
+                changed.setProperty("period-start", Long.toString(periodStart));
+                changed.setProperty("used", Long.toString(used));
+                dirty = false;
+            }
+        }
+        if (changed != null) {
+            try {
+                write(path, changed);
+            } catch (IOException ex) {
+                log.warn("Could not persist upstream quota to {}: {}", path, ex.getMessage());
+                synchronized (this) {
+                    dirty = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts one request to the ExchangeRate API, unless the quota is used up.
+     *
+     * @return Whether the request may be sent
+     */
+    public synchronized boolean tryConsume() {
+        if (!enabled) {
+            return true;
+        }
+        long now = clock.instant().getEpochSecond();
+        rollOver(now);
+        if (used >= monthlyLimit) {
+            updateMode(now);
+            return false;
+        }
+        used++;
+        dirty = true;
+        updateMode(now);
+        return true;
+    }
+
+    /**
+     * @return How freely the ExchangeRate API may be called
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return Whether cached snapshots must be served whatever their age
+     */
+    public boolean isSnapshotOnly() {
+        Mode current = mode;
+        return current == Mode.SNAPSHOT_ONLY || current == Mode.EXHAUSTED;
+    }
+
+    /**
+     * @return Whether upstream calls are counted and limited
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Number of calls that can be made now without getting ahead of pace
+     */
+    public synchronized long refreshAllowance() {
+        if (!enabled) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, pacedAllowance(clock.instant().getEpochSecond()) - used);
+    }
+
+    /**
+     * @return Number of calls per day that would spend the budget left, reserve excluded, evenly until the period ends
+     */
+    public synchronized double dailyAllowance() {
+        if (!enabled) {
+            return Double.POSITIVE_INFINITY;
+        }
+        long now = clock.instant().getEpochSecond();
+        double daysLeft = Math.max(1.0, (periodEnd - now) / (double) SECONDS_PER_DAY);
+        return Math.max(0, monthlyLimit - reserve() - used) / daysLeft;
+    }
+
+    /**
+     * Projects when the quota runs out if calls go on at the average rate of the period so far.
+     *
+     * @return The projected exhaustion time (Unix format), or -1 if the quota lasts until the period ends
+     */
+    public synchronized long projectedExhaustionEpochSecond() {
+        if (!enabled || used == 0) {
+            return -1;
+        }
+        if (used >= monthlyLimit) {
+            return clock.instant().getEpochSecond();
+        }
+        long elapsed = Math.max(1, clock.instant().getEpochSecond() - periodStart);
+        long exhaustion = periodStart + (long) (monthlyLimit * (elapsed / (double) used));
+        return exhaustion < periodEnd ? exhaustion : -1;
+    }
+
+    /**
+     * @return Number of calls made during the current period
+     */
+    public synchronized long getUsed() {
+        return used;
+    }
+
+    /**
+     * @return Number of calls left in the current period
+     */
+    public synchronized long getRemaining() {
+        return Math.max(0, monthlyLimit - used);
+    }
+
+    /**
+     * @return Number of requests the API key allows per period
+     */
+    public long getMonthlyLimit() {
+        return monthlyLimit;
+    }
+
+    /**
+     * @return End of the current quota period (Unix format)
+     */
+    public synchronized long getPeriodEndEpochSecond() {
+        return periodEnd;
+    }
+
+    private long reserve() {
+        return (long) Math.ceil(monthlyLimit * reserveRatio);
+    }
+
+    /**
+     * @return Calls the period's budget allows by now: the budget without the reserve, prorated by the
+     * time elapsed plus one day so spending may run a day ahead
+     */
+    private long pacedAllowance(long now) {
+        double elapsed = Math.min(1.0, (now - periodStart + SECONDS_PER_DAY) / (double) (periodEnd - periodStart));
+        return (long) ((monthlyLimit - reserve()) * elapsed);
+    }
+
+    private void updateMode(long now) {
+        Mode next;
+        if (used >= monthlyLimit) {
+            next = Mode.EXHAUSTED;
+        } else if (monthlyLimit - used <= reserve()) {
+            next = Mode.SNAPSHOT_ONLY;
+        } else if (used >= pacedAllowance(now)) {
+            next = Mode.THROTTLED;
+        } else {
+            next = Mode.NORMAL;
+        }
+        if (next != mode) {
+            log.info("Upstream quota mode {} ({} of {} calls used)", next, used, monthlyLimit);
+            mode = next;
+        }
+    }
+
+    private void rollOver(long now) {
+        if (now >= periodEnd) {
+            startPeriod(now);
+            used = 0;
+            dirty = true;
+        }
+    }
+
+    /**
+     * Sets the bounds of the period containing a point in time.
+     */
+    private void startPeriod(long now) {
+        LocalDate today = Instant.ofEpochSecond(now).atZone(ZoneOffset.UTC).toLocalDate();
+        LocalDate start = today.withDayOfMonth(Math.min(resetDay, today.lengthOfMonth()));
+        if (start.isAfter(today)) {
+            LocalDate previous = today.minusMonths(1);
+            start = previous.withDayOfMonth(Math.min(resetDay, previous.lengthOfMonth()));
+        }
+        LocalDate next = start.plusMonths(1);
+        ZonedDateTime end = next.withDayOfMonth(Math.min(resetDay, next.lengthOfMonth())).atStartOfDay(ZoneOffset.UTC);
+        periodStart = start.atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+        periodEnd = end.toEpochSecond();
+    }
+
+    private static Properties read(Path path) {
+        Properties properties = new Properties();
+        if (!Files.isRegularFile(path)) {
+            return properties;
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        } catch (IOException | IllegalArgumentException ex) {
+            log.warn("Ignoring unreadable upstream quota file {}: {}", path, ex.getMessage());
+            properties.clear();
+        }
+        return properties;
+    }
+
+    /**
+     * Writes the counters to a file, replacing it atomically and durably.
+     */
+    private static void write(Path path, Properties properties) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = parent.resolve(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            properties.store(Channels.newOutputStream(channel), "Upstream ExchangeRate API quota");
+            channel.force(true);
+        }
+        DurableFiles.replace(temporary, path);
+    }
+}
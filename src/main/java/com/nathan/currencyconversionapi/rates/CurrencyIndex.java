@@ -0,0 +1,223 @@
+package com.nathan.currencyconversionapi.rates;
+
+import java.util.Currency;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Interns 3-letter ISO 4217 currency codes to small, dense int ids.
+ * A code is first packed from its letters into a number below 26^3, which is then mapped to an id,
+ * so resolving a code never hashes or allocates a String and lookups are case-insensitive.
+ * Ids are stable for the lifetime of the process; every code known to the JDK is interned at startup
+ * and codes first seen in a provider snapshot are appended. Each id also carries the currency's
+ * ISO 4217 minor units, so amounts can be held as whole numbers of the smallest unit.
+ */
+public final class CurrencyIndex {
+
+    /**
+     * Id returned for codes that are malformed or have never been interned
+     */
+    public static final int UNKNOWN = -1;
+
+    /**
+     * Maximum number of distinct currency codes
+     */
+    public static final int CAPACITY = 1024;
+
+    /**
+     * Number of distinct packed values of a 3-letter code
+     */
+    private static final int PACKED_CODES = 26 * 26 * 26;
+
+    /**
+     * Minor units used for codes the JDK does not know, or that have none such as gold (XAU)
+     */
+    private static final int DEFAULT_MINOR_UNITS = 2;
+
+    /**
+     * Id plus one by packed code, zero when the code has not been interned
+     */
+    private static final AtomicIntegerArray ID_BY_PACKED_CODE = new AtomicIntegerArray(PACKED_CODES);
+
+    /**
+     * Currency code by id
+     */
+    private static final AtomicReferenceArray<String> CODE_BY_ID = new AtomicReferenceArray<>(CAPACITY);
+
+    /**
+     * Minor units by id, written before the id is published
+     */
+    private static final byte[] MINOR_UNITS_BY_ID = new byte[CAPACITY];
+
+    private static volatile int size;
+
+    static {
+        Currency.getAvailableCurrencies().stream()
+                .map(Currency::getCurrencyCode)
+                .sorted()
+                .forEach(CurrencyIndex::intern);
+    }
+
+    private CurrencyIndex() {
+    }
+
+    /**
+     * Returns the id of a currency code without interning it.
+     *
+     * @param code The currency code, in any case
+     * @return The id, or {@link #UNKNOWN} if the code is malformed or unknown
+     */
+    public static int idOf(CharSequence code) {
+        int packed = pack(code);
+        return packed < 0 ? UNKNOWN : idOfPacked(packed);
+    }
+
+    /**
+     * Returns the id of a packed currency code without interning it.
+     *
+     * @param packedCode A value returned by {@link #pack(CharSequence)}
+     * @return The id, or {@link #UNKNOWN} if the code is unknown
+     */
+    public static int idOfPacked(int packedCode) {
+        return ID_BY_PACKED_CODE.get(packedCode) - 1;
+    }
+
+    /**
+     * Returns the id of a currency code, assigning a new one if the code has not been seen before.
+     *
+     * @param code The currency code, in any case
+     * @return The id of the code
+     * @throws IllegalArgumentException if the code is not made of 3 letters
+     * @throws IllegalStateException if the index is full
+     */
+    public static int intern(CharSequence code) {
+        int packed = pack(code);
+        if (packed < 0) {
+            throw new IllegalArgumentException("Invalid currency code: " + code);
+        }
+        return internPacked(packed);
+    }
+
+    /**
+     * Returns the id of a packed currency code, assigning a new one if the code has not been seen before.
+     *
+     * @param packedCode A value returned by {@link #pack(CharSequence)}
+     * @return The id of the code
+     * @throws IllegalStateException if the index is full
+     */
+    public static int internPacked(int packedCode) {
+        int id = idOfPacked(packedCode);
+        if (id != UNKNOWN) {
+            return id;
+        }
+
+        synchronized (CurrencyIndex.class) {
+            id = idOfPacked(packedCode);
+            if (id != UNKNOWN) {
+                return id;
+            }
+            if (size == CAPACITY) {
+                throw new IllegalStateException("Currency index is full");
+            }
+            id = size;
+            String code = unpack(packedCode);
+            MINOR_UNITS_BY_ID[id] = (byte) defaultMinorUnits(code);
+            CODE_BY_ID.set(id, code);
+            ID_BY_PACKED_CODE.set(packedCode, id + 1);
+            size = id + 1;
+            return id;
+        }
+    }
+
+    /**
+     * @param id A currency id
+     * @return The upper-case currency code for the id, or null if the id is not assigned
+     */
+    public static String code(int id) {
+        return id >= 0 && id < CAPACITY ? CODE_BY_ID.get(id) : null;
+    }
+
+    /**
+     * @param id A currency id
+     * @return The number of digits after the decimal point in amounts of the currency, per ISO 4217
+     */
+    public static int minorUnits(int id) {
+        return id >= 0 && id < CAPACITY ? MINOR_UNITS_BY_ID[id] : DEFAULT_MINOR_UNITS;
+    }
+
+    /**
+     * @return The number of ids assigned so far; every id is below this value
+     */
+    public static int size() {
+        return size;
+    }
+
+    /**
+     * Packs a 3-letter currency code into a number below 26^3, ignoring case.
+     *
+     * @param code The currency code
+     * @return The packed code, or -1 if the code is not made of exactly 3 ASCII letters
+     */
+    public static int pack(CharSequence code) {
+        if (code == null || code.length() != 3) {
+            return -1;
+        }
+        return pack(code.charAt(0), code.charAt(1), code.charAt(2));
+    }
+
+    /**
+     * Packs a currency code held in a character buffer, ignoring case.
+     *
+     * @param buffer The buffer holding the code
+     * @param offset Offset of the first character
+     * @param length Number of characters
+     * @return The packed code, or -1 if the characters are not exactly 3 ASCII letters
+     */
+    public static int pack(char[] buffer, int offset, int length) {
+        if (length != 3) {
+            return -1;
+        }
+        return pack(buffer[offset], buffer[offset + 1], buffer[offset + 2]);
+    }
+
+    /**
+     * @param packedCode A value returned by {@link #pack(CharSequence)}
+     * @return The upper-case currency code
+     */
+    public static String unpack(int packedCode) {
+        return new String(new char[]{
+                (char) ('A' + packedCode / (26 * 26)),
+                (char) ('A' + packedCode / 26 % 26),
+                (char) ('A' + packedCode % 26)
+        });
+    }
+
+    private static int defaultMinorUnits(String code) {
+        try {
+            int digits = Currency.getInstance(code).getDefaultFractionDigits();
+            return digits < 0 ? DEFAULT_MINOR_UNITS : digits;
+        } catch (IllegalArgumentException ex) {
+            return DEFAULT_MINOR_UNITS;
+        }
+    }
+
+    private static int pack(char c0, char c1, char c2) {
+        int l0 = letter(c0);
+        int l1 = letter(c1);
+        int l2 = letter(c2);
+        if ((l0 | l1 | l2) < 0) {
+            return -1;
+        }
+        return (l0 * 26 + l1) * 26 + l2;
+    }
+
+    private static int letter(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,278 @@
+package com.nathan.currencyconversionapi.rates;
+
+import com.nathan.currencyconversionapi.model.ExchangeRateApiResponse;
+import com.nathan.currencyconversionapi.money.FixedPointMoney;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of exchange rates quoted against one base currency.
+ * Rates are held in a primitive array indexed by {@link CurrencyIndex} id, so looking up a rate
+ * neither hashes a String nor unboxes a Double. Each rate is also kept scaled for {@link FixedPointMoney},
+ * computed once when the snapshot is built. Instances are safe to share between threads once built.
+ */
+public final class RateTable {
+
+    private final int baseId;
+    private final long lastUpdateEpochSecond;
+    private final long nextUpdateEpochSecond;
+
+    /**
+     * Rates by currency id, NaN for currencies missing from the snapshot
+     */
+    private final double[] rates;
+
+    /**
+     * Rates by currency id scaled for {@link FixedPointMoney}, 0 for missing currencies and rates out of range
+     */
+    private final long[] scaledRates;
+
+    /**
+     * Ids of the currencies present in the snapshot, in ascending order
+     */
+    private final int[] currencyIds;
+
+    private RateTable(int baseId, long lastUpdateEpochSecond, long nextUpdateEpochSecond,
+                      double[] rates, long[] scaledRates, int[] currencyIds) {
+        this.baseId = baseId;
+        this.lastUpdateEpochSecond = lastUpdateEpochSecond;
+        this.nextUpdateEpochSecond = nextUpdateEpochSecond;
+        this.rates = rates;
+        this.scaledRates = scaledRates;
+        this.currencyIds = currencyIds;
+    }
+
+    /**
+     * Builds a rate table from a successful ExchangeRate API response.
+     *
+     * @param response The API response
+     * @return The rate table holding the response's rates
+     */
+    public static RateTable from(ExchangeRateApiResponse response) {
+        Builder builder = builder()
+                .baseCurrency(response.getBase_code())
+                .lastUpdateEpochSecond(response.getTime_last_update_unix())
+                .nextUpdateEpochSecond(response.getTime_next_update_unix());
+        for (Map.Entry<String, Double> entry : response.getRates().entrySet()) {
+            if (entry.getValue() != null && CurrencyIndex.pack(entry.getKey()) >= 0) {
+                builder.rate(CurrencyIndex.intern(entry.getKey()), entry.getValue());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return A builder for a new rate table
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return The id of the base currency
+     */
+    public int getBaseId() {
+        return baseId;
+    }
+
+    /**
+     * @return The base currency code
+     */
+    public String getBaseCurrency() {
+        return CurrencyIndex.code(baseId);
+    }
+
+    /**
+     * @return Timestamp of when the rates were last updated (Unix format)
+     */
+    public long getLastUpdateEpochSecond() {
+        return lastUpdateEpochSecond;
+    }
+
+    /**
+     * @return Timestamp of when the rates will next update (Unix format)
+     */
+    public long getNextUpdateEpochSecond() {
+        return nextUpdateEpochSecond;
+    }
+
+    /**
+     * @return The snapshot version, which increases with every new publication of the rates
+     */
+    public long getVersion() {
+        return lastUpdateEpochSecond;
+    }
+
+    /**
+     * @param epochSecond A point in time (Unix format)
+     * @return Whether the provider announced newer rates before that time
+     */
+    public boolean isStaleAt(long epochSecond) {
+        return nextUpdateEpochSecond > 0 && epochSecond >= nextUpdateEpochSecond;
+    }
+
+    /**
+     * @param currencyId A currency id
+     * @return Whether the snapshot holds a rate for the currency
+     */
+    public boolean contains(int currencyId) {
+        return !Double.isNaN(rate(currencyId));
+    }
+
+    /**
+     * @param currencyId A currency id
+     * @return The rate from the base currency to the currency, or NaN if it is missing
+     */
+    public double rate(int currencyId) {
+        if (currencyId == baseId) {
+            return 1.0;
+        }
+        return currencyId >= 0 && currencyId < rates.length ? rates[currencyId] : Double.NaN;
+    }
+
+    /**
+     * @param currencyId A currency id
+     * @return The rate from the base currency to the currency scaled by 10^{@value FixedPointMoney#RATE_SCALE},
+     *         or 0 if it is missing or out of the range of scaled rates
+     */
+    public long scaledRate(int currencyId) {
+        if (currencyId == baseId) {
+            return FixedPointMoney.ONE;
+        }
+        return currencyId >= 0 && currencyId < scaledRates.length ? scaledRates[currencyId] : 0;
+    }
+
+    /**
+     * Returns the rate from source to target, derived as rate(base to target) / rate(base to source)
+     * when the source is not the base currency.
+     *
+     * @param sourceId The source currency id
+     * @param targetId The target currency id
+     * @return The exchange rate, or NaN if either currency is missing
+     */
+    public double crossRate(int sourceId, int targetId) {
+        double baseToTarget = rate(targetId);
+        if (sourceId == baseId) {
+            return baseToTarget;
+        }
+        double baseToSource = rate(sourceId);
+        return baseToSource == 0.0 ? Double.NaN : baseToTarget / baseToSource;
+    }
+
+    /**
+     * @return The number of currencies in the snapshot
+     */
+    public int size() {
+        return currencyIds.length;
+    }
+
+    /**
+     * @param index A position between zero and {@link #size()}
+     * @return The id of the currency at the position, in ascending id order
+     */
+    public int currencyIdAt(int index) {
+        return currencyIds[index];
+    }
+
+    /**
+     * Copies the rates into a map keyed by currency code. Intended for diagnostics, not the conversion path.
+     *
+     * @return The rates by currency code
+     */
+    public Map<String, Double> toMap() {
+        Map<String, Double> map = new LinkedHashMap<>(currencyIds.length * 2);
+        for (int id : currencyIds) {
+            map.put(CurrencyIndex.code(id), rate(id));
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "RateTable(base=" + getBaseCurrency()
+                + ", lastUpdate=" + lastUpdateEpochSecond
+                + ", nextUpdate=" + nextUpdateEpochSecond
+                + ", currencies=" + currencyIds.length + ")";
+    }
+
+    /**
+     * Collects rates by currency id and builds an immutable {@link RateTable}.
+     */
+    public static final class Builder {
+
+        private int baseId = CurrencyIndex.UNKNOWN;
+        private long lastUpdateEpochSecond;
+        private long nextUpdateEpochSecond;
+        private int[] ids = new int[256];
+        private double[] values = new double[256];
+        private int count;
+
+        private Builder() {
+        }
+
+        public Builder baseCurrency(String code) {
+            return baseId(CurrencyIndex.intern(code));
+        }
+
+        public Builder baseId(int baseId) {
+            this.baseId = baseId;
+            return this;
+        }
+
+        public Builder lastUpdateEpochSecond(long lastUpdateEpochSecond) {
+            this.lastUpdateEpochSecond = lastUpdateEpochSecond;
+            return this;
+        }
+
+        public Builder nextUpdateEpochSecond(long nextUpdateEpochSecond) {
+            this.nextUpdateEpochSecond = nextUpdateEpochSecond;
+            return this;
+        }
+
+        public Builder rate(int currencyId, double rate) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                values = Arrays.copyOf(values, count * 2);
+            }
+            ids[count] = currencyId;
+            values[count] = rate;
+            count++;
+            return this;
+        }
+
+        public RateTable build() {
+            if (baseId == CurrencyIndex.UNKNOWN) {
+                throw new IllegalStateException("Base currency is required");
+            }
+
+            int maxId = baseId;
+            for (int i = 0; i < count; i++) {
+                maxId = Math.max(maxId, ids[i]);
+            }
+            double[] rates = new double[maxId + 1];
+            Arrays.fill(rates, Double.NaN);
+            for (int i = 0; i < count; i++) {
+                rates[ids[i]] = values[i];
+            }
+            rates[baseId] = 1.0;
+
+            int present = 0;
+            for (double rate : rates) {
+                if (!Double.isNaN(rate)) {
+                    present++;
+                }
+            }
+            int[] currencyIds = new int[present];
+            long[] scaledRates = new long[rates.length];
+            for (int id = 0, i = 0; id < rates.length; id++) {
+                if (!Double.isNaN(rates[id])) {
+                    currencyIds[i++] = id;
+                    scaledRates[id] = FixedPointMoney.scaleRate(rates[id]);
+                }
+            }
+            return new RateTable(baseId, lastUpdateEpochSecond, nextUpdateEpochSecond, rates, scaledRates, currencyIds);
+        }
+    }
+}
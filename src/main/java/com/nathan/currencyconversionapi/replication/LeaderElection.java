@@ -0,0 +1,249 @@
+package com.nathan.currencyconversionapi.replication;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Elects the one instance, among a fixed list of peers, that polls the ExchangeRate API while the others replicate
+ * its snapshots.
+ *
+ * <p>Every instance asks each peer for its {@link com.nathan.currencyconversionapi.model.ReplicationStatus} once per
+ * heartbeat interval. A peer is live while it answered within the failover timeout, and this instance always counts
+ * itself as live. Leadership is sticky: a live peer claiming to lead keeps leading, the first one in the configured
+ * order if several do, as after a network split heals. Only when no live peer leads is the first live peer in the
+ * configured order elected, so a restarted instance rejoins as a follower instead of taking leadership back.
+ * Instances that see different peers may briefly elect different leaders; the cost is extra upstream calls,
+ * never inconsistent snapshots, since a replicated snapshot only ever replaces an older one.
+ *
+ * <p>When replication is disabled every instance leads itself and polls the ExchangeRate API on its own.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LeaderElection {
+
+    /**
+     * Whether instances replicate the snapshots of an elected leader
+     */
+    @Value("${exchangerate.replication.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * URL this instance is reached at by its peers, as it appears in the peer list
+     */
+    @Value("${exchangerate.replication.self-url:}")
+    private String selfUrl;
+
+    /**
+     * URLs of every instance, this one included, in order of preference for leadership
+     */
+    @Value("${exchangerate.replication.peers:}")
+    private List<String> peers;
+
+    /**
+     * How long a peer stays live without answering, after which another leader is elected in its place
+     */
+    @Value("${exchangerate.replication.failover-timeout:PT5S}")
+    private Duration failoverTimeout;
+
+    /**
+     * Token instances present to each other on the replication endpoints
+     */
+    @Value("${exchangerate.replication.token:}")
+    private String token;
+
+    /**
+     * Client for the status endpoint of the peers
+     */
+    private final ReplicationClient replicationClient;
+
+    /**
+     * Last answer of each peer
+     */
+    private final Map<String, Peer> seen = new ConcurrentHashMap<>();
+
+    /**
+     * Whether a heartbeat is still running
+     */
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * URL of the elected leader, null while none is elected
+     */
+    private volatile String leader;
+
+    /**
+     * Checks the peer list and elects a first leader from the peers answering at startup.
+     *
+     * @throws IllegalStateException if no replication token is configured or this instance is not in the peer list
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        // Without a token anyone reaching an instance could spend its upstream quota through the replication endpoints
+        if (token.isBlank()) {
+            throw new IllegalStateException("exchangerate.replication.token must be set when replication is enabled");
+        }
+        selfUrl = normalize(selfUrl);
+        peers = peers.stream()
+                .map(LeaderElection::normalize)
+                .filter(peer -> !peer.isEmpty())
+                .distinct()
+                .toList();
+        if (!peers.contains(selfUrl)) {
+            throw new IllegalStateException("exchangerate.replication.self-url " + selfUrl
+                    + " must be one of exchangerate.replication.peers " + peers);
+        }
+
+        probePeers().timeout(failoverTimeout, Mono.empty()).block();
+        elect();
+    }
+
+    /**
+     * Asks every peer for its status and elects the leader again. Skipped while the previous heartbeat is still running.
+     */
+    @Scheduled(fixedDelayString = "${exchangerate.replication.heartbeat-interval:PT1S}")
+    public void heartbeat() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        probePeers()
+                .doFinally(signal -> {
+                    elect();
+                    running.set(false);
+                })
+                .subscribe();
+    }
+
+    /**
+     * @return Whether instances replicate the snapshots of an elected leader
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The URL this instance is reached at by its peers
+     */
+    public String getSelfUrl() {
+        return selfUrl;
+    }
+
+    /**
+     * @return The URL of the elected leader, or null if replication is disabled or no leader is elected yet
+     */
+    public String getLeader() {
+        return leader;
+    }
+
+    /**
+     * @return Whether this instance polls the ExchangeRate API itself: it leads, or replication is disabled
+     */
+    public boolean isLeader() {
+        return !enabled || selfUrl.equals(leader);
+    }
+
+    /**
+     * @return The URL of the live leader this instance replicates, or null if it polls the ExchangeRate API itself
+     */
+    public String followedLeader() {
+        String current = leader;
+        return enabled && current != null && !current.equals(selfUrl) ? current : null;
+    }
+
+    /**
+     * @return The number of live instances, this one included
+     */
+    public int livePeerCount() {
+        return liveClaims().size();
+    }
+
+    /**
+     * Elects the leader among live instances: the first one claiming to lead, otherwise the first one.
+     *
+     * @param peers Every instance, in order of preference
+     * @param liveClaims The leader claimed by each live instance, null if it has none
+     * @return The elected leader, or null if no instance is live
+     */
+    static String elect(List<String> peers, Map<String, String> liveClaims) {
+        for (String peer : peers) {
+            if (liveClaims.containsKey(peer) && peer.equals(liveClaims.get(peer))) {
+                return peer;
+            }
+        }
+        for (String peer : peers) {
+            if (liveClaims.containsKey(peer)) {
+                return peer;
+            }
+        }
+        return null;
+    }
+
+    private void elect() {
+        String elected = elect(peers, liveClaims());
+        if (elected != null && !elected.equals(leader)) {
+            if (elected.equals(selfUrl)) {
+                log.info("Instance {} now leads replication and polls the rate providers", selfUrl);
+            } else {
+                log.info("Instance {} now replicates rate snapshots from leader {}", selfUrl, elected);
+            }
+            leader = elected;
+        }
+    }
+
+    /**
+     * @return The leader claimed by each live instance, this one included
+     */
+    private Map<String, String> liveClaims() {
+        long liveSince = System.nanoTime() - failoverTimeout.toNanos();
+        Map<String, String> claims = new HashMap<>();
+        claims.put(selfUrl, leader);
+        seen.forEach((peer, answer) -> {
+            if (answer.seenAtNanos() - liveSince >= 0) {
+                claims.put(peer, answer.leader());
+            }
+        });
+        return claims;
+    }
+
+    private Mono<Void> probePeers() {
+        return Flux.fromIterable(peers)
+                .filter(peer -> !peer.equals(selfUrl))
+                .flatMap(peer -> replicationClient.status(peer)
+                        .doOnNext(status -> seen.put(peer, new Peer(System.nanoTime(), normalize(status.getLeader()))))
+                        .onErrorResume(error -> {
+                            log.debug("Replication peer {} did not answer: {}", peer, error.getMessage());
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    private static String normalize(String url) {
+        if (url == null) {
+            return null;
+        }
+        String trimmed = url.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+
+    /**
+     * The last answer of a peer: when it was received and the leader the peer claimed.
+     */
+    private record Peer(long seenAtNanos, String leader) {
+    }
+}
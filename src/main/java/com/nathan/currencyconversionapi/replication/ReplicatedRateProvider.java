@@ -0,0 +1,72 @@
+package com.nathan.currencyconversionapi.replication;
+
+import com.nathan.currencyconversionapi.provider.RateProvider;
+import com.nathan.currencyconversionapi.provider.RateProviderSelector;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Rate provider the snapshot cache fetches from. While this instance follows a live leader, snapshots are fetched
+ * from the leader, which serves them from its own cache and is the only instance calling the rate providers.
+ * Otherwise they are fetched through the {@link RateProviderSelector}.
+ *
+ * <p>A follower never falls back to the rate providers on its own: if the leader fails to answer, the error is
+ * returned and the cache serves its last snapshot, until the election replaces a leader that stopped answering.
+ */
+@Component
+@Primary
+@RequiredArgsConstructor
+@Slf4j
+public class ReplicatedRateProvider implements RateProvider {
+
+    /**
+     * Name of the provider in logs
+     */
+    public static final String NAME = "replicated";
+
+    /**
+     * Selector of the rate providers, looked up on first use since it receives every provider but this one
+     */
+    private final ObjectProvider<RateProviderSelector> rateProviderSelector;
+
+    /**
+     * Election telling which leader, if any, this instance follows
+     */
+    private final LeaderElection leaderElection;
+
+    /**
+     * Client for the snapshot endpoint of the leader
+     */
+    private final ReplicationClient replicationClient;
+
+    /**
+     * @return The name of the provider
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Fetches the latest rates from the leader if this instance follows one, otherwise from the rate providers.
+     *
+     * @param baseCurrency The upper-case base currency code
+     * @return A Mono containing the latest rates
+     */
+    @Override
+    public Mono<RateTable> getLatestRates(String baseCurrency) {
+        return Mono.defer(() -> {
+            String leader = leaderElection.followedLeader();
+            if (leader == null) {
+                return rateProviderSelector.getObject().getLatestRates(baseCurrency);
+            }
+            log.debug("Fetching rate snapshot for {} from leader {}", baseCurrency, leader);
+            return replicationClient.snapshot(leader, baseCurrency);
+        });
+    }
+}
@@ -0,0 +1,156 @@
+package com.nathan.currencyconversionapi.replication;
+
+import com.nathan.currencyconversionapi.cache.SnapshotFileStore;
+import com.nathan.currencyconversionapi.exception.CurrencyConversionException;
+import com.nathan.currencyconversionapi.exception.ExchangeRateServiceUnavailableException;
+import com.nathan.currencyconversionapi.model.ErrorResponse;
+import com.nathan.currencyconversionapi.model.ReplicationStatus;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Client for the internal replication endpoints of the other instances.
+ * Snapshots travel in the binary layout of the snapshot file (see {@link SnapshotFileStore}), checksummed per record.
+ * Failures of the called instance surface as {@link ExchangeRateServiceUnavailableException}, except an unsupported
+ * currency, reported as {@link CurrencyConversionException} as if this instance had called the provider itself.
+ */
+@Component
+public class ReplicationClient {
+
+    /**
+     * Path of the endpoint reporting an instance's replication state
+     */
+    public static final String STATUS_PATH = "/internal/replication/status";
+
+    /**
+     * Path of the endpoint serving the snapshots changed since a follower's last pull
+     */
+    public static final String SNAPSHOTS_PATH = "/internal/replication/snapshots";
+
+    /**
+     * Header carrying the shared replication token
+     */
+    public static final String TOKEN_HEADER = "X-Replication-Token";
+
+    /**
+     * Header carrying the epoch of a snapshot delta
+     */
+    public static final String EPOCH_HEADER = "X-Replication-Epoch";
+
+    /**
+     * Header carrying the sequence number of a snapshot delta
+     */
+    public static final String SEQUENCE_HEADER = "X-Replication-Sequence";
+
+    /**
+     * Maximum duration of a call to another instance
+     */
+    @Value("${exchangerate.replication.call-timeout:PT1S}")
+    private Duration callTimeout;
+
+    /**
+     * WebClient for calls to the other instances, carrying the replication token if one is configured
+     */
+    private final WebClient webClient;
+
+    /**
+     * Constructor that initializes the WebClient
+     *
+     * @param webClientBuilder The shared WebClient builder
+     * @param token The token instances present to each other, empty for none
+     */
+    public ReplicationClient(WebClient.Builder webClientBuilder,
+                             @Value("${exchangerate.replication.token:}") String token) {
+        WebClient.Builder builder = webClientBuilder.clone();
+        if (!token.isEmpty()) {
+            builder.defaultHeader(TOKEN_HEADER, token);
+        }
+        this.webClient = builder.build();
+    }
+
+    /**
+     * Fetches the replication state of an instance.
+     *
+     * @param instance The base URL of the instance
+     * @return A Mono containing the state reported by the instance
+     */
+    public Mono<ReplicationStatus> status(String instance) {
+        return webClient.get()
+                .uri(instance + STATUS_PATH)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(ReplicationStatus.class)
+                .timeout(callTimeout)
+                .onErrorMap(error -> unavailable(instance, error));
+    }
+
+    /**
+     * Pulls the snapshots changed on the leader since the last pull.
+     *
+     * @param leader The base URL of the leader
+     * @param epoch The epoch of the last pull, 0 if none
+     * @param since The sequence number of the last pull
+     * @return A Mono containing the changed snapshots
+     */
+    public Mono<SnapshotDelta> pull(String leader, long epoch, long since) {
+        return webClient.get()
+                .uri(leader + SNAPSHOTS_PATH + "?epoch={epoch}&since={since}", epoch, since)
+                .accept(MediaType.APPLICATION_OCTET_STREAM)
+                .retrieve()
+                .toEntity(byte[].class)
+                .timeout(callTimeout)
+                .map(response -> new SnapshotDelta(
+                        Long.parseLong(response.getHeaders().getFirst(EPOCH_HEADER)),
+                        Long.parseLong(response.getHeaders().getFirst(SEQUENCE_HEADER)),
+                        SnapshotFileStore.decode(ByteBuffer.wrap(response.getBody()))))
+                .onErrorMap(error -> unavailable(leader, error));
+    }
+
+    /**
+     * Fetches the leader's snapshot for a base currency, which the leader fetches from the provider if needed.
+     *
+     * @param leader The base URL of the leader
+     * @param baseCurrency The upper-case base currency code
+     * @return A Mono containing the leader's snapshot
+     */
+    public Mono<RateTable> snapshot(String leader, String baseCurrency) {
+        return webClient.get()
+                .uri(leader + SNAPSHOTS_PATH + "/{base}", baseCurrency)
+                .accept(MediaType.APPLICATION_OCTET_STREAM, MediaType.APPLICATION_JSON)
+                .retrieve()
+                .onStatus(status -> status.value() == HttpStatus.BAD_REQUEST.value(),
+                        response -> response.bodyToMono(ErrorResponse.class)
+                                .map(error -> new CurrencyConversionException(error.getMessage())))
+                .bodyToMono(byte[].class)
+                .timeout(callTimeout)
+                .map(body -> {
+                    List<RateTable> snapshots = SnapshotFileStore.decode(ByteBuffer.wrap(body));
+                    if (snapshots.size() != 1) {
+                        throw new IllegalArgumentException("Expected one rate snapshot, got " + snapshots.size());
+                    }
+                    return snapshots.get(0);
+                })
+                .onErrorMap(error -> unavailable(leader, error));
+    }
+
+    /**
+     * Wraps a failure of the called instance, keeping unsupported currencies as they are.
+     */
+    private static Throwable unavailable(String instance, Throwable error) {
+        if (error instanceof CurrencyConversionException) {
+            return error;
+        }
+        return new ExchangeRateServiceUnavailableException("Instance " + instance + " is unavailable: "
+                + (error instanceof TimeoutException ? "no response in time" : error.getMessage()), error);
+    }
+}
@@ -0,0 +1,104 @@
+package com.nathan.currencyconversionapi.replication;
+
+import com.nathan.currencyconversionapi.cache.RateSnapshotCache;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Numbers the snapshot versions held by this instance's cache, so followers pull only what changed since their
+ * last pull.
+ *
+ * <p>Each new version of a base currency's snapshot takes the next sequence number. A follower sends the epoch and
+ * sequence of its last pull and receives the snapshots numbered after it. Sequence numbers only hold for one run
+ * of the instance: a follower presenting another epoch, such as one from before a restart or from a previous
+ * leader, receives every snapshot.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReplicationLog {
+
+    /**
+     * Cache whose snapshots are replicated
+     */
+    private final RateSnapshotCache rateSnapshotCache;
+
+    /**
+     * Identifier of this run of the instance, never 0 so a follower that never pulled gets a full copy
+     */
+    private final long epoch = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+
+    /**
+     * Latest numbered version of each cached base currency
+     */
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Sequence number of the latest change
+     */
+    private long sequence;
+
+    /**
+     * Returns the snapshots that changed after a follower's last pull.
+     *
+     * @param followerEpoch The epoch of the follower's last pull, 0 if none
+     * @param since The sequence number of the follower's last pull
+     * @return The changed snapshots, every cached one if the epoch is not this run's
+     */
+    public synchronized SnapshotDelta since(long followerEpoch, long since) {
+        sync();
+        long after = followerEpoch == epoch && since <= sequence ? since : 0;
+        List<RateTable> changed = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.sequence > after) {
+                changed.add(entry.snapshot);
+            }
+        }
+        return new SnapshotDelta(epoch, sequence, changed);
+    }
+
+    /**
+     * @return The identifier of this run of the instance
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * @return The sequence number of the latest snapshot change
+     */
+    public synchronized long getSequence() {
+        sync();
+        return sequence;
+    }
+
+    /**
+     * Numbers the snapshot versions cached since the last call and forgets the evicted base currencies.
+     */
+    private void sync() {
+        Set<String> cached = new HashSet<>();
+        for (RateTable snapshot : rateSnapshotCache.snapshots()) {
+            String baseCurrency = snapshot.getBaseCurrency();
+            cached.add(baseCurrency);
+            Entry entry = entries.get(baseCurrency);
+            if (entry == null || entry.snapshot.getVersion() != snapshot.getVersion()) {
+                entries.put(baseCurrency, new Entry(++sequence, snapshot));
+            }
+        }
+        entries.keySet().retainAll(cached);
+    }
+
+    /**
+     * A snapshot version and the sequence number it was given.
+     */
+    private record Entry(long sequence, RateTable snapshot) {
+    }
+}
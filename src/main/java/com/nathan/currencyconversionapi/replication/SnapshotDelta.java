@@ -0,0 +1,15 @@
+package com.nathan.currencyconversionapi.replication;
+
+import com.nathan.currencyconversionapi.rates.RateTable;
+
+import java.util.List;
+
+/**
+ * Snapshots that changed on an instance since a follower's last pull.
+ *
+ * @param epoch Identifier of the serving instance's run; sequences of different runs are unrelated
+ * @param sequence Sequence number of the latest change included, to pull from next time
+ * @param snapshots The changed snapshots, one per base currency
+ */
+public record SnapshotDelta(long epoch, long sequence, List<RateTable> snapshots) {
+}
@@ -0,0 +1,102 @@
+package com.nathan.currencyconversionapi.replication;
+
+import com.nathan.currencyconversionapi.cache.RateSnapshotCache;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background task pulling, while this instance follows a leader, the snapshots that changed on the leader since
+ * the last pull, and adding them to the cache.
+ * The first pull from a leader, and the first one after the leader restarted, copies every snapshot it holds.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SnapshotReplicator {
+
+    /**
+     * Cache the replicated snapshots are added to
+     */
+    private final RateSnapshotCache rateSnapshotCache;
+
+    /**
+     * Election telling which leader, if any, this instance follows
+     */
+    private final LeaderElection leaderElection;
+
+    /**
+     * Client for the snapshot endpoint of the leader
+     */
+    private final ReplicationClient replicationClient;
+
+    /**
+     * Whether a pull is still running
+     */
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Leader of the last pull
+     */
+    private String pulledFrom;
+
+    /**
+     * Epoch and sequence number of the last pull from that leader, 0 if none
+     */
+    private long epoch;
+    private long sequence;
+
+    /**
+     * Time of the last successful pull (Unix format), 0 if none
+     */
+    private volatile long lastPullEpochSecond;
+
+    /**
+     * Pulls the snapshots changed on the leader, if this instance follows one.
+     * A pull is skipped while the previous one is still running.
+     */
+    @Scheduled(fixedDelayString = "${exchangerate.replication.pull-interval:PT2S}")
+    public void pull() {
+        String leader = leaderElection.followedLeader();
+        if (leader == null || !running.compareAndSet(false, true)) {
+            return;
+        }
+        if (!leader.equals(pulledFrom)) {
+            pulledFrom = leader;
+            epoch = 0;
+            sequence = 0;
+        }
+
+        replicationClient.pull(leader, epoch, sequence)
+                .doFinally(signal -> running.set(false))
+                .subscribe(delta -> apply(leader, delta),
+                        error -> log.warn("Could not pull rate snapshots from leader {}: {}", leader, error.getMessage()));
+    }
+
+    /**
+     * @return The time of the last successful pull (Unix format), 0 if none
+     */
+    public long getLastPullEpochSecond() {
+        return lastPullEpochSecond;
+    }
+
+    private void apply(String leader, SnapshotDelta delta) {
+        int replicated = 0;
+        for (RateTable snapshot : delta.snapshots()) {
+            if (rateSnapshotCache.replicate(snapshot)) {
+                replicated++;
+            }
+        }
+        if (replicated > 0) {
+            log.debug("Replicated {} rate snapshots from leader {} up to sequence {}", replicated, leader,
+                    delta.sequence());
+        }
+        epoch = delta.epoch();
+        sequence = delta.sequence();
+        lastPullEpochSecond = System.currentTimeMillis() / 1000;
+    }
+}
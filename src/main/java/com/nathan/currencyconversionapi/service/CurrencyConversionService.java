@@ -1,10 +1,16 @@
 package com.nathan.currencyconversionapi.service;
 
 
+import com.nathan.currencyconversionapi.model.BatchConversionItem;
 import com.nathan.currencyconversionapi.model.ConversionRequest;
 import com.nathan.currencyconversionapi.model.ConversionResult;
+import com.nathan.currencyconversionapi.model.FanOutConversionResult;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 /**
  * Service interface for currency conversion operations.
  * Defines the contract for implementing currency conversion functionality.
@@ -18,4 +24,32 @@ public interface CurrencyConversionService {
      * @return A Mono containing the conversion result with all conversion details
      */
     Mono<ConversionResult> convertCurrency(ConversionRequest request);
+
+    /**
+     * Converts a stream of requests, emitting one item per request in the same order.
+     * A failed conversion is reported in its item and does not fail the rest of the batch.
+     *
+     * @param requests The conversion requests
+     * @return A Flux of batch items, each holding a conversion result or an error
+     */
+    Flux<BatchConversionItem> convertBatch(Flux<ConversionRequest> requests);
+
+    /**
+     * Converts an amount from one currency to many target currencies, resolving a single rate snapshot.
+     *
+     * @param sourceCurrency The source currency code
+     * @param amount The amount to convert
+     * @param symbols The target currency codes, or an empty list for every other currency of the snapshot
+     * @return A Mono containing the converted amounts by target currency
+     */
+    Mono<FanOutConversionResult> convertToAll(String sourceCurrency, Double amount, List<String> symbols);
+
+    /**
+     * Returns the cached snapshot a conversion would use, without converting or calling the ExchangeRate API.
+     *
+     * @param request The conversion request
+     * @return The snapshot, or null if the request is historical or invalid, no snapshot is cached,
+     *         or the cached snapshot cannot convert the request
+     */
+    RateTable cachedSnapshotFor(ConversionRequest request);
 }
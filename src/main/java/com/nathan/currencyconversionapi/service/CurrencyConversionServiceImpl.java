@@ -1,17 +1,41 @@
 package com.nathan.currencyconversionapi.service;
 
 
-import com.nathan.currencyconversionapi.model.ConversionRequest;
-import com.nathan.currencyconversionapi.client.ExchangeRateApiClient;
+import com.nathan.currencyconversionapi.audit.AuditJournal;
+import com.nathan.currencyconversionapi.audit.AuditMetadata;
+import com.nathan.currencyconversionapi.cache.RateSnapshotCache;
 import com.nathan.currencyconversionapi.exception.CurrencyConversionException;
+import com.nathan.currencyconversionapi.exception.ExchangeRateServiceUnavailableException;
+import com.nathan.currencyconversionapi.history.RateHistoryStore;
+import com.nathan.currencyconversionapi.metrics.ConversionMetrics;
+import com.nathan.currencyconversionapi.model.BatchConversionItem;
 import com.nathan.currencyconversionapi.model.ConversionRequest;
 import com.nathan.currencyconversionapi.model.ConversionResult;
+import com.nathan.currencyconversionapi.model.ErrorResponse;
+import com.nathan.currencyconversionapi.model.FanOutConversionResult;
+import com.nathan.currencyconversionapi.money.FixedPointMoney;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
 
+import java.math.RoundingMode;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Implementation of the CurrencyConversionService interface.
@@ -23,65 +47,417 @@ import java.time.LocalDateTime;
 public class CurrencyConversionServiceImpl implements CurrencyConversionService {
 
     /**
-     * Client for communicating with the ExchangeRate API
+     * Cache of exchange rate snapshots backed by the ExchangeRate API
+     */
+    private final RateSnapshotCache rateSnapshotCache;
+
+    /**
+     * Store of past snapshots used for as-of conversions
      */
-    private final ExchangeRateApiClient exchangeRateApiClient;
+    private final RateHistoryStore rateHistoryStore;
+
+    /**
+     * Metrics recording the latency of each conversion
+     */
+    private final ConversionMetrics conversionMetrics;
+
+    /**
+     * Journal recording every conversion served
+     */
+    private final AuditJournal auditJournal;
+
+    /**
+     * Whether rates are derived from a single pivot snapshot instead of one snapshot per source currency
+     */
+    @Value("${exchangerate.triangulation.enabled:false}")
+    private boolean triangulationEnabled;
+
+    /**
+     * Pivot currency whose snapshot is used to derive cross rates when triangulation is enabled
+     */
+    @Value("${exchangerate.triangulation.pivot:USD}")
+    private String pivotCurrency;
+
+    /**
+     * Number of batch requests converted together; snapshots are resolved once per chunk
+     */
+    @Value("${exchangerate.batch.chunk-size:256}")
+    private int batchChunkSize;
+
+    /**
+     * How amounts are rounded to the minor unit of their currency
+     */
+    @Value("${exchangerate.money.rounding-mode:HALF_EVEN}")
+    private RoundingMode roundingMode;
 
     /**
      * {@inheritDoc}
      */
     @Override
     public Mono<ConversionResult> convertCurrency(ConversionRequest request) {
-        log.info("Converting {} {} to {}", request.getAmount(), request.getSourceCurrency(), request.getTargetCurrency());
+        log.debug("Converting {} {} to {}", request.getAmount(), request.getSourceCurrency(), request.getTargetCurrency());
 
         // Validate input
-        if (request.getAmount() == null || request.getAmount() <= 0) {
+        try {
+            validate(request);
+        } catch (CurrencyConversionException ex) {
+            return Mono.error(ex);
+        }
+
+        String snapshotBase = snapshotBaseFor(request);
+        log.debug("Resolving rate snapshot for base currency: {}", snapshotBase);
+
+        // Use the rates in effect at the requested time, otherwise the latest rates served from cache while fresh.
+        // The history lookup may read its memory-mapped segments from disk, so it is kept off the event loop.
+        Mono<RateTable> snapshotMono = request.getAsOf() != null
+                ? Mono.fromCallable(() -> historicalSnapshot(snapshotBase, request.getAsOf()))
+                        .subscribeOn(Schedulers.boundedElastic())
+                : rateSnapshotCache.getSnapshot(snapshotBase);
+        return snapshotMono
+                .doOnNext(snapshot -> log.debug("Resolved rate snapshot: {}", snapshot))
+                .map(snapshot -> {
+                    ConversionResult result = convert(snapshot, request);
+                    log.debug("Conversion successful. Rate: {}, Converted amount: {}",
+                            result.getExchangeRate(), result.getTargetAmount());
+                    return result;
+                })
+                .doOnError(error -> log.error("Error during currency conversion: {}", error.getMessage()))
+                .transform(conversion -> auditJournal.audit(conversion, request.getAsOf()))
+                .transform(conversionMetrics::timeConversion);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Flux<BatchConversionItem> convertBatch(Flux<ConversionRequest> requests) {
+        return Flux.deferContextual(context -> {
+            AuditMetadata metadata = AuditMetadata.from(context);
+            return requests
+                    .index()
+                    .buffer(batchChunkSize)
+                    .concatMap(chunk -> convertChunk(chunk, metadata));
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<FanOutConversionResult> convertToAll(String sourceCurrency, Double amount, List<String> symbols) {
+        if (amount == null || amount <= 0) {
             return Mono.error(new CurrencyConversionException("Amount must be greater than zero"));
         }
+        int sourceId = CurrencyIndex.idOf(sourceCurrency);
+        if (sourceId == CurrencyIndex.UNKNOWN) {
+            return Mono.error(new CurrencyConversionException("Source currency " + sourceCurrency + " is not supported"));
+        }
+        int[] targetIds = null;
+        if (!symbols.isEmpty()) {
+            targetIds = new int[symbols.size()];
+            for (int i = 0; i < targetIds.length; i++) {
+                targetIds[i] = CurrencyIndex.idOf(symbols.get(i));
+                if (targetIds[i] == CurrencyIndex.UNKNOWN) {
+                    return Mono.error(new CurrencyConversionException("Currency " + symbols.get(i) + " is not supported"));
+                }
+            }
+        }
 
-        if (request.getSourceCurrency() == null || request.getTargetCurrency() == null) {
-            return Mono.error(new CurrencyConversionException("Source and target currencies must be specified"));
+        int[] targets = targetIds;
+        String snapshotBase = triangulationEnabled ? pivotCurrency.toUpperCase() : CurrencyIndex.code(sourceId);
+        return Mono.deferContextual(context -> {
+                    AuditMetadata metadata = auditJournal.isEnabled() ? AuditMetadata.from(context) : null;
+                    return rateSnapshotCache.getSnapshot(snapshotBase)
+                            .map(snapshot -> fanOut(snapshot, sourceId, amount, targets, metadata));
+                })
+                .doOnError(error -> log.error("Error during fan-out currency conversion: {}", error.getMessage()))
+                .transform(conversionMetrics::timeConversion);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RateTable cachedSnapshotFor(ConversionRequest request) {
+        if (request.getAsOf() != null || !isValid(request)) {
+            return null;
+        }
+        RateTable snapshot = rateSnapshotCache.peek(snapshotBaseFor(request));
+        if (snapshot == null) {
+            return null;
+        }
+        int sourceId = CurrencyIndex.idOf(request.getSourceCurrency().toUpperCase());
+        int targetId = CurrencyIndex.idOf(request.getTargetCurrency().toUpperCase());
+        return snapshot.contains(targetId) && !Double.isNaN(snapshot.crossRate(sourceId, targetId)) ? snapshot : null;
+    }
+
+    /**
+     * Converts one chunk of a batch, resolving each distinct snapshot base once
+     * and keeping the results in request order. Successful conversions are journaled with the batch request's metadata.
+     */
+    private Flux<BatchConversionItem> convertChunk(List<Tuple2<Long, ConversionRequest>> chunk, AuditMetadata metadata) {
+        Set<String> snapshotBases = new LinkedHashSet<>();
+        boolean historical = false;
+        for (Tuple2<Long, ConversionRequest> indexed : chunk) {
+            if (indexed.getT2().getAsOf() != null) {
+                historical = true;
+            } else if (isValid(indexed.getT2())) {
+                snapshotBases.add(snapshotBaseFor(indexed.getT2()));
+            }
         }
 
+        Mono<Map<String, ResolvedSnapshot>> resolvedSnapshots = Flux.fromIterable(snapshotBases)
+                .flatMap(base -> rateSnapshotCache.getSnapshot(base)
+                        .map(snapshot -> new ResolvedSnapshot(base, snapshot, null))
+                        .onErrorResume(error -> Mono.just(new ResolvedSnapshot(base, null, error))))
+                .collectMap(ResolvedSnapshot::base);
+        // Chunks with as-of requests read the rate history, which may block on disk
+        return (historical ? resolvedSnapshots.publishOn(Schedulers.boundedElastic()) : resolvedSnapshots)
+                .flatMapIterable(resolved -> {
+                    List<BatchConversionItem> items = new ArrayList<>(chunk.size());
+                    for (Tuple2<Long, ConversionRequest> indexed : chunk) {
+                        BatchConversionItem item = convertItem(indexed.getT1(), indexed.getT2(), resolved);
+                        if (item.getResult() != null) {
+                            auditJournal.record(item.getResult(), indexed.getT2().getAsOf(), item.getIndex(), metadata);
+                        }
+                        items.add(item);
+                    }
+                    return items;
+                });
+    }
+
+    /**
+     * Converts a single batch request, inlining any error instead of failing the batch.
+     */
+    private BatchConversionItem convertItem(long index, ConversionRequest request, Map<String, ResolvedSnapshot> resolved) {
+        try {
+            validate(request);
+            if (request.getAsOf() != null) {
+                return new BatchConversionItem(index,
+                        convert(historicalSnapshot(snapshotBaseFor(request), request.getAsOf()), request), null);
+            }
+            ResolvedSnapshot snapshot = resolved.get(snapshotBaseFor(request));
+            if (snapshot.error() != null) {
+                return new BatchConversionItem(index, null, toErrorResponse(snapshot.error()));
+            }
+            return new BatchConversionItem(index, convert(snapshot.snapshot(), request), null);
+        } catch (RuntimeException ex) {
+            return new BatchConversionItem(index, null, toErrorResponse(ex));
+        }
+    }
+
+    /**
+     * Converts a validated request using a resolved snapshot. Amounts are converted in fixed point:
+     * the source amount keeps every digit it was given, even below its currency's minor unit,
+     * and only the result is rounded, to the target's minor unit.
+     *
+     * @throws CurrencyConversionException if either currency is missing from the snapshot,
+     *                                     or the amount cannot be expressed in minor units
+     */
+    private ConversionResult convert(RateTable snapshot, ConversionRequest request) {
         String sourceCurrency = request.getSourceCurrency().toUpperCase();
         String targetCurrency = request.getTargetCurrency().toUpperCase();
+        int sourceId = CurrencyIndex.idOf(sourceCurrency);
+        int targetId = CurrencyIndex.idOf(targetCurrency);
 
-        log.debug("Calling ExchangeRate API for base currency: {}", sourceCurrency);
+        // Check if the target currency exists in the rates
+        if (!snapshot.contains(targetId)) {
+            throw new CurrencyConversionException(
+                    "Target currency " + targetCurrency + " not found in available rates");
+        }
 
-        // Fetch latest exchange rates for the source currency
-        return exchangeRateApiClient.getLatestRates(sourceCurrency)
-                .doOnNext(response -> log.debug("Received API response: {}", response))
-                .flatMap(response -> {
-                    // Check if the API request was successful
-                    if (!response.isSuccess()) {
-                        log.error("API request failed. Response: {}", response);
-                        return Mono.error(new CurrencyConversionException("Failed to retrieve exchange rates"));
-                    }
+        // Get the exchange rate, deriving it from the pivot snapshot when triangulating
+        double exchangeRate = snapshot.crossRate(sourceId, targetId);
+        if (Double.isNaN(exchangeRate)) {
+            throw new CurrencyConversionException(
+                    "Source currency " + sourceCurrency + " not found in available rates");
+        }
+        long sourceRate = snapshot.scaledRate(sourceId);
+        long targetRate = snapshot.scaledRate(targetId);
+        if (sourceRate == 0 || targetRate == 0) {
+            throw new CurrencyConversionException(
+                    "Exchange rate from " + sourceCurrency + " to " + targetCurrency + " is out of range");
+        }
 
-                    log.debug("Available currencies in response: {}", response.getRates().keySet());
+        int sourceScale = FixedPointMoney.amountScale(request.getAmount(), CurrencyIndex.minorUnits(sourceId));
+        int targetMinorUnits = CurrencyIndex.minorUnits(targetId);
+        long sourceAmount;
+        long convertedAmount;
+        try {
+            sourceAmount = FixedPointMoney.toMinorUnits(request.getAmount(), sourceScale, roundingMode);
+            convertedAmount = FixedPointMoney.convert(sourceAmount, sourceScale, sourceRate,
+                    targetMinorUnits, targetRate, roundingMode);
+        } catch (ArithmeticException ex) {
+            throw new CurrencyConversionException(
+                    "Amount is too large or cannot be rounded to the minor unit with " + roundingMode, ex);
+        }
+        if (sourceAmount == 0) {
+            throw new CurrencyConversionException(
+                    "Amount must be at least 0.00000001 " + sourceCurrency);
+        }
+
+        // Build and return the conversion result
+        return ConversionResult.builder()
+                .sourceCurrency(sourceCurrency)
+                .targetCurrency(targetCurrency)
+                .sourceAmount(FixedPointMoney.toDouble(sourceAmount, sourceScale))
+                .targetAmount(FixedPointMoney.toDouble(convertedAmount, targetMinorUnits))
+                .exchangeRate(exchangeRate)
+                .timestamp(LocalDateTime.now())
+                .rateTimestamp(Instant.ofEpochSecond(snapshot.getLastUpdateEpochSecond()))
+                .stale(request.getAsOf() == null && snapshot.isStaleAt(System.currentTimeMillis() / 1000))
+                .build();
+    }
 
-                    // Check if the target currency exists in the rates
-                    if (!response.getRates().containsKey(targetCurrency)) {
-                        return Mono.error(new CurrencyConversionException(
-                                "Target currency " + targetCurrency + " not found in available rates"));
+    /**
+     * Converts an amount to many target currencies in one pass over a snapshot. The source amount and rate are
+     * resolved once, the amount keeping every digit it was given as for a single conversion; each target then only
+     * costs a rate lookup and a fixed point conversion. Every target currency of the snapshot but the source is
+     * converted when no targets are given. The conversions are journaled once they all succeeded, when metadata
+     * is given.
+     *
+     * @param targetIds The target currency ids, or null for every currency of the snapshot
+     * @param metadata The metadata of the request to journal the conversions with, or null to not journal them
+     * @throws CurrencyConversionException if the source or a requested target is missing from the snapshot,
+     *                                     or the amount cannot be expressed in minor units
+     */
+    private FanOutConversionResult fanOut(RateTable snapshot, int sourceId, double amount, int[] targetIds,
+                                          AuditMetadata metadata) {
+        String sourceCurrency = CurrencyIndex.code(sourceId);
+        long sourceRate = snapshot.scaledRate(sourceId);
+        if (sourceRate == 0) {
+            throw new CurrencyConversionException(
+                    "Source currency " + sourceCurrency + " not found in available rates");
+        }
+        int sourceScale = FixedPointMoney.amountScale(amount, CurrencyIndex.minorUnits(sourceId));
+        int count = targetIds != null ? targetIds.length : snapshot.size();
+        Map<String, Double> amounts = new LinkedHashMap<>(count * 4 / 3 + 1);
+        long sourceAmount;
+        try {
+            sourceAmount = FixedPointMoney.toMinorUnits(amount, sourceScale, roundingMode);
+            if (sourceAmount == 0) {
+                throw new CurrencyConversionException(
+                        "Amount must be at least 0.00000001 " + sourceCurrency);
+            }
+            for (int i = 0; i < count; i++) {
+                int targetId = targetIds != null ? targetIds[i] : snapshot.currencyIdAt(i);
+                if (targetIds == null && targetId == sourceId) {
+                    continue;
+                }
+                long targetRate = snapshot.scaledRate(targetId);
+                if (targetRate == 0) {
+                    if (targetIds == null) {
+                        continue;
                     }
+                    throw new CurrencyConversionException(snapshot.contains(targetId)
+                            ? "Exchange rate from " + sourceCurrency + " to " + CurrencyIndex.code(targetId) + " is out of range"
+                            : "Target currency " + CurrencyIndex.code(targetId) + " not found in available rates");
+                }
+                int targetMinorUnits = CurrencyIndex.minorUnits(targetId);
+                long converted = FixedPointMoney.convert(sourceAmount, sourceScale, sourceRate,
+                        targetMinorUnits, targetRate, roundingMode);
+                amounts.put(CurrencyIndex.code(targetId), FixedPointMoney.toDouble(converted, targetMinorUnits));
+            }
+        } catch (ArithmeticException ex) {
+            throw new CurrencyConversionException(
+                    "Amount is too large or cannot be rounded to the minor unit with " + roundingMode, ex);
+        }
 
-                    // Get the exchange rate and calculate the converted amount
-                    Double exchangeRate = response.getRates().get(targetCurrency);
-                    Double convertedAmount = request.getAmount() * exchangeRate;
-
-                    log.info("Conversion successful. Rate: {}, Converted amount: {}", exchangeRate, convertedAmount);
-
-                    // Build and return the conversion result
-                    return Mono.just(ConversionResult.builder()
-                            .sourceCurrency(sourceCurrency)
-                            .targetCurrency(targetCurrency)
-                            .sourceAmount(request.getAmount())
-                            .targetAmount(convertedAmount)
-                            .exchangeRate(exchangeRate)
-                            .timestamp(LocalDateTime.now())
-                            .build());
-                })
-                .doOnError(error -> log.error("Error during currency conversion: {}", error.getMessage()));
+        double roundedAmount = FixedPointMoney.toDouble(sourceAmount, sourceScale);
+        Instant rateTimestamp = Instant.ofEpochSecond(snapshot.getLastUpdateEpochSecond());
+        if (metadata != null) {
+            journalFanOut(snapshot, sourceId, roundedAmount, amounts, rateTimestamp, metadata);
+        }
+        return new FanOutConversionResult(sourceCurrency, roundedAmount, amounts, rateTimestamp,
+                snapshot.isStaleAt(System.currentTimeMillis() / 1000));
+    }
+
+    /**
+     * Journals each conversion of a fan-out, indexed by its position in the response.
+     */
+    private void journalFanOut(RateTable snapshot, int sourceId, double sourceAmount, Map<String, Double> amounts,
+                               Instant rateTimestamp, AuditMetadata metadata) {
+        LocalDateTime now = LocalDateTime.now();
+        long index = 0;
+        for (Map.Entry<String, Double> converted : amounts.entrySet()) {
+            ConversionResult result = ConversionResult.builder()
+                    .sourceCurrency(CurrencyIndex.code(sourceId))
+                    .targetCurrency(converted.getKey())
+                    .sourceAmount(sourceAmount)
+                    .targetAmount(converted.getValue())
+                    .exchangeRate(snapshot.crossRate(sourceId, CurrencyIndex.idOf(converted.getKey())))
+                    .timestamp(now)
+                    .rateTimestamp(rateTimestamp)
+                    .build();
+            auditJournal.record(result, null, index++, metadata);
+        }
+    }
+
+    /**
+     * @throws CurrencyConversionException if the amount or either currency is missing or invalid
+     */
+    private void validate(ConversionRequest request) {
+        if (request.getAmount() == null || request.getAmount() <= 0) {
+            throw new CurrencyConversionException("Amount must be greater than zero");
+        }
+
+        if (request.getSourceCurrency() == null || request.getTargetCurrency() == null) {
+            throw new CurrencyConversionException("Source and target currencies must be specified");
+        }
+
+        if (request.getAsOf() != null && request.getAsOf().isAfter(Instant.now())) {
+            throw new CurrencyConversionException("As-of time must not be in the future");
+        }
+    }
+
+    /**
+     * @return The snapshot for the base currency that was in effect at the given time
+     * @throws CurrencyConversionException if no snapshot was recorded at or before that time
+     */
+    private RateTable historicalSnapshot(String snapshotBase, Instant asOf) {
+        return rateHistoryStore.find(snapshotBase, asOf)
+                .orElseThrow(() -> new CurrencyConversionException(
+                        "No exchange rates for " + snapshotBase + " available as of " + asOf));
+    }
+
+    private boolean isValid(ConversionRequest request) {
+        try {
+            validate(request);
+            return true;
+        } catch (CurrencyConversionException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * @return The base currency of the snapshot used to convert the request
+     */
+    private String snapshotBaseFor(ConversionRequest request) {
+        return triangulationEnabled ? pivotCurrency.toUpperCase() : request.getSourceCurrency().toUpperCase();
+    }
+
+    /**
+     * Maps an error to the response the GlobalExceptionHandler would produce for a single conversion.
+     */
+    private ErrorResponse toErrorResponse(Throwable error) {
+        int status = HttpStatus.INTERNAL_SERVER_ERROR.value();
+        String message = "An unexpected error occurred: " + error.getMessage();
+        if (error instanceof CurrencyConversionException) {
+            status = HttpStatus.BAD_REQUEST.value();
+            message = error.getMessage();
+        } else if (error instanceof ExchangeRateServiceUnavailableException) {
+            status = HttpStatus.SERVICE_UNAVAILABLE.value();
+            message = error.getMessage();
+        } else if (error instanceof WebClientResponseException webClientError) {
+            status = webClientError.getStatusCode().value();
+            message = "Error communicating with exchange rate service: " + error.getMessage();
+        }
+        return new ErrorResponse(status, message, System.currentTimeMillis());
+    }
+
+    /**
+     * Outcome of resolving the snapshot for one base currency of a batch chunk.
+     */
+    private record ResolvedSnapshot(String base, RateTable snapshot, Throwable error) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,217 @@
+package com.nathan.currencyconversionapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nathan.currencyconversionapi.cache.RateSnapshotCache;
+import com.nathan.currencyconversionapi.codec.BinaryFormats;
+import com.nathan.currencyconversionapi.codec.WireFormat;
+import com.nathan.currencyconversionapi.exception.CurrencyConversionException;
+import com.nathan.currencyconversionapi.model.CurrencyCatalog;
+import com.nathan.currencyconversionapi.model.CurrencyInfo;
+import com.nathan.currencyconversionapi.model.RateUpdate;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Service serving reference data built from the rate snapshots: the catalog of supported currencies
+ * and full rate tables.
+ *
+ * <p>Both change only when a new snapshot is published, so each is built once per snapshot version and serialized
+ * once per wire format (JSON, CBOR or Smile) into an immutable byte buffer. Requests for an unchanged snapshot
+ * are answered with that buffer as is, without building or serializing anything.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RateCatalogService {
+
+    /**
+     * Cache of exchange rate snapshots backed by the ExchangeRate API
+     */
+    private final RateSnapshotCache rateSnapshotCache;
+
+    /**
+     * Mapper serializing the catalog and rate tables to JSON when their snapshot changes
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Base currency whose snapshot lists the supported currencies
+     */
+    @Value("${exchangerate.catalog.base:USD}")
+    private String catalogBase;
+
+    /**
+     * Whether rates are derived from a single pivot snapshot instead of one snapshot per base currency
+     */
+    @Value("${exchangerate.triangulation.enabled:false}")
+    private boolean triangulationEnabled;
+
+    /**
+     * Pivot currency whose snapshot is used to derive cross rates when triangulation is enabled
+     */
+    @Value("${exchangerate.triangulation.pivot:USD}")
+    private String pivotCurrency;
+
+    /**
+     * Serialized catalog of the latest snapshot seen
+     */
+    private volatile Serialized catalog;
+
+    /**
+     * Serialized rate tables by base currency code
+     */
+    private final Map<String, Serialized> rateTables = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the catalog of supported currencies: every currency of the catalog base's snapshot,
+     * with its name and minor units.
+     *
+     * @return A Mono containing the serialized catalog
+     */
+    public Mono<Serialized> catalog() {
+        String base = catalogBase.toUpperCase();
+        return rateSnapshotCache.getSnapshot(base).map(snapshot -> {
+            Serialized current = catalog;
+            if (current != null && current.snapshot().getVersion() == snapshot.getVersion()) {
+                return current;
+            }
+            Serialized rebuilt = new Serialized(snapshot, buildCatalog(snapshot), objectMapper);
+            catalog = rebuilt;
+            log.debug("Built currency catalog of {} currencies for snapshot {}", snapshot.size(), snapshot.getVersion());
+            return rebuilt;
+        });
+    }
+
+    /**
+     * Returns every rate from a base currency, derived from the pivot snapshot when triangulation is enabled.
+     *
+     * @param baseCurrency The base currency code
+     * @return A Mono containing the serialized rate table
+     */
+    public Mono<Serialized> rateTable(String baseCurrency) {
+        int baseId = CurrencyIndex.idOf(baseCurrency);
+        if (baseId == CurrencyIndex.UNKNOWN) {
+            return Mono.error(new CurrencyConversionException("Base currency " + baseCurrency + " is not supported"));
+        }
+
+        String base = CurrencyIndex.code(baseId);
+        String snapshotBase = triangulationEnabled ? pivotCurrency.toUpperCase() : base;
+        return rateSnapshotCache.getSnapshot(snapshotBase).map(snapshot -> {
+            Serialized current = rateTables.get(base);
+            if (current != null && current.snapshot().getVersion() == snapshot.getVersion()) {
+                return current;
+            }
+            if (!snapshot.contains(baseId)) {
+                throw new CurrencyConversionException("Base currency " + base + " not found in available rates");
+            }
+            Serialized rebuilt = new Serialized(snapshot, buildRateTable(snapshot, baseId), objectMapper);
+            rateTables.put(base, rebuilt);
+            return rebuilt;
+        });
+    }
+
+    private static CurrencyCatalog buildCatalog(RateTable snapshot) {
+        List<CurrencyInfo> currencies = new ArrayList<>(snapshot.size() + 1);
+        boolean baseListed = false;
+        for (int i = 0; i < snapshot.size(); i++) {
+            int id = snapshot.currencyIdAt(i);
+            baseListed |= id == snapshot.getBaseId();
+            currencies.add(currencyInfo(id));
+        }
+        if (!baseListed) {
+            currencies.add(currencyInfo(snapshot.getBaseId()));
+        }
+        currencies.sort((a, b) -> a.getCode().compareTo(b.getCode()));
+        return new CurrencyCatalog(snapshot.getBaseCurrency(), snapshot.getVersion(), currencies);
+    }
+
+    private static CurrencyInfo currencyInfo(int id) {
+        String code = CurrencyIndex.code(id);
+        String name;
+        try {
+            name = Currency.getInstance(code).getDisplayName(Locale.ENGLISH);
+        } catch (IllegalArgumentException ex) {
+            name = code;
+        }
+        return new CurrencyInfo(code, name, CurrencyIndex.minorUnits(id));
+    }
+
+    private static RateUpdate buildRateTable(RateTable snapshot, int baseId) {
+        Map<String, Double> rates = new LinkedHashMap<>(snapshot.size() * 2);
+        for (int i = 0; i < snapshot.size(); i++) {
+            int id = snapshot.currencyIdAt(i);
+            double rate = snapshot.crossRate(baseId, id);
+            if (!Double.isNaN(rate)) {
+                rates.put(CurrencyIndex.code(id), rate);
+            }
+        }
+        return new RateUpdate(CurrencyIndex.code(baseId), snapshot.getLastUpdateEpochSecond(),
+                snapshot.getNextUpdateEpochSecond(), rates);
+    }
+
+    /**
+     * A response body built for a snapshot version, serialized once per wire format on first use.
+     */
+    public static final class Serialized {
+
+        private final RateTable snapshot;
+        private final Object value;
+        private final ObjectMapper jsonMapper;
+        private final AtomicReferenceArray<ByteBuffer> bodies = new AtomicReferenceArray<>(WireFormat.values().length);
+
+        private Serialized(RateTable snapshot, Object value, ObjectMapper jsonMapper) {
+            this.snapshot = snapshot;
+            this.value = value;
+            this.jsonMapper = jsonMapper;
+        }
+
+        /**
+         * @return The snapshot the body was built from
+         */
+        public RateTable snapshot() {
+            return snapshot;
+        }
+
+        /**
+         * @param format The wire format to write the body in
+         * @return An independent read-only view of the body serialized in the format, positioned at its start
+         */
+        public ByteBuffer body(WireFormat format) {
+            ByteBuffer body = bodies.get(format.ordinal());
+            if (body == null) {
+                bodies.compareAndSet(format.ordinal(), null, serialize(format));
+                body = bodies.get(format.ordinal());
+            }
+            return body.duplicate();
+        }
+
+        private ByteBuffer serialize(WireFormat format) {
+            ObjectMapper mapper = switch (format) {
+                case JSON -> jsonMapper;
+                case CBOR -> BinaryFormats.CBOR_MAPPER;
+                case SMILE -> BinaryFormats.SMILE_MAPPER;
+            };
+            try {
+                return ByteBuffer.wrap(mapper.writeValueAsBytes(value)).asReadOnlyBuffer();
+            } catch (JsonProcessingException ex) {
+                throw new IllegalStateException("Failed to serialize " + value.getClass().getSimpleName() + " as " + format, ex);
+            }
+        }
+    }
+}
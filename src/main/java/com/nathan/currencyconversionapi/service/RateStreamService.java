@@ -0,0 +1,152 @@
+package com.nathan.currencyconversionapi.service;
+
+import com.nathan.currencyconversionapi.cache.RateSnapshotCache;
+import com.nathan.currencyconversionapi.exception.CurrencyConversionException;
+import com.nathan.currencyconversionapi.model.RateUpdate;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service pushing exchange rate changes to long-lived subscribers.
+ * All subscribers of a snapshot base share one hot feed, which polls the snapshot cache
+ * and listens to its updates, so the number of subscribers never changes the number of upstream calls.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RateStreamService {
+
+    /**
+     * Cache of exchange rate snapshots backed by the ExchangeRate API
+     */
+    private final RateSnapshotCache rateSnapshotCache;
+
+    /**
+     * Whether rates are derived from a single pivot snapshot instead of one snapshot per base currency
+     */
+    @Value("${exchangerate.triangulation.enabled:false}")
+    private boolean triangulationEnabled;
+
+    /**
+     * Pivot currency whose snapshot is used to derive cross rates when triangulation is enabled
+     */
+    @Value("${exchangerate.triangulation.pivot:USD}")
+    private String pivotCurrency;
+
+    /**
+     * How often each shared feed checks the snapshot cache for a new snapshot
+     */
+    @Value("${exchangerate.stream.poll-interval:PT1M}")
+    private Duration pollInterval;
+
+    /**
+     * Number of snapshots buffered per subscriber; the oldest are dropped when a subscriber falls behind
+     */
+    @Value("${exchangerate.stream.subscriber-buffer:4}")
+    private int subscriberBuffer;
+
+    /**
+     * Shared hot feeds by snapshot base currency
+     */
+    private final Map<String, Flux<RateTable>> feeds = new ConcurrentHashMap<>();
+
+    /**
+     * Streams changes of the rates from a base currency to the requested symbols.
+     *
+     * @param baseCurrency The base currency code
+     * @param symbols The currency codes to follow, or an empty list to follow every currency of the snapshot
+     * @return A Flux of rate updates, starting with the current rates
+     */
+    public Flux<RateUpdate> streamRates(String baseCurrency, List<String> symbols) {
+        int baseId = CurrencyIndex.idOf(baseCurrency);
+        if (baseId == CurrencyIndex.UNKNOWN) {
+            return Flux.error(new CurrencyConversionException("Base currency " + baseCurrency + " is not supported"));
+        }
+
+        int[] symbolIds = new int[symbols.size()];
+        for (int i = 0; i < symbolIds.length; i++) {
+            symbolIds[i] = CurrencyIndex.idOf(symbols.get(i));
+            if (symbolIds[i] == CurrencyIndex.UNKNOWN) {
+                return Flux.error(new CurrencyConversionException("Currency " + symbols.get(i) + " is not supported"));
+            }
+        }
+
+        String snapshotBase = triangulationEnabled ? pivotCurrency.toUpperCase() : CurrencyIndex.code(baseId);
+        return Flux.defer(() -> {
+            // Rates last delivered to this subscriber, by currency id
+            double[] delivered = new double[CurrencyIndex.CAPACITY];
+            Arrays.fill(delivered, Double.NaN);
+
+            return feed(snapshotBase)
+                    .onBackpressureBuffer(subscriberBuffer,
+                            dropped -> log.debug("Dropped rate snapshot {} for a slow subscriber", dropped),
+                            BufferOverflowStrategy.DROP_OLDEST)
+                    .map(snapshot -> changedRates(snapshot, baseId, symbolIds, delivered))
+                    .filter(update -> !update.getRates().isEmpty());
+        });
+    }
+
+    /**
+     * Returns the shared feed of snapshots for a base currency, creating it on first use.
+     * The feed replays the latest snapshot to new subscribers and disconnects when the last one leaves.
+     */
+    private Flux<RateTable> feed(String snapshotBase) {
+        return feeds.computeIfAbsent(snapshotBase, base -> {
+            int baseId = CurrencyIndex.idOf(base);
+            Flux<RateTable> polled = Flux.interval(Duration.ZERO, pollInterval)
+                    .onBackpressureDrop()
+                    .concatMap(tick -> rateSnapshotCache.getSnapshot(base)
+                            .onErrorResume(error -> {
+                                log.warn("Could not refresh rate feed for {}: {}", base, error.getMessage());
+                                return Mono.empty();
+                            }));
+            Flux<RateTable> pushed = rateSnapshotCache.updates()
+                    .filter(snapshot -> snapshot.getBaseId() == baseId);
+
+            return Flux.merge(polled, pushed)
+                    .distinctUntilChanged(RateTable::getVersion)
+                    .replay(1)
+                    .refCount();
+        });
+    }
+
+    /**
+     * Collects the rates that differ from those last delivered, and records them as delivered.
+     */
+    private RateUpdate changedRates(RateTable snapshot, int baseId, int[] symbolIds, double[] delivered) {
+        Map<String, Double> changed = new LinkedHashMap<>();
+        if (symbolIds.length == 0) {
+            for (int i = 0; i < snapshot.size(); i++) {
+                collectIfChanged(snapshot, baseId, snapshot.currencyIdAt(i), delivered, changed);
+            }
+        } else {
+            for (int symbolId : symbolIds) {
+                collectIfChanged(snapshot, baseId, symbolId, delivered, changed);
+            }
+        }
+        return new RateUpdate(CurrencyIndex.code(baseId), snapshot.getLastUpdateEpochSecond(),
+                snapshot.getNextUpdateEpochSecond(), changed);
+    }
+
+    private void collectIfChanged(RateTable snapshot, int baseId, int currencyId, double[] delivered, Map<String, Double> changed) {
+        double rate = snapshot.crossRate(baseId, currencyId);
+        if (!Double.isNaN(rate) && Double.compare(rate, delivered[currencyId]) != 0) {
+            delivered[currencyId] = rate;
+            changed.put(CurrencyIndex.code(currencyId), rate);
+        }
+    }
+}
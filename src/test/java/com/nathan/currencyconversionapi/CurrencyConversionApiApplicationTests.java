@@ -1,11 +1,28 @@
 package com.nathan.currencyconversionapi;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
 
 @SpringBootTest
 class CurrencyConversionApiApplicationTests {
 
+    @TempDir
+    static Path dataDirectory;
+
+    @DynamicPropertySource
+    static void dataPaths(DynamicPropertyRegistry registry) {
+        registry.add("exchangerate.snapshot-store.path", () -> dataDirectory.resolve("rate-snapshots.bin").toString());
+        registry.add("exchangerate.history.directory", () -> dataDirectory.resolve("history").toString());
+        registry.add("exchangerate.providers.static.directory", () -> dataDirectory.resolve("static-rates").toString());
+        registry.add("exchangerate.quota.path", () -> dataDirectory.resolve("upstream-quota.properties").toString());
+        registry.add("exchangerate.audit.directory", () -> dataDirectory.resolve("audit").toString());
+    }
+
     @Test
     void contextLoads() {
     }
@@ -0,0 +1,71 @@
+package com.nathan.currencyconversionapi.admission;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long QUEUED = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void rejectsRequestsBeyondTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        assertThat(limiter.tryAcquire()).isFalse();
+        limiter.release(FAST, AdaptiveConcurrencyLimiter.Outcome.IGNORED);
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void growsWhileLatencyHoldsAndShrinksWhenRequestsQueue() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20);
+
+        for (int i = 0; i < 50; i++) {
+            saturate(limiter, FAST);
+        }
+        int grown = limiter.getLimit();
+        assertThat(grown).isGreaterThan(20);
+
+        for (int i = 0; i < 50; i++) {
+            saturate(limiter, QUEUED);
+        }
+        assertThat(limiter.getLimit()).isLessThan(grown);
+
+        limiter.tryAcquire();
+        int beforeFailure = limiter.getLimit();
+        limiter.release(FAST, AdaptiveConcurrencyLimiter.Outcome.DROPPED);
+        assertThat(limiter.getLimit()).isLessThan(beforeFailure);
+    }
+
+    /**
+     * Fills the limit, then completes one request with the given latency.
+     */
+    private static void saturate(AdaptiveConcurrencyLimiter limiter, long latencyNanos) {
+        while (limiter.tryAcquire()) {
+            // Fill every slot
+        }
+        limiter.release(latencyNanos, AdaptiveConcurrencyLimiter.Outcome.SUCCESS);
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter();
+        ReflectionTestUtils.setField(limiter, "initialLimit", initialLimit);
+        ReflectionTestUtils.setField(limiter, "minLimit", 4);
+        ReflectionTestUtils.setField(limiter, "maxLimit", 1000);
+        ReflectionTestUtils.setField(limiter, "alpha", 3);
+        ReflectionTestUtils.setField(limiter, "beta", 6);
+        ReflectionTestUtils.setField(limiter, "backoffRatio", 0.9);
+        ReflectionTestUtils.setField(limiter, "probeInterval", 1000);
+        limiter.init();
+        return limiter;
+    }
+}
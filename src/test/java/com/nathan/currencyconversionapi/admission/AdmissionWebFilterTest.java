@@ -0,0 +1,72 @@
+package com.nathan.currencyconversionapi.admission;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.adapter.ForwardedHeaderTransformer;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionWebFilterTest {
+
+    private static final InetSocketAddress PROXY = new InetSocketAddress("10.0.0.1", 40_000);
+
+    private final ForwardedHeaderTransformer forwardedHeaders = new ForwardedHeaderTransformer();
+    private final AdmissionWebFilter filter = filter();
+
+    @Test
+    void limitsClientsBehindAProxyByTheirForwardedAddress() {
+        assertThat(status(forwardedFor("203.0.113.7"))).isNull();
+        assertThat(status(forwardedFor("203.0.113.7"))).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        // Another client behind the same proxy has its own bucket
+        assertThat(status(forwardedFor("198.51.100.20"))).isNull();
+        assertThat(status(MockServerHttpRequest.get("/api/currency/convert/USD/to/EUR?amount=1")
+                .remoteAddress(PROXY)
+                .header("Forwarded", "for=192.0.2.60;proto=https")
+                .build())).isNull();
+    }
+
+    private MockServerHttpRequest forwardedFor(String client) {
+        return MockServerHttpRequest.get("/api/currency/convert/USD/to/EUR?amount=1")
+                .remoteAddress(PROXY)
+                .header("X-Forwarded-For", client + ", " + PROXY.getHostString())
+                .build();
+    }
+
+    /**
+     * Runs a request through the forwarded headers, as with {@code server.forward-headers-strategy=framework},
+     * then the admission filter.
+     *
+     * @return The status the filter answered with, or null if it let the request through
+     */
+    private HttpStatus status(MockServerHttpRequest request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        ServerWebExchange forwarded = exchange.mutate().request(forwardedHeaders.apply(request)).build();
+        filter.filter(forwarded, chained -> Mono.empty()).block();
+        return (HttpStatus) exchange.getResponse().getStatusCode();
+    }
+
+    private static AdmissionWebFilter filter() {
+        ClientRateLimiter limiter = new ClientRateLimiter(() -> TimeUnit.HOURS.toNanos(1));
+        ReflectionTestUtils.setField(limiter, "requestsPerSecond", 1.0);
+        ReflectionTestUtils.setField(limiter, "burst", 1);
+        ReflectionTestUtils.setField(limiter, "maxClients", 100);
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("clientRateLimiter", limiter);
+        AdmissionWebFilter filter = new AdmissionWebFilter(beans.getBeanProvider(ClientRateLimiter.class),
+                beans.getBeanProvider(AdaptiveConcurrencyLimiter.class));
+        ReflectionTestUtils.setField(filter, "pathPrefix", "/api/");
+        ReflectionTestUtils.setField(filter, "clientKeyHeader", "X-API-Key");
+        ReflectionTestUtils.setField(filter, "concurrencyExcludedPaths", List.of());
+        return filter;
+    }
+}
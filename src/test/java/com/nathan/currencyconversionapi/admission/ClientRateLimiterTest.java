@@ -0,0 +1,65 @@
+package com.nathan.currencyconversionapi.admission;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    @Test
+    void admitsABurstThenTheSustainedRate() {
+        ClientRateLimiter limiter = limiter(10, 5, 100);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("key:a")).isZero();
+        }
+        long wait = limiter.tryAcquire("key:a");
+        assertThat(wait).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+        // Other clients have their own bucket
+        assertThat(limiter.tryAcquire("key:b")).isZero();
+
+        now.addAndGet(wait);
+        assertThat(limiter.tryAcquire("key:a")).isZero();
+        assertThat(limiter.tryAcquire("key:a")).isPositive();
+        assertThat(limiter.getRejectedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void evictsIdleClientsAndSharesABucketWhenFull() {
+        ClientRateLimiter limiter = limiter(1, 1, 2);
+
+        assertThat(limiter.tryAcquire("ip:10.0.0.1")).isZero();
+        assertThat(limiter.tryAcquire("ip:10.0.0.2")).isZero();
+        // Both buckets are busy, so a third client gets the overflow bucket
+        assertThat(limiter.tryAcquire("ip:10.0.0.3")).isZero();
+        assertThat(limiter.tryAcquire("ip:10.0.0.4")).isPositive();
+
+        // Idle buckets are only evicted by the sweep, so until then new clients keep sharing the overflow bucket
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertThat(limiter.tryAcquire("ip:10.0.0.5")).isZero();
+        assertThat(limiter.tryAcquire("ip:10.0.0.6")).isPositive();
+        assertThat(limiter.getClientCount()).isEqualTo(3);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        limiter.evictIdle();
+        assertThat(limiter.getClientCount()).isZero();
+        assertThat(limiter.tryAcquire("ip:10.0.0.6")).isZero();
+        assertThat(limiter.tryAcquire("ip:10.0.0.7")).isZero();
+        assertThat(limiter.getClientCount()).isEqualTo(2);
+    }
+
+    private ClientRateLimiter limiter(double requestsPerSecond, int burst, int maxClients) {
+        ClientRateLimiter limiter = new ClientRateLimiter(now::get);
+        ReflectionTestUtils.setField(limiter, "requestsPerSecond", requestsPerSecond);
+        ReflectionTestUtils.setField(limiter, "burst", burst);
+        ReflectionTestUtils.setField(limiter, "maxClients", maxClients);
+        return limiter;
+    }
+}
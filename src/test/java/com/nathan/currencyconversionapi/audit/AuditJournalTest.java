@@ -0,0 +1,119 @@
+package com.nathan.currencyconversionapi.audit;
+
+import com.nathan.currencyconversionapi.model.ConversionResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesEventsThatReadBackInOrder() throws IOException {
+        AuditJournal journal = journal(Map.of());
+        AuditMetadata metadata = new AuditMetadata("req-1", new InetSocketAddress("127.0.0.1", 54321));
+        Instant asOf = Instant.parse("2026-01-15T12:00:00Z");
+
+        journal.record(result("USD", "EUR", 100), null, -1, metadata);
+        journal.record(result("GBP", "JPY", 5), asOf, 3, AuditMetadata.NONE);
+        journal.stop();
+
+        List<AuditRecord> records = new ArrayList<>();
+        AuditJournalReader.scan(directory, 0, records::add);
+
+        assertThat(records).hasSize(2);
+        assertThat(records.get(0).getSequence()).isEqualTo(1);
+        assertThat(records.get(0).getSourceCurrency()).isEqualTo("USD");
+        assertThat(records.get(0).getTargetAmount()).isEqualTo(100 * 0.92);
+        assertThat(records.get(0).getRequestId()).isEqualTo("req-1");
+        assertThat(records.get(0).getClientAddress()).isEqualTo("127.0.0.1");
+        assertThat(records.get(0).getBatchIndex()).isNull();
+        assertThat(records.get(1).getSequence()).isEqualTo(2);
+        assertThat(records.get(1).getAsOf()).isEqualTo(asOf);
+        assertThat(records.get(1).getBatchIndex()).isEqualTo(3);
+        assertThat(records.get(1).getRequestId()).isNull();
+        assertThat(journal.getWrittenCount()).isEqualTo(2);
+        assertThat(journal.getSyncCount()).isPositive();
+    }
+
+    @Test
+    void continuesSequencesInNewFilesAfterRestartAndRollover() throws IOException {
+        AuditJournal first = journal(Map.of());
+        first.record(result("USD", "EUR", 1), null, -1, AuditMetadata.NONE);
+        first.stop();
+
+        AuditJournal second = journal(Map.of("maxFileSize", 200L, "batchSize", 1));
+        for (int i = 0; i < 3; i++) {
+            second.record(result("USD", "EUR", i + 2), null, -1, AuditMetadata.NONE);
+        }
+        second.stop();
+
+        List<AuditRecord> records = new ArrayList<>();
+        AuditJournalReader.scan(directory, 3, records::add);
+
+        assertThat(JournalFormat.files(directory)).hasSizeGreaterThan(2);
+        assertThat(records).extracting(AuditRecord::getSequence).containsExactly(3L, 4L);
+        assertThat(AuditJournalReader.lastSequence(directory)).isEqualTo(4);
+    }
+
+    @Test
+    void ringRejectsEventsWhenFullUntilDrained() {
+        AuditRingBuffer ring = new AuditRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(ring.offer(result("USD", "EUR", i + 1), null, -1, AuditMetadata.NONE, 0)).isTrue();
+        }
+        assertThat(ring.offer(result("USD", "EUR", 5), null, -1, AuditMetadata.NONE, 0)).isFalse();
+
+        List<Double> drained = new ArrayList<>();
+        assertThat(ring.drain(event -> drained.add(event.result.getSourceAmount()), 2)).isEqualTo(2);
+        assertThat(ring.offer(result("USD", "EUR", 5), null, -1, AuditMetadata.NONE, 0)).isTrue();
+        ring.drain(event -> drained.add(event.result.getSourceAmount()), 10);
+
+        assertThat(drained).containsExactly(1.0, 2.0, 3.0, 4.0, 5.0);
+        assertThat(ring.size()).isZero();
+    }
+
+    /**
+     * Creates and starts a journal in the temporary directory, with the given field values.
+     */
+    private AuditJournal journal(Map<String, Object> overrides) {
+        AuditJournal journal = new AuditJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "directory", directory);
+        ReflectionTestUtils.setField(journal, "bufferCapacity", 64);
+        ReflectionTestUtils.setField(journal, "overflowPolicy", AuditJournal.OverflowPolicy.BLOCK);
+        ReflectionTestUtils.setField(journal, "blockTimeout", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(journal, "batchSize", 16);
+        ReflectionTestUtils.setField(journal, "drainInterval", Duration.ofMillis(1));
+        ReflectionTestUtils.setField(journal, "fsyncPolicy", AuditJournal.FsyncPolicy.BATCH);
+        ReflectionTestUtils.setField(journal, "fsyncInterval", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(journal, "maxFileSize", 1L << 20);
+        overrides.forEach((field, value) -> ReflectionTestUtils.setField(journal, field, value));
+        journal.start();
+        return journal;
+    }
+
+    private static ConversionResult result(String source, String target, double amount) {
+        return ConversionResult.builder()
+                .sourceCurrency(source)
+                .targetCurrency(target)
+                .sourceAmount(amount)
+                .targetAmount(amount * 0.92)
+                .exchangeRate(0.92)
+                .rateTimestamp(Instant.parse("2026-01-15T00:00:01Z"))
+                .build();
+    }
+}
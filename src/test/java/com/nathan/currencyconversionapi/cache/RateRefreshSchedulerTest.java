@@ -0,0 +1,82 @@
+package com.nathan.currencyconversionapi.cache;
+
+import com.nathan.currencyconversionapi.quota.RefreshPlanner;
+import com.nathan.currencyconversionapi.quota.UpstreamQuotaBudget;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import com.nathan.currencyconversionapi.replication.LeaderElection;
+import com.nathan.currencyconversionapi.support.MutableClock;
+import com.nathan.currencyconversionapi.support.StubRateProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateRefreshSchedulerTest {
+
+    private static final long DAY = 86_400;
+
+    private final MutableClock clock = MutableClock.at("2026-01-15T00:00:00Z");
+    private final StubRateProvider provider = new StubRateProvider(base -> snapshot(base, clock.millis() / 1000));
+
+    private RateSnapshotCache cache;
+    private RateRefreshScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        UpstreamQuotaBudget budget = UpstreamQuotaBudget.disabled();
+        cache = TestRateSnapshotCaches.builder(provider)
+                .quotaBudget(budget)
+                .maxStaleness(Duration.ofHours(12))
+                .refreshJitter(Duration.ofMinutes(2))
+                .clock(clock)
+                .build();
+
+        RefreshPlanner planner = new RefreshPlanner(cache, budget);
+        ReflectionTestUtils.setField(planner, "demandHalfLife", Duration.ofHours(6));
+        scheduler = new RateRefreshScheduler(cache, planner, new LeaderElection(null));
+        ReflectionTestUtils.setField(scheduler, "configuredBases", List.of("usd"));
+        ReflectionTestUtils.setField(scheduler, "recentWindow", Duration.ofHours(24));
+        ReflectionTestUtils.setField(scheduler, "maxConcurrency", 4);
+    }
+
+    @Test
+    void refreshesConfiguredAndRecentlyUsedBasesOnceTheJitteredNextUpdateHasPassed() {
+        long start = clock.millis() / 1000;
+        cache.preload(snapshot("EUR", start));
+        cache.getSnapshot("GBP").block();
+
+        // The configured base is fetched before its first request
+        scheduler.refreshDueSnapshots();
+        assertThat(provider.calls("USD")).isEqualTo(1);
+
+        // Nothing is due before the announced next update
+        clock.advance(Duration.ofSeconds(DAY - 1));
+        scheduler.refreshDueSnapshots();
+        cache.getSnapshot("GBP").block();
+        assertThat(provider.calls("USD")).isEqualTo(1);
+        assertThat(provider.calls("GBP")).isEqualTo(1);
+
+        // Past the next update and the largest jitter, the configured and recently used bases are refreshed,
+        // but not the restored snapshot nobody looked up within the recent window
+        clock.advance(Duration.ofMinutes(2).plusSeconds(2));
+        scheduler.refreshDueSnapshots();
+        assertThat(provider.calls("USD")).isEqualTo(2);
+        assertThat(provider.calls("GBP")).isEqualTo(2);
+        assertThat(provider.calls("EUR")).isZero();
+        assertThat(cache.peek("USD").getVersion()).isEqualTo(clock.millis() / 1000);
+    }
+
+    private static RateTable snapshot(String base, long lastUpdate) {
+        return RateTable.builder()
+                .baseCurrency(base)
+                .lastUpdateEpochSecond(lastUpdate)
+                .nextUpdateEpochSecond(lastUpdate + DAY)
+                .rate(CurrencyIndex.intern("JPY"), 150.0)
+                .build();
+    }
+}
@@ -0,0 +1,100 @@
+package com.nathan.currencyconversionapi.cache;
+
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import com.nathan.currencyconversionapi.support.MutableClock;
+import com.nathan.currencyconversionapi.support.StubRateProvider;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateSnapshotCacheTest {
+
+    private final MutableClock clock = MutableClock.at("2026-01-15T00:00:00Z");
+    private final StubRateProvider provider = new StubRateProvider(base -> snapshot(base, clock.millis() / 1000));
+
+    @Test
+    void servesFromMemoryUntilTheNextUpdateThenStaleWhileRevalidating() {
+        RateSnapshotCache cache = cache(16);
+
+        RateTable first = cache.getSnapshot("USD").block();
+        assertThat(cache.getSnapshot("USD").block()).isSameAs(first);
+        assertThat(provider.calls("USD")).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+
+        // Past the announced next update: the old snapshot is served while a new one is fetched
+        clock.advance(Duration.ofHours(25));
+        assertThat(cache.getSnapshot("USD").block()).isSameAs(first);
+        assertThat(cache.getStaleHitCount()).isEqualTo(1);
+        assertThat(provider.calls("USD")).isEqualTo(2);
+        assertThat(cache.peek("USD").getVersion()).isGreaterThan(first.getVersion());
+
+        // Past the maximum staleness: the lookup waits for the provider
+        clock.advance(Duration.ofHours(40));
+        RateTable latest = cache.getSnapshot("USD").block();
+        assertThat(provider.calls("USD")).isEqualTo(3);
+        assertThat(cache.getMissCount()).isEqualTo(2);
+        assertThat(latest.getVersion()).isEqualTo(clock.millis() / 1000);
+        assertThat(cache.lookupCount("USD")).isEqualTo(3);
+    }
+
+    @Test
+    void evictsNeverUsedSnapshotsFirstThenTheLeastRecentlyUsed() {
+        RateSnapshotCache cache = cache(2);
+
+        long now = clock.millis() / 1000;
+        cache.preload(snapshot("EUR", now));
+        cache.preload(snapshot("GBP", now));
+        cache.getSnapshot("USD").block();
+        assertThat(cache.peek("GBP")).isNull();
+        assertThat(cache.peek("EUR")).isNotNull();
+
+        cache.getSnapshot("EUR").block();
+        cache.getSnapshot("JPY").block();
+        assertThat(cache.peek("USD")).isNull();
+        assertThat(cache.peek("EUR")).isNotNull();
+        assertThat(cache.peek("JPY")).isNotNull();
+        assertThat(cache.getEvictionCount()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void keepsTheMoreRecentSnapshotAndPublishesEachVersionOnce() {
+        RateSnapshotCache cache = cache(16);
+        List<Long> published = new CopyOnWriteArrayList<>();
+        Disposable subscription = cache.updates().subscribe(snapshot -> published.add(snapshot.getVersion()));
+
+        RateTable newer = snapshot("USD", 200);
+        cache.preload(newer);
+        assertThat(cache.replicate(snapshot("USD", 100))).isFalse();
+        assertThat(cache.replicate(snapshot("USD", 200))).isFalse();
+        assertThat(cache.peek("USD")).isSameAs(newer);
+        assertThat(cache.replicate(snapshot("USD", 300))).isTrue();
+
+        subscription.dispose();
+        assertThat(published).containsExactly(200L, 300L);
+    }
+
+    private RateSnapshotCache cache(int maxEntries) {
+        return TestRateSnapshotCaches.builder(provider)
+                .maxEntries(maxEntries)
+                .maxStaleness(Duration.ofHours(12))
+                .clock(clock)
+                .build();
+    }
+
+    private static RateTable snapshot(String base, long lastUpdate) {
+        return RateTable.builder()
+                .baseCurrency(base)
+                .lastUpdateEpochSecond(lastUpdate)
+                .nextUpdateEpochSecond(lastUpdate + 86_400)
+                .rate(CurrencyIndex.intern("EUR"), 0.9)
+                .build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.nathan.currencyconversionapi.cache;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+
+    @Test
+    void concurrentMissesShareOneUpstreamCall() throws Exception {
+        int callers = 32;
+        AtomicInteger loads = new AtomicInteger();
+        Sinks.One<Integer> upstream = Sinks.one();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Mono<Integer>>> subscribed = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                subscribed.add(executor.submit(() -> {
+                    start.await();
+                    Mono<Integer> shared = singleFlight.execute("USD", key -> {
+                        loads.incrementAndGet();
+                        return upstream.asMono();
+                    }).cache();
+                    shared.subscribe();
+                    return shared;
+                }));
+            }
+            start.countDown();
+            List<Mono<Integer>> results = new ArrayList<>();
+            for (Future<Mono<Integer>> future : subscribed) {
+                results.add(future.get(5, TimeUnit.SECONDS));
+            }
+
+            assertThat(singleFlight.inFlightCount()).isEqualTo(1);
+            upstream.tryEmitValue(42);
+
+            for (Mono<Integer> result : results) {
+                assertThat(result.block()).isEqualTo(42);
+            }
+            assertThat(loads.get()).isEqualTo(1);
+            assertThat(singleFlight.inFlightCount()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void cancellingTheLastSubscriberRemovesTheInFlightEntry() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Mono<Integer> never = Mono.<Integer>never().doOnCancel(() -> cancelled.set(true));
+
+        Disposable first = singleFlight.execute("USD", key -> never).subscribe();
+        Disposable second = singleFlight.execute("USD", key -> never).subscribe();
+        assertThat(singleFlight.inFlightCount()).isEqualTo(1);
+
+        first.dispose();
+        assertThat(singleFlight.inFlightCount()).isEqualTo(1);
+        assertThat(cancelled).isFalse();
+
+        second.dispose();
+        assertThat(cancelled).isTrue();
+        assertThat(singleFlight.inFlightCount()).isZero();
+
+        // The next caller starts a new call
+        assertThat(singleFlight.execute("USD", key -> Mono.just(7)).block()).isEqualTo(7);
+    }
+}
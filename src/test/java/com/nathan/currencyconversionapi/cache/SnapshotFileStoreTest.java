@@ -0,0 +1,111 @@
+package com.nathan.currencyconversionapi.cache;
+
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import com.nathan.currencyconversionapi.support.StubRateProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnapshotFileStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoresTheSnapshotsWrittenBeforeATruncation() throws IOException {
+        Path path = directory.resolve("rate-snapshots.bin");
+        SnapshotFileStore.write(path, List.of(snapshot("USD", 0.92), snapshot("EUR", 1.08), snapshot("GBP", 1.27)));
+        assertThat(SnapshotFileStore.read(path)).extracting(RateTable::getBaseCurrency)
+                .containsExactly("USD", "EUR", "GBP");
+        assertThat(Files.exists(directory.resolve("rate-snapshots.bin.tmp"))).isFalse();
+
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 6));
+
+        List<RateTable> restored = SnapshotFileStore.read(path);
+        assertThat(restored).extracting(RateTable::getBaseCurrency).containsExactly("USD", "EUR");
+        assertThat(restored.get(1).rate(CurrencyIndex.idOf("JPY"))).isEqualTo(1.08);
+    }
+
+    @Test
+    void skipsARecordWithABadChecksum() throws IOException {
+        Path path = directory.resolve("rate-snapshots.bin");
+        SnapshotFileStore.write(path, List.of(snapshot("USD", 0.92), snapshot("EUR", 1.08), snapshot("GBP", 1.27)));
+
+        byte[] bytes = Files.readAllBytes(path);
+        int secondRecord = 24 + 4 + ByteBuffer.wrap(bytes).getInt(24) + 4;
+        // Flip a bit of the last update of the second record
+        bytes[secondRecord + 4 + 4 + 7] ^= 1;
+        Files.write(path, bytes);
+
+        assertThat(SnapshotFileStore.read(path)).extracting(RateTable::getBaseCurrency).containsExactly("USD", "GBP");
+        assertThatThrownBy(() -> SnapshotFileStore.decode(ByteBuffer.wrap(bytes)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("record 1");
+    }
+
+    @Test
+    void rejectsAFileWithABadHeader() throws IOException {
+        Path path = directory.resolve("rate-snapshots.bin");
+        SnapshotFileStore.write(path, List.of(snapshot("USD", 0.92)));
+
+        byte[] bytes = Files.readAllBytes(path);
+        // Claim more snapshots than the file holds without updating the header checksum
+        bytes[11] = 2;
+        Files.write(path, bytes);
+
+        assertThat(SnapshotFileStore.read(path)).isEmpty();
+        assertThatThrownBy(() -> SnapshotFileStore.decode(ByteBuffer.wrap(bytes)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(SnapshotFileStore.read(directory.resolve("missing.bin"))).isEmpty();
+    }
+
+    @Test
+    void writesTheCachedSnapshotsOnStopAndRestoresThemOnStart() {
+        Path path = directory.resolve("rate-snapshots.bin");
+        RateSnapshotCache cache = cache();
+        SnapshotFileStore store = store(cache, path);
+        store.start();
+        cache.replicate(snapshot("USD", 0.92));
+        store.stop();
+
+        RateSnapshotCache restarted = cache();
+        store(restarted, path).start();
+        assertThat(restarted.peek("USD").rate(CurrencyIndex.idOf("JPY"))).isEqualTo(0.92);
+    }
+
+    /**
+     * Creates a cache whose provider has no rates, so it only holds the snapshots given to it.
+     */
+    private static RateSnapshotCache cache() {
+        return TestRateSnapshotCaches.of(StubRateProvider.none());
+    }
+
+    private static SnapshotFileStore store(RateSnapshotCache cache, Path path) {
+        SnapshotFileStore store = new SnapshotFileStore(cache);
+        ReflectionTestUtils.setField(store, "path", path);
+        ReflectionTestUtils.setField(store, "writeDelay", Duration.ofHours(1));
+        return store;
+    }
+
+    private static RateTable snapshot(String base, double jpyRate) {
+        return RateTable.builder()
+                .baseCurrency(base)
+                .lastUpdateEpochSecond(1_768_435_201L)
+                .nextUpdateEpochSecond(1_768_521_601L)
+                .rate(CurrencyIndex.intern("JPY"), jpyRate)
+                .build();
+    }
+}
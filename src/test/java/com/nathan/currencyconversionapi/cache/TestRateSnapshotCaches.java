@@ -0,0 +1,83 @@
+package com.nathan.currencyconversionapi.cache;
+
+import com.nathan.currencyconversionapi.provider.RateProvider;
+import com.nathan.currencyconversionapi.quota.UpstreamQuotaBudget;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Builds rate snapshot caches for tests and benchmarks: 16 entries, an hour of time to live and of staleness,
+ * no refresh jitter, no quota and the system clock, unless a test asks otherwise.
+ */
+public final class TestRateSnapshotCaches {
+
+    private TestRateSnapshotCaches() {
+    }
+
+    /**
+     * @param rateProvider The provider of the rates
+     * @return A cache with the test settings
+     */
+    public static RateSnapshotCache of(RateProvider rateProvider) {
+        return builder(rateProvider).build();
+    }
+
+    /**
+     * @param rateProvider The provider of the rates
+     * @return A builder of a cache starting from the test settings
+     */
+    public static Builder builder(RateProvider rateProvider) {
+        return new Builder(rateProvider);
+    }
+
+    public static final class Builder {
+
+        private final RateProvider rateProvider;
+        private UpstreamQuotaBudget quotaBudget = UpstreamQuotaBudget.disabled();
+        private int maxEntries = 16;
+        private Duration defaultTtl = Duration.ofHours(1);
+        private Duration maxStaleness = Duration.ofHours(1);
+        private Duration refreshJitter = Duration.ZERO;
+        private Clock clock = Clock.systemUTC();
+
+        private Builder(RateProvider rateProvider) {
+            this.rateProvider = rateProvider;
+        }
+
+        public Builder quotaBudget(UpstreamQuotaBudget quotaBudget) {
+            this.quotaBudget = quotaBudget;
+            return this;
+        }
+
+        public Builder maxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        public Builder defaultTtl(Duration defaultTtl) {
+            this.defaultTtl = defaultTtl;
+            return this;
+        }
+
+        public Builder maxStaleness(Duration maxStaleness) {
+            this.maxStaleness = maxStaleness;
+            return this;
+        }
+
+        public Builder refreshJitter(Duration refreshJitter) {
+            this.refreshJitter = refreshJitter;
+            return this;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public RateSnapshotCache build() {
+            return new RateSnapshotCache(rateProvider, quotaBudget, maxEntries, defaultTtl, maxStaleness,
+                    Duration.ofSeconds(30), true, refreshJitter, clock);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.nathan.currencyconversionapi.client;
+
+import com.nathan.currencyconversionapi.exception.ExchangeRateServiceUnavailableException;
+import com.nathan.currencyconversionapi.metrics.ConversionMetrics;
+import com.nathan.currencyconversionapi.quota.UpstreamQuotaBudget;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import com.nathan.currencyconversionapi.support.StubExchangeRateServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExchangeRateApiClientTest {
+
+    private StubExchangeRateServer server;
+
+    @BeforeEach
+    void startServer() {
+        server = StubExchangeRateServer.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void retriesTransientErrors() {
+        ExchangeRateApiClient client = client(Map.of("retryMaxAttempts", 2));
+        server.failNext(2, 503);
+
+        RateTable snapshot = client.getLatestRates("USD").block();
+
+        assertThat(snapshot.getBaseCurrency()).isEqualTo("USD");
+        assertThat(server.requestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        ExchangeRateApiClient client = client(Map.of("retryMaxAttempts", 2));
+        server.failNext(1, 404);
+
+        assertThatThrownBy(() -> client.getLatestRates("USD").block())
+                .isInstanceOf(WebClientResponseException.NotFound.class);
+        assertThat(server.requestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void failsWithinTheDeadlineWhenTheProviderIsSlow() {
+        ExchangeRateApiClient client = client(Map.of(
+                "callTimeout", Duration.ofMillis(200),
+                "deadline", Duration.ofMillis(500)));
+        server.latency(Duration.ofSeconds(5));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> client.getLatestRates("USD").block())
+                .isInstanceOf(ExchangeRateServiceUnavailableException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void opensTheCircuitAndFailsFastWhileTheProviderFails() {
+        ExchangeRateApiClient client = client(Map.of(
+                "windowSize", 4,
+                "minimumCalls", 4,
+                "openDuration", Duration.ofMinutes(1)));
+        server.failNext(100, 500);
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> client.getLatestRates("USD").block())
+                    .isInstanceOf(ExchangeRateServiceUnavailableException.class);
+        }
+        assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(() -> client.getLatestRates("USD").block())
+                .isInstanceOf(ExchangeRateServiceUnavailableException.class)
+                .hasMessageContaining("open");
+        assertThat(server.requestCount()).isEqualTo(4);
+    }
+
+    @Test
+    void hedgesRequestsSlowerThanRecentLatencies() {
+        ExchangeRateApiClient client = client(Map.of(
+                "hedgeEnabled", true,
+                "hedgeMinDelay", Duration.ofMillis(50),
+                "callTimeout", Duration.ofSeconds(5),
+                "deadline", Duration.ofSeconds(10)));
+        for (int i = 0; i < 20; i++) {
+            client.getLatestRates("USD").block();
+        }
+        server.delayNext(Duration.ofSeconds(3));
+
+        long start = System.nanoTime();
+        RateTable snapshot = client.getLatestRates("USD").block();
+
+        assertThat(snapshot.getBaseCurrency()).isEqualTo("USD");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(server.requestCount()).isEqualTo(22);
+    }
+
+    @Test
+    void answersWithTheHedgeWhenThePrimaryAttemptFails() {
+        ExchangeRateApiClient client = client(Map.of(
+                "hedgeEnabled", true,
+                "hedgeMinDelay", Duration.ofMillis(50),
+                "callTimeout", Duration.ofSeconds(5),
+                "deadline", Duration.ofSeconds(10)));
+        for (int i = 0; i < 20; i++) {
+            client.getLatestRates("USD").block();
+        }
+        server.failNext(1, 503);
+
+        RateTable snapshot = client.getLatestRates("USD").block();
+
+        assertThat(snapshot.getBaseCurrency()).isEqualTo("USD");
+        assertThat(server.requestCount()).isEqualTo(22);
+    }
+
+    @Test
+    void reportsThePrimaryErrorWithoutHedgingAClientError() {
+        ExchangeRateApiClient client = client(Map.of("hedgeEnabled", true));
+        for (int i = 0; i < 20; i++) {
+            client.getLatestRates("USD").block();
+        }
+        server.failNext(1, 404);
+
+        assertThatThrownBy(() -> client.getLatestRates("USD").block())
+                .isInstanceOf(WebClientResponseException.NotFound.class);
+        assertThat(server.requestCount()).isEqualTo(21);
+    }
+
+    /**
+     * Creates a client for the stub server with retries, backoff and circuit breaker settings suited to tests,
+     * overridden by the given field values.
+     */
+    private ExchangeRateApiClient client(Map<String, Object> overrides) {
+        ExchangeRateApiClient client = new ExchangeRateApiClient(WebClient.builder(),
+                new ConversionMetrics(new SimpleMeterRegistry()), UpstreamQuotaBudget.disabled());
+        ReflectionTestUtils.setField(client, "apiBaseUrl", server.baseUrl());
+        ReflectionTestUtils.setField(client, "apiKey", "test-key");
+        ReflectionTestUtils.setField(client, "callTimeout", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(client, "deadline", Duration.ofSeconds(3));
+        ReflectionTestUtils.setField(client, "retryMaxAttempts", 0);
+        ReflectionTestUtils.setField(client, "retryMinBackoff", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(client, "retryMaxBackoff", Duration.ofMillis(50));
+        ReflectionTestUtils.setField(client, "hedgeEnabled", false);
+        ReflectionTestUtils.setField(client, "hedgePercentile", 0.95);
+        ReflectionTestUtils.setField(client, "hedgeMinDelay", Duration.ofMillis(50));
+        ReflectionTestUtils.setField(client, "failureRateThreshold", 0.5);
+        ReflectionTestUtils.setField(client, "windowSize", 20);
+        ReflectionTestUtils.setField(client, "minimumCalls", 10);
+        ReflectionTestUtils.setField(client, "openDuration", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(client, "halfOpenCalls", 2);
+        overrides.forEach((field, value) -> ReflectionTestUtils.setField(client, field, value));
+        client.init();
+        return client;
+    }
+}
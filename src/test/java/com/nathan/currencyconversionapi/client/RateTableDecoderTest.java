@@ -0,0 +1,85 @@
+package com.nathan.currencyconversionapi.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nathan.currencyconversionapi.exception.CurrencyConversionException;
+import com.nathan.currencyconversionapi.model.ExchangeRateApiResponse;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateTableDecoderTest {
+
+    private final RateTableDecoder decoder = new RateTableDecoder();
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    @Test
+    void decodesChunkedResponseLikeDataBinding() throws IOException {
+        byte[] json = fixture("USD");
+        List<DataBuffer> chunks = chunks(json, 7);
+
+        RateTable decoded = decode(Flux.fromIterable(chunks));
+
+        RateTable expected = RateTable.from(new ObjectMapper().readValue(json, ExchangeRateApiResponse.class));
+        assertThat(decoded.getBaseCurrency()).isEqualTo("USD");
+        assertThat(decoded.getLastUpdateEpochSecond()).isEqualTo(expected.getLastUpdateEpochSecond());
+        assertThat(decoded.getNextUpdateEpochSecond()).isEqualTo(expected.getNextUpdateEpochSecond());
+        assertThat(decoded.toMap()).isEqualTo(expected.toMap());
+        assertThat(chunks).allMatch(chunk -> !((PooledDataBuffer) chunk).isAllocated());
+    }
+
+    @Test
+    void failsOnErrorResponses() {
+        byte[] json = "{\"result\":\"error\",\"error-type\":\"unsupported-code\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> decode(Flux.fromIterable(chunks(json, 16))))
+                .isInstanceOf(CurrencyConversionException.class);
+    }
+
+    @Test
+    void failsOnTruncatedResponsesAndReleasesBuffers() throws IOException {
+        byte[] json = fixture("EUR");
+        List<DataBuffer> chunks = chunks(json, 64);
+        DataBufferUtils.release(chunks.remove(chunks.size() - 1));
+
+        assertThatThrownBy(() -> decode(Flux.fromIterable(chunks)))
+                .isInstanceOf(DecodingException.class);
+        assertThat(chunks).allMatch(chunk -> !((PooledDataBuffer) chunk).isAllocated());
+    }
+
+    private RateTable decode(Flux<DataBuffer> body) {
+        return decoder.decodeToMono(body, ResolvableType.forClass(RateTable.class), MediaType.APPLICATION_JSON, null)
+                .block();
+    }
+
+    private List<DataBuffer> chunks(byte[] json, int chunkSize) {
+        List<DataBuffer> chunks = new ArrayList<>();
+        for (int offset = 0; offset < json.length; offset += chunkSize) {
+            int length = Math.min(chunkSize, json.length - offset);
+            chunks.add(bufferFactory.allocateBuffer(length).write(json, offset, length));
+        }
+        return chunks;
+    }
+
+    private byte[] fixture(String base) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/fixtures/exchangerate-latest-" + base + ".json")) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.nathan.currencyconversionapi.codec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nathan.currencyconversionapi.model.ConversionResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinaryFormatsTest {
+
+    @Test
+    void encodesTimestampsAsEpochMillisAndReadsThemBack() throws IOException {
+        LocalDateTime convertedAt = LocalDateTime.of(2026, 1, 15, 12, 30, 45, 123_000_000);
+        ConversionResult result = ConversionResult.builder()
+                .sourceCurrency("USD")
+                .targetCurrency("EUR")
+                .sourceAmount(100.0)
+                .targetAmount(91.68)
+                .exchangeRate(0.9168)
+                .timestamp(convertedAt)
+                .rateTimestamp(Instant.parse("2026-01-15T00:00:01Z"))
+                .build();
+
+        for (ObjectMapper mapper : new ObjectMapper[]{BinaryFormats.CBOR_MAPPER, BinaryFormats.SMILE_MAPPER}) {
+            byte[] encoded = mapper.writeValueAsBytes(result);
+            JsonNode tree = mapper.readTree(encoded);
+
+            assertThat(tree.get("timestamp").asLong())
+                    .isEqualTo(convertedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            assertThat(tree.get("rateTimestamp").asLong()).isEqualTo(1768435201000L);
+            assertThat(mapper.readValue(encoded, ConversionResult.class)).isEqualTo(result);
+        }
+    }
+
+    @Test
+    void negotiatesTheAcceptedBinaryFormatAndDefaultsToJson() {
+        assertThat(WireFormat.negotiate(MediaType.parseMediaTypes("application/cbor"))).isEqualTo(WireFormat.CBOR);
+        assertThat(WireFormat.negotiate(MediaType.parseMediaTypes("application/json;q=0.5, application/x-jackson-smile")))
+                .isEqualTo(WireFormat.SMILE);
+        assertThat(WireFormat.negotiate(MediaType.parseMediaTypes("*/*"))).isEqualTo(WireFormat.JSON);
+        assertThat(WireFormat.negotiate(MediaType.parseMediaTypes(""))).isEqualTo(WireFormat.JSON);
+    }
+}
@@ -0,0 +1,205 @@
+package com.nathan.currencyconversionapi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nathan.currencyconversionapi.audit.AuditJournal;
+import com.nathan.currencyconversionapi.cache.RateSnapshotCache;
+import com.nathan.currencyconversionapi.cache.TestRateSnapshotCaches;
+import com.nathan.currencyconversionapi.config.BinaryCodecsConfig;
+import com.nathan.currencyconversionapi.history.RateHistoryStore;
+import com.nathan.currencyconversionapi.metrics.ConversionMetrics;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import com.nathan.currencyconversionapi.service.CurrencyConversionServiceImpl;
+import com.nathan.currencyconversionapi.service.RateCatalogService;
+import com.nathan.currencyconversionapi.service.RateStreamService;
+import com.nathan.currencyconversionapi.support.StubRateProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.RoundingMode;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CurrencyConversionControllerTest {
+
+    private final long now = System.currentTimeMillis() / 1000;
+    private final StubRateProvider provider = new StubRateProvider(base -> snapshot(now - 60, now + 3_600));
+
+    private RateSnapshotCache cache;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        cache = TestRateSnapshotCaches.of(provider);
+
+        CurrencyConversionServiceImpl conversionService = new CurrencyConversionServiceImpl(cache,
+                new RateHistoryStore(cache), new ConversionMetrics(new SimpleMeterRegistry()), new AuditJournal());
+        ReflectionTestUtils.setField(conversionService, "pivotCurrency", "USD");
+        ReflectionTestUtils.setField(conversionService, "batchChunkSize", 64);
+        ReflectionTestUtils.setField(conversionService, "roundingMode", RoundingMode.HALF_EVEN);
+        RateCatalogService catalogService = new RateCatalogService(cache, new ObjectMapper());
+        ReflectionTestUtils.setField(catalogService, "catalogBase", "USD");
+        ReflectionTestUtils.setField(catalogService, "pivotCurrency", "USD");
+
+        client = WebTestClient.bindToController(new CurrencyConversionController(conversionService,
+                        new RateStreamService(cache), catalogService))
+                .httpMessageCodecs(new BinaryCodecsConfig()::configureHttpMessageCodecs)
+                .build();
+    }
+
+    @Test
+    void conversionIsTaggedWithTheSnapshotAndRevalidatedWithoutConverting() {
+        String etag = client.get().uri("/api/currency/convert/USD/to/EUR?amount=100")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "W/\"USD-" + (now - 60) + "-json\"")
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .expectHeader().value(HttpHeaders.CACHE_CONTROL, cacheControl ->
+                        assertThat(maxAge(cacheControl)).isBetween(3_590L, 3_600L))
+                .expectBody().jsonPath("$.targetAmount").isEqualTo(90.0)
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+
+        client.get().uri("/api/currency/convert/USD/to/EUR?amount=100")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_MODIFIED)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+                .expectBody().isEmpty();
+
+        // A tag from an older snapshot gets the full response
+        client.get().uri("/api/currency/convert/USD/to/EUR?amount=100")
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"USD-" + (now - 86_400) + "-json\"")
+                .exchange()
+                .expectStatus().isOk();
+        assertThat(provider.calls("USD")).isEqualTo(1);
+    }
+
+    @Test
+    void tagOfOneFormatDoesNotRevalidateAnother() {
+        String jsonEtag = client.get().uri("/api/currency/rates/USD")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+
+        String cborEtag = client.get().uri("/api/currency/rates/USD")
+                .accept(MediaType.APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, jsonEtag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "W/\"USD-" + (now - 60) + "-cbor\"")
+                .expectBody()
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+        client.get().uri("/api/currency/rates/USD")
+                .accept(MediaType.APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, cborEtag)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        // Conversions are negotiated by the codecs, and tagged with the format they are written in
+        client.get().uri("/api/currency/convert/USD/to/EUR?amount=100")
+                .accept(MediaType.APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"USD-" + (now - 60) + "-json\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, cborEtag);
+    }
+
+    @Test
+    void rateTableOfAStaleSnapshotIsTaggedAsStaleUntilItIsRevalidated() {
+        cache.preload(snapshot(now - 86_400, now - 60));
+
+        String etag = client.get().uri("/api/currency/rates/USD")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "W/\"USD-" + (now - 86_400) + "-json-stale\"")
+                .expectHeader().value(HttpHeaders.CACHE_CONTROL, cacheControl -> assertThat(maxAge(cacheControl)).isZero())
+                .expectBody().jsonPath("$.rates.EUR").isEqualTo(0.9)
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+
+        // Serving the stale snapshot revalidated it, so the client's copy is replaced by the fresh one
+        String freshEtag = client.get().uri("/api/currency/rates/USD")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "W/\"USD-" + (now - 60) + "-json\"")
+                .expectBody().jsonPath("$.lastUpdate").isEqualTo(now - 60)
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+        assertThat(provider.calls("USD")).isEqualTo(1);
+
+        client.get().uri("/api/currency/rates/USD")
+                .header(HttpHeaders.IF_NONE_MATCH, freshEtag)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void catalogIsServedFromTheSameBytesUntilTheSnapshotChanges() {
+        byte[] first = client.get().uri("/api/currency/supported-currencies")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.version").isEqualTo(now - 60)
+                .jsonPath("$.currencies[*].code").isEqualTo(List.of("EUR", "JPY", "USD"))
+                .jsonPath("$.currencies[?(@.code == 'JPY')].minorUnits").isEqualTo(List.of(0))
+                .returnResult()
+                .getResponseBody();
+        // Writing the first response did not consume the cached body
+        byte[] second = client.get().uri("/api/currency/supported-currencies")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .returnResult()
+                .getResponseBody();
+        assertThat(second).isEqualTo(first);
+
+        cache.replicate(RateTable.builder()
+                .baseCurrency("USD")
+                .lastUpdateEpochSecond(now)
+                .nextUpdateEpochSecond(now + 3_600)
+                .rate(CurrencyIndex.intern("EUR"), 0.9)
+                .rate(CurrencyIndex.intern("GBP"), 0.8)
+                .build());
+        client.get().uri("/api/currency/supported-currencies")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "W/\"USD-" + now + "-json\"")
+                .expectBody()
+                .jsonPath("$.version").isEqualTo(now)
+                .jsonPath("$.currencies[*].code").isEqualTo(List.of("EUR", "GBP", "USD"));
+    }
+
+    private static long maxAge(String cacheControl) {
+        assertThat(cacheControl).contains("public");
+        return Long.parseLong(cacheControl.replaceAll(".*max-age=(\\d+).*", "$1"));
+    }
+
+    private static RateTable snapshot(long lastUpdate, long nextUpdate) {
+        return RateTable.builder()
+                .baseCurrency("USD")
+                .lastUpdateEpochSecond(lastUpdate)
+                .nextUpdateEpochSecond(nextUpdate)
+                .rate(CurrencyIndex.intern("EUR"), 0.9)
+                .rate(CurrencyIndex.intern("JPY"), 150.0)
+                .build();
+    }
+}
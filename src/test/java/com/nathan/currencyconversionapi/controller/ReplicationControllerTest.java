@@ -0,0 +1,62 @@
+package com.nathan.currencyconversionapi.controller;
+
+import com.nathan.currencyconversionapi.cache.RateSnapshotCache;
+import com.nathan.currencyconversionapi.cache.SnapshotFileStore;
+import com.nathan.currencyconversionapi.cache.TestRateSnapshotCaches;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import com.nathan.currencyconversionapi.replication.LeaderElection;
+import com.nathan.currencyconversionapi.replication.ReplicationLog;
+import com.nathan.currencyconversionapi.support.StubRateProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicationControllerTest {
+
+    private static final String SELF = "http://localhost:8081";
+    private static final String OTHER = "http://localhost:8082";
+    private static final String TOKEN = "secret";
+
+    private final StubRateProvider provider = new StubRateProvider(base -> RateTable.builder()
+            .baseCurrency(base)
+            .lastUpdateEpochSecond(100)
+            .nextUpdateEpochSecond(System.currentTimeMillis() / 1000 + 3_600)
+            .rate(CurrencyIndex.intern("EUR"), 0.9)
+            .build());
+
+    @Test
+    void onlyTheLeaderFetchesAMissedSnapshotForAFollower() {
+        ReplicationController follower = controller(OTHER);
+        assertThat(follower.snapshot("USD", TOKEN).block().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(provider.calls("USD")).isZero();
+
+        ReplicationController leader = controller(SELF);
+        assertThat(leader.snapshot("USD", "forged").block().getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        ResponseEntity<ByteBuffer> served = leader.snapshot("USD", TOKEN).block();
+        assertThat(served.getStatusCode()).isEqualTo(HttpStatus.OK);
+        List<RateTable> snapshots = SnapshotFileStore.decode(served.getBody());
+        assertThat(snapshots).extracting(RateTable::getVersion).containsExactly(100L);
+        assertThat(provider.calls("USD")).isEqualTo(1);
+    }
+
+    /**
+     * Creates the controller of an instance that takes the given peer for the leader.
+     */
+    private ReplicationController controller(String leader) {
+        LeaderElection election = new LeaderElection(null);
+        ReflectionTestUtils.setField(election, "enabled", true);
+        ReflectionTestUtils.setField(election, "selfUrl", SELF);
+        ReflectionTestUtils.setField(election, "leader", leader);
+        RateSnapshotCache cache = TestRateSnapshotCaches.of(provider);
+        ReplicationController controller = new ReplicationController(election, new ReplicationLog(cache), cache);
+        ReflectionTestUtils.setField(controller, "token", TOKEN);
+        return controller;
+    }
+}
@@ -0,0 +1,139 @@
+package com.nathan.currencyconversionapi.history;
+
+import com.nathan.currencyconversionapi.cache.TestRateSnapshotCaches;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import com.nathan.currencyconversionapi.support.StubRateProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateHistoryStoreTest {
+
+    private static final long DAY = 86_400;
+
+    @TempDir
+    Path directory;
+
+    private final long now = Instant.now().getEpochSecond();
+    private final List<RateHistoryStore> stores = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        stores.forEach(RateHistoryStore::stop);
+    }
+
+    @Test
+    void findsTheSnapshotInEffectAcrossSegments() {
+        RateHistoryStore store = store();
+        store.record(snapshot(100, "EUR", 0.90));
+        store.record(snapshot(200, "EUR", 0.91));
+        // A new currency starts a second segment
+        store.record(snapshot(300, "EUR", 0.92, "GBP", 0.78));
+        store.record(snapshot(400, "EUR", 0.93, "GBP", 0.79));
+
+        assertThat(segmentFiles()).hasSize(2);
+        assertThat(store.find("USD", Instant.ofEpochSecond(50))).isEmpty();
+        assertThat(rateOn(store, 100, "EUR")).isEqualTo(0.90);
+        assertThat(rateOn(store, 299, "EUR")).isEqualTo(0.91);
+        assertThat(store.find("USD", Instant.ofEpochSecond(299)).orElseThrow().contains(CurrencyIndex.idOf("GBP"))).isFalse();
+        assertThat(rateOn(store, 350, "GBP")).isEqualTo(0.78);
+        assertThat(rateOn(store, 10_000, "EUR")).isEqualTo(0.93);
+        assertThat(store.find("GBP", Instant.ofEpochSecond(350))).isEmpty();
+    }
+
+    @Test
+    void compactionKeepsTheSnapshotInEffectAtTheCutoffAndMergesSegmentsWithDifferentColumns() {
+        RateHistoryStore store = store();
+        ReflectionTestUtils.setField(store, "retention", Duration.ofDays(7));
+        store.record(snapshot(now - 20 * DAY, "EUR", 0.80));
+        store.record(snapshot(now - 12 * DAY, "EUR", 0.81, "GBP", 0.70));
+        store.record(snapshot(now - 10 * DAY, "EUR", 0.82, "GBP", 0.71));
+        store.record(snapshot(now - 6 * DAY, "EUR", 0.83, "GBP", 0.72, "JPY", 150.0));
+        store.record(snapshot(now - 3 * DAY, "EUR", 0.84, "GBP", 0.73, "JPY", 151.0));
+        store.record(snapshot(now - DAY, "EUR", 0.85, "GBP", 0.74, "JPY", 152.0, "CHF", 0.88));
+        assertThat(segmentFiles()).hasSize(4);
+
+        store.compact();
+
+        // The first segment is past retention; the next two are merged into one, the active one is left alone
+        assertThat(segmentFiles()).hasSize(2);
+        assertThat(store.find("USD", Instant.ofEpochSecond(now - 11 * DAY))).isEmpty();
+        RateTable atCutoff = store.find("USD", Instant.ofEpochSecond(now - 8 * DAY)).orElseThrow();
+        assertThat(atCutoff.rate(CurrencyIndex.idOf("EUR"))).isEqualTo(0.82);
+        assertThat(atCutoff.contains(CurrencyIndex.idOf("JPY"))).isFalse();
+        assertThat(rateOn(store, now - 4 * DAY, "JPY")).isEqualTo(150.0);
+        assertThat(rateOn(store, now - 3 * DAY, "GBP")).isEqualTo(0.73);
+        assertThat(rateOn(store, now, "CHF")).isEqualTo(0.88);
+    }
+
+    @Test
+    void truncatesAPartialRowWhenASegmentIsOpened() throws IOException {
+        RateHistoryStore first = store();
+        first.record(snapshot(100, "EUR", 0.90));
+        first.record(snapshot(200, "EUR", 0.91));
+        first.stop();
+
+        Path segment = segmentFiles().get(0);
+        long complete = Files.size(segment);
+        Files.write(segment, new byte[]{1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+        RateHistoryStore reopened = store();
+        reopened.start();
+        assertThat(Files.size(segment)).isEqualTo(complete);
+        assertThat(rateOn(reopened, 250, "EUR")).isEqualTo(0.91);
+
+        reopened.record(snapshot(300, "EUR", 0.92));
+        assertThat(rateOn(reopened, 300, "EUR")).isEqualTo(0.92);
+        assertThat(rateOn(reopened, 150, "EUR")).isEqualTo(0.90);
+    }
+
+    private RateHistoryStore store() {
+        RateHistoryStore store = new RateHistoryStore(TestRateSnapshotCaches.of(StubRateProvider.none()));
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "directory", directory);
+        ReflectionTestUtils.setField(store, "retention", Duration.ofDays(3650));
+        ReflectionTestUtils.setField(store, "maxSegmentRows", 8192);
+        stores.add(store);
+        return store;
+    }
+
+    private List<Path> segmentFiles() {
+        try (Stream<Path> files = Files.list(directory.resolve("USD"))) {
+            return files.filter(file -> file.toString().endsWith(".seg")).sorted().toList();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static double rateOn(RateHistoryStore store, long epochSecond, String currency) {
+        return store.find("USD", Instant.ofEpochSecond(epochSecond)).orElseThrow().rate(CurrencyIndex.idOf(currency));
+    }
+
+    /**
+     * Builds a USD snapshot from alternating currency codes and rates.
+     */
+    private static RateTable snapshot(long lastUpdate, Object... currenciesAndRates) {
+        RateTable.Builder builder = RateTable.builder()
+                .baseCurrency("USD")
+                .lastUpdateEpochSecond(lastUpdate)
+                .nextUpdateEpochSecond(lastUpdate + DAY);
+        for (int i = 0; i < currenciesAndRates.length; i += 2) {
+            builder.rate(CurrencyIndex.intern((String) currenciesAndRates[i]), (Double) currenciesAndRates[i + 1]);
+        }
+        return builder.build();
+    }
+}
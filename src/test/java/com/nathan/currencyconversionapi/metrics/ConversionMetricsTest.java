@@ -0,0 +1,58 @@
+package com.nathan.currencyconversionapi.metrics;
+
+import com.nathan.currencyconversionapi.exception.CurrencyConversionException;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConversionMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ConversionMetrics metrics = new ConversionMetrics(registry);
+
+    @Test
+    void tagsUpstreamCallsByBaseCurrencyAndOutcome() {
+        CurrencyIndex.intern("USD");
+        metrics.timeUpstreamCall("USD", Mono.just("rates")).block();
+        metrics.timeUpstreamCall("USD", Mono.just("rates")).block();
+        metrics.timeUpstreamCall("USD", Mono.empty()).block();
+        metrics.timeUpstreamCall("USD", Mono.error(new IllegalStateException("down")))
+                .onErrorResume(error -> Mono.empty())
+                .block();
+        // Codes the index does not know share one series
+        metrics.timeUpstreamCall("QQQ", Mono.just("rates")).block();
+        metrics.timeUpstreamCall("not a code", Mono.just("rates")).block();
+
+        assertThat(upstreamCount("USD", "success")).isEqualTo(2);
+        assertThat(upstreamCount("USD", "error")).isEqualTo(2);
+        assertThat(upstreamCount("other", "success")).isEqualTo(2);
+        assertThat(registry.find(ConversionMetrics.UPSTREAM_TIMER).timers()).hasSize(3);
+    }
+
+    @Test
+    void tagsConversionsByOutcomeAndErrorsByExceptionAndStatus() {
+        metrics.timeConversion(Mono.just(1.0)).block();
+        metrics.timeConversion(Mono.error(new CurrencyConversionException("Currency QQQ is not supported")))
+                .onErrorResume(error -> Mono.empty())
+                .block();
+        metrics.recordError(new CurrencyConversionException("Currency QQQ is not supported"), 400);
+        metrics.recordError(new CurrencyConversionException("Amount must be greater than zero"), 400);
+
+        assertThat(registry.get(ConversionMetrics.CONVERSION_TIMER).tag("outcome", "success").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get(ConversionMetrics.CONVERSION_TIMER).tag("outcome", "error").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get(ConversionMetrics.ERROR_COUNTER)
+                .tag("exception", "CurrencyConversionException")
+                .tag("status", "400")
+                .counter().count())
+                .isEqualTo(2);
+    }
+
+    private long upstreamCount(String base, String outcome) {
+        return registry.get(ConversionMetrics.UPSTREAM_TIMER).tag("base", base).tag("outcome", outcome).timer().count();
+    }
+}
@@ -0,0 +1,105 @@
+package com.nathan.currencyconversionapi.money;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FixedPointMoneyTest {
+
+    @Test
+    void convertsAtTheExactDecimalRate() {
+        // 1234.56 EUR with 0.8625 EUR and 153.27 JPY per USD
+        long eur = FixedPointMoney.toMinorUnits(1234.56, 2, RoundingMode.HALF_EVEN);
+        long jpy = FixedPointMoney.convert(eur, 2, FixedPointMoney.scaleRate(0.8625),
+                0, FixedPointMoney.scaleRate(153.27), RoundingMode.HALF_EVEN);
+
+        assertThat(eur).isEqualTo(123_456);
+        // 1234.56 * 153.27 / 0.8625 = 219386.68...
+        assertThat(jpy).isEqualTo(219_387);
+        assertThat(FixedPointMoney.toDouble(123_456, 2)).isEqualTo(1234.56);
+    }
+
+    @Test
+    void roundsToTheMinorUnitWithTheConfiguredMode() {
+        assertThat(FixedPointMoney.toMinorUnits(10.005, 2, RoundingMode.HALF_EVEN)).isEqualTo(1000);
+        assertThat(FixedPointMoney.toMinorUnits(10.005, 2, RoundingMode.HALF_UP)).isEqualTo(1001);
+        assertThat(FixedPointMoney.toMinorUnits(0.29, 2, RoundingMode.UNNECESSARY)).isEqualTo(29);
+        assertThatThrownBy(() -> FixedPointMoney.toMinorUnits(1.001, 2, RoundingMode.UNNECESSARY))
+                .isInstanceOf(ArithmeticException.class);
+
+        // 1.00 USD to KWD at 0.3065 per USD is 306.5 fils, a tie at the fils
+        long rate = FixedPointMoney.scaleRate(0.3065);
+        assertThat(FixedPointMoney.convert(100, 2, FixedPointMoney.ONE, 3, rate, RoundingMode.HALF_EVEN)).isEqualTo(306);
+        assertThat(FixedPointMoney.convert(100, 2, FixedPointMoney.ONE, 3, rate, RoundingMode.HALF_UP)).isEqualTo(307);
+        assertThat(FixedPointMoney.convert(100, 2, FixedPointMoney.ONE, 3, rate, RoundingMode.DOWN)).isEqualTo(306);
+    }
+
+    @Test
+    void convertsAmountsFinerThanTheMinorUnitAsGiven() {
+        assertThat(FixedPointMoney.amountScale(10.5, 2)).isEqualTo(2);
+        assertThat(FixedPointMoney.amountScale(0.001, 2)).isEqualTo(3);
+        assertThat(FixedPointMoney.amountScale(1.5, 0)).isEqualTo(1);
+        assertThat(FixedPointMoney.amountScale(1.0 / 3, 2)).isEqualTo(FixedPointMoney.MAX_AMOUNT_SCALE);
+        assertThat(FixedPointMoney.amountScale(1e15, 2)).isEqualTo(2);
+
+        // 0.001 USD at 153.27 JPY per USD is 0.15 yen, 0.007 USD is 1.07 yen
+        long rate = FixedPointMoney.scaleRate(153.27);
+        assertThat(FixedPointMoney.convert(1, 3, FixedPointMoney.ONE, 0, rate, RoundingMode.HALF_EVEN)).isZero();
+        assertThat(FixedPointMoney.convert(7, 3, FixedPointMoney.ONE, 0, rate, RoundingMode.HALF_EVEN)).isEqualTo(1);
+        // 0.001 USD at 0.3065 KWD per USD is 0.3065 fils
+        assertThat(FixedPointMoney.convert(1, 3, FixedPointMoney.ONE, 3, FixedPointMoney.scaleRate(0.3065),
+                RoundingMode.UP)).isEqualTo(1);
+    }
+
+    @Test
+    void matchesBigDecimalAcrossMagnitudesAndModes() {
+        SplittableRandom random = new SplittableRandom(42);
+        RoundingMode[] modes = {RoundingMode.HALF_EVEN, RoundingMode.HALF_UP, RoundingMode.HALF_DOWN,
+                RoundingMode.UP, RoundingMode.DOWN};
+        for (int i = 0; i < 100_000; i++) {
+            long amount = random.nextLong(1, i % 2 == 0 ? 10_000_000L : 1_000_000_000_000_000L);
+            long sourceRate = random.nextLong(1, 1_000_000_000_000_000L);
+            long targetRate = random.nextLong(1, 1_000_000_000_000_000L);
+            int sourceMinorUnits = random.nextInt(0, 5);
+            int targetMinorUnits = random.nextInt(0, 5);
+            RoundingMode mode = modes[i % modes.length];
+
+            Long expected;
+            try {
+                expected = FixedPointMoney.convertExact(amount, sourceMinorUnits, sourceRate,
+                        targetMinorUnits, targetRate, mode);
+            } catch (ArithmeticException ex) {
+                expected = null;
+            }
+            if (expected == null) {
+                assertThatThrownBy(() -> FixedPointMoney.convert(amount, sourceMinorUnits, sourceRate,
+                        targetMinorUnits, targetRate, mode)).isInstanceOf(ArithmeticException.class);
+            } else {
+                assertThat(FixedPointMoney.convert(amount, sourceMinorUnits, sourceRate,
+                        targetMinorUnits, targetRate, mode)).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void divides128BitNumbers() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 100_000; i++) {
+            long divisor = random.nextLong(1, Long.MAX_VALUE);
+            long high = random.nextLong(0, divisor);
+            long low = random.nextLong();
+            BigInteger dividend = BigInteger.valueOf(high).shiftLeft(64)
+                    .add(new BigInteger(Long.toUnsignedString(low)));
+
+            long quotient = FixedPointMoney.divide128(high, low, divisor);
+
+            assertThat(new BigInteger(Long.toUnsignedString(quotient)))
+                    .isEqualTo(dividend.divide(BigInteger.valueOf(divisor)));
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.nathan.currencyconversionapi.provider;
+
+import com.nathan.currencyconversionapi.exception.CurrencyConversionException;
+import com.nathan.currencyconversionapi.exception.ExchangeRateServiceUnavailableException;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateProviderSelectorTest {
+
+    @Test
+    void returnsTheFastestOfTheRacedProviders() {
+        StubProvider slow = new StubProvider("slow", "mirrors", false, () -> rates(0.90).delayElement(Duration.ofMillis(300)));
+        StubProvider fast = new StubProvider("fast", "mirrors", false, () -> rates(0.92).delayElement(Duration.ofMillis(10)));
+        RateProviderSelector selector = selector(List.of(slow, fast), 2);
+
+        RateTable snapshot = selector.getLatestRates("USD").block();
+
+        assertThat(snapshot.rate(CurrencyIndex.idOf("EUR"))).isEqualTo(0.92);
+        assertThat(slow.calls.get()).isEqualTo(1);
+        // The cancelled provider is measured as at least as slow as the winner
+        assertThat(health(selector, "slow").getLatencyNanos())
+                .isGreaterThanOrEqualTo(health(selector, "fast").getLatencyNanos());
+    }
+
+    @Test
+    void racesNeitherProvidersOfAnotherCoverageNorMeteredProviders() {
+        StubProvider complete = new StubProvider("complete", false, () -> rates(0.90).delayElement(Duration.ofMillis(100)));
+        StubProvider partial = new StubProvider("partial", false, () -> rates(0.92));
+        RateProviderSelector selector = selector(List.of(complete, partial), 2);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(selector.getLatestRates("USD").block().rate(CurrencyIndex.idOf("EUR"))).isEqualTo(0.90);
+        }
+        assertThat(partial.calls.get()).isZero();
+
+        StubProvider metered = new StubProvider("metered", "mirrors", true, false,
+                () -> rates(0.90).delayElement(Duration.ofMillis(100)));
+        StubProvider mirror = new StubProvider("mirror", "mirrors", false, () -> rates(0.92));
+        RateProviderSelector meteredFirst = selector(List.of(metered, mirror), 2);
+
+        assertThat(meteredFirst.getLatestRates("USD").block().rate(CurrencyIndex.idOf("EUR"))).isEqualTo(0.90);
+        assertThat(mirror.calls.get()).isZero();
+    }
+
+    @Test
+    void probesADegradedProviderOfAMorePreferredCoverageAlone() {
+        AtomicInteger failures = new AtomicInteger(1);
+        StubProvider preferred = new StubProvider("preferred", false, () -> failures.getAndDecrement() > 0
+                ? Mono.error(new ExchangeRateServiceUnavailableException("down"))
+                : rates(0.90));
+        StubProvider other = new StubProvider("other", false, () -> rates(0.92));
+        RateProviderSelector selector = selector(List.of(preferred, other), 2);
+        ReflectionTestUtils.setField(selector, "probeInterval", Duration.ZERO);
+
+        assertThat(selector.getLatestRates("USD").block().rate(CurrencyIndex.idOf("EUR"))).isEqualTo(0.92);
+        assertThat(selector.isDegraded("preferred")).isTrue();
+
+        // The recovered provider answers its probe and the other one is not called
+        assertThat(selector.getLatestRates("USD").block().rate(CurrencyIndex.idOf("EUR"))).isEqualTo(0.90);
+        assertThat(other.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void routesAwayFromAFailingProviderAndOnlyProbesIt() {
+        StubProvider failing = new StubProvider("failing", false,
+                () -> Mono.error(new ExchangeRateServiceUnavailableException("down")));
+        StubProvider healthy = new StubProvider("healthy", false, () -> rates(0.92).delayElement(Duration.ofMillis(5)));
+        RateProviderSelector selector = selector(List.of(failing, healthy), 1);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(selector.getLatestRates("USD").block()).isNotNull();
+        }
+
+        assertThat(selector.isDegraded("failing")).isTrue();
+        assertThat(selector.isDegraded("healthy")).isFalse();
+        // The first call ran into the failure, the second probed the degraded provider once
+        assertThat(failing.calls.get()).isEqualTo(2);
+        assertThat(healthy.calls.get()).isEqualTo(4);
+    }
+
+    @Test
+    void fallsBackOnlyWhenEveryPrimaryProviderFails() {
+        StubProvider primary = new StubProvider("primary", false,
+                () -> Mono.error(new ExchangeRateServiceUnavailableException("down")));
+        StubProvider fallback = new StubProvider("fallback", true, () -> rates(0.5));
+        RateProviderSelector selector = selector(List.of(fallback, primary), 2);
+
+        RateTable snapshot = selector.getLatestRates("USD").block();
+
+        assertThat(snapshot.rate(CurrencyIndex.idOf("EUR"))).isEqualTo(0.5);
+        assertThat(primary.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void reportsARejectedRequestRatherThanUnavailability() {
+        StubProvider unavailable = new StubProvider("unavailable", false,
+                () -> Mono.error(new ExchangeRateServiceUnavailableException("down")));
+        StubProvider rejecting = new StubProvider("rejecting", false,
+                () -> Mono.error(new CurrencyConversionException("Failed to retrieve exchange rates")));
+        RateProviderSelector selector = selector(List.of(unavailable, rejecting), 2);
+
+        assertThatThrownBy(() -> selector.getLatestRates("XYZ").block())
+                .isInstanceOf(CurrencyConversionException.class);
+        assertThat(selector.isDegraded("rejecting")).isFalse();
+    }
+
+    private static RateProviderSelector selector(List<RateProvider> providers, int raceWidth) {
+        RateProviderSelector selector = new RateProviderSelector(providers);
+        ReflectionTestUtils.setField(selector, "order", providers.stream().map(RateProvider::getName).toList());
+        ReflectionTestUtils.setField(selector, "deadline", Duration.ofSeconds(2));
+        ReflectionTestUtils.setField(selector, "raceWidth", raceWidth);
+        ReflectionTestUtils.setField(selector, "ewmaAlpha", 0.5);
+        ReflectionTestUtils.setField(selector, "errorThreshold", 0.5);
+        ReflectionTestUtils.setField(selector, "probeInterval", Duration.ofHours(1));
+        selector.init();
+        return selector;
+    }
+
+    private static ProviderHealth health(RateProviderSelector selector, String name) {
+        return selector.getHealth().stream()
+                .filter(health -> health.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static Mono<RateTable> rates(double eurRate) {
+        return Mono.just(RateTable.builder()
+                .baseCurrency("USD")
+                .lastUpdateEpochSecond(1_768_435_201L)
+                .rate(CurrencyIndex.intern("EUR"), eurRate)
+                .build());
+    }
+
+    /**
+     * Local provider answering every call from a supplier and counting the calls.
+     */
+    private static final class StubProvider implements RateProvider {
+
+        private final String name;
+        private final String coverage;
+        private final boolean metered;
+        private final boolean fallback;
+        private final Supplier<Mono<RateTable>> answer;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private StubProvider(String name, boolean fallback, Supplier<Mono<RateTable>> answer) {
+            this(name, name, false, fallback, answer);
+        }
+
+        private StubProvider(String name, String coverage, boolean fallback, Supplier<Mono<RateTable>> answer) {
+            this(name, coverage, false, fallback, answer);
+        }
+
+        private StubProvider(String name, String coverage, boolean metered, boolean fallback,
+                             Supplier<Mono<RateTable>> answer) {
+            this.name = name;
+            this.coverage = coverage;
+            this.metered = metered;
+            this.fallback = fallback;
+            this.answer = answer;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean isFallback() {
+            return fallback;
+        }
+
+        @Override
+        public String getCoverage() {
+            return coverage;
+        }
+
+        @Override
+        public boolean isMetered() {
+            return metered;
+        }
+
+        @Override
+        public Mono<RateTable> getLatestRates(String baseCurrency) {
+            return Mono.defer(() -> {
+                calls.incrementAndGet();
+                return answer.get();
+            });
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.nathan.currencyconversionapi.quota;
+
+import com.nathan.currencyconversionapi.support.MutableClock;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpstreamQuotaBudgetTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void movesFromPacedSpendingToSnapshotOnlyAndExhaustion() {
+        UpstreamQuotaBudget budget = budget("2026-04-01T00:00:00Z");
+
+        // A day ahead of pace: 95 non-reserved calls over April's 30 days
+        consume(budget, 3);
+        assertThat(budget.getMode()).isEqualTo(UpstreamQuotaBudget.Mode.THROTTLED);
+        assertThat(budget.refreshAllowance()).isZero();
+
+        consume(budget, 92);
+        assertThat(budget.getMode()).isEqualTo(UpstreamQuotaBudget.Mode.SNAPSHOT_ONLY);
+        assertThat(budget.isSnapshotOnly()).isTrue();
+
+        consume(budget, 5);
+        assertThat(budget.getMode()).isEqualTo(UpstreamQuotaBudget.Mode.EXHAUSTED);
+        assertThat(budget.tryConsume()).isFalse();
+        assertThat(budget.getUsed()).isEqualTo(100);
+    }
+
+    @Test
+    void projectsExhaustionFromTheAverageRate() {
+        MutableClock clock = MutableClock.at("2026-04-01T00:00:00Z");
+        UpstreamQuotaBudget budget = budget(clock);
+        consume(budget, 2);
+        clock.set(Instant.parse("2026-04-11T00:00:00Z"));
+        consume(budget, 48);
+
+        assertThat(budget.projectedExhaustionEpochSecond())
+                .isEqualTo(Instant.parse("2026-04-21T00:00:00Z").getEpochSecond());
+        assertThat(budget.getMode()).isEqualTo(UpstreamQuotaBudget.Mode.THROTTLED);
+    }
+
+    @Test
+    void restoresCountersOfTheCurrentPeriodOnly() {
+        UpstreamQuotaBudget first = budget("2026-04-10T12:00:00Z");
+        consume(first, 7);
+        first.stop();
+
+        assertThat(budget("2026-04-30T23:59:59Z").getUsed()).isEqualTo(7);
+        assertThat(budget("2026-05-01T00:00:00Z").getUsed()).isZero();
+    }
+
+    /**
+     * Creates and starts a budget of 100 calls a month persisted in the temporary directory, at a fixed time.
+     */
+    private UpstreamQuotaBudget budget(String now) {
+        return budget(MutableClock.at(now));
+    }
+
+    private UpstreamQuotaBudget budget(MutableClock clock) {
+        UpstreamQuotaBudget budget = new UpstreamQuotaBudget(true, 100, 1, 0.05,
+                directory.resolve("quota.properties"), clock);
+        budget.start();
+        return budget;
+    }
+
+    private static void consume(UpstreamQuotaBudget budget, int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertThat(budget.tryConsume()).isTrue();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.nathan.currencyconversionapi.replication;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LeaderElectionTest {
+
+    private static final String A = "http://localhost:8081";
+    private static final String B = "http://localhost:8082";
+    private static final String C = "http://localhost:8083";
+    private static final List<String> PEERS = List.of(A, B, C);
+
+    @Test
+    void electsTheFirstLivePeerWhenNoneLeads() {
+        assertThat(LeaderElection.elect(PEERS, claims(A, null, B, null, C, null))).isEqualTo(A);
+        assertThat(LeaderElection.elect(PEERS, claims(B, A, C, A))).isEqualTo(B);
+    }
+
+    @Test
+    void keepsALiveLeaderWhenAPreferredPeerRejoins() {
+        assertThat(LeaderElection.elect(PEERS, claims(A, null, B, B, C, B))).isEqualTo(B);
+    }
+
+    @Test
+    void settlesOnThePreferredLeaderAfterASplit() {
+        assertThat(LeaderElection.elect(PEERS, claims(A, A, B, B, C, B))).isEqualTo(A);
+    }
+
+    @Test
+    void refusesToStartReplicationWithoutAToken() {
+        LeaderElection election = new LeaderElection(null);
+        ReflectionTestUtils.setField(election, "enabled", true);
+        ReflectionTestUtils.setField(election, "selfUrl", A);
+        ReflectionTestUtils.setField(election, "peers", PEERS);
+        ReflectionTestUtils.setField(election, "token", " ");
+
+        assertThatThrownBy(election::start)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("exchangerate.replication.token");
+        assertThat(election.getLeader()).isNull();
+    }
+
+    /**
+     * Builds the leader claimed by each live peer from alternating peers and claims.
+     */
+    private static Map<String, String> claims(String... peersAndLeaders) {
+        Map<String, String> claims = new HashMap<>();
+        for (int i = 0; i < peersAndLeaders.length; i += 2) {
+            claims.put(peersAndLeaders[i], peersAndLeaders[i + 1]);
+        }
+        return claims;
+    }
+}
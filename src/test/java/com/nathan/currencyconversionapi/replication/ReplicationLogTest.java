@@ -0,0 +1,66 @@
+package com.nathan.currencyconversionapi.replication;
+
+import com.nathan.currencyconversionapi.cache.RateSnapshotCache;
+import com.nathan.currencyconversionapi.cache.SnapshotFileStore;
+import com.nathan.currencyconversionapi.cache.TestRateSnapshotCaches;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import com.nathan.currencyconversionapi.support.StubRateProvider;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReplicationLogTest {
+
+    @Test
+    void servesOnlyTheSnapshotsChangedSinceTheLastPull() {
+        RateSnapshotCache leader = cache();
+        ReplicationLog log = new ReplicationLog(leader);
+        leader.preload(snapshot("USD", 1_000, 0.9));
+        leader.preload(snapshot("EUR", 1_000, 1.1));
+
+        SnapshotDelta full = log.since(0, 0);
+        assertThat(full.snapshots()).extracting(RateTable::getBaseCurrency).containsExactlyInAnyOrder("USD", "EUR");
+
+        leader.preload(snapshot("USD", 2_000, 0.91));
+        SnapshotDelta delta = log.since(full.epoch(), full.sequence());
+        assertThat(delta.snapshots()).extracting(RateTable::getVersion).containsExactly(2_000L);
+        assertThat(log.since(delta.epoch(), delta.sequence()).snapshots()).isEmpty();
+        assertThat(log.since(delta.epoch() + 1, delta.sequence()).snapshots()).hasSize(2);
+
+        RateSnapshotCache follower = cache();
+        List<RateTable> pulled = SnapshotFileStore.decode(SnapshotFileStore.encode(full.snapshots()));
+        pulled.forEach(follower::replicate);
+        assertThat(follower.replicate(snapshot("EUR", 1_000, 1.1))).isFalse();
+        assertThat(follower.replicate(SnapshotFileStore.decode(SnapshotFileStore.encode(delta.snapshots())).get(0)))
+                .isTrue();
+        assertThat(follower.peek("USD").rate(CurrencyIndex.idOf("EUR"))).isEqualTo(0.91);
+    }
+
+    @Test
+    void rejectsCorruptPayloads() {
+        ByteBuffer encoded = SnapshotFileStore.encode(List.of(snapshot("USD", 1_000, 0.9)));
+        encoded.put(encoded.limit() - 10, (byte) 0x7F);
+
+        assertThatThrownBy(() -> SnapshotFileStore.decode(encoded)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SnapshotFileStore.decode(encoded.limit(40))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static RateSnapshotCache cache() {
+        // Replicated caches do not call providers
+        return TestRateSnapshotCaches.of(StubRateProvider.none());
+    }
+
+    private static RateTable snapshot(String base, long version, double rate) {
+        String target = base.equals("USD") ? "EUR" : "USD";
+        return RateTable.builder()
+                .baseCurrency(base)
+                .lastUpdateEpochSecond(version)
+                .rate(CurrencyIndex.intern(target), rate)
+                .build();
+    }
+}
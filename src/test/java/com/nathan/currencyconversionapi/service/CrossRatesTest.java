@@ -0,0 +1,79 @@
+package com.nathan.currencyconversionapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nathan.currencyconversionapi.model.ExchangeRateApiResponse;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CrossRatesTest {
+
+    /**
+     * The provider publishes at least five significant digits, so a rate derived from two
+     * rounded pivot rates may drift by about one part in ten thousand from the direct quote.
+     */
+    private static final double MAX_RELATIVE_DEVIATION = 1e-4;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"EUR", "GBP", "JPY"})
+    void triangulatedRatesMatchDirectSnapshots(String base) throws IOException {
+        RateTable pivot = fixture("USD");
+        RateTable direct = fixture(base);
+
+        assertThat(maxRelativeDeviation(pivot, direct)).isLessThan(MAX_RELATIVE_DEVIATION);
+    }
+
+    @Test
+    void crossRateUsesPivotRatesDirectlyForThePivotCurrency() throws IOException {
+        RateTable pivot = fixture("USD");
+        int usd = CurrencyIndex.idOf("USD");
+        int eur = CurrencyIndex.idOf("EUR");
+
+        assertThat(pivot.crossRate(usd, eur)).isEqualTo(pivot.rate(eur));
+        assertThat(pivot.crossRate(eur, usd)).isEqualTo(1.0 / pivot.rate(eur));
+    }
+
+    @Test
+    void crossRateIsNaNForUnknownCurrencies() throws IOException {
+        RateTable pivot = fixture("USD");
+        int eur = CurrencyIndex.idOf("EUR");
+
+        assertThat(pivot.crossRate(CurrencyIndex.idOf("XYZ"), eur)).isNaN();
+        assertThat(pivot.crossRate(eur, CurrencyIndex.idOf("XYZ"))).isNaN();
+    }
+
+    /**
+     * Compares the rates {@link RateTable#crossRate(int, int)} derives from a pivot snapshot with a snapshot
+     * fetched directly for another base.
+     *
+     * @return The largest relative deviation between derived and direct rates over the currencies both contain
+     */
+    private static double maxRelativeDeviation(RateTable pivot, RateTable direct) {
+        double maxDeviation = 0.0;
+        for (int i = 0; i < direct.size(); i++) {
+            int currencyId = direct.currencyIdAt(i);
+            double expected = direct.rate(currencyId);
+            double derived = pivot.crossRate(direct.getBaseId(), currencyId);
+            if (Double.isNaN(derived) || expected == 0.0) {
+                continue;
+            }
+            maxDeviation = Math.max(maxDeviation, Math.abs(derived - expected) / expected);
+        }
+        return maxDeviation;
+    }
+
+    private RateTable fixture(String base) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/fixtures/exchangerate-latest-" + base + ".json")) {
+            return RateTable.from(objectMapper.readValue(in, ExchangeRateApiResponse.class));
+        }
+    }
+}
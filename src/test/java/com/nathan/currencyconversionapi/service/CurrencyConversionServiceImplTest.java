@@ -0,0 +1,121 @@
+package com.nathan.currencyconversionapi.service;
+
+import com.nathan.currencyconversionapi.audit.AuditJournal;
+import com.nathan.currencyconversionapi.cache.RateSnapshotCache;
+import com.nathan.currencyconversionapi.cache.TestRateSnapshotCaches;
+import com.nathan.currencyconversionapi.exception.CurrencyConversionException;
+import com.nathan.currencyconversionapi.history.RateHistoryStore;
+import com.nathan.currencyconversionapi.metrics.ConversionMetrics;
+import com.nathan.currencyconversionapi.model.BatchConversionItem;
+import com.nathan.currencyconversionapi.model.ConversionRequest;
+import com.nathan.currencyconversionapi.model.ConversionResult;
+import com.nathan.currencyconversionapi.model.FanOutConversionResult;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import com.nathan.currencyconversionapi.support.StubRateProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CurrencyConversionServiceImplTest {
+
+    private final StubRateProvider provider = new StubRateProvider(CurrencyConversionServiceImplTest::usdSnapshot);
+
+    private CurrencyConversionServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        RateSnapshotCache cache = TestRateSnapshotCaches.of(provider);
+
+        service = new CurrencyConversionServiceImpl(cache, new RateHistoryStore(cache),
+                new ConversionMetrics(new SimpleMeterRegistry()), new AuditJournal());
+        ReflectionTestUtils.setField(service, "pivotCurrency", "USD");
+        ReflectionTestUtils.setField(service, "batchChunkSize", 2);
+        ReflectionTestUtils.setField(service, "roundingMode", RoundingMode.HALF_EVEN);
+    }
+
+    @Test
+    void batchKeepsRequestOrderAndInlinesErrorsPerItem() {
+        List<BatchConversionItem> items = service.convertBatch(Flux.just(
+                        new ConversionRequest("GBP", "EUR", 10.0),
+                        new ConversionRequest("GBP", "JPY", 10.0),
+                        new ConversionRequest("USD", "EUR", 100.0),
+                        new ConversionRequest("USD", "JPY", 0.0),
+                        new ConversionRequest("GBP", "EUR", 5.0)))
+                .collectList()
+                .block();
+
+        assertThat(items).extracting(BatchConversionItem::getIndex).containsExactly(0L, 1L, 2L, 3L, 4L);
+        assertThat(items.get(0).getError().getStatus()).isEqualTo(503);
+        assertThat(items.get(1).getError().getStatus()).isEqualTo(503);
+        assertThat(items.get(2).getResult().getTargetAmount()).isEqualTo(90.0);
+        assertThat(items.get(3).getError().getStatus()).isEqualTo(400);
+        assertThat(items.get(3).getError().getMessage()).isEqualTo("Amount must be greater than zero");
+        assertThat(items.get(4).getError().getStatus()).isEqualTo(503);
+        // GBP is resolved once for the chunk holding items 0 and 1, and once more for the chunk holding item 4
+        assertThat(provider.calls("GBP")).isEqualTo(2);
+        assertThat(provider.calls("USD")).isEqualTo(1);
+    }
+
+    @Test
+    void convertsAmountsFinerThanTheMinorUnitAndOnlyRoundsTheResult() {
+        ConversionResult result = service.convertCurrency(new ConversionRequest("USD", "JPY", 1.004)).block();
+
+        assertThat(result.getSourceAmount()).isEqualTo(1.004);
+        // 150.6 yen; rounding the source to 1.00 USD first would give 150
+        assertThat(result.getTargetAmount()).isEqualTo(151.0);
+        assertThat(service.convertCurrency(new ConversionRequest("USD", "JPY", 0.004)).block().getTargetAmount())
+                .isEqualTo(1.0);
+        assertThat(service.convertCurrency(new ConversionRequest("USD", "EUR", 0.001)).block().getTargetAmount())
+                .isZero();
+        assertThatThrownBy(() -> service.convertCurrency(new ConversionRequest("USD", "EUR", 1e-9)).block())
+                .isInstanceOf(CurrencyConversionException.class)
+                .hasMessage("Amount must be at least 0.00000001 USD");
+    }
+
+    @Test
+    void fanOutConvertsTheRequestedSymbolsAndRejectsUnknownOnes() {
+        FanOutConversionResult all = service.convertToAll("USD", 100.0, List.of()).block();
+        assertThat(all.getAmounts()).isEqualTo(Map.of("EUR", 90.0, "JPY", 15_000.0));
+
+        FanOutConversionResult some = service.convertToAll("USD", 100.0, List.of("JPY")).block();
+        assertThat(some.getAmounts()).isEqualTo(Map.of("JPY", 15_000.0));
+
+        // A code nobody ever used fails before the snapshot is looked up
+        assertThatThrownBy(() -> service.convertToAll("USD", 100.0, List.of("EUR", "QZQ")).block())
+                .isInstanceOf(CurrencyConversionException.class)
+                .hasMessage("Currency QZQ is not supported");
+        // A known code missing from the snapshot fails the whole request rather than being left out
+        CurrencyIndex.intern("CHF");
+        assertThatThrownBy(() -> service.convertToAll("USD", 100.0, List.of("EUR", "CHF")).block())
+                .isInstanceOf(CurrencyConversionException.class)
+                .hasMessage("Target currency CHF not found in available rates");
+        assertThat(provider.calls("USD")).isEqualTo(1);
+    }
+
+    /**
+     * @return The USD rates the provider answers with, while every other base currency fails
+     */
+    private static RateTable usdSnapshot(String baseCurrency) {
+        if (!baseCurrency.equals("USD")) {
+            return null;
+        }
+        long now = System.currentTimeMillis() / 1000;
+        return RateTable.builder()
+                .baseCurrency("USD")
+                .lastUpdateEpochSecond(now - 3_600)
+                .nextUpdateEpochSecond(now + 86_400)
+                .rate(CurrencyIndex.intern("EUR"), 0.9)
+                .rate(CurrencyIndex.intern("JPY"), 150.0)
+                .build();
+    }
+}
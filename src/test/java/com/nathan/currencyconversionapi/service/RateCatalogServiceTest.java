@@ -0,0 +1,99 @@
+package com.nathan.currencyconversionapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nathan.currencyconversionapi.cache.RateSnapshotCache;
+import com.nathan.currencyconversionapi.cache.TestRateSnapshotCaches;
+import com.nathan.currencyconversionapi.codec.WireFormat;
+import com.nathan.currencyconversionapi.exception.CurrencyConversionException;
+import com.nathan.currencyconversionapi.model.CurrencyCatalog;
+import com.nathan.currencyconversionapi.model.CurrencyInfo;
+import com.nathan.currencyconversionapi.model.ExchangeRateApiResponse;
+import com.nathan.currencyconversionapi.model.RateUpdate;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import com.nathan.currencyconversionapi.support.StubRateProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateCatalogServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private RateSnapshotCache cache;
+    private RateCatalogService service;
+
+    @BeforeEach
+    void setUp() {
+        cache = TestRateSnapshotCaches.of(new StubRateProvider(this::fixture));
+
+        service = new RateCatalogService(cache, objectMapper);
+        ReflectionTestUtils.setField(service, "catalogBase", "USD");
+        ReflectionTestUtils.setField(service, "pivotCurrency", "USD");
+    }
+
+    @Test
+    void catalogListsTheSnapshotCurrenciesAndIsSerializedOncePerVersion() throws IOException {
+        RateCatalogService.Serialized first = service.catalog().block();
+        RateCatalogService.Serialized second = service.catalog().block();
+
+        assertThat(second).isSameAs(first);
+        CurrencyCatalog catalog = objectMapper.readValue(bytes(second.body(WireFormat.JSON)), CurrencyCatalog.class);
+        assertThat(catalog.getVersion()).isEqualTo(first.snapshot().getVersion());
+        assertThat(catalog.getCurrencies()).extracting(CurrencyInfo::getCode).contains("USD", "EUR", "JPY").isSorted();
+        assertThat(catalog.getCurrencies()).filteredOn(currency -> currency.getCode().equals("JPY"))
+                .singleElement()
+                .satisfies(jpy -> {
+                    assertThat(jpy.getName()).isEqualTo("Japanese Yen");
+                    assertThat(jpy.getMinorUnits()).isZero();
+                });
+
+        RateTable newer = RateTable.builder()
+                .baseCurrency("USD")
+                .lastUpdateEpochSecond(first.snapshot().getVersion() + 86_400)
+                .nextUpdateEpochSecond(Long.MAX_VALUE / 2)
+                .rate(CurrencyIndex.intern("EUR"), 0.9)
+                .build();
+        cache.preload(newer);
+        assertThat(service.catalog().block().snapshot()).isSameAs(newer);
+    }
+
+    @Test
+    void rateTablesAreDerivedFromThePivotWhenTriangulating() throws IOException {
+        ReflectionTestUtils.setField(service, "triangulationEnabled", true);
+
+        RateUpdate table = objectMapper.readValue(bytes(service.rateTable("eur").block().body(WireFormat.JSON)), RateUpdate.class);
+        RateTable pivot = cache.peek("USD");
+
+        assertThat(table.getBaseCurrency()).isEqualTo("EUR");
+        assertThat(table.getRates().get("USD"))
+                .isEqualTo(pivot.crossRate(CurrencyIndex.idOf("EUR"), CurrencyIndex.idOf("USD")));
+        assertThatThrownBy(() -> service.rateTable("XYZ").block())
+                .isInstanceOf(CurrencyConversionException.class);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * @return The recorded ExchangeRate API response for a base currency, from the test fixtures
+     */
+    private RateTable fixture(String baseCurrency) {
+        try (InputStream in = getClass().getResourceAsStream("/fixtures/exchangerate-latest-" + baseCurrency + ".json")) {
+            return RateTable.from(objectMapper.readValue(in, ExchangeRateApiResponse.class));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.nathan.currencyconversionapi.service;
+
+import com.nathan.currencyconversionapi.cache.RateSnapshotCache;
+import com.nathan.currencyconversionapi.cache.TestRateSnapshotCaches;
+import com.nathan.currencyconversionapi.rates.CurrencyIndex;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import com.nathan.currencyconversionapi.support.StubRateProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateStreamServiceTest {
+
+    private final long now = System.currentTimeMillis() / 1000;
+    private final StubRateProvider provider = new StubRateProvider(base -> snapshot(now - 60, 0.90, 150.0));
+
+    private RateSnapshotCache cache;
+    private RateStreamService service;
+
+    @BeforeEach
+    void setUp() {
+        cache = TestRateSnapshotCaches.of(provider);
+
+        service = new RateStreamService(cache);
+        ReflectionTestUtils.setField(service, "pivotCurrency", "USD");
+        ReflectionTestUtils.setField(service, "pollInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(service, "subscriberBuffer", 4);
+    }
+
+    @Test
+    void pushesOnlyTheFollowedRatesThatChanged() {
+        StepVerifier.create(service.streamRates("USD", List.of("EUR")))
+                .assertNext(update -> assertThat(update.getRates()).isEqualTo(Map.of("EUR", 0.90)))
+                // A new snapshot where only JPY moved is not pushed to a subscriber following EUR
+                .then(() -> cache.replicate(snapshot(now, 0.90, 151.0)))
+                .then(() -> cache.replicate(snapshot(now + 60, 0.91, 151.0)))
+                .assertNext(update -> {
+                    assertThat(update.getRates()).isEqualTo(Map.of("EUR", 0.91));
+                    assertThat(update.getLastUpdate()).isEqualTo(now + 60);
+                })
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void followsEveryCurrencyOfTheSnapshotWhenNoSymbolIsGiven() {
+        StepVerifier.create(service.streamRates("USD", List.of()))
+                .assertNext(update -> assertThat(update.getRates()).isEqualTo(Map.of("USD", 1.0, "EUR", 0.90, "JPY", 150.0)))
+                .then(() -> cache.replicate(snapshot(now, 0.90, 151.0)))
+                .assertNext(update -> assertThat(update.getRates()).isEqualTo(Map.of("JPY", 151.0)))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        assertThat(provider.calls("USD")).isEqualTo(1);
+    }
+
+    private static RateTable snapshot(long lastUpdate, double eur, double jpy) {
+        return RateTable.builder()
+                .baseCurrency("USD")
+                .lastUpdateEpochSecond(lastUpdate)
+                .nextUpdateEpochSecond(lastUpdate + 86_400)
+                .rate(CurrencyIndex.intern("EUR"), eur)
+                .rate(CurrencyIndex.intern("JPY"), jpy)
+                .build();
+    }
+}
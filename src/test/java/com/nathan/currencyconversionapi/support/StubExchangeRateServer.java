@@ -0,0 +1,324 @@
+package com.nathan.currencyconversionapi.support;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTP server answering like the ExchangeRate API, with injectable latency, errors and rate changes.
+ * Binds to a random port unless started from {@link #main(String[])}.
+ *
+ * <p>Responses are built from the recorded fixtures. Bases without a fixture are derived from the USD one,
+ * so every currency the provider quotes can be requested. When {@link #publishEvery(Duration)} is set,
+ * a new publication is simulated each period: the USD rates drift by a small random amount and the
+ * update timestamps move forward, as they do when the real provider publishes new rates.
+ * Payloads are rendered once per base and publication, so serving them costs no more than the real API.
+ */
+public final class StubExchangeRateServer implements AutoCloseable {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final DateTimeFormatter UTC_FORMAT = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    private final DisposableServer server;
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    /**
+     * Behaviours of the next requests, applied in order before falling back to the defaults
+     */
+    private final Queue<Behaviour> scripted = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Rendered payloads by base currency, for the current publication
+     */
+    private final Map<String, Payload> payloads = new ConcurrentHashMap<>();
+
+    /**
+     * The recorded USD response that other bases and publications are derived from
+     */
+    private final Map<String, Object> usdDocument = document("USD");
+
+    private final long startedAtNanos = System.nanoTime();
+
+    private volatile Duration latency = Duration.ZERO;
+    private volatile Duration latencyJitter = Duration.ZERO;
+    private volatile double errorRate;
+    private volatile Duration publishEvery = Duration.ZERO;
+    private volatile UsdRates usdRates;
+
+    private StubExchangeRateServer(int port) {
+        this.server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(port)
+                .route(routes -> routes.get("/v6/{key}/latest/{base}", this::latest))
+                .bindNow();
+    }
+
+    /**
+     * @return A started server
+     */
+    public static StubExchangeRateServer start() {
+        return start(0);
+    }
+
+    /**
+     * @param port The port to bind, 0 for a random one
+     * @return A started server
+     */
+    public static StubExchangeRateServer start(int port) {
+        return new StubExchangeRateServer(port);
+    }
+
+    /**
+     * Runs the server standalone until the process is stopped.
+     * Arguments: [port] [latency] [latency jitter] [error rate] [publication period],
+     * durations in ISO-8601 (e.g. PT0.05S), defaulting to 8089, PT0.05S, PT0.02S, 0 and PT1M.
+     */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        StubExchangeRateServer server = start(port)
+                .latency(Duration.parse(args.length > 1 ? args[1] : "PT0.05S"))
+                .latencyJitter(Duration.parse(args.length > 2 ? args[2] : "PT0.02S"))
+                .errorRate(args.length > 3 ? Double.parseDouble(args[3]) : 0)
+                .publishEvery(Duration.parse(args.length > 4 ? args[4] : "PT1M"));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.println("Mock ExchangeRate API listening on " + server.baseUrl());
+        server.server.onDispose().block();
+    }
+
+    /**
+     * @return The base URL to configure as exchangerate.api.base-url
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.port();
+    }
+
+    /**
+     * @return The number of requests received so far
+     */
+    public int requestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Delays every response that is not scripted.
+     *
+     * @param latency The delay before answering
+     */
+    public StubExchangeRateServer latency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Adds a uniformly distributed random delay to every response that is not scripted.
+     *
+     * @param latencyJitter The upper bound of the added delay
+     */
+    public StubExchangeRateServer latencyJitter(Duration latencyJitter) {
+        this.latencyJitter = latencyJitter;
+        return this;
+    }
+
+    /**
+     * Answers a share of the requests that are not scripted with a 500 status.
+     *
+     * @param errorRate The share of failed requests, between 0 and 1
+     */
+    public StubExchangeRateServer errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * Simulates a new publication of the rates every period; zero serves the recorded rates forever.
+     *
+     * @param publishEvery The period between two publications
+     */
+    public StubExchangeRateServer publishEvery(Duration publishEvery) {
+        this.publishEvery = publishEvery;
+        return this;
+    }
+
+    /**
+     * Answers the next requests with an error status.
+     *
+     * @param count The number of requests to fail
+     * @param status The HTTP status to answer
+     */
+    public StubExchangeRateServer failNext(int count, int status) {
+        for (int i = 0; i < count; i++) {
+            scripted.add(new Behaviour(Duration.ZERO, status));
+        }
+        return this;
+    }
+
+    /**
+     * Answers the next request successfully after a delay.
+     *
+     * @param delay The delay before answering
+     */
+    public StubExchangeRateServer delayNext(Duration delay) {
+        scripted.add(new Behaviour(delay, 200));
+        return this;
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+
+    private Mono<Void> latest(HttpServerRequest request, HttpServerResponse response) {
+        requestCount.incrementAndGet();
+        Behaviour behaviour = scripted.poll();
+        if (behaviour == null) {
+            behaviour = defaultBehaviour();
+        }
+        int status = behaviour.status();
+        String base = request.param("base");
+
+        Mono<Void> answer = Mono.defer(() -> {
+            byte[] body = status == 200 ? payload(base) : null;
+            if (body == null) {
+                return response.status(status == 200 ? HttpResponseStatus.NOT_FOUND : HttpResponseStatus.valueOf(status))
+                        .header("Content-Type", "application/json")
+                        .sendString(Mono.just("{\"result\":\"error\",\"error-type\":\"stub\"}"))
+                        .then();
+            }
+            return response.header("Content-Type", "application/json")
+                    .sendByteArray(Mono.just(body))
+                    .then();
+        });
+        return behaviour.delay().isZero() ? answer : Mono.delay(behaviour.delay()).then(answer);
+    }
+
+    private Behaviour defaultBehaviour() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Duration delay = latency;
+        if (!latencyJitter.isZero()) {
+            delay = delay.plusNanos(random.nextLong(latencyJitter.toNanos()));
+        }
+        int status = errorRate > 0 && random.nextDouble() < errorRate ? 500 : 200;
+        return new Behaviour(delay, status);
+    }
+
+    /**
+     * @return The response body for a base currency in the current publication, or null if the base is unknown
+     */
+    private byte[] payload(String base) {
+        long publication = currentPublication();
+        Payload cached = payloads.get(base);
+        if (cached != null && cached.publication() == publication) {
+            return cached.body();
+        }
+        byte[] body = publication == 0 ? fixture(base) : null;
+        if (body == null) {
+            body = derive(base, publication);
+        }
+        if (body != null) {
+            payloads.put(base, new Payload(publication, body));
+        }
+        return body;
+    }
+
+    private long currentPublication() {
+        Duration period = publishEvery;
+        return period.isZero() ? 0 : (System.nanoTime() - startedAtNanos) / period.toNanos();
+    }
+
+    /**
+     * Renders a base currency's response from the USD rates of a publication.
+     */
+    private byte[] derive(String base, long publication) {
+        Map<String, Double> rates = usdRatesAt(publication);
+        Double usdToBase = rates.get(base);
+        if (usdToBase == null) {
+            return null;
+        }
+
+        Map<String, Double> baseRates = new LinkedHashMap<>(rates.size() * 2);
+        baseRates.put(base, 1.0);
+        rates.forEach((currency, usdToCurrency) -> baseRates.putIfAbsent(currency, usdToCurrency / usdToBase));
+
+        long period = publishEvery.toSeconds();
+        long lastUpdate = ((Number) usdDocument.get("time_last_update_unix")).longValue() + publication * period;
+        long nextUpdate = period > 0 ? lastUpdate + period
+                : ((Number) usdDocument.get("time_next_update_unix")).longValue();
+
+        Map<String, Object> document = new LinkedHashMap<>(usdDocument);
+        document.put("time_last_update_unix", lastUpdate);
+        document.put("time_last_update_utc", UTC_FORMAT.format(Instant.ofEpochSecond(lastUpdate)));
+        document.put("time_next_update_unix", nextUpdate);
+        document.put("time_next_update_utc", UTC_FORMAT.format(Instant.ofEpochSecond(nextUpdate)));
+        document.put("base_code", base);
+        document.put("conversion_rates", baseRates);
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(document);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * @return The USD rates of a publication: the recorded ones, each publication drifting by up to about 0.2%
+     */
+    private Map<String, Double> usdRatesAt(long publication) {
+        UsdRates current = usdRates;
+        if (current != null && current.publication() == publication) {
+            return current.rates();
+        }
+        Map<String, Double> recorded = OBJECT_MAPPER.convertValue(usdDocument.get("conversion_rates"),
+                new TypeReference<LinkedHashMap<String, Double>>() { });
+        Map<String, Double> rates = new LinkedHashMap<>(recorded.size() * 2);
+        Random random = new Random(publication);
+        recorded.forEach((currency, rate) -> rates.put(currency,
+                "USD".equals(currency) || publication == 0 ? rate : rate * Math.exp(0.001 * random.nextGaussian())));
+        usdRates = new UsdRates(publication, rates);
+        return rates;
+    }
+
+    private static Map<String, Object> document(String base) {
+        try {
+            return OBJECT_MAPPER.readValue(fixture(base), new TypeReference<LinkedHashMap<String, Object>>() { });
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static byte[] fixture(String base) {
+        try (InputStream in = StubExchangeRateServer.class.getResourceAsStream("/fixtures/exchangerate-latest-" + base + ".json")) {
+            return in == null ? null : in.readAllBytes();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private record Behaviour(Duration delay, int status) {
+    }
+
+    private record Payload(long publication, byte[] body) {
+    }
+
+    private record UsdRates(long publication, Map<String, Double> rates) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.nathan.currencyconversionapi.support;
+
+import com.nathan.currencyconversionapi.exception.ExchangeRateServiceUnavailableException;
+import com.nathan.currencyconversionapi.provider.RateProvider;
+import com.nathan.currencyconversionapi.rates.RateTable;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Rate provider answering from a function of the base currency, counting the calls per base currency.
+ * Base currencies the function has no snapshot for fail as if the provider were unavailable.
+ */
+public class StubRateProvider implements RateProvider {
+
+    private final Function<String, RateTable> rates;
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    /**
+     * @param rates The snapshot of each base currency, null for none
+     */
+    public StubRateProvider(Function<String, RateTable> rates) {
+        this.rates = rates;
+    }
+
+    /**
+     * @return A provider without any rates, for caches that only hold the snapshots given to them
+     */
+    public static StubRateProvider none() {
+        return new StubRateProvider(baseCurrency -> null);
+    }
+
+    @Override
+    public String getName() {
+        return "stub";
+    }
+
+    @Override
+    public Mono<RateTable> getLatestRates(String baseCurrency) {
+        return Mono.fromCallable(() -> {
+            calls.computeIfAbsent(baseCurrency, base -> new AtomicInteger()).incrementAndGet();
+            RateTable snapshot = rates.apply(baseCurrency);
+            if (snapshot == null) {
+                throw new ExchangeRateServiceUnavailableException("No rates for " + baseCurrency);
+            }
+            return snapshot;
+        });
+    }
+
+    /**
+     * @return The number of calls for a base currency
+     */
+    public int calls(String baseCurrency) {
+        AtomicInteger count = calls.get(baseCurrency);
+        return count != null ? count.get() : 0;
+    }
+}